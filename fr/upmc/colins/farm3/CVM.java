@@ -5,7 +5,10 @@ import java.util.ArrayList;
 import fr.upmc.colins.farm3.admission.AdmissionControl;
 import fr.upmc.colins.farm3.connectors.ApplicationRequestServiceConnector;
 import fr.upmc.colins.farm3.cpu.Cpu;
+import fr.upmc.colins.farm3.generator.ClosedLoopRequestGenerator;
+import fr.upmc.colins.farm3.generator.OpenLoopRequestGenerator;
 import fr.upmc.colins.farm3.generator.RequestGenerator;
+import fr.upmc.colins.farm3.generator.TraceRequestGenerator;
 import fr.upmc.colins.farm3.utils.TimeProcessing;
 import fr.upmc.components.ComponentI.ComponentTask;
 import fr.upmc.components.cvm.AbstractCVM;
@@ -22,6 +25,27 @@ import fr.upmc.components.ports.PortI;
  * This main supports the following components : core, admission control,
  * request dispatcher, virtual machine, cpu
  *
+ * When the property <code>farm3.trace.file</code> is set, the requests are
+ * replayed from this trace by a <code>TraceRequestGenerator</code>, the
+ * property <code>farm3.trace.compression</code> giving its time compression
+ * factor. Otherwise, when the property <code>farm3.closedloop.clients</code>
+ * is set, a <code>ClosedLoopRequestGenerator</code> simulates this number of
+ * clients per application, thinking during <code>farm3.closedloop.think</code>
+ * milliseconds on average between a response and their next request. When
+ * the property <code>farm3.openloop.rate</code> is set, the requests are sent
+ * at this rate, in requests per second, on a fixed schedule by an
+ * <code>OpenLoopRequestGenerator</code>, with the number of sending threads
+ * given by <code>farm3.openloop.threads</code>.
+ *
+ * The applications are configured by the properties
+ * <code>farm3.app.&lt;id&gt;.&lt;key&gt;</code> read by the request
+ * generator; unless given on the command line, the CVM sets the dispatch
+ * policy of each application from <code>DISPATCH_POLICIES</code>, and its
+ * frequency controller and control period from
+ * <code>FREQUENCY_CONTROLLERS</code> and <code>CONTROL_PERIODS</code>, and
+ * its priority class and share of urgent requests from
+ * <code>PRIORITIES</code> and <code>URGENT_SHARES</code>.
+ *
  * <p>
  * How to launch : https://i.imgur.com/cvT1RMb.png
  * </p>
@@ -46,6 +70,10 @@ public class CVM extends AbstractCVM {
 	protected static final Double 		MAX_CLOCK_SPEED = 2.0;
 	/** the maximum clock speed	gap										*/
 	protected static final Double 		MAX_CLOCK_SPEED_GAP = 0.5;
+	/** the maximum number of requests queued or serviced by a core		*/
+	protected static final Integer 		CORE_QUEUE_CAPACITY = 16;
+	/** true if an urgent request preempts the processing of another one	*/
+	protected static final Boolean 		CORE_PREEMPTION = true;
 	/** the number of cpu in the cluster								*/
 	protected static final Long 		NROF_CPU = 4L;
 	/** the number of cores	in the cluster								*/
@@ -70,6 +98,18 @@ public class CVM extends AbstractCVM {
 	protected static final int 			TARGET_SERVICE_TIME = 500;
 	/** the flex time for target service time in milliseconds			*/
 	protected static final int 			FLEX_SERVICE_TIME = 200;
+	/** the dispatch policy of each application, unless configured		*/
+	protected static final String[] 	DISPATCH_POLICIES = {
+			"RoundRobinPolicy", "LeastOutstandingRequestsPolicy" };
+	/** the frequency controller of each application, unless configured	*/
+	protected static final String[] 	FREQUENCY_CONTROLLERS = {
+			"ThresholdFrequencyController", "PidFrequencyController" };
+	/** the control period of each application in ms, unless configured	*/
+	protected static final String[] 	CONTROL_PERIODS = { "1000", "500" };
+	/** the priority class of each application, unless configured		*/
+	protected static final String[] 	PRIORITIES = { "0", "1" };
+	/** the share of urgent requests of each application, unless configured */
+	protected static final String[] 	URGENT_SHARES = { "0.1", "0" };
 	
 	
 	// Components' URIs
@@ -123,6 +163,8 @@ public class CVM extends AbstractCVM {
 					CLOCK_SPEED, 
 					MAX_CLOCK_SPEED,
 					MAX_CLOCK_SPEED_GAP,
+					CORE_QUEUE_CAPACITY,
+					CORE_PREEMPTION,
 					CPU_CRAIP_PREFIX + i,
 					this
 					);
@@ -134,6 +176,8 @@ public class CVM extends AbstractCVM {
 
 		mAdmissionControl = new AdmissionControl(
 				NROF_CPU * NROF_CORES_PER_CPU, 
+				NROF_CORES_PER_CPU,
+				MAX_CLOCK_SPEED,
 				NROF_CORES_PER_VM, 
 				NROF_VM_PER_DISPATCHER, 
 				AC_CRGOP_PREFIX, 
@@ -146,17 +190,71 @@ public class CVM extends AbstractCVM {
 		//////////////
 		// Consumer	//	
 		//////////////
-		this.mRequestGenerator = new RequestGenerator(
-				NROF_APPS, 
-				MEAN_INTER_ARRIVAL_TIME, 
-				MEAN_NROF_INSTRUCTIONS, 
-				STANDARD_DEVIATION, 
-				BOOST_STEP,
-				TARGET_SERVICE_TIME,
-				FLEX_SERVICE_TIME,
-				RG_RGOP_PREFIX, 
-				RG_ARGOP
-				);
+		setDefaultAppProperties(RequestGenerator.POLICY_KEY, DISPATCH_POLICIES);
+		setDefaultAppProperties(RequestGenerator.CONTROLLER_KEY,
+				FREQUENCY_CONTROLLERS);
+		setDefaultAppProperties(RequestGenerator.PERIOD_KEY, CONTROL_PERIODS);
+		setDefaultAppProperties(RequestGenerator.PRIORITY_KEY, PRIORITIES);
+		setDefaultAppProperties(RequestGenerator.URGENT_KEY, URGENT_SHARES);
+		String traceFile = System.getProperty(TraceRequestGenerator.TRACE_PROPERTY);
+		if (traceFile != null) {
+			// replay a recorded trace instead of generating the requests
+			this.mRequestGenerator = new TraceRequestGenerator(
+					NROF_APPS, 
+					MEAN_INTER_ARRIVAL_TIME, 
+					MEAN_NROF_INSTRUCTIONS, 
+					STANDARD_DEVIATION, 
+					BOOST_STEP,
+					TARGET_SERVICE_TIME,
+					FLEX_SERVICE_TIME,
+					RG_RGOP_PREFIX, 
+					RG_ARGOP,
+					traceFile,
+					TraceRequestGenerator.getConfiguredCompression()
+					);
+		} else if (ClosedLoopRequestGenerator.getConfiguredNrofClients() > 0) {
+			// a fixed population of clients waiting for their responses
+			this.mRequestGenerator = new ClosedLoopRequestGenerator(
+					NROF_APPS, 
+					MEAN_INTER_ARRIVAL_TIME, 
+					MEAN_NROF_INSTRUCTIONS, 
+					STANDARD_DEVIATION, 
+					BOOST_STEP,
+					TARGET_SERVICE_TIME,
+					FLEX_SERVICE_TIME,
+					RG_RGOP_PREFIX, 
+					RG_ARGOP,
+					ClosedLoopRequestGenerator.getConfiguredNrofClients(),
+					ClosedLoopRequestGenerator.getConfiguredThinkTime()
+					);
+		} else if (OpenLoopRequestGenerator.getConfiguredRate() > 0.0) {
+			// send the requests on a fixed schedule at the configured rate
+			this.mRequestGenerator = new OpenLoopRequestGenerator(
+					NROF_APPS, 
+					MEAN_INTER_ARRIVAL_TIME, 
+					MEAN_NROF_INSTRUCTIONS, 
+					STANDARD_DEVIATION, 
+					BOOST_STEP,
+					TARGET_SERVICE_TIME,
+					FLEX_SERVICE_TIME,
+					RG_RGOP_PREFIX, 
+					RG_ARGOP,
+					OpenLoopRequestGenerator.getConfiguredRate(),
+					OpenLoopRequestGenerator.getConfiguredNrofThreads()
+					);
+		} else {
+			this.mRequestGenerator = new RequestGenerator(
+					NROF_APPS, 
+					MEAN_INTER_ARRIVAL_TIME, 
+					MEAN_NROF_INSTRUCTIONS, 
+					STANDARD_DEVIATION, 
+					BOOST_STEP,
+					TARGET_SERVICE_TIME,
+					FLEX_SERVICE_TIME,
+					RG_RGOP_PREFIX, 
+					RG_ARGOP
+					);
+		}
 		this.deployedComponents.add(this.mRequestGenerator);
 
 		// connect the request generator to the admission control (for applications)
@@ -167,6 +265,22 @@ public class CVM extends AbstractCVM {
 		super.deploy();
 	}
 
+	/**
+	 * set a setting of each application, unless it is given by a property
+	 * for this application or for all of them.
+	 * 
+	 * @param key		key of the setting
+	 * @param values	value of the setting for each application
+	 */
+	protected static void setDefaultAppProperties(String key, String[] values) {
+		for (int i = 0; i < values.length; i++) {
+			if (RequestGenerator.getAppProperty(i, key) == null) {
+				System.setProperty(RequestGenerator.getAppPropertyName(i, key),
+						values[i]);
+			}
+		}
+	}
+
 	/**
 	 * disconnect the request generator from the service provider component and
 	 * then shut down all of the components.
@@ -187,6 +301,8 @@ public class CVM extends AbstractCVM {
 		//////////////
 		// Consumer	//	
 		//////////////
+		// release the deployed applications, giving their cores back
+		this.mRequestGenerator.releaseApplications();
 		// disconnect the request generator from the admission control (for applications)
 		PortI consumerPort = this.mRequestGenerator.findPortFromURI(RG_ARGOP);
 		consumerPort.doDisconnection();
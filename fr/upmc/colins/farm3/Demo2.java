@@ -39,6 +39,10 @@ public class Demo2 extends AbstractCVM {
 	protected static final Double 		MAX_CLOCK_SPEED = 3.0;
 	/** the maximum clock speed	gap										*/
 	protected static final Double 		MAX_CLOCK_SPEED_GAP = 0.5;
+	/** the maximum number of requests queued or serviced by a core		*/
+	protected static final Integer 		CORE_QUEUE_CAPACITY = 16;
+	/** true if an urgent request preempts the processing of another one	*/
+	protected static final Boolean 		CORE_PREEMPTION = true;
 	/** the number of cpu in the cluster								*/
 	protected static final Long 		NROF_CPU = 1L;
 	/** the number of cores	in the cluster								*/
@@ -116,6 +120,8 @@ public class Demo2 extends AbstractCVM {
 					CLOCK_SPEED, 
 					MAX_CLOCK_SPEED,
 					MAX_CLOCK_SPEED_GAP,
+					CORE_QUEUE_CAPACITY,
+					CORE_PREEMPTION,
 					CPU_CRAIP_PREFIX + i,
 					this
 					);
@@ -127,6 +133,8 @@ public class Demo2 extends AbstractCVM {
 
 		mAdmissionControl = new AdmissionControl(
 				NROF_CPU * NROF_CORES_PER_CPU, 
+				NROF_CORES_PER_CPU,
+				MAX_CLOCK_SPEED,
 				NROF_CORES_PER_VM, 
 				NROF_VM_PER_DISPATCHER, 
 				AC_CRGOP_PREFIX, 
@@ -181,6 +189,8 @@ public class Demo2 extends AbstractCVM {
 		//////////////
 		// Consumer	//	
 		//////////////
+		// release the deployed applications, giving their cores back
+		this.mRequestGenerator.releaseApplications();
 		// disconnect the request generator from the admission control (for applications)
 		PortI consumerPort = this.mRequestGenerator.findPortFromURI(RG_ARGOP);
 		consumerPort.doDisconnection();
@@ -5,7 +5,10 @@ import java.util.ArrayList;
 import fr.upmc.colins.farm3.admission.AdmissionControl;
 import fr.upmc.colins.farm3.connectors.ApplicationRequestServiceConnector;
 import fr.upmc.colins.farm3.cpu.Cpu;
+import fr.upmc.colins.farm3.generator.ClosedLoopRequestGenerator;
+import fr.upmc.colins.farm3.generator.OpenLoopRequestGenerator;
 import fr.upmc.colins.farm3.generator.RequestGenerator;
+import fr.upmc.colins.farm3.generator.TraceRequestGenerator;
 import fr.upmc.colins.farm3.utils.TimeProcessing;
 import fr.upmc.components.ComponentI.ComponentTask;
 import fr.upmc.components.cvm.AbstractDistributedCVM;
@@ -49,6 +52,10 @@ public class DistributedCVM extends AbstractDistributedCVM {
 	protected static final Double 		MAX_CLOCK_SPEED = 2.0;
 	/** the maximum clock speed	gap										*/
 	protected static final Double 		MAX_CLOCK_SPEED_GAP = 0.5;
+	/** the maximum number of requests queued or serviced by a core		*/
+	protected static final Integer 		CORE_QUEUE_CAPACITY = 16;
+	/** true if an urgent request preempts the processing of another one	*/
+	protected static final Boolean 		CORE_PREEMPTION = true;
 	/** the number of cpu in the cluster								*/
 	protected static final Long 		NROF_CPU = 1L;
 	/** the number of cores	in the cluster								*/
@@ -146,6 +153,8 @@ public class DistributedCVM extends AbstractDistributedCVM {
 						CLOCK_SPEED, 
 						MAX_CLOCK_SPEED,
 						MAX_CLOCK_SPEED_GAP,
+						CORE_QUEUE_CAPACITY,
+						CORE_PREEMPTION,
 						CPU_CRAIP_PREFIX + i,
 						this
 						);
@@ -158,6 +167,8 @@ public class DistributedCVM extends AbstractDistributedCVM {
 			// create the provider component (aka ServiceProvider)
 			this.mAdmissionControl = new AdmissionControl(
 					NROF_CPU * NROF_CORES_PER_CPU, 
+					NROF_CORES_PER_CPU,
+					MAX_CLOCK_SPEED,
 					NROF_CORES_PER_VM, 
 					NROF_VM_PER_DISPATCHER, 
 					AC_CRGOP_PREFIX, 
@@ -170,16 +181,61 @@ public class DistributedCVM extends AbstractDistributedCVM {
 		} else if (thisJVMURI.equals(CONSUMER_JVM_URI)) {
 
 			// create the consumer component
-			this.mRequestGenerator = new RequestGenerator(
-					NROF_APPS, 
-					MEAN_INTER_ARRIVAL_TIME, 
-					MEAN_NROF_INSTRUCTIONS, 
-					STANDARD_DEVIATION, 
-					BOOST_STEP,
-					TARGET_SERVICE_TIME,
-					FLEX_SERVICE_TIME,
-					RG_RGOP_PREFIX, 
-					RG_ARGOP);
+			String traceFile = System.getProperty(TraceRequestGenerator.TRACE_PROPERTY);
+			if (traceFile != null) {
+				// replay a recorded trace instead of generating the requests
+				this.mRequestGenerator = new TraceRequestGenerator(
+						NROF_APPS, 
+						MEAN_INTER_ARRIVAL_TIME, 
+						MEAN_NROF_INSTRUCTIONS, 
+						STANDARD_DEVIATION, 
+						BOOST_STEP,
+						TARGET_SERVICE_TIME,
+						FLEX_SERVICE_TIME,
+						RG_RGOP_PREFIX, 
+						RG_ARGOP,
+						traceFile,
+						TraceRequestGenerator.getConfiguredCompression());
+			} else if (ClosedLoopRequestGenerator.getConfiguredNrofClients() > 0) {
+				// a fixed population of clients waiting for their responses
+				this.mRequestGenerator = new ClosedLoopRequestGenerator(
+						NROF_APPS, 
+						MEAN_INTER_ARRIVAL_TIME, 
+						MEAN_NROF_INSTRUCTIONS, 
+						STANDARD_DEVIATION, 
+						BOOST_STEP,
+						TARGET_SERVICE_TIME,
+						FLEX_SERVICE_TIME,
+						RG_RGOP_PREFIX, 
+						RG_ARGOP,
+						ClosedLoopRequestGenerator.getConfiguredNrofClients(),
+						ClosedLoopRequestGenerator.getConfiguredThinkTime());
+			} else if (OpenLoopRequestGenerator.getConfiguredRate() > 0.0) {
+				// send the requests on a fixed schedule at the configured rate
+				this.mRequestGenerator = new OpenLoopRequestGenerator(
+						NROF_APPS, 
+						MEAN_INTER_ARRIVAL_TIME, 
+						MEAN_NROF_INSTRUCTIONS, 
+						STANDARD_DEVIATION, 
+						BOOST_STEP,
+						TARGET_SERVICE_TIME,
+						FLEX_SERVICE_TIME,
+						RG_RGOP_PREFIX, 
+						RG_ARGOP,
+						OpenLoopRequestGenerator.getConfiguredRate(),
+						OpenLoopRequestGenerator.getConfiguredNrofThreads());
+			} else {
+				this.mRequestGenerator = new RequestGenerator(
+						NROF_APPS, 
+						MEAN_INTER_ARRIVAL_TIME, 
+						MEAN_NROF_INSTRUCTIONS, 
+						STANDARD_DEVIATION, 
+						BOOST_STEP,
+						TARGET_SERVICE_TIME,
+						FLEX_SERVICE_TIME,
+						RG_RGOP_PREFIX, 
+						RG_ARGOP);
+			}
 			// add it to the deployed components
 			this.deployedComponents.add(mRequestGenerator);
 
@@ -289,6 +345,8 @@ public class DistributedCVM extends AbstractDistributedCVM {
 		} else if (thisJVMURI.equals(CONSUMER_JVM_URI)) {
 			// any disconnection not done yet should be performed here
 
+			// release the deployed applications, giving their cores back
+			mRequestGenerator.releaseApplications();
 			// disconnect the request generator from the admission control (for
 			// applications)
 			PortI consumerPort = mRequestGenerator.findPortFromURI(RG_ARGOP);
@@ -0,0 +1,84 @@
+package fr.upmc.colins.farm3;
+
+import fr.upmc.colins.farm3.generator.RequestGenerator;
+import fr.upmc.colins.farm3.simulation.DiscreteEventScheduler;
+import fr.upmc.colins.farm3.simulation.SimulationClock;
+import fr.upmc.colins.farm3.utils.TimeProcessing;
+import fr.upmc.components.ComponentI.ComponentService;
+
+/**
+ * The class <code>SimulatedCVM</code> contains the main used to launch the
+ * compute cluster simulation in virtual time. This main use only one JVM.
+ *
+ * <p>
+ * <strong>Description</strong>
+ * </p>
+ * 
+ * The same components as <code>CVM</code> are deployed, but the virtual-time
+ * mode is switched on before their creation: instead of sleeping, the main
+ * runs the discrete-event scheduler until <code>SIMULATED_DURATION</code>
+ * milliseconds of virtual time have elapsed, which takes as long as the
+ * processing of the events.
+ * 
+ * <p>
+ * Created on : march 2015
+ * </p>
+ * 
+ * @author Colins-Alasca
+ * @version $Name$ -- $Revision$ -- $Date$
+ */
+public class SimulatedCVM extends CVM {
+
+	protected static final String 		logId = "[  SIM CVM   ]";
+	// Settings
+	/** the duration of the simulation in virtual milliseconds			*/
+	protected static final long 		SIMULATED_DURATION = 3600000L;
+
+	/**
+	 * switch to virtual time, deploy the components, start them, launch the
+	 * request generation, run the simulation and then shut down.
+	 * 
+	 * <p>
+	 * <strong>Contract</strong>
+	 * </p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		// the virtual time starts at the current date so that the logs read
+		// as usual
+		long start = System.currentTimeMillis();
+		DiscreteEventScheduler scheduler = SimulationClock.useVirtualTime(start);
+		SimulatedCVM a = new SimulatedCVM();
+		try {
+			a.deploy();
+			System.out.println(logId + " Starting...");
+			a.start();
+
+			final RequestGenerator fcg = a.mRequestGenerator;
+			System.out.println(logId + " Kick start request at "
+					+ TimeProcessing.toString(SimulationClock.currentTimeMillis()));
+			SimulationClock.submit(fcg, new ComponentService<Void>() {
+				@Override
+				public Void call() throws Exception {
+					fcg.generateNextRequest();
+					return null;
+				}
+			});
+			long events = scheduler.runUntil(start + SIMULATED_DURATION);
+			System.out.println(logId + " Simulated " + SIMULATED_DURATION
+					+ " ms (" + events + " events) in "
+					+ (System.currentTimeMillis() - start) + " ms");
+			a.shutdown();
+			System.out.println(logId + " Ending...");
+			System.exit(0);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package fr.upmc.colins.farm3.actuator;
+
+import fr.upmc.colins.farm3.utils.ClockSpeedProcessing;
+
+/**
+ * The class <code>AbstractFrequencyController</code> implements the common
+ * part of the frequency controllers.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * It provides the factory used by the actuators to instantiate a controller
+ * from the canonical name of its class, and the rounding of the computed
+ * clock speeds to the resolution of the cores.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public abstract class	AbstractFrequencyController
+implements	FrequencyController
+{
+	/** resolution of the clock speed of the cores							*/
+	public static final double	CLOCK_SPEED_RESOLUTION = ClockSpeedProcessing.RESOLUTION ;
+
+	/**
+	 * round a clock speed up to the resolution of the cores, with the
+	 * resolution as a minimum.
+	 *
+	 * @param clockSpeed	the clock speed to be rounded
+	 * @return				the smallest clock speed of the cores above it
+	 */
+	protected static double	roundUp(double clockSpeed)
+	{
+		return Math.max(ClockSpeedProcessing.MIN_CLOCK_SPEED,
+						ClockSpeedProcessing.roundUp(clockSpeed)) ;
+	}
+
+	/**
+	 * instantiate a controller from the canonical name of its class.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	controllerClassName != null
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @param controllerClassName	canonical name of the controller class
+	 * @return						a new instance of the controller
+	 * @throws Exception			if the class does not implement a controller
+	 */
+	public static FrequencyController	newInstance(String controllerClassName)
+	throws Exception
+	{
+		assert	controllerClassName != null ;
+
+		Object controller = Class.forName(controllerClassName).newInstance() ;
+		if (!(controller instanceof FrequencyController)) {
+			throw new Exception(controllerClassName
+										+ " is not a frequency controller") ;
+		}
+		return (FrequencyController) controller ;
+	}
+}
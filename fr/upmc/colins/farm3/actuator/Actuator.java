@@ -2,13 +2,24 @@ package fr.upmc.colins.farm3.actuator;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import fr.upmc.colins.farm3.VerboseSettings;
+import fr.upmc.colins.farm3.admission.ApplicationScalingI;
+import fr.upmc.colins.farm3.connectors.ApplicationScalingConnector;
 import fr.upmc.colins.farm3.connectors.ControlRequestServiceConnector;
 import fr.upmc.colins.farm3.core.ControlRequestArrivalI;
-import fr.upmc.colins.farm3.core.ResponseArrivalI;
 import fr.upmc.colins.farm3.cpu.ControlRequestGeneratorOutboundPort;
-import fr.upmc.colins.farm3.objects.Response;
+import fr.upmc.colins.farm3.metrics.Counter;
+import fr.upmc.colins.farm3.metrics.Gauge;
+import fr.upmc.colins.farm3.metrics.Metric;
+import fr.upmc.colins.farm3.metrics.MetricsRegistry;
+import fr.upmc.colins.farm3.objects.ResponseSummary;
+import fr.upmc.colins.farm3.simulation.SimulationClock;
+import fr.upmc.colins.farm3.utils.QueueingModel;
 import fr.upmc.components.AbstractComponent;
 import fr.upmc.components.cvm.AbstractCVM;
 import fr.upmc.components.exceptions.ComponentShutdownException;
@@ -27,6 +38,24 @@ import fr.upmc.components.exceptions.ComponentShutdownException;
  * mean service time is too slow or if it is too fast.
  * A flex time is added to make the target service time for flexible.
  * 
+ * The request dispatcher sends a summary of its responses periodically
+ * (see <code>SummaryArrivalI</code>), which is only recorded when it
+ * arrives; the action is taken once per control period by a
+ * <code>FrequencyController</code>, chosen from the canonical name of its
+ * class, which computes the clock speed to be requested to the cores from
+ * the observations of the period.
+ * 
+ * When a scaling port is given, the actuator also changes the number of
+ * virtual machines of its application: it asks the admission control for one
+ * more virtual machine when the clock speed requested by the controller
+ * cannot be applied, or requests are rejected, during
+ * <code>SCALE_OUT_PERIODS</code> consecutive periods, and gives its last
+ * virtual machine back when an M/M/c model predicts that the other ones would
+ * meet the target at the current clock speed during
+ * <code>SCALE_IN_PERIODS</code> consecutive periods. No scaling is decided
+ * during <code>SCALING_COOLDOWN_PERIODS</code> periods after a scaling, so
+ * that the effect of the previous one is observed first.
+ * 
  * <p>
  * Created on : jan. 2015
  * </p>
@@ -38,6 +67,15 @@ public class			Actuator
 extends		AbstractComponent
 {
 
+	/** consecutive saturated periods before scaling out					*/
+	public static final int SCALE_OUT_PERIODS = 2;
+
+	/** consecutive underloaded periods before scaling in					*/
+	public static final int SCALE_IN_PERIODS = 5;
+
+	/** periods without scaling decision after a scaling					*/
+	public static final int SCALING_COOLDOWN_PERIODS = 3;
+
 	/** log constant	 													*/
 	protected String logId;
     
@@ -50,6 +88,66 @@ extends		AbstractComponent
 	/** flex time for target service time in milliseconds					*/
 	private long flexServiceTime;
 
+	/** length of the control period in milliseconds						*/
+	protected long controlPeriod;
+
+	/** control law computing the clock speed of the cores					*/
+	protected FrequencyController controller;
+
+	/** observations given to the controller at each control period			*/
+	protected ControlObservation observation;
+
+	/** last mean service time received in the period, NaN if none		*/
+	protected double lastMeanServiceTime;
+
+	/** number of responses received during the current period				*/
+	protected final AtomicInteger nrofResponses;
+
+	/** number of rejections received during the current period			*/
+	protected final AtomicInteger nrofRejections;
+
+	/** coalescer of the clock speed decisions, one batch per cpu			*/
+	protected ClockSpeedCoalescer coalescer;
+
+	/** future of the next control task, null until the first summary		*/
+	protected Future<?> nextControlTaskFuture;
+
+	/** true when the component is shut down, no more control task then		*/
+	protected boolean controlStopped;
+
+	/** number of control events											*/
+	protected Counter nrofControlEvents;
+
+	/** number of control events which changed the clock speed				*/
+	protected Counter nrofControlActions;
+
+	/** number of batches of clock speed updates sent to the cpus			*/
+	protected Counter nrofClockSpeedBatches;
+
+	/** number of virtual machines obtained from the admission control		*/
+	protected Counter nrofScaleOuts;
+
+	/** number of virtual machines given back to the admission control		*/
+	protected Counter nrofScaleIns;
+
+	/** metrics registered by the actuator									*/
+	protected List<Metric> metrics;
+
+	/** number of cores of each virtual machine								*/
+	protected int nrofCoresPerVM;
+
+	/** outbound port to the admission control, null if no scaling			*/
+	protected ApplicationScalingOutboundPort scalingOutboundPort;
+
+	/** number of consecutive periods during which the cores saturated		*/
+	protected int nrofSaturatedPeriods;
+
+	/** number of consecutive periods during which a vm was not needed		*/
+	protected int nrofUnderloadedPeriods;
+
+	/** number of periods left before the next scaling decision			*/
+	protected int scalingCooldown;
+
 	
 	// -------------------------------------------------------------------------
 	// Constructors and instance variables
@@ -59,12 +157,17 @@ extends		AbstractComponent
 	/** identifier 															*/
 	protected final Integer id;
 	
-	/** inbound ports for each cores (to obtain the response) 				*/
-	protected ActuatorResponseArrivalInboundPort respAip;
+	/** inbound port receiving the summaries of the request dispatcher	*/
+	protected ActuatorSummaryArrivalInboundPort respAip;
 
-	protected ArrayList<ControlRequestGeneratorOutboundPort> crgops;
-	
 	/** control outbound port to each port of cores							*/
+	protected ArrayList<ControlRequestGeneratorOutboundPort> crgops;
+
+	/** uris of the control inbound ports of the cores, in the same order	*/
+	protected ArrayList<String> crgopUris;
+
+	/** number of control outbound ports created, used to name them		*/
+	protected int nrofCrgopsCreated;
 	
 	
 	/**
@@ -85,10 +188,21 @@ extends		AbstractComponent
 	 * 				target service time (milliseconds)
 	 * @param flexServiceTime
 	 * 				flex service time (milliseconds)
+	 * @param frequencyController
+	 * 				canonical name of the class of the frequency controller
+	 * @param controlPeriod
+	 * 				length of the control period (milliseconds)
+	 * @param meanNrofInstructions
+	 * 				mean number of instructions of the requests of the app
 	 * @param actuatorResponseArrivalInboundPortUri
-	 * 				inbound port of the component for response arrival
+	 * 				inbound port of the component for summary arrival
 	 * @param assignedCoreControlRequestArrivalInboundPortUris
 	 * 				inbound port of the cores for updating the frequency
+	 * @param nrofCoresPerVM
+	 * 				number of cores of each virtual machine
+	 * @param scalingInboundPortUri
+	 * 				inbound port of the admission control scaling the
+	 * 				application, the empty string if it is not scaled
 	 * @throws Exception
 	 */
 	public				Actuator(
@@ -96,8 +210,13 @@ extends		AbstractComponent
 		Double boostStep,
 		Long targetServiceTime,
 		Long flexServiceTime,
+		String frequencyController,
+		Long controlPeriod,
+		Double meanNrofInstructions,
 		String actuatorResponseArrivalInboundPortUri,
-		ArrayList<String> assignedCoreControlRequestArrivalInboundPortUris
+		ArrayList<String> assignedCoreControlRequestArrivalInboundPortUris,
+		Integer nrofCoresPerVM,
+		String scalingInboundPortUri
 		) throws Exception
 	{
 		super(true, true) ;
@@ -109,10 +228,25 @@ extends		AbstractComponent
 		this.boostStep = boostStep;
 		this.targetServiceTime = targetServiceTime;
 		this.flexServiceTime = flexServiceTime;
+		this.controlPeriod = controlPeriod;
+		this.controller = AbstractFrequencyController.newInstance(frequencyController);
+		this.observation = new ControlObservation(targetServiceTime,
+				flexServiceTime, boostStep,
+				assignedCoreControlRequestArrivalInboundPortUris.size(),
+				meanNrofInstructions, controlPeriod);
+		this.lastMeanServiceTime = Double.NaN;
+		this.nrofResponses = new AtomicInteger();
+		this.nrofRejections = new AtomicInteger();
+		this.nextControlTaskFuture = null;
+		this.controlStopped = false;
+		this.nrofCoresPerVM = nrofCoresPerVM;
+		this.nrofSaturatedPeriods = 0;
+		this.nrofUnderloadedPeriods = 0;
+		this.scalingCooldown = 0;
 		
-		// inbound port for request arrival
-		this.addOfferedInterface(ResponseArrivalI.class) ;
-		this.respAip = new ActuatorResponseArrivalInboundPort(actuatorResponseArrivalInboundPortUri, this) ;
+		// inbound port for the summaries of the request dispatcher
+		this.addOfferedInterface(SummaryArrivalI.class) ;
+		this.respAip = new ActuatorSummaryArrivalInboundPort(actuatorResponseArrivalInboundPortUri, this) ;
 		
 		this.addPort(this.respAip) ;
 		if (AbstractCVM.isDistributed) {
@@ -123,26 +257,116 @@ extends		AbstractComponent
 		
 		this.addRequiredInterface(ControlRequestArrivalI.class);
 		this.crgops = new ArrayList<>();
+		this.crgopUris = new ArrayList<>();
+		this.nrofCrgopsCreated = 0;
 		// outbound port for control request to each cores
-		for (int i = 0; i < assignedCoreControlRequestArrivalInboundPortUris.size(); i++) {
-			ControlRequestGeneratorOutboundPort crgop = new ControlRequestGeneratorOutboundPort(
-					"actuator-" + id + "-" + i, this);
-			this.addPort(crgop);
-			this.crgops.add(crgop);
+		for (String uri : assignedCoreControlRequestArrivalInboundPortUris) {
+			this.addControlPort(uri);
+		}
+		this.coalescer = new ClockSpeedCoalescer(new ArrayList<>(this.crgops));
+
+		if (!scalingInboundPortUri.isEmpty()) {
+			this.addRequiredInterface(ApplicationScalingI.class);
+			this.scalingOutboundPort = new ApplicationScalingOutboundPort(
+					"actuator-scaling-" + id, this);
+			this.addPort(this.scalingOutboundPort);
 			if (AbstractCVM.isDistributed) {
-				crgop.publishPort();
+				this.scalingOutboundPort.publishPort();
 			} else {
-				crgop.localPublishPort();
+				this.scalingOutboundPort.localPublishPort();
 			}
-			crgop.doConnection(assignedCoreControlRequestArrivalInboundPortUris.get(i),
-					ControlRequestServiceConnector.class.getCanonicalName());					
+			this.scalingOutboundPort.doConnection(scalingInboundPortUri,
+					ApplicationScalingConnector.class.getCanonicalName());
 		}
-
+		this.registerMetrics();
 
 		System.out.println(logId + " Actuator (id " + id + ") created for app " + id) ;
 		assert	id != null;
 	}
 
+	/**
+	 * create and connect an outbound port to the control inbound port of a
+	 * core; the coalescer must be rebuilt afterwards.
+	 *
+	 * @param uri	uri of the control inbound port of the core
+	 * @throws Exception
+	 */
+	protected void			addControlPort(String uri) throws Exception {
+		ControlRequestGeneratorOutboundPort crgop = new ControlRequestGeneratorOutboundPort(
+				"actuator-" + this.id + "-" + this.nrofCrgopsCreated++, this);
+		this.addPort(crgop);
+		if (AbstractCVM.isDistributed) {
+			crgop.publishPort();
+		} else {
+			crgop.localPublishPort();
+		}
+		crgop.doConnection(uri,
+				ControlRequestServiceConnector.class.getCanonicalName());
+		synchronized (this.crgops) {
+			this.crgops.add(crgop);
+			this.crgopUris.add(uri);
+		}
+	}
+
+	/**
+	 * disconnect and destroy the outbound port to the control inbound port
+	 * of a core; the coalescer must be rebuilt afterwards.
+	 *
+	 * @param uri	uri of the control inbound port of the core
+	 * @throws Exception
+	 */
+	protected void			removeControlPort(String uri) throws Exception {
+		ControlRequestGeneratorOutboundPort crgop;
+		synchronized (this.crgops) {
+			int index = this.crgopUris.indexOf(uri);
+			if (index < 0) {
+				return;
+			}
+			this.crgopUris.remove(index);
+			crgop = this.crgops.remove(index);
+		}
+		if (crgop.connected()) {
+			crgop.doDisconnection();
+		}
+		crgop.destroyPort();
+	}
+
+	/**
+	 * register the metrics of the actuator: its control events and actions,
+	 * the batches of updates sent, and the last mean service time received.
+	 */
+	protected void			registerMetrics() {
+		final Actuator factuator = this;
+		String labels = "actuator=\"" + this.id + "\"";
+		this.metrics = new ArrayList<>();
+		this.nrofControlEvents = new Counter("actuator_control_events_total",
+				labels, "control periods evaluated by the controller");
+		this.nrofControlActions = new Counter("actuator_control_actions_total",
+				labels, "control periods which changed the clock speed");
+		this.nrofClockSpeedBatches = new Counter(
+				"actuator_clock_speed_batches_total", labels,
+				"batches of clock speed updates sent to the cpus, empty ones included");
+		this.metrics.add(this.nrofControlEvents);
+		this.metrics.add(this.nrofControlActions);
+		this.metrics.add(this.nrofClockSpeedBatches);
+		this.nrofScaleOuts = new Counter("actuator_scale_outs_total", labels,
+				"virtual machines obtained from the admission control");
+		this.nrofScaleIns = new Counter("actuator_scale_ins_total", labels,
+				"virtual machines given back to the admission control");
+		this.metrics.add(this.nrofScaleOuts);
+		this.metrics.add(this.nrofScaleIns);
+		this.metrics.add(new Gauge("actuator_mean_service_time_milliseconds",
+				labels, "mean service time of the last control period") {
+			@Override
+			public double getValue() {
+				return factuator.observation.getMeanServiceTime();
+			}
+		});
+		for (Metric m : this.metrics) {
+			MetricsRegistry.getDefault().register(m);
+		}
+	}
+
 	// -------------------------------------------------------------------------
 	// Component life-cycle
 	// -------------------------------------------------------------------------
@@ -164,15 +388,28 @@ extends		AbstractComponent
 	@Override
 	public void			shutdown() throws ComponentShutdownException
 	{
+		synchronized (this) {
+			this.controlStopped = true;
+			if (this.nextControlTaskFuture != null) {
+				this.nextControlTaskFuture.cancel(false);
+			}
+		}
 		try {
-			for (ControlRequestGeneratorOutboundPort controlRequestGeneratorOutboundPort : crgops) {
-				if (controlRequestGeneratorOutboundPort.connected()) {
-					controlRequestGeneratorOutboundPort.doDisconnection();
+			synchronized (this.crgops) {
+				for (ControlRequestGeneratorOutboundPort controlRequestGeneratorOutboundPort : crgops) {
+					if (controlRequestGeneratorOutboundPort.connected()) {
+						controlRequestGeneratorOutboundPort.doDisconnection();
+					}
 				}
 			}
+			if (this.scalingOutboundPort != null 
+					&& this.scalingOutboundPort.connected()) {
+				this.scalingOutboundPort.doDisconnection();
+			}
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
+		MetricsRegistry.getDefault().unregister(this.metrics);
 		super.shutdown();
 	}
 
@@ -182,31 +419,212 @@ extends		AbstractComponent
 	
 
 	/**
-	 * update the mean time of request processing (from the virtual machine)
-	 * and react
-	 * @param response the received response
+	 * record the summary of the responses sent by the request dispatcher;
+	 * the control period starts with the first summary.
+	 * @param summary the received summary
 	 * @throws Exception 
 	 */
-	public void 			responseArrivalEvent(Response response) throws Exception {	
+	public void 			summaryArrivalEvent(ResponseSummary summary) throws Exception {	
 		if(VerboseSettings.VERBOSE_ACTUATOR)
-			System.out.println(logId + " Received a new mean time from his request dispatcher of " + response.getDuration());
+			System.out.println(logId + " Received a summary from his request dispatcher : " + summary);
 		
-		// check if too slow
-		if (response.getDuration() > targetServiceTime + flexServiceTime) {
-			if(VerboseSettings.VERBOSE_ACTUATOR)
-				System.out.println(logId + " Will try to increase the clockspeed");
-			for (ControlRequestGeneratorOutboundPort port : crgops) {
-				port.updateClockSpeedPlease(port.getClockSpeed() + boostStep);
+		this.nrofRejections.addAndGet(summary.getNrofRejections());
+		this.nrofResponses.addAndGet(summary.getNrofResponses());
+		synchronized (this) {
+			if (summary.getMeanTime() > 0) {
+				this.lastMeanServiceTime = summary.getMeanTime();
+			}
+			if (this.nextControlTaskFuture == null) {
+				this.scheduleControl();
 			}
 		}
-		
-		// check if too fast
-		if (response.getDuration() < targetServiceTime - flexServiceTime) {
+	}
+
+	/**
+	 * schedule the next control event after one control period.
+	 */
+	protected synchronized void	scheduleControl() {
+		if (this.controlStopped) {
+			return;
+		}
+		final Actuator factuator = this;
+		final ComponentTask task = new ComponentTask() {
+			@Override
+			public void run() {
+				try {
+					factuator.controlEvent();
+				} catch (Exception e) {
+					e.printStackTrace();
+				} finally {
+					factuator.scheduleControl();
+				}
+			}};
+		this.nextControlTaskFuture = SimulationClock.schedule(this, task,
+				this.controlPeriod, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * process a control event: the controller is evaluated on the
+	 * observations of the period which just ended, and the clock speed it
+	 * computes is requested to every core if it differs from the current one.
+	 * The scaling of the application is considered before the decisions are
+	 * sent, with exactly one batch per cpu, empty without any decision, whose
+	 * answer refreshes the clock speeds observed at the next period. The
+	 * mean service time is only given for the period in which it was
+	 * received, and the clock speed is kept as is after a period without any
+	 * response nor rejection, so that the controller never acts again on the
+	 * measures of a previous period.
+	 * @throws Exception 
+	 */
+	public void 			controlEvent() throws Exception {
+		this.nrofControlEvents.inc();
+		double clockSpeed = this.coalescer.getMeanClockSpeed();
+		double meanServiceTime;
+		synchronized (this) {
+			meanServiceTime = this.lastMeanServiceTime;
+			this.lastMeanServiceTime = Double.NaN;
+		}
+		this.observation.update(meanServiceTime,
+				this.nrofResponses.getAndSet(0),
+				this.nrofRejections.getAndSet(0),
+				clockSpeed);
+
+		double newClockSpeed = clockSpeed;
+		if (this.observation.getNrofResponses() > 0
+				|| this.observation.getNrofRejections() > 0) {
+			newClockSpeed = this.controller.computeClockSpeed(this.observation);
+		}
+		if (this.scalingOutboundPort != null) {
+			this.scalingEvent(newClockSpeed);
+		}
+		if (Math.abs(newClockSpeed - clockSpeed) >= AbstractFrequencyController.CLOCK_SPEED_RESOLUTION / 2) {
 			if(VerboseSettings.VERBOSE_ACTUATOR)
-				System.out.println(logId + " Will try to decrease the clockspeed");
-			for (ControlRequestGeneratorOutboundPort port : crgops) {
-				port.updateClockSpeedPlease(port.getClockSpeed() - boostStep);
+				System.out.println(logId + " Will try to " 
+						+ (newClockSpeed > clockSpeed ? "increase" : "decrease")
+						+ " the clockspeed to " + newClockSpeed);
+			this.nrofControlActions.inc();
+			this.coalescer.decideAll(newClockSpeed);
+		}
+		this.nrofClockSpeedBatches.add(this.coalescer.flush());
+	}
+
+	/**
+	 * process a scaling event: the period which just ended is classified as
+	 * saturated if the requested clock speed could not be applied or requests
+	 * were rejected, and as underloaded if the application would meet its
+	 * target at the current clock speed without its last virtual machine;
+	 * the application is scaled once enough consecutive periods agree.
+	 *
+	 * @param requestedClockSpeed	clock speed computed by the controller
+	 * @throws Exception
+	 */
+	protected void			scalingEvent(double requestedClockSpeed) throws Exception {
+		if (this.scalingCooldown > 0) {
+			this.scalingCooldown--;
+			return;
+		}
+		double clockSpeed = this.coalescer.getMeanClockSpeed();
+		boolean saturated = this.observation.getNrofRejections() > 0
+				|| requestedClockSpeed - clockSpeed 
+					>= AbstractFrequencyController.CLOCK_SPEED_RESOLUTION / 2;
+		if (saturated) {
+			this.nrofUnderloadedPeriods = 0;
+			if (++this.nrofSaturatedPeriods >= SCALE_OUT_PERIODS) {
+				this.scaleOut(clockSpeed);
 			}
-		}		
+		} else if (this.isUnderloaded(clockSpeed)) {
+			this.nrofSaturatedPeriods = 0;
+			if (++this.nrofUnderloadedPeriods >= SCALE_IN_PERIODS) {
+				this.scaleIn();
+			}
+		} else {
+			this.nrofSaturatedPeriods = 0;
+			this.nrofUnderloadedPeriods = 0;
+		}
+	}
+
+	/**
+	 * return true if the cores of the application, but the ones of one
+	 * virtual machine, would keep the mean response time predicted by an
+	 * M/M/c model under the target minus the flex time at the given clock
+	 * speed, and the measured mean service time is under the target.
+	 *
+	 * @param clockSpeed	the current mean clock speed of the cores
+	 * @return				true if a virtual machine can be removed
+	 */
+	protected boolean		isUnderloaded(double clockSpeed) {
+		int c = this.observation.getNrofCores() - this.nrofCoresPerVM;
+		if (c <= 0) {
+			return false;
+		}
+		double mean = this.observation.getMeanServiceTime();
+		if (!Double.isNaN(mean) && mean > this.targetServiceTime) {
+			return false;
+		}
+		double lambda = this.observation.getArrivalRate();
+		if (lambda <= 0) {
+			return true;
+		}
+		double predicted = QueueingModel.meanResponseTime(c, lambda,
+				clockSpeed / this.observation.getMeanNrofInstructions());
+		return predicted <= this.targetServiceTime - this.flexServiceTime;
+	}
+
+	/**
+	 * ask the admission control for one more virtual machine, then control
+	 * the clock speed of its cores, set to the current one by the batches
+	 * sent at the end of the control event.
+	 *
+	 * @param clockSpeed	the current mean clock speed of the cores
+	 * @throws Exception
+	 */
+	protected void			scaleOut(double clockSpeed) throws Exception {
+		this.nrofSaturatedPeriods = 0;
+		this.scalingCooldown = SCALING_COOLDOWN_PERIODS;
+		ArrayList<String> added = this.scalingOutboundPort.scaleOut(this.id);
+		if (added.isEmpty()) {
+			if(VerboseSettings.VERBOSE_ACTUATOR)
+				System.out.println(logId + " Scale out refused by the admission control");
+			return;
+		}
+		for (String uri : added) {
+			this.addControlPort(uri);
+		}
+		this.coreSetChanged();
+		this.coalescer.decideAll(clockSpeed);
+		this.nrofScaleOuts.inc();
+		System.out.println(logId + " Scaled out to " + this.crgops.size() + " cores");
+	}
+
+	/**
+	 * give the last virtual machine of the application back to the admission
+	 * control, then stop controlling its cores.
+	 *
+	 * @throws Exception
+	 */
+	protected void			scaleIn() throws Exception {
+		this.nrofUnderloadedPeriods = 0;
+		this.scalingCooldown = SCALING_COOLDOWN_PERIODS;
+		ArrayList<String> removed = this.scalingOutboundPort.scaleIn(this.id);
+		if (removed.isEmpty()) {
+			return;
+		}
+		for (String uri : removed) {
+			this.removeControlPort(uri);
+		}
+		this.coreSetChanged();
+		this.nrofScaleIns.inc();
+		System.out.println(logId + " Scaled in to " + this.crgops.size() + " cores");
+	}
+
+	/**
+	 * rebuild the coalescer and the observation after cores were added or
+	 * removed; the identifiers of the cores are queried again.
+	 */
+	protected void			coreSetChanged() {
+		synchronized (this.crgops) {
+			this.coalescer = new ClockSpeedCoalescer(new ArrayList<>(this.crgops));
+			this.observation.setNrofCores(this.crgops.size());
+		}
 	}
 }
@@ -0,0 +1,78 @@
+package fr.upmc.colins.farm3.actuator;
+
+import fr.upmc.colins.farm3.objects.ResponseSummary;
+import fr.upmc.colins.farm3.simulation.SimulationClock;
+import fr.upmc.components.ComponentI;
+import fr.upmc.components.ComponentI.ComponentService;
+import fr.upmc.components.ports.AbstractInboundPort;
+
+/**
+ * The class <code>ActuatorSummaryArrivalInboundPort</code> implements the
+ * inbound port through which an actuator receives the summaries of its
+ * request dispatcher.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The port implements the <code>SummaryArrivalI</code> interface as offered
+ * and upon a call, passes it to the owner actuator through the method
+ * <code>summaryArrivalEvent</code>.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	true
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class ActuatorSummaryArrivalInboundPort 
+extends		AbstractInboundPort
+implements		SummaryArrivalI
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * create an inbound port.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	uri != null && owner != null
+	 * pre	owner.isOfferedInterface(SummaryArrivalI.class)
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param uri			URI of the port.
+	 * @param owner			owner component of the port.
+	 * @throws Exception
+	 */
+	public				ActuatorSummaryArrivalInboundPort(
+		String uri,
+		ComponentI owner
+		) throws Exception
+	{
+		super(uri, SummaryArrivalI.class, owner) ;
+
+		assert	uri != null && owner != null ;
+		assert	owner.isOfferedInterface(SummaryArrivalI.class) ;
+	}
+
+	@Override
+	public void acceptSummary(ResponseSummary summary) throws Exception {
+		final Actuator sp = (Actuator) this.owner ;
+		final ResponseSummary fsummary = summary ;
+		SimulationClock.submit(sp,
+				new ComponentService<Void>() {
+					@Override
+					public Void call() throws Exception {
+						sp.summaryArrivalEvent(fsummary);
+						return null;
+					}
+				}) ;
+	}
+
+
+}
@@ -0,0 +1,52 @@
+package fr.upmc.colins.farm3.actuator;
+
+import java.util.ArrayList;
+
+import fr.upmc.colins.farm3.admission.ApplicationScalingI;
+import fr.upmc.components.ComponentI;
+import fr.upmc.components.ports.AbstractOutboundPort;
+
+/**
+ * The class <code>ApplicationScalingOutboundPort</code> implements the outbound
+ * port used by an actuator to ask the admission control to scale its
+ * application.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The port implements the <code>ApplicationScalingI</code> interface as required
+ * and upon a call, passes it to the connector that must also implement the same
+ * interface.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	true
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class ApplicationScalingOutboundPort extends AbstractOutboundPort
+		implements ApplicationScalingI {
+
+	public ApplicationScalingOutboundPort(String uri, ComponentI owner)
+			throws Exception {
+		super(uri, ApplicationScalingI.class, owner);
+
+		assert uri != null;
+		assert owner.isRequiredInterface(ApplicationScalingI.class);
+	}
+
+	@Override
+	public ArrayList<String> scaleOut(Integer appUri) throws Exception {
+		return ((ApplicationScalingI) this.connector).scaleOut(appUri);
+	}
+
+	@Override
+	public ArrayList<String> scaleIn(Integer appUri) throws Exception {
+		return ((ApplicationScalingI) this.connector).scaleIn(appUri);
+	}
+
+}
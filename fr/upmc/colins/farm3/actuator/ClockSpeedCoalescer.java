@@ -0,0 +1,206 @@
+package fr.upmc.colins.farm3.actuator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import fr.upmc.colins.farm3.cpu.ControlRequestGeneratorOutboundPort;
+
+/**
+ * The class <code>ClockSpeedCoalescer</code> coalesces the clock speed
+ * decisions of an actuator into one batch per cpu.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The decisions taken during a control period are recorded per core, a later
+ * decision overriding an earlier one; upon <code>flush</code>, the decided
+ * cores are grouped by cpu and a single batch is sent to each cpu through the
+ * port of one of its cores, an empty one if none of its cores is decided. The
+ * cpu itself leaves the cores whose clock speed does not change untouched:
+ * the clock speeds known here may be outdated, as the cpu may have changed
+ * them for another application sharing it or to keep the gap between its
+ * cores, so they are not used to skip a decision.
+ *
+ * A cpu answers a batch with the clock speeds of all its cores, which are
+ * kept as the known clock speeds; flushing once per control period therefore
+ * both applies the decisions and refreshes the clock speeds with a single
+ * call per cpu. The identifiers of the cores are only queried once.
+ *
+ * The object is not thread safe, it is meant to be owned by an actuator and
+ * used from its control task.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	ports != null &amp;&amp; !ports.isEmpty()
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			ClockSpeedCoalescer
+{
+	/** control ports to the cores											*/
+	protected final ArrayList<ControlRequestGeneratorOutboundPort>	ports ;
+	/** identifier of each core within its cpu, null until the first flush	*/
+	protected int[]			coreIds ;
+	/** identifier of the cpu of each core									*/
+	protected int[]			cpuIds ;
+	/** clock speed of each core at the last flush							*/
+	protected final double[]	clockSpeeds ;
+	/** index of the port used to reach each cpu, by cpu identifier		*/
+	protected LinkedHashMap<Integer, Integer>	senders ;
+	/** clock speed decided for each core, NaN if none						*/
+	protected final double[]	decisions ;
+
+	/**
+	 * create a coalescer for the cores reached through <code>ports</code>.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	ports != null &amp;&amp; !ports.isEmpty()
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param ports		connected control ports to the cores
+	 */
+	public				ClockSpeedCoalescer(
+		ArrayList<ControlRequestGeneratorOutboundPort> ports
+		)
+	{
+		assert	ports != null && !ports.isEmpty() ;
+
+		this.ports = ports ;
+		this.coreIds = null ;
+		this.cpuIds = null ;
+		this.senders = null ;
+		this.clockSpeeds = new double[ports.size()] ;
+		this.decisions = new double[ports.size()] ;
+		for (int i = 0; i < this.decisions.length; i++) {
+			this.decisions[i] = Double.NaN ;
+		}
+	}
+
+	/**
+	 * query the identifiers and the clock speeds of the cores.
+	 *
+	 * @throws Exception
+	 */
+	protected void		initialise() throws Exception
+	{
+		int n = this.ports.size() ;
+		int[] coreIds = new int[n] ;
+		int[] cpuIds = new int[n] ;
+		LinkedHashMap<Integer, Integer> senders = new LinkedHashMap<>() ;
+		for (int i = 0; i < n; i++) {
+			ControlRequestGeneratorOutboundPort port = this.ports.get(i) ;
+			coreIds[i] = port.getCoreId() ;
+			cpuIds[i] = port.getCpuId() ;
+			this.clockSpeeds[i] = port.getClockSpeed() ;
+			if (!senders.containsKey(cpuIds[i])) {
+				senders.put(cpuIds[i], i) ;
+			}
+		}
+		this.cpuIds = cpuIds ;
+		this.senders = senders ;
+		this.coreIds = coreIds ;
+	}
+
+	/**
+	 * keep the clock speeds returned by a cpu for its cores.
+	 *
+	 * @param cpuId		identifier of the cpu
+	 * @param applied	clock speed of each core of the cpu, by core identifier
+	 */
+	protected void		update(int cpuId, HashMap<Integer, Double> applied)
+	{
+		for (int i = 0; i < this.clockSpeeds.length; i++) {
+			if (this.cpuIds[i] == cpuId) {
+				Double clockSpeed = applied.get(this.coreIds[i]) ;
+				if (clockSpeed != null) {
+					this.clockSpeeds[i] = clockSpeed ;
+				}
+			}
+		}
+	}
+
+	/**
+	 * return the mean of the clock speeds of the cores at the last flush.
+	 *
+	 * @return	the mean clock speed of the cores
+	 * @throws Exception
+	 */
+	public double		getMeanClockSpeed() throws Exception
+	{
+		if (this.coreIds == null) {
+			this.initialise() ;
+		}
+		double sum = 0.0 ;
+		for (int i = 0; i < this.clockSpeeds.length; i++) {
+			sum += this.clockSpeeds[i] ;
+		}
+		return sum / this.clockSpeeds.length ;
+	}
+
+	/**
+	 * record the clock speed decided for one core.
+	 *
+	 * @param index			index of the core in the ports
+	 * @param clockSpeed	the decided clock speed
+	 */
+	public void			decide(int index, double clockSpeed)
+	{
+		assert	0 <= index && index < this.decisions.length ;
+
+		this.decisions[index] = clockSpeed ;
+	}
+
+	/**
+	 * record the same clock speed decided for all the cores.
+	 *
+	 * @param clockSpeed	the decided clock speed
+	 */
+	public void			decideAll(double clockSpeed)
+	{
+		for (int i = 0; i < this.decisions.length; i++) {
+			this.decisions[i] = clockSpeed ;
+		}
+	}
+
+	/**
+	 * send the decisions, one batch per cpu even if it is empty, and forget
+	 * them; the clock speeds returned by the cpus are kept.
+	 *
+	 * @return	the number of batches sent
+	 * @throws Exception
+	 */
+	public int			flush() throws Exception
+	{
+		if (this.coreIds == null) {
+			this.initialise() ;
+		}
+		// batches by cpu
+		LinkedHashMap<Integer, HashMap<Integer, Double>> batches =
+													new LinkedHashMap<>() ;
+		for (Integer cpuId : this.senders.keySet()) {
+			batches.put(cpuId, new HashMap<Integer, Double>()) ;
+		}
+		for (int i = 0; i < this.decisions.length; i++) {
+			double decision = this.decisions[i] ;
+			this.decisions[i] = Double.NaN ;
+			if (!Double.isNaN(decision)) {
+				batches.get(this.cpuIds[i]).put(this.coreIds[i], decision) ;
+			}
+		}
+		for (Map.Entry<Integer, HashMap<Integer, Double>> e : batches.entrySet()) {
+			int cpuId = e.getKey() ;
+			this.update(cpuId, this.ports.get(this.senders.get(cpuId))
+										.updateClockSpeedsPlease(e.getValue())) ;
+		}
+		return batches.size() ;
+	}
+}
@@ -0,0 +1,217 @@
+package fr.upmc.colins.farm3.actuator;
+
+/**
+ * The class <code>ControlObservation</code> gathers what an actuator knows
+ * about its application at the end of a control period.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The settings of the application (target and flex service times, boost step
+ * and mean number of instructions) are fixed at creation, the number of cores
+ * only changing when the application is scaled out or in; the
+ * measures of the period are updated by the actuator before each evaluation of
+ * its controller, the same object being reused from one period to the next.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	targetServiceTime > 0 &amp;&amp; nrofCores > 0
+ * invariant	meanNrofInstructions > 0 &amp;&amp; controlPeriod > 0
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			ControlObservation
+{
+	/** target service time in milliseconds									*/
+	protected final long	targetServiceTime ;
+	/** flex time for target service time in milliseconds					*/
+	protected final long	flexServiceTime ;
+	/** step value of frequency when changing the frequency					*/
+	protected final double	boostStep ;
+	/** number of cores controlled by the actuator							*/
+	protected int			nrofCores ;
+	/** mean number of instructions of the requests							*/
+	protected final double	meanNrofInstructions ;
+	/** length of the control period in milliseconds						*/
+	protected final long	controlPeriod ;
+
+	/** last mean service time reported in the period, NaN if none		*/
+	protected double		meanServiceTime ;
+	/** number of responses received during the period						*/
+	protected int			nrofResponses ;
+	/** number of rejections reported during the period						*/
+	protected int			nrofRejections ;
+	/** mean clock speed of the cores at the end of the period				*/
+	protected double		clockSpeed ;
+
+	/**
+	 * create the observation of an application.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	targetServiceTime > 0 &amp;&amp; nrofCores > 0
+	 * pre	meanNrofInstructions > 0 &amp;&amp; controlPeriod > 0
+	 * post	Double.isNaN(getMeanServiceTime())
+	 * </pre>
+	 *
+	 * @param targetServiceTime		target service time (milliseconds)
+	 * @param flexServiceTime		flex service time (milliseconds)
+	 * @param boostStep				step value of frequency change
+	 * @param nrofCores				number of cores controlled by the actuator
+	 * @param meanNrofInstructions	mean number of instructions of the requests
+	 * @param controlPeriod			length of the control period (milliseconds)
+	 */
+	public				ControlObservation(
+		long targetServiceTime,
+		long flexServiceTime,
+		double boostStep,
+		int nrofCores,
+		double meanNrofInstructions,
+		long controlPeriod
+		)
+	{
+		assert	targetServiceTime > 0 && nrofCores > 0 ;
+		assert	meanNrofInstructions > 0 && controlPeriod > 0 ;
+
+		this.targetServiceTime = targetServiceTime ;
+		this.flexServiceTime = flexServiceTime ;
+		this.boostStep = boostStep ;
+		this.nrofCores = nrofCores ;
+		this.meanNrofInstructions = meanNrofInstructions ;
+		this.controlPeriod = controlPeriod ;
+		this.meanServiceTime = Double.NaN ;
+	}
+
+	/**
+	 * set the measures of the period which just ended.
+	 *
+	 * @param meanServiceTime	last mean service time reported in the period,
+	 * 							NaN if none
+	 * @param nrofResponses		number of responses received
+	 * @param nrofRejections	number of rejections reported
+	 * @param clockSpeed		mean clock speed of the cores
+	 */
+	public void			update(
+		double meanServiceTime,
+		int nrofResponses,
+		int nrofRejections,
+		double clockSpeed
+		)
+	{
+		this.meanServiceTime = meanServiceTime ;
+		this.nrofResponses = nrofResponses ;
+		this.nrofRejections = nrofRejections ;
+		this.clockSpeed = clockSpeed ;
+	}
+
+	/**
+	 * @return	the target service time in milliseconds
+	 */
+	public long			getTargetServiceTime()
+	{
+		return this.targetServiceTime ;
+	}
+
+	/**
+	 * @return	the flex service time in milliseconds
+	 */
+	public long			getFlexServiceTime()
+	{
+		return this.flexServiceTime ;
+	}
+
+	/**
+	 * @return	the step value of frequency change
+	 */
+	public double		getBoostStep()
+	{
+		return this.boostStep ;
+	}
+
+	/**
+	 * @return	the number of cores controlled by the actuator
+	 */
+	public int			getNrofCores()
+	{
+		return this.nrofCores ;
+	}
+
+	/**
+	 * set the number of cores controlled by the actuator, after the
+	 * application has been scaled out or in.
+	 *
+	 * @param nrofCores		the new number of cores, positive
+	 */
+	public void			setNrofCores(int nrofCores)
+	{
+		assert	nrofCores > 0 ;
+
+		this.nrofCores = nrofCores ;
+	}
+
+	/**
+	 * @return	the mean number of instructions of the requests
+	 */
+	public double		getMeanNrofInstructions()
+	{
+		return this.meanNrofInstructions ;
+	}
+
+	/**
+	 * @return	the length of the control period in milliseconds
+	 */
+	public long			getControlPeriod()
+	{
+		return this.controlPeriod ;
+	}
+
+	/**
+	 * @return	the last mean service time reported in the period, NaN if
+	 * 			none
+	 */
+	public double		getMeanServiceTime()
+	{
+		return this.meanServiceTime ;
+	}
+
+	/**
+	 * @return	the number of responses received during the period
+	 */
+	public int			getNrofResponses()
+	{
+		return this.nrofResponses ;
+	}
+
+	/**
+	 * @return	the number of rejections reported during the period
+	 */
+	public int			getNrofRejections()
+	{
+		return this.nrofRejections ;
+	}
+
+	/**
+	 * @return	the mean clock speed of the cores
+	 */
+	public double		getClockSpeed()
+	{
+		return this.clockSpeed ;
+	}
+
+	/**
+	 * return the arrival rate observed during the period, estimated from the
+	 * responses and the rejections it received.
+	 *
+	 * @return	the arrival rate in requests per millisecond
+	 */
+	public double		getArrivalRate()
+	{
+		return (double) (this.nrofResponses + this.nrofRejections)
+													/ this.controlPeriod ;
+	}
+}
@@ -0,0 +1,36 @@
+package fr.upmc.colins.farm3.actuator;
+
+/**
+ * The interface <code>FrequencyController</code> defines the control law used
+ * by an actuator to choose the clock speed of the cores of its application.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * A controller is owned by a single actuator and is evaluated once per control
+ * period, from the observations gathered by the actuator during this period.
+ * It may keep a state (eg. an integral term) between evaluations.
+ * Implementations must provide a public constructor without parameters as
+ * they are instantiated from the canonical name of their class.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public interface		FrequencyController
+{
+	/**
+	 * compute the clock speed to be requested to the cores.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	observation != null
+	 * post	ret > 0
+	 * </pre>
+	 *
+	 * @param observation	observations of the last control period
+	 * @return				the clock speed to be requested to the cores
+	 */
+	double			computeClockSpeed(ControlObservation observation) ;
+}
@@ -0,0 +1,86 @@
+package fr.upmc.colins.farm3.actuator;
+
+/**
+ * The class <code>PidFrequencyController</code> implements a PID control law
+ * of the clock speed on the mean service time.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The error is the relative gap between the mean service time and the target,
+ * null inside the flex time so that the controller stays still when the target
+ * is met. The velocity form of the PID is used: each period, the clock speed
+ * is moved by
+ *
+ * <pre>
+ * KP * (e(k) - e(k-1)) + KI * e(k) * dt + KD * (e(k) - 2 e(k-1) + e(k-2)) / dt
+ * </pre>
+ *
+ * where <code>dt</code> is the control period in seconds. As it works on the
+ * current clock speed of the cores, the speed clamping done by the cores does
+ * not make the integral term wind up. A period with rejections counts as an
+ * error of <code>MAX_ERROR</code>.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			PidFrequencyController
+extends		AbstractFrequencyController
+{
+	/** proportional gain (clock speed per relative error)					*/
+	public static final double	KP = 0.5 ;
+	/** integral gain (clock speed per relative error and second)			*/
+	public static final double	KI = 0.5 ;
+	/** derivative gain (clock speed per relative error per second)			*/
+	public static final double	KD = 0.05 ;
+	/** bound of the relative error, to limit the reaction to outliers		*/
+	public static final double	MAX_ERROR = 1.0 ;
+
+	/** error of the previous period										*/
+	protected double	previousError = 0.0 ;
+	/** error of the period before the previous one							*/
+	protected double	olderError = 0.0 ;
+
+	/**
+	 * @see fr.upmc.colins.farm3.actuator.FrequencyController#computeClockSpeed(fr.upmc.colins.farm3.actuator.ControlObservation)
+	 */
+	@Override
+	public double		computeClockSpeed(ControlObservation o)
+	{
+		assert	o != null ;
+
+		double mean = o.getMeanServiceTime() ;
+		if (o.getNrofRejections() == 0 && Double.isNaN(mean)) {
+			// nothing measured yet
+			return o.getClockSpeed() ;
+		}
+		double error = this.error(o) ;
+		double dt = o.getControlPeriod() / 1000.0 ;
+		double delta = KP * (error - this.previousError)
+					 + KI * error * dt
+					 + KD * (error - 2 * this.previousError + this.olderError) / dt ;
+		this.olderError = this.previousError ;
+		this.previousError = error ;
+		return Math.max(CLOCK_SPEED_RESOLUTION, o.getClockSpeed() + delta) ;
+	}
+
+	/**
+	 * return the relative error of the period, positive when too slow.
+	 *
+	 * @param o		observations of the period
+	 * @return		the relative error, bounded by <code>MAX_ERROR</code>
+	 */
+	protected double	error(ControlObservation o)
+	{
+		if (o.getNrofRejections() > 0) {
+			return MAX_ERROR ;
+		}
+		double gap = o.getMeanServiceTime() - o.getTargetServiceTime() ;
+		if (Math.abs(gap) <= o.getFlexServiceTime()) {
+			return 0.0 ;
+		}
+		double error = gap / o.getTargetServiceTime() ;
+		return Math.max(-MAX_ERROR, Math.min(MAX_ERROR, error)) ;
+	}
+}
@@ -0,0 +1,75 @@
+package fr.upmc.colins.farm3.actuator;
+
+import fr.upmc.colins.farm3.utils.QueueingModel;
+
+/**
+ * The class <code>PredictiveFrequencyController</code> implements a control
+ * law computing the minimal clock speed meeting the target from an M/M/c
+ * model of the cores of the application.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The cores of the application are seen as the <code>c</code> servers of an
+ * M/M/c queue, the arrival rate being the one observed during the period and
+ * the service rate of a core at clock speed <code>s</code> being
+ * <code>s / meanNrofInstructions</code> requests per millisecond. The
+ * controller returns the smallest clock speed of the cores for which the mean
+ * response time predicted by the model does not exceed the target.
+ *
+ * As the actual system is not exactly an M/M/c queue (the requests are
+ * dispatched without a shared queue, the instructions are not exponentially
+ * distributed), the prediction is corrected by the smoothed ratio between the
+ * measured mean service time and the one predicted at the current clock
+ * speed. The controller keeps the current clock speed when no request has
+ * been observed during the period.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			PredictiveFrequencyController
+extends		AbstractFrequencyController
+{
+	/** smoothing factor of the model correction							*/
+	public static final double	CORRECTION_SMOOTHING = 0.3 ;
+	/** minimal correction of the model										*/
+	public static final double	MIN_CORRECTION = 0.5 ;
+	/** maximal correction of the model										*/
+	public static final double	MAX_CORRECTION = 2.0 ;
+
+	/** ratio between the measured and the predicted service times			*/
+	protected double	correction = 1.0 ;
+
+	/**
+	 * @see fr.upmc.colins.farm3.actuator.FrequencyController#computeClockSpeed(fr.upmc.colins.farm3.actuator.ControlObservation)
+	 */
+	@Override
+	public double		computeClockSpeed(ControlObservation o)
+	{
+		assert	o != null ;
+
+		double lambda = o.getArrivalRate() ;
+		if (lambda <= 0) {
+			return o.getClockSpeed() ;
+		}
+		int c = o.getNrofCores() ;
+		double n = o.getMeanNrofInstructions() ;
+
+		// learn how far the model is from the measures at the current speed
+		double mean = o.getMeanServiceTime() ;
+		if (o.getNrofRejections() == 0 && !Double.isNaN(mean) && mean > 0) {
+			double predicted =
+				QueueingModel.meanResponseTime(c, lambda, o.getClockSpeed() / n) ;
+			if (!Double.isInfinite(predicted)) {
+				double ratio = Math.max(MIN_CORRECTION,
+								Math.min(MAX_CORRECTION, mean / predicted)) ;
+				this.correction += CORRECTION_SMOOTHING * (ratio - this.correction) ;
+			}
+		}
+
+		double target = o.getTargetServiceTime() / this.correction ;
+		double mu = QueueingModel.minimalServiceRate(c, lambda, target) ;
+		return roundUp(mu * n) ;
+	}
+}
@@ -0,0 +1,39 @@
+package fr.upmc.colins.farm3.actuator;
+
+import fr.upmc.colins.farm3.objects.ResponseSummary;
+import fr.upmc.components.interfaces.TwoWayI;
+
+/**
+ * The interface <code>SummaryArrivalI</code> defines the protocol used by a
+ * request dispatcher to report the statistics of its responses to its
+ * actuator.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The request dispatcher sends one summary per period, covering the
+ * responses and the rejections of the period.
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public interface		SummaryArrivalI
+extends		TwoWayI
+{
+	/**
+	 * accept the summary of a period.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	summary != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param summary	the statistics of the responses of the period
+	 * @throws Exception
+	 */
+	void			acceptSummary(ResponseSummary summary) throws Exception ;
+
+}
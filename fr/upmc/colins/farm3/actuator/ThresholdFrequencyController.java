@@ -0,0 +1,44 @@
+package fr.upmc.colins.farm3.actuator;
+
+/**
+ * The class <code>ThresholdFrequencyController</code> implements the original
+ * threshold control law of the actuator.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The clock speed is increased by the boost step when requests have been
+ * rejected or when the mean service time is above the target plus the flex
+ * time, and decreased by the boost step when it is below the target minus the
+ * flex time. Being evaluated once per control period rather than once per
+ * response, it moves the clock speed by at most one step per period.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			ThresholdFrequencyController
+extends		AbstractFrequencyController
+{
+	/**
+	 * @see fr.upmc.colins.farm3.actuator.FrequencyController#computeClockSpeed(fr.upmc.colins.farm3.actuator.ControlObservation)
+	 */
+	@Override
+	public double		computeClockSpeed(ControlObservation o)
+	{
+		assert	o != null ;
+
+		double mean = o.getMeanServiceTime() ;
+		// check if too slow, a rejected request means the cores are overloaded
+		if (o.getNrofRejections() > 0
+				|| mean > o.getTargetServiceTime() + o.getFlexServiceTime()) {
+			return o.getClockSpeed() + o.getBoostStep() ;
+		}
+		// check if too fast
+		if (mean < o.getTargetServiceTime() - o.getFlexServiceTime()) {
+			return Math.max(CLOCK_SPEED_RESOLUTION,
+							o.getClockSpeed() - o.getBoostStep()) ;
+		}
+		return o.getClockSpeed() ;
+	}
+}
@@ -3,10 +3,19 @@ package fr.upmc.colins.farm3.actuator.dynamic;
 import java.util.ArrayList;
 
 import fr.upmc.colins.farm3.actuator.Actuator;
+import fr.upmc.colins.farm3.admission.ComponentTeardownI;
+import fr.upmc.colins.farm3.admission.ComponentTeardownInboundPort;
+import fr.upmc.components.cvm.AbstractCVM;
 /**
  * The class <code>DynamicActuator</code> implements the dynamic version of
  * the <code>Actuator</code> component.
  * 
+ * <p><strong>Description</strong></p>
+ * 
+ * The dynamic actuator also offers a teardown port, through which the
+ * admission control shuts it down when the application it serves is
+ * released.
+ * 
  * <p><strong>Invariant</strong></p>
  * 
  * <pre>
@@ -20,13 +29,22 @@ import fr.upmc.colins.farm3.actuator.Actuator;
  */
 public class DynamicActuator extends Actuator {
 
+	/** inbound port through which the admission control tears it down	*/
+	protected ComponentTeardownInboundPort teardownInboundPort;
+
 	public DynamicActuator(
 			Integer id, 
 			Double boostStep,
 			Long targetServiceTime, 
 			Long flexServiceTime,
+			String frequencyController,
+			Long controlPeriod,
+			Double meanNrofInstructions,
 			String actuatorResponseArrivalInboundPortUri,
-			ArrayList<String> assignedCoreControlRequestArrivalInboundPortUris
+			ArrayList<String> assignedCoreControlRequestArrivalInboundPortUris,
+			String teardownInboundPortURI,
+			Integer nrofCoresPerVM,
+			String scalingInboundPortUri
 			)
 			throws Exception 
 	{
@@ -35,9 +53,24 @@ public class DynamicActuator extends Actuator {
 				boostStep, 
 				targetServiceTime, 
 				flexServiceTime,
+				frequencyController,
+				controlPeriod,
+				meanNrofInstructions,
 				actuatorResponseArrivalInboundPortUri,
-				assignedCoreControlRequestArrivalInboundPortUris
+				assignedCoreControlRequestArrivalInboundPortUris,
+				nrofCoresPerVM,
+				scalingInboundPortUri
 				);
+
+		this.addOfferedInterface(ComponentTeardownI.class);
+		this.teardownInboundPort = new ComponentTeardownInboundPort(
+				teardownInboundPortURI, this);
+		this.addPort(this.teardownInboundPort);
+		if (AbstractCVM.isDistributed) {
+			this.teardownInboundPort.publishPort();
+		} else {
+			this.teardownInboundPort.localPublishPort();
+		}
 	}
 
 }
@@ -2,14 +2,24 @@ package fr.upmc.colins.farm3.admission;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import fr.upmc.colins.farm3.VerboseSettings;
 import fr.upmc.colins.farm3.actuator.dynamic.DynamicActuator;
+import fr.upmc.colins.farm3.connectors.ComponentTeardownConnector;
 import fr.upmc.colins.farm3.connectors.ControlRequestServiceConnector;
+import fr.upmc.colins.farm3.connectors.DispatcherControlConnector;
 import fr.upmc.colins.farm3.core.ControlRequestArrivalI;
 import fr.upmc.colins.farm3.cpu.ControlRequestGeneratorOutboundPort;
+import fr.upmc.colins.farm3.dispatcher.DispatcherControlI;
 import fr.upmc.colins.farm3.dispatcher.dynamic.DynamicRequestDispatcher;
+import fr.upmc.colins.farm3.metrics.Counter;
+import fr.upmc.colins.farm3.metrics.Gauge;
+import fr.upmc.colins.farm3.metrics.Metric;
+import fr.upmc.colins.farm3.metrics.MetricsRegistry;
 import fr.upmc.colins.farm3.objects.Application;
+import fr.upmc.colins.farm3.utils.QueueingModel;
 import fr.upmc.colins.farm3.vm.dynamic.DynamicVM;
 import fr.upmc.components.AbstractComponent;
 import fr.upmc.components.cvm.AbstractCVM;
@@ -27,9 +37,23 @@ import fr.upmc.components.exceptions.ComponentStartException;
  * <p><strong>Description</strong></p>
  * An admission control take care of serving application
  * upload from a consumer's JVM (eg. from the request generator). 
- * When uploading an application the admission control allocate a predefined number
- * of virtual machines and a dedicated request dispatcher. The admission control then
+ * When uploading an application the admission control allocate the number
+ * of virtual machines its expected load requires (see <code>sizeApplication</code>)
+ * and a dedicated request dispatcher. The admission control then
  * return the uri of the request dispatcher.
+ * 
+ * The cores assigned to an application are given back to a free pool when
+ * the application is released: its request dispatcher, actuator and virtual
+ * machines are then torn down through their teardown port, in this order.
+ * 
+ * The actuator of an application may ask for one more virtual machine when
+ * the clock speed of its cores cannot be raised enough, or give its last one
+ * back when the load drops (see <code>ApplicationScalingI</code>): the virtual
+ * machine is created or torn down here, and attached to or detached from the
+ * running request dispatcher through its control port. A detached virtual
+ * machine is only torn down, and its cores given back, once the request
+ * dispatcher has drained it and notified the admission control through its
+ * drain notification port (see <code>DrainNotificationI</code>).
  *  
  * <p>Created on : december 2014</p>
  * 
@@ -42,8 +66,23 @@ public class AdmissionControl extends AbstractComponent {
 	/** log constant	 													*/
 	private static final String logId = "[ AdmControl ]";
 	
+	/** name of the property allowing to degrade applications				*/
+	public static final String DEGRADE_PROPERTY = "farm3.admission.degrade";
+	/** whether applications whose target cannot be met may be degraded	*/
+	protected static final boolean DEGRADE = 
+			!"false".equalsIgnoreCase(System.getProperty(DEGRADE_PROPERTY));
+	/** name of the property giving the headroom of a degraded application	*/
+	public static final String DEGRADE_HEADROOM_PROPERTY = "farm3.admission.degrade.headroom";
+	/** vms given to a degraded application beyond the stable minimum		*/
+	protected static final int DEGRADE_HEADROOM =
+			Math.max(0, Integer.getInteger(DEGRADE_HEADROOM_PROPERTY, 1));
+	
 	/**	total number of cores												*/
 	protected Long nrofCores;
+	/**	number of cores per cpu												*/
+	protected Long nrofCoresPerCpu;
+	/**	maximal clock speed of the cores									*/
+	protected Double maxClockSpeed;
 	/**	number of cores allocated per virtual machine						*/
 	protected int nrofCoresPerVM;
 	/**	number of virtual machines allocated per request dispatcher			*/
@@ -69,35 +108,66 @@ public class AdmissionControl extends AbstractComponent {
 	/** count of request dispatchers instanciated				 			*/
 	protected int requestDispatcherCount ;
 	
-	/** list of the uris of the core request arrival inbound port 			*/
-	protected List<String> coreRequestArrivalInboundPortUris;
-	/** list of the used uris of the core request arrival inbound port		*/
-	protected List<String> usedCoreRequestArrivalInboundPortUris;
+	/** allocator of the cores to the virtual machines					*/
+	protected CoreAllocator coreAllocator;
 
-	/** list of the uris of the core control request arrival inbound port	*/
-	protected List<String> coreControlRequestArrivalInboundPortUris;
+	/** prefix uri of the teardown inbound port of instanciated vm			*/
+	protected static final String VM_TIP_PREFIX = "vm-tip-";
+	/** prefix uri of the teardown inbound port of the dispatchers			*/
+	protected static final String RD_TIP_PREFIX = "rd-tip-";
+	/** prefix uri of the teardown inbound port of the actuators			*/
+	protected static final String ACTUATOR_TIP_PREFIX = "actuator-tip-";
+	/** prefix uri of the control inbound port of the dispatchers			*/
+	protected static final String RD_CIP_PREFIX = "rd-cip-";
+	/** deployed applications, by application uri							*/
+	protected Map<Integer, Deployment> deployments;
+	/** outbound port used to tear down the dynamic components				*/
+	protected ComponentTeardownOutboundPort teardownOutboundPort;
+	/** outbound port used to change the vms of the dispatchers			*/
+	protected DispatcherControlOutboundPort dispatcherControlOutboundPort;
+	/** inbound port to be connected to the actuators						*/
+	protected ApplicationScalingInboundPort applicationScalingInboundPort;
+	/** inbound port notified by the dispatchers of the drained vms		*/
+	protected DrainNotificationInboundPort drainNotificationInboundPort;
+	/** deployments of the vms being drained, by uri of the vm				*/
+	protected Map<String, Deployment> drainingVirtualMachines;
 	
 	/** dynamic component creation outbound port to the provider's JVM		*/
 	protected DynamicComponentCreationOutboundPort portToProviderJVM;
 
 	/** list of the uris of the control request generator outbound port 	*/
 	protected List<ControlRequestGeneratorOutboundPort> crgops;
+	
+	/** number of applications refused for lack of free cores				*/
+	protected Counter nrofRefusedApplications;
+	/** number of applications admitted with fewer cores than required		*/
+	protected Counter nrofDegradedApplications;
+	/** number of virtual machines added to running applications			*/
+	protected Counter nrofScaleOuts;
+	/** number of virtual machines removed from running applications		*/
+	protected Counter nrofScaleIns;
+	/** metrics registered by the admission control							*/
+	protected List<Metric> metrics;
 
 
 	/**
 	 * Constructor
 	 * 
 	 * @param nrofCores
+	 * @param nrofCoresPerCpu
+	 * @param maxClockSpeed
 	 * @param nrofCoresPerVM,
 	 * @param nrofVMPerDispatcher,
 	 * @param outboundPortUri
 	 * @param inboundPortUri
 	 * @param coreRequestArrivalInboundPortUris 
-	 * @param isDistributed
+	 * @param coreControlRequestArrivalInboundPortUris
 	 * @throws Exception
 	 */
 	public AdmissionControl(
 			Long nrofCores, 
+			Long nrofCoresPerCpu,
+			Double maxClockSpeed,
 			Integer nrofCoresPerVM,
 			Integer nrofVMPerDispatcher,	
 			String outboundPortUri,
@@ -109,6 +179,8 @@ public class AdmissionControl extends AbstractComponent {
 		super(true, true);
 
 		this.nrofCores = nrofCores;		
+		this.nrofCoresPerCpu = nrofCoresPerCpu;
+		this.maxClockSpeed = maxClockSpeed;
 		this.nrofCoresPerVM = nrofCoresPerVM;
 		this.nrofVMPerDispatcher = nrofVMPerDispatcher;
 		this.controlRequestGeneratorOutboundPorts = new ArrayList<ControlRequestGeneratorOutboundPort>();
@@ -146,67 +218,253 @@ public class AdmissionControl extends AbstractComponent {
 		this.virtualMachineCount = 0;
 		this.requestDispatcherCount = 0;
 		
-		this.coreRequestArrivalInboundPortUris = coreRequestArrivalInboundPortUris;
-		this.usedCoreRequestArrivalInboundPortUris = new ArrayList<>();
+		this.coreAllocator = new CoreAllocator(
+				coreRequestArrivalInboundPortUris,
+				coreControlRequestArrivalInboundPortUris,
+				nrofCoresPerCpu.intValue(),
+				CoreAllocator.getConfiguredPolicy());
+		this.deployments = new ConcurrentHashMap<>();
+		this.drainingVirtualMachines = new ConcurrentHashMap<>();
 		
-		this.coreControlRequestArrivalInboundPortUris = coreControlRequestArrivalInboundPortUris;
+		this.addRequiredInterface(ComponentTeardownI.class);
+		this.teardownOutboundPort = new ComponentTeardownOutboundPort(
+				outboundPortUri + "-teardown", this);
+		this.addPort(this.teardownOutboundPort);
+		if (AbstractCVM.isDistributed) {
+			this.teardownOutboundPort.publishPort();
+		} else {
+			this.teardownOutboundPort.localPublishPort();
+		}
+		
+		this.addRequiredInterface(DispatcherControlI.class);
+		this.dispatcherControlOutboundPort = new DispatcherControlOutboundPort(
+				outboundPortUri + "-dispatcher-control", this);
+		this.addPort(this.dispatcherControlOutboundPort);
+		if (AbstractCVM.isDistributed) {
+			this.dispatcherControlOutboundPort.publishPort();
+		} else {
+			this.dispatcherControlOutboundPort.localPublishPort();
+		}
+		
+		this.addOfferedInterface(ApplicationScalingI.class);
+		this.applicationScalingInboundPort = new ApplicationScalingInboundPort(
+				inboundPortUri + "-scaling", this);
+		this.addPort(this.applicationScalingInboundPort);
+		if (AbstractCVM.isDistributed) {
+			this.applicationScalingInboundPort.publishPort();
+		} else {
+			this.applicationScalingInboundPort.localPublishPort();
+		}
+		
+		this.addOfferedInterface(DrainNotificationI.class);
+		this.drainNotificationInboundPort = new DrainNotificationInboundPort(
+				inboundPortUri + "-drain", this);
+		this.addPort(this.drainNotificationInboundPort);
+		if (AbstractCVM.isDistributed) {
+			this.drainNotificationInboundPort.publishPort();
+		} else {
+			this.drainNotificationInboundPort.localPublishPort();
+		}
 		
 		// for the dynamic stuff below
 		this.addRequiredInterface(DynamicComponentCreationI.class) ;
 		this.addRequiredInterface(DynamicallyConnectableComponentI.class) ;
 		
+		this.registerMetrics();
+		
 		System.out.println(logId + " Admission control created");
 	}
 	
+	/**
+	 * register the metrics of the admission control: the number of free
+	 * cores, of deployed applications and of refused applications.
+	 */
+	protected void registerMetrics() {
+		final AdmissionControl fac = this;
+		this.metrics = new ArrayList<>();
+		this.nrofRefusedApplications = new Counter(
+				"admission_refused_applications_total", "",
+				"applications refused for lack of free cores");
+		this.metrics.add(this.nrofRefusedApplications);
+		this.nrofDegradedApplications = new Counter(
+				"admission_degraded_applications_total", "",
+				"applications admitted with fewer cores than required by their target");
+		this.metrics.add(this.nrofDegradedApplications);
+		this.nrofScaleOuts = new Counter("admission_scale_outs_total", "",
+				"virtual machines added to running applications");
+		this.metrics.add(this.nrofScaleOuts);
+		this.nrofScaleIns = new Counter("admission_scale_ins_total", "",
+				"virtual machines removed from running applications");
+		this.metrics.add(this.nrofScaleIns);
+		this.metrics.add(new Gauge("admission_free_cores", "",
+				"cores not assigned to an application") {
+			@Override
+			public double getValue() {
+				return fac.coreAllocator.getNrofFreeCores();
+			}
+		});
+		this.metrics.add(new Gauge("admission_deployed_applications", "",
+				"applications deployed on the farm") {
+			@Override
+			public double getValue() {
+				return fac.deployments.size();
+			}
+		});
+		for (Metric m : this.metrics) {
+			MetricsRegistry.getDefault().register(m);
+		}
+	}
+	
+	/**
+	 * deploy an application: assign it the cores of
+	 * <code>nrofVMPerDispatcher</code> virtual machines, then create the
+	 * virtual machines, the actuator and the request dispatcher of the
+	 * application. The application is refused if there are not enough free
+	 * cores, in which case no core is taken from the pool. The application is
+	 * recorded before its components are created, so that a concurrent
+	 * submission of the same application waits for them rather than
+	 * deploying it twice; if the creation of a component fails, the cores and
+	 * the components already created are given back before the failure is
+	 * thrown.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	a != null
+	 * post	ret.isEmpty() || deployments.containsKey(a.getUri())
+	 * </pre>
+	 *
+	 * @param a		the application to be deployed
+	 * @return		the uri of the request dispatcher of the application, or
+	 * 				the empty string if it has been refused
+	 * @throws Exception
+	 */
 	String acceptApplication(Application a) throws Exception {
 		if(VerboseSettings.VERBOSE_ADMISSION)
 			System.out.println(logId + " Begin creation of application "
 					+ a.getUri());
-			
-		Integer requestDispatcherId = requestDispatcherCount++;
+
+		Deployment deployed;
+		Integer requestDispatcherId = null;
+		Deployment d = null;
+		int nrofVMs = 0;
+		synchronized (this) {
+			// the uri is reserved before the components are created, a
+			// concurrent submission of the same application waits for them
+			deployed = this.deployments.get(a.getUri());
+			if (deployed == null) {
+				nrofVMs = this.sizeApplication(a);
+				if (nrofVMs <= 0) {
+					this.nrofRefusedApplications.inc();
+					return "";
+				}
+				requestDispatcherId = requestDispatcherCount;
+				d = new Deployment(RD_RAIP_PREFIX + requestDispatcherId);
+				if (!this.coreAllocator.allocate(nrofVMs, nrofCoresPerVM, d)) {
+					System.err.println(logId + " The cluster ran out of available cores, "
+							+ "application " + a.getUri() + " refused.");
+					this.nrofRefusedApplications.inc();
+					return "";
+				}
+				requestDispatcherCount++;
+				d.setApplication(a);
+				this.deployments.put(a.getUri(), d);
+			}
+		}
+		if (deployed != null) {
+			String entryUri = this.awaitDeployment(deployed);
+			// submitted again if the deployment failed or has been released
+			return entryUri != null ? entryUri : this.acceptApplication(a);
+		}
+		try {
+			this.createApplicationComponents(a, d, requestDispatcherId, nrofVMs);
+		} catch (Exception e) {
+			// the cores and the components already created are given back
+			synchronized (this) {
+				if (this.deployments.get(a.getUri()) == d) {
+					this.deployments.remove(a.getUri());
+				}
+			}
+			synchronized (d) {
+				d.setReleased(true);
+				d.notifyAll();
+			}
+			try {
+				this.release(d);
+			} catch (Exception re) {
+				System.err.println(logId + " Release of application " 
+						+ a.getUri() + " failed : " + re);
+			}
+			throw e;
+		}
+		synchronized (d) {
+			d.setDeployed(true);
+			d.notifyAll();
+		}
+		if(VerboseSettings.VERBOSE_ADMISSION){
+			System.out.println(logId + " End creation of application " + a.getUri());
+			System.out.println(logId + " Deployed application " + a.getUri() + " is available from " + RD_RAIP_PREFIX + requestDispatcherId);
+		}
+		return RD_RAIP_PREFIX + requestDispatcherId;
+	}
+
+	/**
+	 * wait for the components of a deployment recorded by another submission
+	 * of the same application to be created.
+	 *
+	 * @param d		the deployment of the application
+	 * @return		the uri of the request dispatcher of the application, or
+	 * 				null if the deployment failed or has been released
+	 * @throws InterruptedException
+	 */
+	protected String awaitDeployment(Deployment d) throws InterruptedException {
+		synchronized (d) {
+			while (!d.isDeployed() && !d.isReleased()) {
+				d.wait();
+			}
+			return d.isReleased() ? null : d.getEntryUri();
+		}
+	}
+
+	/**
+	 * create the virtual machines, the actuator and the request dispatcher of
+	 * an application, recording them in its deployment as they are created.
+	 *
+	 * @param a						the application
+	 * @param d						its deployment, holding its cores
+	 * @param requestDispatcherId	identifier of its request dispatcher
+	 * @param nrofVMs				number of its virtual machines
+	 * @throws Exception
+	 */
+	protected void createApplicationComponents(
+			Application a,
+			Deployment d,
+			Integer requestDispatcherId,
+			int nrofVMs
+			) throws Exception {
+		if(VerboseSettings.VERBOSE_ADMISSION)
+			System.out.println(logId + " Cores allocated, " + this.coreAllocator);
+
 		ArrayList<String> rdRequestGeneratorOutboundPortUris = new ArrayList<>();
-		for (int i = 0; i < nrofVMPerDispatcher; i++) {
-			rdRequestGeneratorOutboundPortUris.add(RD_RGOP_PREFIX + requestDispatcherId + i);
+		for (int i = 0; i < nrofVMs; i++) {
+			rdRequestGeneratorOutboundPortUris.add(RD_RGOP_PREFIX + requestDispatcherId + "-" + i);
 		}
 
-		ArrayList<String> assignedCoreControlRequestArrivalInboundPortUris = new ArrayList<>();
+		ArrayList<String> assignedCoreControlRequestArrivalInboundPortUris = 
+				new ArrayList<>(d.getCoreControlUris());
 		ArrayList<String> vmRequestArrivalInboundPortUris = new ArrayList<>();
-		for (int i = 0; i < nrofVMPerDispatcher; i++) {	
+		for (int i = 0; i < nrofVMs; i++) {	
 			// build the vm
-			// FIXME: select only available cores (by pulling their status)
-			// TODO: select from cpu instead of cores
-			Integer virtualMachineId = virtualMachineCount++;
-			ArrayList<String> vmRequestGeneratorOutboundPortUris = new ArrayList<>();
-			ArrayList<String> assignedCoreRequestArrivalInboundPortUris = new ArrayList<>();
-			for (int j = 0; j < nrofCoresPerVM; j++) {
-				vmRequestGeneratorOutboundPortUris.add(VM_RGOP_PREFIX + virtualMachineId + j);
-				if(this.coreRequestArrivalInboundPortUris.size() <= 0){
-					// we assume the number of cores available is always positive
-					// TODO: the case when we run out of free cores is not yet implemented
-					// returning the empty string as an uri will throw an exception when
-					// the request generator will try to connect to it.
-					System.err.println(logId + " The cluster ran out of available cores, sorry.");
-					return "";
-				}
-				String uri = this.coreRequestArrivalInboundPortUris.remove(0);
-				String uriCtrl = this.coreControlRequestArrivalInboundPortUris.remove(0);
-				assignedCoreRequestArrivalInboundPortUris.add(uri);
-				assignedCoreControlRequestArrivalInboundPortUris.add(uriCtrl);
-				this.usedCoreRequestArrivalInboundPortUris.add(uri);
+			Integer virtualMachineId;
+			synchronized (this) {
+				virtualMachineId = virtualMachineCount++;
 			}
-			
-			this.portToProviderJVM.createComponent(
-				DynamicVM.class.getCanonicalName(),
-				new Object[]{ 
-					virtualMachineId, 
-					VM_RAIP_PREFIX + virtualMachineId, 
-					vmRequestGeneratorOutboundPortUris, 
-					assignedCoreRequestArrivalInboundPortUris
-				}
-			);
-			vmRequestArrivalInboundPortUris.add(VM_RAIP_PREFIX + virtualMachineId);
-			// the connection between the cores and the vm are done in the constructor
-			// of the virtual machine
+			String vmUri = this.createVirtualMachine(virtualMachineId,
+					new ArrayList<>(d.getCoreUris().subList(i * nrofCoresPerVM,
+							(i + 1) * nrofCoresPerVM)),
+					a.getDispatchPolicy());
+			d.addVirtualMachine(vmUri, VM_TIP_PREFIX + virtualMachineId);
+			vmRequestArrivalInboundPortUris.add(vmUri);
 		}
 		
 		String actuatorResponseArrivalInboundPortUri = "actuator-response-raip-" + a.getUri() ;
@@ -220,10 +478,17 @@ public class AdmissionControl extends AbstractComponent {
 					a.getBoostStep(),
 					a.getTargetServiceTime(),
 					a.getFlexServiceTime(),		
+					a.getFrequencyController(),
+					a.getControlPeriod(),
+					a.getMeanNrofInstructions(),
 					actuatorResponseArrivalInboundPortUri,
-					assignedCoreControlRequestArrivalInboundPortUris 
+					assignedCoreControlRequestArrivalInboundPortUris,
+					ACTUATOR_TIP_PREFIX + requestDispatcherId,
+					nrofCoresPerVM,
+					this.applicationScalingInboundPort.getPortURI()
 				}
 			);
+		d.addFirstComponent(ACTUATOR_TIP_PREFIX + requestDispatcherId);
 		
 		// build the request dispatcher
 		this.portToProviderJVM.createComponent(
@@ -235,14 +500,390 @@ public class AdmissionControl extends AbstractComponent {
 					vmRequestArrivalInboundPortUris,
 					a.getMeanNrofInstructions(),
 					a.getStandardDeviation(),
-					actuatorResponseArrivalInboundPortUri
+					actuatorResponseArrivalInboundPortUri,
+					a.getStatisticsWindow(),
+					a.getSmoothingFactor(),
+					a.getDispatchPolicy(),
+					nrofCoresPerVM,
+					a.getPriority(),
+					RD_TIP_PREFIX + requestDispatcherId,
+					RD_CIP_PREFIX + requestDispatcherId
 				}
 			);
-		if(VerboseSettings.VERBOSE_ADMISSION){
-			System.out.println(logId + " End creation of application " + a.getUri());
-			System.out.println(logId + " Deployed application " + a.getUri() + " is available from " + RD_RAIP_PREFIX + requestDispatcherId);
+		d.addFirstComponent(RD_TIP_PREFIX + requestDispatcherId);
+		d.setDispatcherControlUri(RD_CIP_PREFIX + requestDispatcherId);
+	}
+
+	/**
+	 * return the number of virtual machines to allocate to an application.
+	 * 
+	 * <p><strong>Description</strong></p>
+	 * 
+	 * The application is modelled as an M/G/c queue: its requests arrive at
+	 * the rate given by its mean interarrival time and each core, running at
+	 * the maximal clock speed, services them at the rate
+	 * <code>maxClockSpeed / meanNrofInstructions</code>, the variability of the
+	 * service times coming from the standard deviation of the number of
+	 * instructions. The application gets the minimal number of virtual
+	 * machines whose cores keep the mean response time under its target
+	 * service time plus its flex time. If there are not enough free cores,
+	 * the application is degraded, unless <code>DEGRADE_PROPERTY</code> is
+	 * false: it gets the minimal number of virtual machines keeping its
+	 * queue stable plus <code>DEGRADE_HEADROOM_PROPERTY</code> ones (1 by
+	 * default), within the free ones, so that the other free virtual
+	 * machines are left to the next applications. It is refused if even the
+	 * stable minimum is not free. An application whose interarrival time is
+	 * unknown gets the default <code>nrofVMPerDispatcher</code> virtual
+	 * machines.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	a != null
+	 * post	ret >= 0
+	 * </pre>
+	 *
+	 * @param a		the application to be deployed
+	 * @return		the number of virtual machines, 0 if it must be refused
+	 */
+	protected int sizeApplication(Application a) {
+		int freeVMs = this.coreAllocator.getNrofFreeCores() / this.nrofCoresPerVM;
+		if (a.getMeanInterArrivalTime() <= 0) {
+			if (this.nrofVMPerDispatcher > freeVMs) {
+				System.err.println(logId + " The cluster ran out of available cores, "
+						+ "application " + a.getUri() + " refused.");
+				return 0;
+			}
+			return this.nrofVMPerDispatcher;
+		}
+		double lambda = 1.0 / a.getMeanInterArrivalTime();
+		double mu = this.maxClockSpeed / a.getMeanNrofInstructions();
+		double cv = a.getStandardDeviation() / a.getMeanNrofInstructions();
+		double target = a.getTargetServiceTime() + a.getFlexServiceTime();
+		int nrofCores = QueueingModel.minimalNumberOfServers(lambda, mu, cv * cv,
+				target, this.coreAllocator.getNrofCores());
+		if (nrofCores > 0) {
+			int nrofVMs = (nrofCores + this.nrofCoresPerVM - 1) / this.nrofCoresPerVM;
+			if (VerboseSettings.VERBOSE_ADMISSION)
+				System.out.println(logId + " Application " + a.getUri() + " needs "
+						+ nrofCores + " cores (" + nrofVMs + " vm) to meet "
+						+ (long) target + " ms");
+			if (nrofVMs <= freeVMs) {
+				return nrofVMs;
+			}
+		}
+		// the target cannot be met, degrade if the queue remains stable
+		int stableVMs = ((int) Math.floor(lambda / mu) + this.nrofCoresPerVM)
+				/ this.nrofCoresPerVM;
+		if (DEGRADE && stableVMs <= freeVMs) {
+			int degradedVMs = Math.min(freeVMs, stableVMs + DEGRADE_HEADROOM);
+			System.err.println(logId + " Application " + a.getUri() 
+					+ " degraded to " + degradedVMs + " vm, its target of " 
+					+ (long) target + " ms cannot be met");
+			this.nrofDegradedApplications.inc();
+			return degradedVMs;
+		}
+		System.err.println(logId + " Application " + a.getUri() 
+				+ " refused, its target of " + (long) target 
+				+ " ms cannot be met with the free cores");
+		return 0;
+	}
+
+	/**
+	 * release an application: tear down its request dispatcher, its actuator
+	 * and its virtual machines, then give its cores back to the free pool.
+	 * The virtual machines being drained are released with it. An application
+	 * whose components are being created is released once they all are. The
+	 * caller must have disconnected from the request dispatcher before.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	appUri != null
+	 * post	!deployments.containsKey(appUri)
+	 * </pre>
+	 *
+	 * @param appUri	uri of the application
+	 * @return			true if the application was deployed
+	 * @throws Exception
+	 */
+	boolean releaseApplication(Integer appUri) throws Exception {
+		Deployment d = this.deployments.remove(appUri);
+		if (d == null) {
+			return false;
+		}
+		List<Deployment> drainingParts;
+		synchronized (d) {
+			while (!d.isDeployed() && !d.isReleased()) {
+				d.wait();
+			}
+			if (d.isReleased()) {
+				// its deployment failed, it has been released then
+				return false;
+			}
+			// taken after a scaling of the application in progress, the next
+			// ones see the flag; the lock is not held while the actuator is
+			// torn down as its control task may be waiting for it
+			d.setReleased(true);
+			d.notifyAll();
+			drainingParts = d.removeDrainingParts();
+		}
+		try {
+			this.release(d);
+		} finally {
+			// the request dispatcher is torn down, no drain will be notified
+			for (Deployment part : drainingParts) {
+				this.drainingVirtualMachines.remove(part.getEntryUri());
+				this.release(part);
+			}
+		}
+		if(VerboseSettings.VERBOSE_ADMISSION)
+			System.out.println(logId + " Released application " + appUri 
+					+ ", " + d.getCoreUris().size() + " cores freed");
+		return true;
+	}
+
+	/**
+	 * add a virtual machine to a deployed application: its cores are taken
+	 * from the free pool, then it is created and attached to the request
+	 * dispatcher of the application.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	appUri != null
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @param appUri	uri of the application
+	 * @return			the control uris of the cores of the new virtual
+	 * 					machine, empty if the application is not deployed or
+	 * 					there are not enough free cores
+	 * @throws Exception
+	 */
+	ArrayList<String> scaleOut(Integer appUri) throws Exception {
+		ArrayList<String> added = new ArrayList<>();
+		Deployment d = this.deployments.get(appUri);
+		if (d == null) {
+			return added;
+		}
+		synchronized (d) {
+			if (d.isReleased() || !d.isDeployed()) {
+				return added;
+			}
+			Integer virtualMachineId;
+			Deployment part;
+			synchronized (this) {
+				virtualMachineId = virtualMachineCount;
+				part = new Deployment(VM_RAIP_PREFIX + virtualMachineId);
+				if (!this.coreAllocator.allocate(1, nrofCoresPerVM, part)) {
+					if(VerboseSettings.VERBOSE_ADMISSION)
+						System.out.println(logId + " No free cores to scale out application " 
+								+ appUri);
+					return added;
+				}
+				virtualMachineCount++;
+			}
+			String vmUri = this.createVirtualMachine(virtualMachineId,
+					new ArrayList<>(part.getCoreUris()),
+					d.getApplication().getDispatchPolicy());
+			part.addVirtualMachine(vmUri, VM_TIP_PREFIX + virtualMachineId);
+			if (!this.controlDispatcher(d, vmUri, true)) {
+				this.release(part);
+				return added;
+			}
+			d.merge(part);
+			this.nrofScaleOuts.inc();
+			added.addAll(part.getCoreControlUris());
+			if(VerboseSettings.VERBOSE_ADMISSION)
+				System.out.println(logId + " Application " + appUri + " scaled out to " 
+						+ d.getNrofVirtualMachines() + " vm, " + this.coreAllocator);
+		}
+		return added;
+	}
+
+	/**
+	 * remove the last virtual machine added to a deployed application: it is
+	 * detached from the request dispatcher of the application, which gives it
+	 * no new request. An application keeps at least one virtual machine. The
+	 * call does not wait for the drain of the virtual machine: it is torn down
+	 * and its cores are given back to the free pool upon the notification of
+	 * the request dispatcher (see <code>virtualMachineDrained</code>).
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	appUri != null
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @param appUri	uri of the application
+	 * @return			the control uris of the cores of the removed virtual
+	 * 					machine, empty if none has been removed
+	 * @throws Exception
+	 */
+	ArrayList<String> scaleIn(Integer appUri) throws Exception {
+		ArrayList<String> removed = new ArrayList<>();
+		Deployment d = this.deployments.get(appUri);
+		if (d == null) {
+			return removed;
+		}
+		synchronized (d) {
+			if (d.isReleased() || !d.isDeployed()
+					|| d.getNrofVirtualMachines() <= 1) {
+				return removed;
+			}
+			if (!this.controlDispatcher(d, d.getLastVirtualMachine(), false)) {
+				return removed;
+			}
+			Deployment part = d.removeLastVirtualMachine(nrofCoresPerVM);
+			d.addDrainingPart(part);
+			this.drainingVirtualMachines.put(part.getEntryUri(), d);
+			this.nrofScaleIns.inc();
+			removed.addAll(part.getCoreControlUris());
+			if(VerboseSettings.VERBOSE_ADMISSION)
+				System.out.println(logId + " Application " + appUri + " scaled in to " 
+						+ d.getNrofVirtualMachines() + " vm, " + part.getEntryUri()
+						+ " being drained");
+		}
+		return removed;
+	}
+
+	/**
+	 * tear down a virtual machine detached from its request dispatcher once
+	 * it has been drained, and give its cores back to the free pool; nothing
+	 * is done if it has been released with its application in the meantime.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	vmUri != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param vmUri		uri of the request arrival inbound port of the vm
+	 * @throws Exception
+	 */
+	void virtualMachineDrained(String vmUri) throws Exception {
+		Deployment d = this.drainingVirtualMachines.remove(vmUri);
+		if (d == null) {
+			return;
+		}
+		Deployment part;
+		synchronized (d) {
+			part = d.removeDrainingPart(vmUri);
+		}
+		if (part != null) {
+			this.release(part);
+			if(VerboseSettings.VERBOSE_ADMISSION)
+				System.out.println(logId + " Drained virtual machine " + vmUri 
+						+ " released, " + this.coreAllocator);
+		}
+	}
+
+	/**
+	 * attach a virtual machine to or detach it from the request dispatcher of
+	 * a deployment.
+	 *
+	 * @param d			the deployment of an application
+	 * @param vmUri		uri of the request arrival inbound port of the vm
+	 * @param attach	true to attach the virtual machine, false to detach it
+	 * @return			the result of the call to the request dispatcher
+	 * @throws Exception
+	 */
+	protected boolean controlDispatcher(Deployment d, String vmUri, boolean attach)
+	throws Exception {
+		// the control port is shared, one dispatcher is reached at a time
+		synchronized (this.dispatcherControlOutboundPort) {
+			this.dispatcherControlOutboundPort.doConnection(
+					d.getDispatcherControlUri(),
+					DispatcherControlConnector.class.getCanonicalName());
+			try {
+				return attach 
+						? this.dispatcherControlOutboundPort.attachVirtualMachine(vmUri)
+						: this.dispatcherControlOutboundPort.detachVirtualMachine(vmUri,
+								this.drainNotificationInboundPort.getPortURI());
+			} finally {
+				this.dispatcherControlOutboundPort.doDisconnection();
+			}
+		}
+	}
+
+	/**
+	 * create a virtual machine connected to the given cores.
+	 *
+	 * @param virtualMachineId	identifier of the virtual machine
+	 * @param coreUris			uris of the request arrival inbound ports of
+	 * 							its cores
+	 * @param dispatchPolicy	canonical name of the class of its dispatch
+	 * 							policy
+	 * @return					the uri of the request arrival inbound port of
+	 * 							the virtual machine
+	 * @throws Exception
+	 */
+	protected String createVirtualMachine(
+			Integer virtualMachineId,
+			ArrayList<String> coreUris,
+			String dispatchPolicy
+			) throws Exception {
+		ArrayList<String> vmRequestGeneratorOutboundPortUris = new ArrayList<>();
+		for (int j = 0; j < coreUris.size(); j++) {
+			vmRequestGeneratorOutboundPortUris.add(VM_RGOP_PREFIX + virtualMachineId + "-" + j);
+		}
+		this.portToProviderJVM.createComponent(
+				DynamicVM.class.getCanonicalName(),
+				new Object[]{ 
+					virtualMachineId, 
+					VM_RAIP_PREFIX + virtualMachineId, 
+					vmRequestGeneratorOutboundPortUris,
+					coreUris,
+					dispatchPolicy,
+					VM_TIP_PREFIX + virtualMachineId
+				}
+			);
+		// the connection between the cores and the vm are done in the constructor
+		// of the virtual machine
+		return VM_RAIP_PREFIX + virtualMachineId;
+	}
+
+	/**
+	 * tear down the components of a deployment in order and give its cores
+	 * back to the free pool. A component failing to be torn down does not
+	 * stop the teardown of the next ones, and the cores are given back in
+	 * any case; the first failure is then thrown.
+	 *
+	 * @param d		the deployment to be released
+	 * @throws Exception
+	 */
+	protected void release(Deployment d) throws Exception {
+		Exception failure = null;
+		try {
+			// the teardown port is shared, one component is torn down at a time
+			synchronized (this.teardownOutboundPort) {
+				for (String teardownUri : d.getTeardownUris()) {
+					try {
+						this.teardownOutboundPort.doConnection(teardownUri,
+								ComponentTeardownConnector.class.getCanonicalName());
+						try {
+							this.teardownOutboundPort.teardown();
+						} finally {
+							this.teardownOutboundPort.doDisconnection();
+						}
+					} catch (Exception e) {
+						System.err.println(logId + " Teardown of " + teardownUri 
+								+ " failed : " + e);
+						if (failure == null) {
+							failure = e;
+						}
+					}
+				}
+			}
+		} finally {
+			this.coreAllocator.free(d);
+		}
+		if (failure != null) {
+			throw failure;
 		}
-		return RD_RAIP_PREFIX + requestDispatcherId;
 	}
 
 	/**
@@ -284,52 +925,19 @@ public class AdmissionControl extends AbstractComponent {
 					crgop.doDisconnection();
 				}
 			}
+			if (this.teardownOutboundPort.connected()) {
+				this.teardownOutboundPort.doDisconnection();
+			}
+			if (this.dispatcherControlOutboundPort.connected()) {
+				this.dispatcherControlOutboundPort.doDisconnection();
+			}
 			
 		} catch (Exception e) {
 			throw new ComponentShutdownException() ;
 		}		
+		MetricsRegistry.getDefault().unregister(this.metrics);
 		super.shutdown();
 	}
-	
-	/**
-	 * Build a virtual machine associated with default number of cores and return its inbound port
-	 * @return the request arrival inbound port of the VM
-	 * @throws Exception
-	 */
-	public String buildVirtualMachine() throws Exception{
-		// build the vm
-		// FIXME: select only available cores (by pulling their status)
-		// TODO: select from cpu instead of cores
-		Integer virtualMachineId = virtualMachineCount++;
-		ArrayList<String> vmRequestGeneratorOutboundPortUris = new ArrayList<>();
-		ArrayList<String> assignedCoreRequestArrivalInboundPortUris = new ArrayList<>();
-		for (int j = 0; j < nrofCoresPerVM; j++) {
-			vmRequestGeneratorOutboundPortUris.add(VM_RGOP_PREFIX + virtualMachineId + j);
-			if(this.coreRequestArrivalInboundPortUris.size() <= 0 && j == 0){
-				// we assume the number of cores available is always positive
-				// TODO: the case when we run out of free cores is not yet implemented
-				// returning the empty string as an uri will throw an exception when
-				// the request generator will try to connect to it.
-				System.err.println("The cluster ran out of available cores, sorry.");
-				throw new Exception("out of cores");
-			}
-			String uri = this.coreRequestArrivalInboundPortUris.remove(0);
-			assignedCoreRequestArrivalInboundPortUris.add(uri);
-			this.usedCoreRequestArrivalInboundPortUris.add(uri);
-		}
-		
-		this.portToProviderJVM.createComponent(
-				DynamicVM.class.getCanonicalName(),
-				new Object[]{ 
-					virtualMachineId, 
-					VM_RAIP_PREFIX + virtualMachineId, 
-					vmRequestGeneratorOutboundPortUris,
-					assignedCoreRequestArrivalInboundPortUris
-					}
-				);
-		
-		return VM_RAIP_PREFIX + virtualMachineId;
-	}
 
 
 }
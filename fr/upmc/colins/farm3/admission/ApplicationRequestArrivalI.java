@@ -9,8 +9,10 @@ import fr.upmc.components.interfaces.TwoWayI;
  *
  * <p><strong>Description</strong></p>
  * 
- * The interface can be both required and offered, and it has only one method
- * <code>acceptApplication</code> passing a Application object as parameter.
+ * The interface can be both required and offered, it has a method
+ * <code>acceptApplication</code> passing a Application object as parameter and
+ * a method <code>releaseApplication</code> giving the resources of a deployed
+ * application back to the provider.
  * 
  * <p>Created on : december 2014</p>
  * 
@@ -35,5 +37,22 @@ extends		TwoWayI
 	 * @return uri of the service provider for the application	
 	 */
 	String			acceptApplication(Application a) throws Exception ;
+
+	/**
+	 * release a deployed application, the caller must have disconnected from
+	 * the uri returned by <code>acceptApplication</code> beforehand.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	appUri != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param appUri		uri of the application to be released.
+	 * @throws Exception
+	 * @return true if the application was deployed
+	 */
+	boolean			releaseApplication(Integer appUri) throws Exception ;
 	
 }
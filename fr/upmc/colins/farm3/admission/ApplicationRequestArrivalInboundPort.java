@@ -37,4 +37,10 @@ public class ApplicationRequestArrivalInboundPort extends AbstractInboundPort
 		AdmissionControl c = (AdmissionControl) this.owner;
 		return c.acceptApplication(a);
 	}
+
+	@Override
+	public boolean releaseApplication(Integer appUri) throws Exception {
+		AdmissionControl c = (AdmissionControl) this.owner;
+		return c.releaseApplication(appUri);
+	}
 }
@@ -0,0 +1,63 @@
+package fr.upmc.colins.farm3.admission;
+
+import java.util.ArrayList;
+
+import fr.upmc.components.interfaces.TwoWayI;
+
+/**
+ * The interface <code>ApplicationScalingI</code> defines the protocol used by
+ * the actuator of an application to ask the admission control for more or
+ * fewer virtual machines.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The actuator asks for a new virtual machine when the clock speed of its
+ * cores cannot be raised enough to meet the target, and gives one back when
+ * the load has dropped. Both calls return the uris of the control inbound
+ * ports of the cores added or removed, so that the actuator can control the
+ * clock speed of the new cores and forget the removed ones.
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public interface		ApplicationScalingI
+extends		TwoWayI
+{
+	/**
+	 * add a virtual machine to a deployed application.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	appUri != null
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @param appUri		uri of the application
+	 * @return				the control uris of the new cores, empty if the
+	 * 						application could not be scaled out
+	 * @throws Exception
+	 */
+	ArrayList<String>	scaleOut(Integer appUri) throws Exception ;
+
+	/**
+	 * remove the last virtual machine added to a deployed application; an
+	 * application always keeps one virtual machine.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	appUri != null
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @param appUri		uri of the application
+	 * @return				the control uris of the removed cores, empty if
+	 * 						the application could not be scaled in
+	 * @throws Exception
+	 */
+	ArrayList<String>	scaleIn(Integer appUri) throws Exception ;
+
+}
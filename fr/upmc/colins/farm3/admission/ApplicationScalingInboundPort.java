@@ -0,0 +1,48 @@
+package fr.upmc.colins.farm3.admission;
+
+import java.util.ArrayList;
+
+import fr.upmc.components.ComponentI;
+import fr.upmc.components.ports.AbstractInboundPort;
+
+/**
+ * The class <code>ApplicationScalingInboundPort</code> implements the inbound
+ * port through which the actuators ask the admission control to scale their
+ * application.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The port implements the <code>ApplicationScalingI</code> interface as offered
+ * and upon a call, passes it to the owner component that must also implement
+ * the methods <code>scaleOut</code> and <code>scaleIn</code>.
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class ApplicationScalingInboundPort extends AbstractInboundPort
+		implements ApplicationScalingI {
+
+	private static final long serialVersionUID = 1L;
+
+	public ApplicationScalingInboundPort(String uri, ComponentI owner)
+			throws Exception {
+		super(uri, ApplicationScalingI.class, owner);
+
+		assert uri != null && owner != null;
+		assert owner.isOfferedInterface(ApplicationScalingI.class);
+	}
+
+	@Override
+	public ArrayList<String> scaleOut(Integer appUri) throws Exception {
+		AdmissionControl c = (AdmissionControl) this.owner;
+		return c.scaleOut(appUri);
+	}
+
+	@Override
+	public ArrayList<String> scaleIn(Integer appUri) throws Exception {
+		AdmissionControl c = (AdmissionControl) this.owner;
+		return c.scaleIn(appUri);
+	}
+}
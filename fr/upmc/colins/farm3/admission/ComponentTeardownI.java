@@ -0,0 +1,38 @@
+package fr.upmc.colins.farm3.admission;
+
+import fr.upmc.components.interfaces.TwoWayI;
+
+/**
+ * The interface <code>ComponentTeardownI</code> defines the protocol used by
+ * the admission control to tear down a component it created dynamically.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The interface is offered by the dynamic virtual machines, actuators and
+ * request dispatchers, and required by the admission control. Upon a call,
+ * the component disconnects its ports and shuts down; the call returns once
+ * the shutdown is done so that the caller can chain the teardowns in order.
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public interface		ComponentTeardownI
+extends		TwoWayI
+{
+	/**
+	 * disconnect the ports of the component and shut it down.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @throws Exception
+	 */
+	void			teardown() throws Exception ;
+
+}
@@ -0,0 +1,47 @@
+package fr.upmc.colins.farm3.admission;
+
+import fr.upmc.components.AbstractComponent;
+import fr.upmc.components.ComponentI;
+import fr.upmc.components.ComponentI.ComponentService;
+import fr.upmc.components.ports.AbstractInboundPort;
+
+/**
+ * The class <code>ComponentTeardownInboundPort</code> implements the inbound
+ * port through which a dynamically created component is torn down.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The port implements the <code>ComponentTeardownI</code> interface as offered
+ * and upon a call, shuts its owner down from one of the owner's threads, so
+ * that the shutdown is serialized with the services being executed.
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class ComponentTeardownInboundPort extends AbstractInboundPort
+		implements ComponentTeardownI {
+
+	private static final long serialVersionUID = 1L;
+
+	public ComponentTeardownInboundPort(String uri, ComponentI owner)
+			throws Exception {
+		super(uri, ComponentTeardownI.class, owner);
+
+		assert uri != null && owner instanceof AbstractComponent;
+		assert owner.isOfferedInterface(ComponentTeardownI.class);
+	}
+
+	@Override
+	public void teardown() throws Exception {
+		final AbstractComponent c = (AbstractComponent) this.owner;
+		c.handleRequestSync(new ComponentService<Void>() {
+			@Override
+			public Void call() throws Exception {
+				c.shutdown();
+				return null;
+			}
+		});
+	}
+}
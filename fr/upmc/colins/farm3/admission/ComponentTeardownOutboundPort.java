@@ -0,0 +1,43 @@
+package fr.upmc.colins.farm3.admission;
+
+import fr.upmc.components.ComponentI;
+import fr.upmc.components.ports.AbstractOutboundPort;
+
+/**
+ * The class <code>ComponentTeardownOutboundPort</code> implements the outbound
+ * port used by the admission control to tear down a dynamic component.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The port implements the <code>ComponentTeardownI</code> interface as required
+ * and upon a call, passes it to the connector that must also implement the same
+ * interface.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	true
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class ComponentTeardownOutboundPort extends AbstractOutboundPort
+		implements ComponentTeardownI {
+
+	public ComponentTeardownOutboundPort(String uri, ComponentI owner)
+			throws Exception {
+		super(uri, ComponentTeardownI.class, owner);
+
+		assert uri != null;
+		assert owner.isRequiredInterface(ComponentTeardownI.class);
+	}
+
+	@Override
+	public void teardown() throws Exception {
+		((ComponentTeardownI) this.connector).teardown();
+	}
+
+}
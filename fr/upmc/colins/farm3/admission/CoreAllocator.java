@@ -0,0 +1,335 @@
+package fr.upmc.colins.farm3.admission;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The class <code>CoreAllocator</code> implements the allocation of the cores
+ * of the farm to the virtual machines, taking into account the cpu to which
+ * each core belongs.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The cores are numbered in the order of the uri lists given at creation,
+ * the <code>nrofCoresPerCpu</code> first ones belonging to the first cpu and
+ * so on. Each cpu keeps the set of its free cores, and the cpus are indexed
+ * by their number of free cores, so that allocating or freeing a core costs
+ * O(log n). The cores of a virtual machine are chosen according to a policy:
+ *
+ * <ul>
+ * <li><code>PACK</code>: the cores of a virtual machine are taken from a
+ *   single cpu, the one of the previous virtual machine of the same
+ *   allocation if it has enough free cores, else the one with the fewest
+ *   free cores that can host the whole virtual machine; the frequencies of
+ *   an application are then coupled by the cpu clock speed gap with as few
+ *   other applications as possible;</li>
+ * <li><code>SPREAD</code>: each core is taken from the cpu with the most free
+ *   cores, spreading the load over the cpus;</li>
+ * <li><code>BEST_FIT</code>: the cores of a virtual machine are taken from the
+ *   cpu with the fewest free cores that can host it, keeping the largest
+ *   free blocks for the next virtual machines.</li>
+ * </ul>
+ *
+ * When no cpu can host a whole virtual machine, its cores are taken from the
+ * cpus with the most free cores, so that it spans as few cpus as possible.
+ * The allocator is thread safe.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	nrofCoresPerCpu > 0
+ * invariant	0 &lt;= getNrofFreeCores() &amp;&amp; getNrofFreeCores() &lt;= getNrofCores()
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			CoreAllocator
+{
+	/**
+	 * The enumeration <code>Policy</code> lists the ways to choose the cores
+	 * of a virtual machine.
+	 */
+	public enum Policy {
+		PACK,
+		SPREAD,
+		BEST_FIT
+	}
+
+	/** name of the property selecting the policy							*/
+	public static final String		POLICY_PROPERTY = "farm3.allocation.policy" ;
+	/** policy used when the property is not set							*/
+	public static final Policy		DEFAULT_POLICY = Policy.PACK ;
+
+	/** policy used to choose the cores										*/
+	protected final Policy			policy ;
+	/** number of cores per cpu												*/
+	protected final int				nrofCoresPerCpu ;
+	/** uris of the request arrival inbound ports, by core index			*/
+	protected final List<String>	coreUris ;
+	/** uris of the control inbound ports, by core index					*/
+	protected final List<String>	coreControlUris ;
+	/** index of each core, by uri of its request arrival inbound port		*/
+	protected final Map<String, Integer>	coreIndexes ;
+	/** free cores of each cpu, by cpu index								*/
+	protected final List<TreeSet<Integer>>	freeCores ;
+	/** cpus indexed by their number of free cores, see <code>key</code>	*/
+	protected final TreeSet<Long>	cpusByFreeCores ;
+	/** total number of free cores											*/
+	protected int					nrofFreeCores ;
+
+	/**
+	 * create an allocator with all the cores free.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	coreUris.size() == coreControlUris.size()
+	 * pre	nrofCoresPerCpu > 0 &amp;&amp; policy != null
+	 * post	getNrofFreeCores() == coreUris.size()
+	 * </pre>
+	 *
+	 * @param coreUris			uris of the request arrival inbound ports of
+	 * 							the cores, grouped by cpu
+	 * @param coreControlUris	uris of the control inbound ports of the cores,
+	 * 							in the same order
+	 * @param nrofCoresPerCpu	number of cores per cpu
+	 * @param policy			policy used to choose the cores
+	 */
+	public				CoreAllocator(
+		List<String> coreUris,
+		List<String> coreControlUris,
+		int nrofCoresPerCpu,
+		Policy policy
+		)
+	{
+		assert	coreUris.size() == coreControlUris.size() ;
+		assert	nrofCoresPerCpu > 0 && policy != null ;
+
+		this.policy = policy ;
+		this.nrofCoresPerCpu = nrofCoresPerCpu ;
+		this.coreUris = new ArrayList<String>(coreUris) ;
+		this.coreControlUris = new ArrayList<String>(coreControlUris) ;
+		this.coreIndexes = new HashMap<String, Integer>() ;
+		this.freeCores = new ArrayList<TreeSet<Integer>>() ;
+		this.cpusByFreeCores = new TreeSet<Long>() ;
+
+		int nrofCpus = (coreUris.size() + nrofCoresPerCpu - 1) / nrofCoresPerCpu ;
+		for (int cpu = 0; cpu < nrofCpus; cpu++) {
+			this.freeCores.add(new TreeSet<Integer>()) ;
+		}
+		for (int i = 0; i < coreUris.size(); i++) {
+			this.coreIndexes.put(coreUris.get(i), i) ;
+			this.freeCores.get(this.getCpu(i)).add(i) ;
+		}
+		for (int cpu = 0; cpu < nrofCpus; cpu++) {
+			this.cpusByFreeCores.add(key(this.freeCores.get(cpu).size(), cpu)) ;
+		}
+		this.nrofFreeCores = coreUris.size() ;
+	}
+
+	/**
+	 * return the policy named by the property <code>POLICY_PROPERTY</code>,
+	 * or the default one if the property is not set or is not a policy.
+	 *
+	 * @return	the configured policy
+	 */
+	public static Policy	getConfiguredPolicy()
+	{
+		String name = System.getProperty(POLICY_PROPERTY) ;
+		if (name != null) {
+			try {
+				return Policy.valueOf(name.trim().toUpperCase()) ;
+			} catch (IllegalArgumentException e) {
+				System.err.println("Unknown allocation policy " + name
+						+ ", using " + DEFAULT_POLICY) ;
+			}
+		}
+		return DEFAULT_POLICY ;
+	}
+
+	/**
+	 * encode the entry of a cpu in the index, the entries being ordered by
+	 * number of free cores and then by cpu index.
+	 */
+	private static long	key(int nrofFree, int cpu)
+	{
+		return ((long) nrofFree << 32) | cpu ;
+	}
+
+	private static int	cpuOf(long key)
+	{
+		return (int) key ;
+	}
+
+	/**
+	 * allocate the cores of <code>nrofVMs</code> virtual machines to a
+	 * deployment, the cores of the i-th virtual machine being recorded from
+	 * index <code>i * nrofCoresPerVM</code>. Either all the cores are
+	 * allocated or none.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	nrofVMs > 0 &amp;&amp; nrofCoresPerVM > 0 &amp;&amp; d != null
+	 * post	!ret || d.getCoreUris().size() == d.getCoreUris().size()@pre + nrofVMs * nrofCoresPerVM
+	 * </pre>
+	 *
+	 * @param nrofVMs			number of virtual machines
+	 * @param nrofCoresPerVM	number of cores of each virtual machine
+	 * @param d					the deployment to which the cores are given
+	 * @return					false if there are not enough free cores
+	 */
+	public synchronized boolean	allocate(
+		int nrofVMs,
+		int nrofCoresPerVM,
+		Deployment d
+		)
+	{
+		assert	nrofVMs > 0 && nrofCoresPerVM > 0 && d != null ;
+
+		if (this.nrofFreeCores < nrofVMs * nrofCoresPerVM) {
+			return false ;
+		}
+		int previousCpu = -1 ;
+		for (int vm = 0; vm < nrofVMs; vm++) {
+			int cpu = this.selectCpu(nrofCoresPerVM, previousCpu) ;
+			for (int j = 0; j < nrofCoresPerVM; j++) {
+				int c = cpu ;
+				if (c < 0 || this.freeCores.get(c).isEmpty()) {
+					// spread, or no cpu can host the whole virtual machine
+					c = cpuOf(this.cpusByFreeCores.last()) ;
+				}
+				int core = this.take(c) ;
+				d.addCore(this.coreUris.get(core), this.coreControlUris.get(core)) ;
+			}
+			previousCpu = cpu ;
+		}
+		return true ;
+	}
+
+	/**
+	 * choose the cpu hosting all the cores of a virtual machine.
+	 *
+	 * @param nrofCores		number of cores of the virtual machine
+	 * @param previousCpu	cpu of the previous virtual machine of the same
+	 * 						allocation, -1 if none
+	 * @return				the chosen cpu, -1 if the cores must be taken from
+	 * 						several cpus
+	 */
+	protected int		selectCpu(int nrofCores, int previousCpu)
+	{
+		switch (this.policy) {
+		case SPREAD:
+			return -1 ;
+		case PACK:
+			if (previousCpu >= 0 &&
+					this.freeCores.get(previousCpu).size() >= nrofCores) {
+				return previousCpu ;
+			}
+			// fall through, the application moves to the best fitting cpu
+		case BEST_FIT:
+		default:
+			Long fit = this.cpusByFreeCores.ceiling(key(nrofCores, 0)) ;
+			return fit == null ? -1 : cpuOf(fit) ;
+		}
+	}
+
+	/**
+	 * take the free core of lowest index of a cpu.
+	 *
+	 * @param cpu	a cpu having at least one free core
+	 * @return		the index of the core
+	 */
+	protected int		take(int cpu)
+	{
+		TreeSet<Integer> free = this.freeCores.get(cpu) ;
+		assert	!free.isEmpty() ;
+		this.cpusByFreeCores.remove(key(free.size(), cpu)) ;
+		int core = free.pollFirst() ;
+		this.cpusByFreeCores.add(key(free.size(), cpu)) ;
+		this.nrofFreeCores-- ;
+		return core ;
+	}
+
+	/**
+	 * give the cores of a deployment back to the free pool.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	d != null
+	 * post	getNrofFreeCores() == getNrofFreeCores()@pre + d.getCoreUris().size()
+	 * </pre>
+	 *
+	 * @param d		the deployment being released
+	 */
+	public synchronized void	free(Deployment d)
+	{
+		assert	d != null ;
+
+		for (String uri : d.getCoreUris()) {
+			Integer core = this.coreIndexes.get(uri) ;
+			assert	core != null ;
+			int cpu = this.getCpu(core) ;
+			TreeSet<Integer> free = this.freeCores.get(cpu) ;
+			this.cpusByFreeCores.remove(key(free.size(), cpu)) ;
+			if (free.add(core)) {
+				this.nrofFreeCores++ ;
+			}
+			this.cpusByFreeCores.add(key(free.size(), cpu)) ;
+		}
+	}
+
+	/**
+	 * @param core	index of a core
+	 * @return		the index of the cpu to which the core belongs
+	 */
+	public int			getCpu(int core)
+	{
+		return core / this.nrofCoresPerCpu ;
+	}
+
+	/**
+	 * @return	the number of free cores
+	 */
+	public synchronized int	getNrofFreeCores()
+	{
+		return this.nrofFreeCores ;
+	}
+
+	/**
+	 * @return	the total number of cores
+	 */
+	public int			getNrofCores()
+	{
+		return this.coreUris.size() ;
+	}
+
+	/**
+	 * @return	the policy used to choose the cores
+	 */
+	public Policy		getPolicy()
+	{
+		return this.policy ;
+	}
+
+	/**
+	 * @return	a description of the free cores of each cpu
+	 */
+	@Override
+	public synchronized String	toString()
+	{
+		StringBuilder sb = new StringBuilder(this.policy.name()) ;
+		sb.append(" free cores per cpu") ;
+		for (int cpu = 0; cpu < this.freeCores.size(); cpu++) {
+			sb.append(' ').append(this.freeCores.get(cpu).size()) ;
+		}
+		return sb.toString() ;
+	}
+}
@@ -0,0 +1,318 @@
+package fr.upmc.colins.farm3.admission;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.upmc.colins.farm3.objects.Application;
+
+/**
+ * The class <code>Deployment</code> records what the admission control has
+ * allocated to serve an application or a virtual machine added to one.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * A deployment keeps the uris of the teardown inbound ports of the components
+ * created dynamically for it, in the order in which they must be torn down
+ * (the request dispatcher first so that no new request enters, then the
+ * actuator, then the virtual machines), and the uris of the request and
+ * control inbound ports of the cores assigned to it, which are given back to
+ * the free pool upon release.
+ * 
+ * The virtual machines are recorded in the order in which they were added,
+ * the cores of the i-th one being the i-th block of
+ * <code>nrofCoresPerVM</code> cores, so that the last virtual machine added
+ * to an application can be removed with its cores when it is scaled in.
+ * A removed virtual machine is kept, as a deployment of its own, until its
+ * request dispatcher has drained it.
+ * 
+ * The deployment of an application is recorded before its components are
+ * created, and marked deployed once they all are; the threads waiting for
+ * it wait on the deployment, which is notified when it is marked deployed
+ * or released.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	coreUris.size() == coreControlUris.size()
+ * invariant	vmUris.size() == vmTeardownUris.size()
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			Deployment
+{
+	/** uri of the entry point of the deployment (dispatcher or vm)		*/
+	protected final String			entryUri ;
+	/** uris of the teardown inbound ports, in teardown order				*/
+	protected final List<String>	teardownUris ;
+	/** uris of the request arrival inbound ports of the assigned cores	*/
+	protected final List<String>	coreUris ;
+	/** uris of the control inbound ports of the assigned cores			*/
+	protected final List<String>	coreControlUris ;
+	/** uris of the request arrival inbound ports of the virtual machines	*/
+	protected final List<String>	vmUris ;
+	/** uris of the teardown inbound ports of the virtual machines			*/
+	protected final List<String>	vmTeardownUris ;
+	/** the deployed application, null for a single virtual machine		*/
+	protected Application			application ;
+	/** uri of the control inbound port of the dispatcher, null if none		*/
+	protected String				dispatcherControlUri ;
+	/** true once all the components of the deployment are created		*/
+	protected boolean				deployed ;
+	/** true once the release of the deployment has started				*/
+	protected boolean				released ;
+	/** removed virtual machines being drained, by uri of the vm			*/
+	protected final Map<String, Deployment>	drainingParts ;
+
+	/**
+	 * create an empty deployment.
+	 *
+	 * @param entryUri	uri of the entry point of the deployment
+	 */
+	public				Deployment(String entryUri)
+	{
+		assert	entryUri != null ;
+
+		this.entryUri = entryUri ;
+		this.teardownUris = new ArrayList<String>() ;
+		this.coreUris = new ArrayList<String>() ;
+		this.coreControlUris = new ArrayList<String>() ;
+		this.vmUris = new ArrayList<String>() ;
+		this.vmTeardownUris = new ArrayList<String>() ;
+		this.deployed = false ;
+		this.released = false ;
+		this.drainingParts = new LinkedHashMap<String, Deployment>() ;
+	}
+
+	/**
+	 * record a core assigned to the deployment.
+	 *
+	 * @param coreUri			uri of the request arrival inbound port
+	 * @param coreControlUri	uri of the control inbound port
+	 */
+	public void			addCore(String coreUri, String coreControlUri)
+	{
+		this.coreUris.add(coreUri) ;
+		this.coreControlUris.add(coreControlUri) ;
+	}
+
+	/**
+	 * record a component to be torn down after the ones already recorded.
+	 *
+	 * @param teardownUri	uri of the teardown inbound port of the component
+	 */
+	public void			addComponent(String teardownUri)
+	{
+		this.teardownUris.add(teardownUri) ;
+	}
+
+	/**
+	 * record a virtual machine, to be torn down after the components already
+	 * recorded; its cores must have been recorded before.
+	 *
+	 * @param vmUri			uri of the request arrival inbound port of the vm
+	 * @param teardownUri	uri of the teardown inbound port of the vm
+	 */
+	public void			addVirtualMachine(String vmUri, String teardownUri)
+	{
+		this.vmUris.add(vmUri) ;
+		this.vmTeardownUris.add(teardownUri) ;
+		this.teardownUris.add(teardownUri) ;
+	}
+
+	/**
+	 * move the cores and the virtual machines of another deployment into this
+	 * one, after the ones already recorded.
+	 *
+	 * @param part	a deployment holding only cores and virtual machines
+	 */
+	public void			merge(Deployment part)
+	{
+		assert	part != null ;
+
+		for (int i = 0; i < part.coreUris.size(); i++) {
+			this.addCore(part.coreUris.get(i), part.coreControlUris.get(i)) ;
+		}
+		for (int i = 0; i < part.vmUris.size(); i++) {
+			this.addVirtualMachine(part.vmUris.get(i),
+								   part.vmTeardownUris.get(i)) ;
+		}
+	}
+
+	/**
+	 * remove the last virtual machine recorded, with its cores.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	getNrofVirtualMachines() > 0 &amp;&amp; nrofCoresPerVM > 0
+	 * post	getNrofVirtualMachines() == getNrofVirtualMachines()@pre - 1
+	 * </pre>
+	 *
+	 * @param nrofCoresPerVM	number of cores of each virtual machine
+	 * @return					a deployment holding the removed virtual
+	 * 							machine and its cores, to be released
+	 */
+	public Deployment	removeLastVirtualMachine(int nrofCoresPerVM)
+	{
+		assert	!this.vmUris.isEmpty() && nrofCoresPerVM > 0 ;
+		assert	this.coreUris.size() >= nrofCoresPerVM ;
+
+		int last = this.vmUris.size() - 1 ;
+		Deployment part = new Deployment(this.vmUris.remove(last)) ;
+		String teardownUri = this.vmTeardownUris.remove(last) ;
+		this.teardownUris.remove(teardownUri) ;
+		part.addComponent(teardownUri) ;
+		int first = this.coreUris.size() - nrofCoresPerVM ;
+		for (int i = first; i < first + nrofCoresPerVM; i++) {
+			part.addCore(this.coreUris.get(i), this.coreControlUris.get(i)) ;
+		}
+		this.coreUris.subList(first, first + nrofCoresPerVM).clear() ;
+		this.coreControlUris.subList(first, first + nrofCoresPerVM).clear() ;
+		return part ;
+	}
+
+	/**
+	 * record a virtual machine removed by <code>removeLastVirtualMachine</code>
+	 * until it has been drained.
+	 *
+	 * @param part	the deployment of the removed virtual machine
+	 */
+	public void			addDrainingPart(Deployment part)
+	{
+		assert	part != null ;
+
+		this.drainingParts.put(part.getEntryUri(), part) ;
+	}
+
+	/**
+	 * forget a drained virtual machine.
+	 *
+	 * @param vmUri	uri of the request arrival inbound port of the vm
+	 * @return		its deployment, null if it is not being drained
+	 */
+	public Deployment	removeDrainingPart(String vmUri)
+	{
+		return this.drainingParts.remove(vmUri) ;
+	}
+
+	/**
+	 * forget all the virtual machines being drained.
+	 *
+	 * @return	their deployments
+	 */
+	public List<Deployment>	removeDrainingParts()
+	{
+		List<Deployment> parts = new ArrayList<Deployment>(
+											this.drainingParts.values()) ;
+		this.drainingParts.clear() ;
+		return parts ;
+	}
+
+	/**
+	 * record a component to be torn down before the ones already recorded.
+	 *
+	 * @param teardownUri	uri of the teardown inbound port of the component
+	 */
+	public void			addFirstComponent(String teardownUri)
+	{
+		this.teardownUris.add(0, teardownUri) ;
+	}
+
+	public String		getEntryUri()
+	{
+		return this.entryUri ;
+	}
+
+	public List<String>	getTeardownUris()
+	{
+		return this.teardownUris ;
+	}
+
+	public List<String>	getCoreUris()
+	{
+		return this.coreUris ;
+	}
+
+	public List<String>	getCoreControlUris()
+	{
+		return this.coreControlUris ;
+	}
+
+	public int			getNrofVirtualMachines()
+	{
+		return this.vmUris.size() ;
+	}
+
+	/**
+	 * @return	the uri of the last virtual machine recorded, null if none
+	 */
+	public String		getLastVirtualMachine()
+	{
+		return this.vmUris.isEmpty() ? null
+									 : this.vmUris.get(this.vmUris.size() - 1) ;
+	}
+
+	public Application	getApplication()
+	{
+		return this.application ;
+	}
+
+	public void			setApplication(Application application)
+	{
+		this.application = application ;
+	}
+
+	public String		getDispatcherControlUri()
+	{
+		return this.dispatcherControlUri ;
+	}
+
+	public void			setDispatcherControlUri(String dispatcherControlUri)
+	{
+		this.dispatcherControlUri = dispatcherControlUri ;
+	}
+
+	/**
+	 * @return	true if all the components of the deployment are created
+	 */
+	public boolean		isDeployed()
+	{
+		return this.deployed ;
+	}
+
+	/**
+	 * mark the deployment as deployed, once all its components are created;
+	 * the caller must hold the lock of the deployment and notify it.
+	 *
+	 * @param deployed	true once the components are created
+	 */
+	public void			setDeployed(boolean deployed)
+	{
+		this.deployed = deployed ;
+	}
+
+	/**
+	 * @return	true if the release of the deployment has started
+	 */
+	public boolean		isReleased()
+	{
+		return this.released ;
+	}
+
+	/**
+	 * mark the deployment as being released, so that it is no longer scaled;
+	 * the caller must hold the lock of the deployment.
+	 *
+	 * @param released	true once the release has started
+	 */
+	public void			setReleased(boolean released)
+	{
+		this.released = released ;
+	}
+}
@@ -0,0 +1,52 @@
+package fr.upmc.colins.farm3.admission;
+
+import fr.upmc.colins.farm3.dispatcher.DispatcherControlI;
+import fr.upmc.components.ComponentI;
+import fr.upmc.components.ports.AbstractOutboundPort;
+
+/**
+ * The class <code>DispatcherControlOutboundPort</code> implements the outbound
+ * port used by the admission control to change the virtual machines of a
+ * request dispatcher.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The port implements the <code>DispatcherControlI</code> interface as required
+ * and upon a call, passes it to the connector that must also implement the same
+ * interface.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	true
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class DispatcherControlOutboundPort extends AbstractOutboundPort
+		implements DispatcherControlI {
+
+	public DispatcherControlOutboundPort(String uri, ComponentI owner)
+			throws Exception {
+		super(uri, DispatcherControlI.class, owner);
+
+		assert uri != null;
+		assert owner.isRequiredInterface(DispatcherControlI.class);
+	}
+
+	@Override
+	public boolean attachVirtualMachine(String vmUri) throws Exception {
+		return ((DispatcherControlI) this.connector).attachVirtualMachine(vmUri);
+	}
+
+	@Override
+	public boolean detachVirtualMachine(String vmUri,
+			String drainNotificationUri) throws Exception {
+		return ((DispatcherControlI) this.connector).detachVirtualMachine(vmUri,
+				drainNotificationUri);
+	}
+
+}
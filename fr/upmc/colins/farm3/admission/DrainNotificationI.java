@@ -0,0 +1,42 @@
+package fr.upmc.colins.farm3.admission;
+
+import fr.upmc.components.interfaces.TwoWayI;
+
+/**
+ * The interface <code>DrainNotificationI</code> defines the protocol used by
+ * a request dispatcher to tell the admission control that a virtual machine
+ * detached from it has been drained.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The detachment of a virtual machine does not wait for the requests it is
+ * servicing (see <code>DispatcherControlI</code>): the request dispatcher
+ * disconnects from the virtual machine once they have been answered, or
+ * abandoned after a timeout, then calls the admission control, which tears
+ * the virtual machine down and gives its cores back to the free pool.
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public interface		DrainNotificationI
+extends		TwoWayI
+{
+	/**
+	 * notify that a detached virtual machine has been drained and
+	 * disconnected from its request dispatcher.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	vmUri != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param vmUri		uri of the request arrival inbound port of the vm
+	 * @throws Exception
+	 */
+	void			virtualMachineDrained(String vmUri) throws Exception ;
+
+}
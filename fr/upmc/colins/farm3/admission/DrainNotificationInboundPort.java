@@ -0,0 +1,40 @@
+package fr.upmc.colins.farm3.admission;
+
+import fr.upmc.components.ComponentI;
+import fr.upmc.components.ports.AbstractInboundPort;
+
+/**
+ * The class <code>DrainNotificationInboundPort</code> implements the inbound
+ * port through which the request dispatchers tell the admission control that
+ * a detached virtual machine has been drained.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The port implements the <code>DrainNotificationI</code> interface as offered
+ * and upon a call, passes it to the owner component that must also implement
+ * the method <code>virtualMachineDrained</code>.
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class DrainNotificationInboundPort extends AbstractInboundPort
+		implements DrainNotificationI {
+
+	private static final long serialVersionUID = 1L;
+
+	public DrainNotificationInboundPort(String uri, ComponentI owner)
+			throws Exception {
+		super(uri, DrainNotificationI.class, owner);
+
+		assert uri != null && owner != null;
+		assert owner.isOfferedInterface(DrainNotificationI.class);
+	}
+
+	@Override
+	public void virtualMachineDrained(String vmUri) throws Exception {
+		AdmissionControl c = (AdmissionControl) this.owner;
+		c.virtualMachineDrained(vmUri);
+	}
+}
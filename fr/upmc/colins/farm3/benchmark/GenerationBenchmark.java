@@ -0,0 +1,247 @@
+package fr.upmc.colins.farm3.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.concurrent.Future;
+
+import org.apache.commons.math3.random.RandomDataGenerator;
+
+import fr.upmc.colins.farm3.generator.workload.UniformMix;
+import fr.upmc.colins.farm3.generator.workload.Workload;
+import fr.upmc.colins.farm3.objects.Request;
+import fr.upmc.colins.farm3.objects.TraceContext;
+import fr.upmc.colins.farm3.simulation.DiscreteEventScheduler;
+import fr.upmc.components.ComponentI.ComponentTask;
+
+/**
+ * The class <code>GenerationBenchmark</code> measures the memory allocated by
+ * the request generators for each generated request.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The benchmark runs, outside of any component, the steps of a run of
+ * <code>generateNextRequest</code> which do not depend on the components.
+ * The draws of the application and of the interarrival time are measured
+ * first, the former ones (a new <code>Random</code> per run, an exponential
+ * draw of a <code>RandomDataGenerator</code> stretched by the sinusoid, a new
+ * task) being compared to the current ones (the default
+ * <code>Workload</code>). The scheduling of the next run is then measured in
+ * virtual-time mode, with a task which draws its next request and schedules
+ * its own next run on a <code>DiscreteEventScheduler</code>, each measured
+ * run executing one event: <code>schedule</code> creates a future and an
+ * event per run, which <code>reschedule</code>, used by the generators,
+ * reuses. The request itself, passed to the request dispatcher, is measured
+ * on its own.
+ *
+ * The scheduling in real-time mode, where the component allocates the future
+ * of each run, and the sending of the request through the port of the
+ * generator, which goes through the component framework, are not measured.
+ * The bytes allocated by the thread are read from the
+ * <code>com.sun.management.ThreadMXBean</code> of the Java virtual machine.
+ * The number of iterations can be given as first argument.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			GenerationBenchmark
+{
+	/** number of runs measured by default									*/
+	protected static final int		DEFAULT_NROF_ITERATIONS = 1000000 ;
+	/** number of runs executed before measuring							*/
+	protected static final int		NROF_WARMUP_ITERATIONS = 200000 ;
+	/** number of applications the requests are spread over					*/
+	protected static final int		NROF_APPS = 10 ;
+	/** mean interarrival time of the requests in ms						*/
+	protected static final double	MEAN_INTER_ARRIVAL_TIME = 10.0 ;
+
+	/** keeps the allocated objects from being optimised away				*/
+	protected static volatile Object	sink ;
+
+	/**
+	 * a measured case, one run per call.
+	 */
+	protected static abstract class	Case
+	{
+		/** name of the case												*/
+		protected final String	name ;
+
+		protected			Case(String name)
+		{
+			this.name = name ;
+		}
+
+		/**
+		 * execute one run.
+		 *
+		 * @param i		index of the run
+		 * @return		a value depending on the run
+		 */
+		protected abstract long	run(int i) ;
+	}
+
+	/**
+	 * a task drawing its next request from the workload and scheduling its
+	 * own next run, as the request generators do, in virtual time.
+	 */
+	protected static class	Generation
+	implements	Runnable
+	{
+		/** scheduler executing the runs									*/
+		protected final DiscreteEventScheduler	scheduler ;
+		/** arrival process and application mix							*/
+		protected final Workload	workload ;
+		/** true if the next run is scheduled by <code>reschedule</code>	*/
+		protected final boolean		reuse ;
+		/** future of the next run											*/
+		protected Future<?>			next ;
+		/** virtual time of the next run									*/
+		protected long				due ;
+		/** sum of the drawn applications									*/
+		protected long				apps ;
+
+		protected			Generation(Workload workload, boolean reuse)
+		{
+			this.scheduler = new DiscreteEventScheduler(0L) ;
+			this.workload = workload ;
+			this.reuse = reuse ;
+			this.next = null ;
+			this.apps = 0 ;
+			this.schedule(0L) ;
+		}
+
+		/**
+		 * schedule the next run.
+		 *
+		 * @param delay		virtual delay in milliseconds
+		 */
+		protected void		schedule(long delay)
+		{
+			this.due = this.scheduler.getTime() + delay ;
+			if (this.reuse) {
+				this.next = this.scheduler.reschedule(this.next, this, delay) ;
+			} else {
+				this.next = this.scheduler.schedule(this, delay) ;
+			}
+		}
+
+		@Override
+		public void			run()
+		{
+			this.apps += this.workload.nextApp(NROF_APPS) ;
+			// at least one ms, so that a run executes exactly one event
+			this.schedule(1L + (long) this.workload.nextInterArrival(
+												this.scheduler.getTime())) ;
+		}
+
+		/**
+		 * execute the next run.
+		 *
+		 * @return	a value depending on the run
+		 */
+		protected long		runNext()
+		{
+			this.scheduler.runUntil(this.due) ;
+			return this.due + this.apps ;
+		}
+	}
+
+	/**
+	 * @return	the number of bytes allocated by the current thread
+	 */
+	protected static long	allocatedBytes()
+	{
+		return ((com.sun.management.ThreadMXBean)
+					ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId()) ;
+	}
+
+	/**
+	 * measure the runs of a case and print the result.
+	 *
+	 * @param c				the case
+	 * @param iterations	number of runs measured
+	 */
+	protected static void	measure(Case c, int iterations)
+	{
+		// the checksum keeps the runs from being optimised away
+		long checksum = 0 ;
+		for (int i = 0 ; i < NROF_WARMUP_ITERATIONS ; i++) {
+			checksum += c.run(i) ;
+		}
+		long bytes = allocatedBytes() ;
+		long start = System.nanoTime() ;
+		for (int i = 0 ; i < iterations ; i++) {
+			checksum += c.run(i) ;
+		}
+		long elapsed = System.nanoTime() - start ;
+		bytes = allocatedBytes() - bytes ;
+		System.out.println(String.format(
+				"%-28s %8.2f bytes/request %8.1f ns/request (%d)",
+				c.name, (double) bytes / iterations,
+				(double) elapsed / iterations, checksum & 1)) ;
+	}
+
+	public static void	main(String[] args) throws Exception
+	{
+		int iterations = DEFAULT_NROF_ITERATIONS ;
+		if (args.length > 0) {
+			iterations = Integer.parseInt(args[0]) ;
+		}
+
+		final RandomDataGenerator rng = new RandomDataGenerator() ;
+		rng.reSeed(42L) ;
+		final Workload workload = Workload.defaultWorkload(
+				MEAN_INTER_ARRIVAL_TIME, new UniformMix()) ;
+
+		System.out.println("Steps of a request generation, " + iterations
+				+ " iterations") ;
+		measure(new Case("draws (former)") {
+			@Override
+			protected long run(int i) {
+				Random rnd = new Random() ;
+				int app = rnd.nextInt(NROF_APPS) ;
+				long delay = (long) rng.nextExponential(MEAN_INTER_ARRIVAL_TIME) ;
+				delay = (long) (delay + delay * Math.max(0.1, Math.sin(i / 5000.0))) ;
+				sink = new ComponentTask() {
+					@Override
+					public void run() {
+					}
+				} ;
+				return app + delay ;
+			}
+		}, iterations) ;
+		measure(new Case("draws (workload)") {
+			@Override
+			protected long run(int i) {
+				int app = workload.nextApp(NROF_APPS) ;
+				long delay = (long) workload.nextInterArrival(i) ;
+				return app + delay ;
+			}
+		}, iterations) ;
+		final Generation scheduled = new Generation(workload, false) ;
+		measure(new Case("schedule (virtual time)") {
+			@Override
+			protected long run(int i) {
+				return scheduled.runNext() ;
+			}
+		}, iterations) ;
+		final Generation rescheduled = new Generation(workload, true) ;
+		measure(new Case("reschedule (virtual time)") {
+			@Override
+			protected long run(int i) {
+				return rescheduled.runNext() ;
+			}
+		}, iterations) ;
+		measure(new Case("request") {
+			@Override
+			protected long run(int i) {
+				Request r = new Request(i, i % NROF_APPS) ;
+				r.getTrace().mark(TraceContext.GENERATION) ;
+				sink = r ;
+				return r.getUri() ;
+			}
+		}, iterations) ;
+	}
+}
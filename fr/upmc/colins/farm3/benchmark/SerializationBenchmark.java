@@ -0,0 +1,251 @@
+package fr.upmc.colins.farm3.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import fr.upmc.colins.farm3.objects.Application;
+import fr.upmc.colins.farm3.objects.Request;
+import fr.upmc.colins.farm3.objects.Response;
+import fr.upmc.colins.farm3.objects.TraceContext;
+
+/**
+ * The class <code>SerializationBenchmark</code> measures the cost of passing
+ * requests, responses and applications between two Java virtual machines.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * Each remote call of a distributed CVM marshals its arguments in a new
+ * object stream, so that the class descriptors are written again for each
+ * call. The benchmark writes each object, then a batch of
+ * <code>BATCH_SIZE</code> requests or responses, in its own object stream and
+ * reads it back, and reports the number of bytes per object and the time of
+ * a round trip, for the externalized objects and for copies of the former
+ * default serialized ones (boxed duration, default form of the fields and of
+ * the trace). The number of iterations can be given as first argument.
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			SerializationBenchmark
+{
+	/** number of round trips measured by default							*/
+	protected static final int		DEFAULT_NROF_ITERATIONS = 100000 ;
+	/** number of round trips run before measuring							*/
+	protected static final int		NROF_WARMUP_ITERATIONS = 20000 ;
+	/** number of requests or responses of a batch							*/
+	protected static final int		BATCH_SIZE = 64 ;
+
+	/**
+	 * the former form of the requests, serialized by default.
+	 */
+	protected static class	LegacyRequest
+	implements	Serializable
+	{
+		private static final long serialVersionUID = 1L;
+		protected int			uri ;
+		protected int			appId ;
+		protected long			nrofInstructions ;
+		protected long			arrivalTime ;
+		protected int			priority ;
+		protected long			remainingInstructions ;
+		protected TraceContext	trace ;
+
+		protected			LegacyRequest(Request r)
+		{
+			this.uri = r.getUri() ;
+			this.appId = (int) r.getAppId() ;
+			this.nrofInstructions = r.getNrofInstructions() ;
+			this.arrivalTime = r.getArrivalTime() ;
+			this.priority = r.getPriority() ;
+			this.remainingInstructions = r.getRemainingInstructions() ;
+			this.trace = r.getTrace() ;
+		}
+	}
+
+	/**
+	 * the former form of the responses, serialized by default with a boxed
+	 * duration.
+	 */
+	protected static class	LegacyResponse
+	implements	Serializable
+	{
+		private static final long serialVersionUID = 1L;
+		protected int			uri ;
+		protected Double		duration ;
+		protected double		clockSpeed ;
+		protected boolean		rejected ;
+		protected TraceContext	trace ;
+
+		protected			LegacyResponse(Response r)
+		{
+			this.uri = r.getUri() ;
+			this.duration = r.getDuration() ;
+			this.clockSpeed = r.getClockSpeed() ;
+			this.rejected = r.isRejected() ;
+			this.trace = r.getTrace() ;
+		}
+	}
+
+	/**
+	 * the former form of the applications, serialized by default.
+	 */
+	protected static class	LegacyApplication
+	implements	Serializable
+	{
+		private static final long serialVersionUID = 1L;
+		protected int			uri ;
+		protected double		meanNrofInstructions ;
+		protected double		standardDeviation ;
+		protected long			arrivalTime ;
+		protected double		boostStep ;
+		protected long			targetServiceTime ;
+		protected long			flexServiceTime ;
+		protected long			statisticsWindow ;
+		protected double		smoothingFactor ;
+		protected String		dispatchPolicy ;
+		protected String		frequencyController ;
+		protected long			controlPeriod ;
+		protected int			priority ;
+		protected double		meanInterArrivalTime ;
+
+		protected			LegacyApplication(Application a)
+		{
+			this.uri = a.getUri() ;
+			this.meanNrofInstructions = a.getMeanNrofInstructions() ;
+			this.standardDeviation = a.getStandardDeviation() ;
+			this.arrivalTime = a.getArrivalTime() ;
+			this.boostStep = a.getBoostStep() ;
+			this.targetServiceTime = a.getTargetServiceTime() ;
+			this.flexServiceTime = a.getFlexServiceTime() ;
+			this.statisticsWindow = a.getStatisticsWindow() ;
+			this.smoothingFactor = a.getSmoothingFactor() ;
+			this.dispatchPolicy = a.getDispatchPolicy() ;
+			this.frequencyController = a.getFrequencyController() ;
+			this.controlPeriod = a.getControlPeriod() ;
+			this.priority = a.getPriority() ;
+			this.meanInterArrivalTime = a.getMeanInterArrivalTime() ;
+		}
+	}
+
+	/**
+	 * write an object in a new object stream, as for the argument of a remote
+	 * call.
+	 *
+	 * @param o		the object to be written
+	 * @return		the bytes of the stream
+	 * @throws IOException
+	 */
+	protected static byte[]	write(Object o) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256) ;
+		ObjectOutputStream out = new ObjectOutputStream(bytes) ;
+		out.writeObject(o) ;
+		out.close() ;
+		return bytes.toByteArray() ;
+	}
+
+	/**
+	 * read an object from the bytes of an object stream.
+	 *
+	 * @param b		the bytes of the stream
+	 * @return		the object read
+	 * @throws Exception
+	 */
+	protected static Object	read(byte[] b) throws Exception
+	{
+		ObjectInputStream in =
+				new ObjectInputStream(new ByteArrayInputStream(b)) ;
+		Object o = in.readObject() ;
+		in.close() ;
+		return o ;
+	}
+
+	/**
+	 * measure the round trips of an object and print the result.
+	 *
+	 * @param name			name of the measured case
+	 * @param o				the object
+	 * @param nrofObjects	number of requests or responses in the object
+	 * @param iterations	number of round trips measured
+	 * @throws Exception
+	 */
+	protected static void	measure(
+		String name,
+		Object o,
+		int nrofObjects,
+		int iterations
+		) throws Exception
+	{
+		// the checksum keeps the round trips from being optimised away
+		long checksum = 0 ;
+		for (int i = 0 ; i < NROF_WARMUP_ITERATIONS ; i++) {
+			checksum += read(write(o)).hashCode() & 1 ;
+		}
+		int size = write(o).length ;
+		long start = System.nanoTime() ;
+		for (int i = 0 ; i < iterations ; i++) {
+			checksum += read(write(o)).hashCode() & 1 ;
+		}
+		long elapsed = System.nanoTime() - start ;
+		System.out.println(String.format(
+				"%-28s %8.1f bytes/object %10.1f ns/object (%d)",
+				name, (double) size / nrofObjects,
+				(double) elapsed / iterations / nrofObjects,
+				checksum & 1)) ;
+	}
+
+	public static void	main(String[] args) throws Exception
+	{
+		int iterations = DEFAULT_NROF_ITERATIONS ;
+		if (args.length > 0) {
+			iterations = Integer.parseInt(args[0]) ;
+		}
+
+		ArrayList<Request> requests = new ArrayList<Request>() ;
+		ArrayList<LegacyRequest> legacyRequests = new ArrayList<LegacyRequest>() ;
+		ArrayList<Response> responses = new ArrayList<Response>() ;
+		ArrayList<LegacyResponse> legacyResponses = new ArrayList<LegacyResponse>() ;
+		for (int i = 0 ; i < BATCH_SIZE ; i++) {
+			Request r = new Request(i, 1) ;
+			r.setNrofInstructions(1000L + i) ;
+			r.setArrivalTime(System.currentTimeMillis()) ;
+			r.getTrace().mark(TraceContext.GENERATION) ;
+			r.getTrace().mark(TraceContext.DISPATCH) ;
+			requests.add(r) ;
+			legacyRequests.add(new LegacyRequest(r)) ;
+
+			Response resp = new Response(i) ;
+			resp.setDuration(250.0 + i) ;
+			resp.setClockSpeed(2.0) ;
+			resp.setTrace(r.getTrace()) ;
+			responses.add(resp) ;
+			legacyResponses.add(new LegacyResponse(resp)) ;
+		}
+		Application a = new Application(1, 1000.0, 100.0, 0.1, 800L, 50L) ;
+
+		System.out.println("Round trips through a new object stream, "
+				+ iterations + " iterations") ;
+		measure("request (default)", legacyRequests.get(0), 1, iterations) ;
+		measure("request (externalized)", requests.get(0), 1, iterations) ;
+		measure("request batch (default)", legacyRequests, BATCH_SIZE,
+				iterations / BATCH_SIZE) ;
+		measure("request batch (externalized)", requests, BATCH_SIZE,
+				iterations / BATCH_SIZE) ;
+		measure("response (default)", legacyResponses.get(0), 1, iterations) ;
+		measure("response (externalized)", responses.get(0), 1, iterations) ;
+		measure("response batch (default)", legacyResponses, BATCH_SIZE,
+				iterations / BATCH_SIZE) ;
+		measure("response batch (externalized)", responses, BATCH_SIZE,
+				iterations / BATCH_SIZE) ;
+		measure("application (default)", new LegacyApplication(a), 1,
+				iterations) ;
+		measure("application (externalized)", a, 1, iterations) ;
+	}
+}
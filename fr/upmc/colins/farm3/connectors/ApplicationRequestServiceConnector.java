@@ -38,4 +38,9 @@ implements	ApplicationRequestArrivalI,	Serializable
 		return ((ApplicationRequestArrivalI)this.offering).acceptApplication(a);
 	}
 
+	@Override
+	public boolean releaseApplication(Integer appUri) throws Exception {
+		return ((ApplicationRequestArrivalI)this.offering).releaseApplication(appUri);
+	}
+
 }
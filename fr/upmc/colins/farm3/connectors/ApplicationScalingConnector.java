@@ -0,0 +1,45 @@
+package fr.upmc.colins.farm3.connectors;
+
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import fr.upmc.colins.farm3.admission.ApplicationScalingI;
+import fr.upmc.components.connectors.AbstractConnector;
+
+/**
+ * The class <code>ApplicationScalingConnector</code> implements the connector
+ * between the actuator of an application and the admission control.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * Simply pass the call to the offering inbound port.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	true
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			ApplicationScalingConnector
+extends		AbstractConnector
+implements	ApplicationScalingI,	Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public ArrayList<String> scaleOut(Integer appUri) throws Exception {
+		return ((ApplicationScalingI)this.offering).scaleOut(appUri);
+	}
+
+	@Override
+	public ArrayList<String> scaleIn(Integer appUri) throws Exception {
+		return ((ApplicationScalingI)this.offering).scaleIn(appUri);
+	}
+
+}
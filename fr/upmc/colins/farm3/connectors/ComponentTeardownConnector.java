@@ -0,0 +1,40 @@
+package fr.upmc.colins.farm3.connectors;
+
+
+import java.io.Serializable;
+
+import fr.upmc.colins.farm3.admission.ComponentTeardownI;
+import fr.upmc.components.connectors.AbstractConnector;
+
+/**
+ * The class <code>ComponentTeardownConnector</code> implements the connector
+ * between the admission control and the teardown inbound port of a component
+ * it created dynamically.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * Simply pass the call to the offering inbound port.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	true
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			ComponentTeardownConnector
+extends		AbstractConnector
+implements	ComponentTeardownI,	Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public void teardown() throws Exception {
+		((ComponentTeardownI)this.offering).teardown();
+	}
+
+}
@@ -3,6 +3,7 @@ package fr.upmc.colins.farm3.connectors;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import fr.upmc.colins.farm3.core.ControlRequestArrivalI;
 import fr.upmc.components.connectors.AbstractConnector;
@@ -62,5 +63,21 @@ implements	ControlRequestArrivalI,	Serializable
 		return ((ControlRequestArrivalI)this.offering).updateClockSpeedPlease(clockSpeed);
 	}
 
+	@Override
+	public HashMap<Integer, Double> updateClockSpeedsPlease(
+			HashMap<Integer, Double> clockSpeeds) throws Exception {
+		return ((ControlRequestArrivalI)this.offering).updateClockSpeedsPlease(clockSpeeds);
+	}
+
+	@Override
+	public Integer getCoreId() throws Exception {
+		return ((ControlRequestArrivalI)this.offering).getCoreId();
+	}
+
+	@Override
+	public Integer getCpuId() throws Exception {
+		return ((ControlRequestArrivalI)this.offering).getCpuId();
+	}
+
 
 }
@@ -1,6 +1,7 @@
 package fr.upmc.colins.farm3.connectors;
 
 import java.io.Serializable;
+import java.util.HashMap;
 
 import fr.upmc.colins.farm3.core.Core2CpuI;
 import fr.upmc.components.connectors.AbstractConnector;
@@ -35,4 +36,10 @@ public class Core2CpuServiceConnector extends AbstractConnector implements
 				clockspeed, coreId);
 	}
 
+	@Override
+	public HashMap<Integer, Double> setClockSpeeds(
+			HashMap<Integer, Double> clockSpeeds) throws Exception {
+		return ((Core2CpuI) this.offering).setClockSpeeds(clockSpeeds);
+	}
+
 }
@@ -0,0 +1,47 @@
+package fr.upmc.colins.farm3.connectors;
+
+
+import java.io.Serializable;
+
+import fr.upmc.colins.farm3.dispatcher.DispatcherControlI;
+import fr.upmc.components.connectors.AbstractConnector;
+
+/**
+ * The class <code>DispatcherControlConnector</code> implements the connector
+ * between the admission control and the control inbound port of a request
+ * dispatcher.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * Simply pass the call to the offering inbound port.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	true
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			DispatcherControlConnector
+extends		AbstractConnector
+implements	DispatcherControlI,	Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public boolean attachVirtualMachine(String vmUri) throws Exception {
+		return ((DispatcherControlI)this.offering).attachVirtualMachine(vmUri);
+	}
+
+	@Override
+	public boolean detachVirtualMachine(String vmUri,
+			String drainNotificationUri) throws Exception {
+		return ((DispatcherControlI)this.offering).detachVirtualMachine(vmUri,
+				drainNotificationUri);
+	}
+
+}
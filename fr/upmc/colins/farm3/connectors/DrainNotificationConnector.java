@@ -0,0 +1,40 @@
+package fr.upmc.colins.farm3.connectors;
+
+
+import java.io.Serializable;
+
+import fr.upmc.colins.farm3.admission.DrainNotificationI;
+import fr.upmc.components.connectors.AbstractConnector;
+
+/**
+ * The class <code>DrainNotificationConnector</code> implements the connector
+ * between a request dispatcher and the drain notification inbound port of
+ * the admission control.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * Simply pass the call to the offering inbound port.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	true
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			DrainNotificationConnector
+extends		AbstractConnector
+implements	DrainNotificationI,	Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public void virtualMachineDrained(String vmUri) throws Exception {
+		((DrainNotificationI)this.offering).virtualMachineDrained(vmUri);
+	}
+
+}
@@ -2,6 +2,7 @@ package fr.upmc.colins.farm3.connectors;
 
 
 import java.io.Serializable;
+import java.util.ArrayList;
 
 import fr.upmc.colins.farm3.core.RequestArrivalI;
 import fr.upmc.colins.farm3.objects.Request;
@@ -38,9 +39,15 @@ implements	RequestArrivalI, Serializable
 	 * @see fr.upmc.alasca.ssqueue.interfaces.RequestArrivalI#acceptRequest(fr.upmc.alasca.ssqueue.objects.Request)
 	 */
 	@Override
-	public void			acceptRequest(Request c) throws Exception
+	public int			acceptRequest(Request c) throws Exception
 	{
-		((RequestArrivalI)this.offering).acceptRequest(c) ;
+		return ((RequestArrivalI)this.offering).acceptRequest(c) ;
+	}
+
+	@Override
+	public int[]		acceptRequests(ArrayList<Request> requests) throws Exception
+	{
+		return ((RequestArrivalI)this.offering).acceptRequests(requests) ;
 	}
 
 	@Override
@@ -48,4 +55,9 @@ implements	RequestArrivalI, Serializable
 		((RequestArrivalI)this.offering).connectResponseConnection(vmResponseArrivalInboundPortUri) ;
 	}
 
+	@Override
+	public void disconnectResponseConnection() throws Exception {
+		((RequestArrivalI)this.offering).disconnectResponseConnection() ;
+	}
+
 }
@@ -2,6 +2,7 @@ package fr.upmc.colins.farm3.connectors;
 
 
 import java.io.Serializable;
+import java.util.ArrayList;
 
 import fr.upmc.colins.farm3.core.ResponseArrivalI;
 import fr.upmc.colins.farm3.objects.Response;
@@ -39,4 +40,9 @@ implements	ResponseArrivalI, Serializable
 		((ResponseArrivalI) this.offering).acceptResponse(response);
 	}
 
+	@Override
+	public void acceptResponses(ArrayList<Response> responses) throws Exception {
+		((ResponseArrivalI) this.offering).acceptResponses(responses);
+	}
+
 }
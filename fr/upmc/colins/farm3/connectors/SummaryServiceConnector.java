@@ -0,0 +1,41 @@
+package fr.upmc.colins.farm3.connectors;
+
+
+import java.io.Serializable;
+
+import fr.upmc.colins.farm3.actuator.SummaryArrivalI;
+import fr.upmc.colins.farm3.objects.ResponseSummary;
+import fr.upmc.components.connectors.AbstractConnector;
+
+/**
+ * The class <code>SummaryServiceConnector</code> implements the connector
+ * between a request dispatcher and the inbound port of its actuator
+ * receiving the summaries of the responses.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * Simply pass the summary to the offering inbound port.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	true
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			SummaryServiceConnector
+extends		AbstractConnector
+implements	SummaryArrivalI,	Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public void acceptSummary(ResponseSummary summary) throws Exception {
+		((SummaryArrivalI)this.offering).acceptSummary(summary);
+	}
+
+}
@@ -1,6 +1,7 @@
 package fr.upmc.colins.farm3.core;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import fr.upmc.components.interfaces.TwoWayI;
 
@@ -36,6 +37,24 @@ extends		TwoWayI
 	 * @throws Exception
 	 */
 	boolean 			updateClockSpeedPlease(Double clockSpeed) throws Exception;
+
+	/**
+	 * ask for an update of the clock speeds of several cores of the same cpu
+	 * at once, the cpu checking its constraints only once for the batch
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	clockSpeeds != null
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @param clockSpeeds	new clock speed of each core, by core identifier
+	 * @return				the clock speed of each core of the cpu after the
+	 * 						update, by core identifier
+	 * @throws Exception
+	 */
+	HashMap<Integer, Double>	updateClockSpeedsPlease(HashMap<Integer, Double> clockSpeeds) throws Exception;
 	
 	/**
 	 * return inbound core uri (raip)
@@ -59,5 +78,19 @@ extends		TwoWayI
 	 */
 	Double getClockSpeed() throws Exception;
 
+	/**
+	 * get the identifier of the core within its cpu
+	 * @return the core identifier, -1 for a cpu
+	 * @throws Exception
+	 */
+	Integer getCoreId() throws Exception;
+
+	/**
+	 * get the identifier of the cpu
+	 * @return the cpu identifier
+	 * @throws Exception
+	 */
+	Integer getCpuId() throws Exception;
+
 	
 }
@@ -1,17 +1,34 @@
 package fr.upmc.colins.farm3.core;
 
 import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import fr.upmc.colins.farm3.VerboseSettings;
 import fr.upmc.colins.farm3.connectors.Core2CpuServiceConnector;
 import fr.upmc.colins.farm3.connectors.ResponseServiceConnector;
+import fr.upmc.colins.farm3.log.EventLog;
+import fr.upmc.colins.farm3.log.EventType;
+import fr.upmc.colins.farm3.metrics.Counter;
+import fr.upmc.colins.farm3.metrics.Gauge;
+import fr.upmc.colins.farm3.metrics.HistogramMetric;
+import fr.upmc.colins.farm3.metrics.Metric;
+import fr.upmc.colins.farm3.metrics.MetricsRegistry;
 import fr.upmc.colins.farm3.objects.Request;
 import fr.upmc.colins.farm3.objects.Response;
-import fr.upmc.colins.farm3.utils.TimeProcessing;
+import fr.upmc.colins.farm3.objects.TraceContext;
+import fr.upmc.colins.farm3.simulation.SimulationClock;
+import fr.upmc.colins.farm3.stats.LatencyHistogram;
+import fr.upmc.colins.farm3.utils.ClockSpeedProcessing;
 import fr.upmc.components.AbstractComponent;
 import fr.upmc.components.cvm.AbstractCVM;
 import fr.upmc.components.exceptions.ComponentShutdownException;
@@ -37,12 +54,29 @@ import fr.upmc.components.ports.PortI;
  *   request processing event is immediately executed</li>
  * </ol>
  * 
+ * The number of requests queued or being serviced is bounded by
+ * <code>queueCapacity</code>: a slot is reserved synchronously by the inbound
+ * port when a request arrives, and released at the end of its servicing. When
+ * no slot is left, the request is rejected and the sender is told so through
+ * the outcome returned by <code>RequestArrivalI.acceptRequest</code>, which
+ * keeps the waiting time of the accepted requests bounded under overload.
+ * 
+ * The pending requests are serviced by decreasing priority class, then in
+ * their order of arrival (see <code>RequestPriorityComparator</code>). A core
+ * is a single server; when it is <code>preemptive</code>, a request arriving
+ * with a higher priority class than the one being serviced preempts it: the
+ * preempted request goes back to the queue with its number of remaining
+ * instructions, as computed when the clock speed changes, and its processing
+ * resumes from there.
+ * 
  * Total service times (waiting + processing) of requests is accumulated in the
  * variable <code>totalServicingTime</code> while the number of serviced
  * requests is accumulated in the variable
  * <code>totalNumberOfServicedRequests</code>.  When the component is shut down,
  * any end processing event already scheduled is cancelled, and the component
  * outputs the average service time of the completely serviced requests.
+ * The service times are also recorded in one latency histogram per
+ * application, which can be read at any time to get their percentiles.
  * 
  * 
  * <p><strong>Invariant</strong></p>
@@ -51,6 +85,7 @@ import fr.upmc.components.ports.PortI;
  * invariant	serverIdle => (servicing == null && nextEndServicingTaskFuture == null)
  * invariant	!serverIdle => (servicing != null && nextEndServicingTaskFuture != null)
  * invariant	totalServicingTime >= 0 && totalNumberOfServicedRequests >= 0
+ * invariant	0 <= reservedSlots.get() && reservedSlots.get() <= queueCapacity
  * </pre>
  * 
  * <p>Created on : 2 sept. 2014</p>
@@ -69,18 +104,38 @@ extends		AbstractComponent
 	// Constructors and instance variables
 	// -------------------------------------------------------------------------
 
-	/** core identifier 													*/
+	/** core identifier within its cpu										*/
 	protected int 						coreId;
+	/** identifier of the cpu of the core									*/
+	protected int 						cpuId;
 	/** true if the core is idle otherwise false.							*/
 	protected boolean					coreIdle ;
 	/** request currently being serviced, null if any.						*/
 	protected Request					servicing ;
 	/** queue of pending requests.											*/
 	protected BlockingQueue<Request>	requestsQueue ;
+	/** maximum number of requests queued or being serviced.				*/
+	protected int						queueCapacity ;
+	/** number of requests accepted and not yet completely serviced.		*/
+	protected AtomicInteger				reservedSlots ;
+	/** total number of requests rejected because the core was full.		*/
+	protected Counter					totalNumberOfRejectedRequests ;
+	/** true if an urgent request preempts the processing of a less urgent one	*/
+	protected boolean					preemptive ;
+	/** total number of preemptions of the request being serviced.			*/
+	protected int						totalNumberOfPreemptions ;
 	/** sum of the service time of all completed requets.					*/
 	protected long						totalServicingTime ;
 	/** total number of completely serviced requests.						*/
 	protected int						totalNumberOfServicedRequests ;
+	/** histogram of the service times, by application identifier			*/
+	protected ConcurrentMap<Long, LatencyHistogram>	serviceTimes ;
+	/** time spent processing requests, in milliseconds						*/
+	protected Counter					busyTime ;
+	/** labels of the metrics of the core									*/
+	protected String					metricLabels ;
+	/** metrics registered by the core										*/
+	protected List<Metric>				metrics ;
 
 	/** a future pointing to the next end servicing task.					*/
 	protected Future<?>					nextEndServicingTaskFuture ;
@@ -102,6 +157,9 @@ extends		AbstractComponent
 	/** outbound port of the core to send response to the virtual machine	*/
 	protected CoreResponseGeneratorOutboundPort coreResponseGeneratorOutboundPort;
 
+	/** batcher of the responses sent to the virtual machine				*/
+	protected ResponseBatcher			responseBatcher;
+
 	/** uri of the core inbound port for request 							*/
 	protected String 					inboundPortURI;
 
@@ -124,9 +182,12 @@ extends		AbstractComponent
 	 * post	true			// no postcondition.
 	 * </pre>
 	 *
-	 * @param coreId				core identifier
+	 * @param coreId				core identifier within its cpu
+	 * @param cpuId					identifier of the cpu of the core
 	 * @param clockSpeed			clock speed of the core
 	 * @param maxClockSpeed 		maxClockSpeed
+	 * @param queueCapacity			maximum number of requests queued or serviced
+	 * @param preemptive			true if an urgent request preempts a less urgent one
 	 * @param inboundPortURI		URI of the port used to received requests.
 	 * @param controlInboundPortURI URI of the port used to received control request
 	 * @param cpuControlInboundPortURI URI of the port used to send control request to the CPU
@@ -134,8 +195,11 @@ extends		AbstractComponent
 	 */
 	public				Core(
 		Integer coreId,
+		Integer cpuId,
 		Double clockSpeed,
 		Double maxClockSpeed,
+		Integer queueCapacity,
+		Boolean preemptive,
 		String inboundPortURI,
 		String controlInboundPortURI,
 		String cpuControlInboundPortURI
@@ -145,13 +209,28 @@ extends		AbstractComponent
 		this.logId = MessageFormat.format("[ Core {0}  ]", String.format("%04d", coreId));
 		
 		this.coreId = coreId;
+		this.cpuId = cpuId;
 		this.clockSpeed = clockSpeed;
 		this.maxClockSpeed = maxClockSpeed;
 		this.coreIdle = true ;
 		this.servicing = null ;
-		this.requestsQueue = new LinkedBlockingQueue<Request>() ;
+		this.queueCapacity = queueCapacity;
+		// unbounded, the capacity is enforced by the reservation of slots
+		this.requestsQueue = new PriorityBlockingQueue<Request>(queueCapacity,
+											new RequestPriorityComparator()) ;
+		this.reservedSlots = new AtomicInteger(0) ;
+		this.metricLabels = "cpu=\"" + cpuId + "\",core=\"" + coreId + "\"" ;
+		this.metrics = new CopyOnWriteArrayList<>() ;
+		this.totalNumberOfRejectedRequests = new Counter(
+				"core_rejected_requests_total", this.metricLabels,
+				"requests rejected because the core was full") ;
+		this.busyTime = new Counter("core_busy_milliseconds_total",
+				this.metricLabels, "time spent processing requests") ;
+		this.preemptive = preemptive ;
+		this.totalNumberOfPreemptions = 0 ;
 		this.totalServicingTime = 0L ;
 		this.totalNumberOfServicedRequests = 0 ;
+		this.serviceTimes = new ConcurrentHashMap<>() ;
 		this.nextEndServicingTaskFuture = null ;
 		this.timeStart = 0;
 		this.remainingInstructions = 0;
@@ -182,6 +261,8 @@ extends		AbstractComponent
 		this.coreResponseGeneratorOutboundPort = new CoreResponseGeneratorOutboundPort(
 				"core-resp-rgop-" + java.util.UUID.randomUUID(), this);
 		this.addPort(coreResponseGeneratorOutboundPort);
+		this.responseBatcher = new ResponseBatcher(this,
+				this.coreResponseGeneratorOutboundPort);
 		if (AbstractCVM.isDistributed) {
 			p.publishPort() ;
 			controlPort.publishPort() ;
@@ -196,15 +277,64 @@ extends		AbstractComponent
 		
 		this.cpuControlInboundPortURI = cpuControlInboundPortURI;
 		
+		this.registerMetrics() ;
+		
 		System.out.println(logId + " Core " + this.clockSpeed + " / "
 				+ this.maxClockSpeed + " GHz (id " + coreId + ") created");
 
 		assert	clockSpeed > 0;
+		assert	queueCapacity > 0;
 		assert	!coreIdle || (servicing == null && nextEndServicingTaskFuture == null) ;
 		assert	coreIdle || (servicing != null && nextEndServicingTaskFuture != null) ;
 		assert	totalServicingTime >= 0 && totalNumberOfServicedRequests >= 0 ;
 	}
 
+	/**
+	 * register the metrics of the core: its queue length, its busy ratio
+	 * since the previous export, its clock speed and its counters; the
+	 * histograms of the service times are registered at the first request
+	 * of each application.
+	 */
+	protected void		registerMetrics()
+	{
+		final Core fcore = this ;
+		this.metrics.add(this.totalNumberOfRejectedRequests) ;
+		this.metrics.add(this.busyTime) ;
+		this.metrics.add(new Gauge("core_queue_length", this.metricLabels,
+				"requests queued or being serviced") {
+			@Override
+			public double getValue() {
+				return fcore.reservedSlots.get() ;
+			}
+		}) ;
+		this.metrics.add(new Gauge("core_busy_ratio", this.metricLabels,
+				"fraction of the time spent processing requests since the previous export") {
+			private long lastBusyTime = 0 ;
+			private long lastTime = SimulationClock.currentTimeMillis() ;
+			@Override
+			public synchronized double getValue() {
+				long busy = fcore.busyTime.get() ;
+				long now = SimulationClock.currentTimeMillis() ;
+				double ratio = now > this.lastTime
+						? (double) (busy - this.lastBusyTime) / (now - this.lastTime)
+						: 0.0 ;
+				this.lastBusyTime = busy ;
+				this.lastTime = now ;
+				return Math.min(1.0, ratio) ;
+			}
+		}) ;
+		this.metrics.add(new Gauge("core_clock_speed", this.metricLabels,
+				"current clock speed of the core") {
+			@Override
+			public double getValue() {
+				return fcore.clockSpeed ;
+			}
+		}) ;
+		for (Metric m : this.metrics) {
+			MetricsRegistry.getDefault().register(m) ;
+		}
+	}
+
 	// -------------------------------------------------------------------------
 	// Component life-cycle
 	// -------------------------------------------------------------------------
@@ -233,6 +363,7 @@ extends		AbstractComponent
 		}
 		try {
 			if (this.coreResponseGeneratorOutboundPort.connected()) {
+				this.responseBatcher.flush();
 				this.coreResponseGeneratorOutboundPort.doDisconnection();
 			}
 			if (this.core2CpuOutboundPort.connected()) {
@@ -242,13 +373,89 @@ extends		AbstractComponent
 			e.printStackTrace();
 		}
 
+		MetricsRegistry.getDefault().unregister(this.metrics) ;
+		if(VerboseSettings.VERBOSE_CORE) {
+			for (Map.Entry<Long, LatencyHistogram> e :
+											this.serviceTimes.entrySet()) {
+				System.out.println(logId + " Service time of app "
+						+ e.getKey() + " : "
+						+ e.getValue().getSnapshot().toPercentileString()) ;
+			}
+		}
+
 		super.shutdown() ;
 	}
 
+	/**
+	 * record the service time of a request in the histogram of its
+	 * application, created at its first request.
+	 *
+	 * @param appId			identifier of the application of the request
+	 * @param serviceTime	service time in nanoseconds
+	 */
+	protected void		recordServiceTime(long appId, long serviceTime)
+	{
+		LatencyHistogram h = this.serviceTimes.get(appId) ;
+		if (h == null) {
+			h = new LatencyHistogram() ;
+			LatencyHistogram previous = this.serviceTimes.putIfAbsent(appId, h) ;
+			if (previous != null) {
+				h = previous ;
+			} else {
+				Metric m = new HistogramMetric("core_service_time_seconds",
+						this.metricLabels + ",app=\"" + appId + "\"",
+						"service times (waiting + processing) of the requests", h) ;
+				this.metrics.add(m) ;
+				MetricsRegistry.getDefault().register(m) ;
+			}
+		}
+		h.recordValue(serviceTime) ;
+	}
+
+	/**
+	 * return the histogram of the service times of the requests of an
+	 * application; it may be read while the core records new values.
+	 *
+	 * @param appId		identifier of an application
+	 * @return			the histogram, null if no request of this application
+	 * 					has been serviced
+	 */
+	public LatencyHistogram	getServiceTimeHistogram(long appId)
+	{
+		return this.serviceTimes.get(appId) ;
+	}
+
 	// -------------------------------------------------------------------------
 	// Component internal services
 	// -------------------------------------------------------------------------
 
+	/**
+	 * reserve a slot for an arriving request; called synchronously by the
+	 * inbound port, before the request arrival event is processed.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	ret == false || reservedSlots.get() <= queueCapacity
+	 * </pre>
+	 *
+	 * @return	true if a slot was reserved, false if the core is full
+	 */
+	public boolean		reserveSlot()
+	{
+		int reserved ;
+		do {
+			reserved = this.reservedSlots.get() ;
+			if (reserved >= this.queueCapacity) {
+				this.totalNumberOfRejectedRequests.inc() ;
+				EventLog.log(EventType.CORE_REJECT, this.coreId, -1, reserved) ;
+				return false ;
+			}
+		} while (!this.reservedSlots.compareAndSet(reserved, reserved + 1)) ;
+		return true ;
+	}
+
 	/**
 	 * process a request arrival event, queueing the request and the processing
 	 * a begin sericing event if the server is currently idle.
@@ -267,18 +474,86 @@ extends		AbstractComponent
 	{
 		assert	r != null ;
 
-		long t = System.currentTimeMillis() ;
-		System.out.println(logId + " Accepting request       " + r + " at " +
-												TimeProcessing.toString(t)) ;
+		long t = SimulationClock.currentTimeMillis() ;
+		EventLog.log(EventType.CORE_ACCEPT, this.coreId, r.getUri()) ;
 		r.setArrivalTime(t) ;
 		this.requestsQueue.add(r) ;
-		if (!this.coreIdle) {
-			System.out.println(logId + " Queueing request        " + r) ;
-		} else {
+		if (this.coreIdle) {
 			this.beginServicingEvent() ;
+		} else if (this.preemptive
+						&& r.getPriority() > this.servicing.getPriority()) {
+			this.preemptionEvent() ;
+		} else {
+			EventLog.log(EventType.CORE_QUEUE, this.coreId, r.getUri()) ;
 		}
 	}
 
+	/**
+	 * process the arrival of a batch of requests whose slots have been
+	 * reserved, in their order of arrival.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	requests != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param requests	the requests of the batch
+	 * @throws Exception
+	 */
+	public void			requestArrivalEvents(List<Request> requests) throws Exception
+	{
+		for (Request r : requests) {
+			this.requestArrivalEvent(r) ;
+		}
+	}
+
+	/**
+	 * process a preemption event: the servicing of the current request is
+	 * suspended, the request goes back to the queue with its remaining
+	 * instructions, and the most urgent pending request begins its servicing.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	!coreIdle &amp;&amp; servicing != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 */
+	protected void		preemptionEvent()
+	{
+		assert	!this.coreIdle && this.servicing != null ;
+
+		this.suspendServicing(this.clockSpeed) ;
+		EventLog.log(EventType.CORE_PREEMPT, this.coreId,
+					 this.servicing.getUri(), this.remainingInstructions) ;
+		this.servicing.setRemainingInstructions(this.remainingInstructions) ;
+		this.requestsQueue.add(this.servicing) ;
+		this.totalNumberOfPreemptions++ ;
+		this.beginServicingEvent() ;
+	}
+
+	/**
+	 * suspend the servicing of the current request: its end servicing task is
+	 * cancelled and the number of instructions processed since the servicing
+	 * (re)started at the current clock speed is removed from
+	 * <code>remainingInstructions</code>.
+	 * 
+	 * @param processingClockSpeed	clock speed since the servicing (re)started
+	 */
+	protected void		suspendServicing(double processingClockSpeed)
+	{
+		// time capture
+		long timeCancel = SimulationClock.currentTimeMillis();
+		long timeServed = timeCancel - timeStart;
+		this.busyTime.add(Math.max(0L, timeServed));
+		// suspend the servicing task using his future
+		this.nextEndServicingTaskFuture.cancel(true);
+		// compute remaining number of instructions to be processed
+		this.remainingInstructions =  Math.max(0, this.remainingInstructions - ((long)(processingClockSpeed * timeServed)));
+	}
+
 	
 	public boolean		updateClockSpeed(Double clockSpeed) throws Exception
 	{
@@ -293,7 +568,7 @@ extends		AbstractComponent
 			System.out.println(logId + " Updating clock speed : " + this.clockSpeed + " -> "
 					+ clockSpeed);
 		// update the clock rate
-		this.clockSpeed = (double) Math.round(clockSpeed * 10) / 10; // for rounding with Java's Double
+		this.clockSpeed = ClockSpeedProcessing.round(clockSpeed);
 		// TODO: might be better using BigDecimal instead of Double
 		
 		if(VerboseSettings.VERBOSE_CORE)
@@ -307,13 +582,8 @@ extends		AbstractComponent
 			// reschedule currently served task
 			if(VerboseSettings.VERBOSE_CORE)
 				System.out.println(logId + " Reschedule currently served task");
-			// time capture
-			long timeCancel = System.currentTimeMillis();
-			long timeServed = timeCancel - timeStart;
-			// suspend the servicing task using his future
-			this.nextEndServicingTaskFuture.cancel(true);
-			// compute remaining number of instructions to be processed
-			this.remainingInstructions =  Math.max(0, this.remainingInstructions - ((long)(oldClockSpeed * timeServed)));
+			// the instructions processed so far were at the old clock speed
+			this.suspendServicing(oldClockSpeed);
 			if(VerboseSettings.VERBOSE_CORE)
 				System.out.println(logId + " Remaining instructions : "
 						+ this.remainingInstructions);
@@ -328,14 +598,11 @@ extends		AbstractComponent
 	
 	public boolean		updateClockSpeedPlease(Double clockSpeed) throws Exception
 	{
-		// if the core was not connected to the cpu yet, we connect it
-		if(!this.core2CpuOutboundPort.connected()){
-			this.core2CpuOutboundPort.doConnection(this.cpuControlInboundPortURI, Core2CpuServiceConnector.class.getCanonicalName());
-		}
+		this.connectToCpu();
 		
 		// clockspeed correction
 		if (clockSpeed <= 0) {
-			clockSpeed = 0.1;
+			clockSpeed = ClockSpeedProcessing.MIN_CLOCK_SPEED;
 		}	
 		if (clockSpeed > this.maxClockSpeed) {
 			clockSpeed = maxClockSpeed;
@@ -346,6 +613,35 @@ extends		AbstractComponent
 		assert this.clockSpeed > 0;
 		return true;
 	}
+
+	/**
+	 * forward a batch of clock speed requests for cores of the same cpu to
+	 * the cpu, which checks its constraints once for the whole batch.
+	 * 
+	 * @param clockSpeeds	new clock speed of each core, by core identifier
+	 * @return				the clock speed of each core of the cpu after the
+	 * 						update, by core identifier
+	 * @throws Exception
+	 */
+	public HashMap<Integer, Double>	updateClockSpeedsPlease(
+		HashMap<Integer, Double> clockSpeeds
+		) throws Exception
+	{
+		this.connectToCpu();
+		return this.core2CpuOutboundPort.setClockSpeeds(clockSpeeds);
+	}
+
+	/**
+	 * connect the core to its cpu if it was not connected yet.
+	 * 
+	 * @throws Exception
+	 */
+	protected void		connectToCpu() throws Exception
+	{
+		if(!this.core2CpuOutboundPort.connected()){
+			this.core2CpuOutboundPort.doConnection(this.cpuControlInboundPortURI, Core2CpuServiceConnector.class.getCanonicalName());
+		}
+	}
 	
 	/**
 	 * process a begin servicing event, e.g. schedule a end servicing event
@@ -362,8 +658,14 @@ extends		AbstractComponent
 	public void			beginServicingEvent()
 	{
 		this.servicing = this.requestsQueue.remove() ;
+		this.servicing.getTrace().mark(TraceContext.CORE_START) ;
 		
-		this.remainingInstructions = servicing.getNrofInstructions();
+		// a preempted request resumes where it stopped
+		if (servicing.getRemainingInstructions() >= 0) {
+			this.remainingInstructions = servicing.getRemainingInstructions();
+		} else {
+			this.remainingInstructions = servicing.getNrofInstructions();
+		}
 //		if(VerboseSettings.VERBOSE_CORE)
 //			System.out.println(logId + " Begin servicing request " + this.servicing + " at "
 //							+ TimeProcessing.toString(System.currentTimeMillis())) ;
@@ -375,7 +677,7 @@ extends		AbstractComponent
 	 * called by beginServicingEvent and also bvy 
 	 */
 	private void		scheduleServicing(){
-		this.timeStart = System.currentTimeMillis();
+		this.timeStart = SimulationClock.currentTimeMillis();
 		
 		this.coreIdle = false ;
 		final Core fcore = (Core) this ;
@@ -392,7 +694,7 @@ extends		AbstractComponent
 					e.printStackTrace() ;
 				}
 			}};
-		this.nextEndServicingTaskFuture = this.scheduleTask(task ,
+		this.nextEndServicingTaskFuture = SimulationClock.schedule(this, task ,
 				processingTime, TimeUnit.MILLISECONDS) ;
 	}
 
@@ -412,14 +714,18 @@ extends		AbstractComponent
 	 */
 	public void			endServicingEvent() throws Exception
 	{
-		long t = System.currentTimeMillis() ;
+		long t = SimulationClock.currentTimeMillis() ;
 		long st = t - this.servicing.getArrivalTime() ;
+		this.busyTime.add(Math.max(0L, t - this.timeStart)) ;
 		
+		this.servicing.getTrace().mark(TraceContext.CORE_END) ;
 		Response response = new Response(this.servicing.getUri());
-		response.setDuration(new Double(st));
+		response.setDuration(st);
+		response.setClockSpeed(this.clockSpeed);
+		response.setTrace(this.servicing.getTrace());
 		
 		if(this.coreResponseGeneratorOutboundPort.connected()){
-			this.coreResponseGeneratorOutboundPort.acceptResponse(response);
+			this.responseBatcher.send(response);
 		}
 //		if(VerboseSettings.VERBOSE_CORE)
 //			System.out.println(logId + " End servicing request   " + this.servicing +
@@ -427,6 +733,9 @@ extends		AbstractComponent
 //									" with service time " + st) ;
 		this.totalServicingTime += st ;
 		this.totalNumberOfServicedRequests++ ;
+		this.recordServiceTime(this.servicing.getAppId(),
+							   TimeUnit.MILLISECONDS.toNanos(st)) ;
+		this.reservedSlots.decrementAndGet() ;
 		
 		this.timeStart = 0;
 		this.remainingInstructions = 0;
@@ -455,6 +764,22 @@ extends		AbstractComponent
 					.doConnection(furi, ResponseServiceConnector.class.getCanonicalName());
 		}
 	}
+
+	/**
+	 * Disconnect the response connection, the core can then be assigned to
+	 * another virtual machine; the responses waiting in the batcher are sent
+	 * first, responses of the requests still queued are dropped.
+	 * @throws Exception
+	 */
+	public void disconnectResponseConnection() throws Exception 
+	{
+		if(VerboseSettings.VERBOSE_CORE)
+			System.out.println(logId + " Disconnect the response connection from the VM");
+		if (this.coreResponseGeneratorOutboundPort.connected()) {
+			this.responseBatcher.flush();
+			this.coreResponseGeneratorOutboundPort.doDisconnection();
+		}
+	}
 	
 
 	/** getters */
@@ -470,5 +795,13 @@ extends		AbstractComponent
 	public double getClockSpeed() {
 		return clockSpeed;
 	}
+
+	public int getCoreId() {
+		return coreId;
+	}
+
+	public int getCpuId() {
+		return cpuId;
+	}
 	
 }
@@ -1,5 +1,7 @@
 package fr.upmc.colins.farm3.core;
 
+import java.util.HashMap;
+
 import fr.upmc.components.interfaces.TwoWayI;
 
 /**
@@ -33,5 +35,22 @@ extends		TwoWayI
 	 * @return 				true if all the request was granted
 	 */
 	Boolean	acceptUpdateClockspeedRequest(Double clockspeed, Integer coreId) throws Exception ;
+
+	/**
+	 * ask the cpu to update the clock speeds of several of its cores at once
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	clockSpeeds != null
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @param clockSpeeds	the new clock speed of each core, by core identifier
+	 * @return				the clock speed of each core of the cpu after the
+	 * 						update, by core identifier
+	 * @throws Exception
+	 */
+	HashMap<Integer, Double>	setClockSpeeds(HashMap<Integer, Double> clockSpeeds) throws Exception ;
 	
 }
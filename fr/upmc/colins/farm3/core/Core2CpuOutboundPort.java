@@ -1,5 +1,7 @@
 package fr.upmc.colins.farm3.core;
 
+import java.util.HashMap;
+
 import fr.upmc.components.ComponentI;
 import fr.upmc.components.ports.AbstractOutboundPort;
 
@@ -61,6 +63,15 @@ implements	Core2CpuI
 			Integer coreId) throws Exception {
 		return ((Core2CpuI)this.connector).acceptUpdateClockspeedRequest(clockspeed, coreId);
 	}
+
+	/**
+	 * send a batch of clock speed requests to its cpu
+	 */
+	@Override
+	public HashMap<Integer, Double> setClockSpeeds(
+			HashMap<Integer, Double> clockSpeeds) throws Exception {
+		return ((Core2CpuI)this.connector).setClockSpeeds(clockSpeeds);
+	}
   
 
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package fr.upmc.colins.farm3.core;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import fr.upmc.components.ComponentI;
 import fr.upmc.components.ports.AbstractInboundPort;
@@ -73,6 +74,15 @@ implements	ControlRequestArrivalI
 	}
 
 
+	@Override
+	public HashMap<Integer, Double> updateClockSpeedsPlease(
+			HashMap<Integer, Double> clockSpeeds) throws Exception
+	{
+		final Core sp = (Core) this.owner ;
+		return sp.updateClockSpeedsPlease(clockSpeeds);
+	}
+
+
 	@Override
 	public ArrayList<String> getCoresRequestArrivalInboundPortUris()
 			throws Exception {
@@ -98,4 +108,16 @@ implements	ControlRequestArrivalI
 		return sp.getClockSpeed();
 	}
 
+	@Override
+	public Integer getCoreId() throws Exception {
+		final Core sp = (Core) this.owner;
+		return sp.getCoreId();
+	}
+
+	@Override
+	public Integer getCpuId() throws Exception {
+		final Core sp = (Core) this.owner;
+		return sp.getCpuId();
+	}
+
 }
@@ -1,6 +1,9 @@
 package fr.upmc.colins.farm3.core;
 
+import java.util.ArrayList;
+
 import fr.upmc.colins.farm3.objects.Request;
+import fr.upmc.colins.farm3.simulation.SimulationClock;
 import fr.upmc.components.ComponentI;
 import fr.upmc.components.ComponentI.ComponentService;
 import fr.upmc.components.ports.AbstractInboundPort;
@@ -63,11 +66,16 @@ implements	RequestArrivalI
 	 * @see fr.upmc.alasca.ssqueue.interfaces.RequestArrivalI#acceptRequest(fr.upmc.alasca.ssqueue.objects.Request)
 	 */
 	@Override
-	public void			acceptRequest(Request c) throws Exception
+	public int			acceptRequest(Request c) throws Exception
 	{
 		final Core sp = (Core) this.owner ;
 		final Request fc = c ;
-		sp.handleRequestAsync(
+		// the capacity is checked synchronously so that the sender knows the
+		// outcome, the request itself is processed asynchronously
+		if (!sp.reserveSlot()) {
+			return RequestArrivalI.REJECTED ;
+		}
+		SimulationClock.submit(sp,
 				new ComponentService<Void>() {
 					@Override
 					public Void call() throws Exception {
@@ -75,13 +83,44 @@ implements	RequestArrivalI
 						return null;
 					}
 				}) ;
+		return RequestArrivalI.ACCEPTED ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.core.RequestArrivalI#acceptRequests(java.util.ArrayList)
+	 */
+	@Override
+	public int[]		acceptRequests(ArrayList<Request> requests) throws Exception
+	{
+		final Core sp = (Core) this.owner ;
+		int[] outcomes = new int[requests.size()] ;
+		final ArrayList<Request> accepted = new ArrayList<>(requests.size()) ;
+		for (int i = 0; i < outcomes.length; i++) {
+			if (sp.reserveSlot()) {
+				accepted.add(requests.get(i)) ;
+				outcomes[i] = RequestArrivalI.ACCEPTED ;
+			} else {
+				outcomes[i] = RequestArrivalI.REJECTED ;
+			}
+		}
+		if (!accepted.isEmpty()) {
+			SimulationClock.submit(sp,
+					new ComponentService<Void>() {
+						@Override
+						public Void call() throws Exception {
+							sp.requestArrivalEvents(accepted);
+							return null;
+						}
+					}) ;
+		}
+		return outcomes ;
 	}
 
 	@Override
 	public void connectResponseConnection(String vmResponseArrivalInboundPortUri) throws Exception {
 		final Core sp = (Core) this.owner ;
 		final String furi = vmResponseArrivalInboundPortUri ;
-		sp.handleRequestAsync(
+		SimulationClock.submit(sp,
 				new ComponentService<Void>() {
 					@Override
 					public Void call() throws Exception {
@@ -91,5 +130,18 @@ implements	RequestArrivalI
 				}) ;
 	}
 
+	@Override
+	public void disconnectResponseConnection() throws Exception {
+		final Core sp = (Core) this.owner ;
+		SimulationClock.submit(sp,
+				new ComponentService<Void>() {
+					@Override
+					public Void call() throws Exception {
+						sp.disconnectResponseConnection();
+						return null;
+					}
+				}) ;
+	}
+
 
 }
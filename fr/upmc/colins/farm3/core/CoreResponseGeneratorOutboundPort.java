@@ -1,5 +1,7 @@
 package fr.upmc.colins.farm3.core;
 
+import java.util.ArrayList;
+
 import fr.upmc.colins.farm3.objects.Response;
 import fr.upmc.components.ComponentI;
 import fr.upmc.components.ports.AbstractOutboundPort;
@@ -62,5 +64,13 @@ implements	ResponseArrivalI
 		((ResponseArrivalI)this.connector).acceptResponse(response) ;
 	}
 
+	/**
+	 * accept a batch of responses
+	 */
+	@Override
+	public void acceptResponses(ArrayList<Response> responses) throws Exception {
+		((ResponseArrivalI)this.connector).acceptResponses(responses) ;
+	}
+
 
 }
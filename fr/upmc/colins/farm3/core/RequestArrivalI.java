@@ -1,5 +1,7 @@
 package fr.upmc.colins.farm3.core;
 
+import java.util.ArrayList;
+
 import fr.upmc.colins.farm3.objects.Request;
 import fr.upmc.components.interfaces.TwoWayI;
 
@@ -9,8 +11,14 @@ import fr.upmc.components.interfaces.TwoWayI;
  *
  * <p><strong>Description</strong></p>
  * 
- * The interface can be both required and offered, and it has only one method
- * <code>acceptRequest</code> passing a request object as parameter.
+ * The interface can be both required and offered. The method
+ * <code>acceptRequest</code> passes a request object as parameter and returns
+ * the admission outcome of the request: a receiver with a bounded capacity
+ * may reject it, and a receiver forwarding it may report that it has been
+ * redirected to another target than the first one chosen. The method
+ * <code>acceptRequests</code> passes a batch of requests in a single call,
+ * to cut the cost per request of the calls at high arrival rates (eg. a
+ * remote call between two JVMs).
  * 
  * <p>Created on : 2 sept. 2014</p>
  * 
@@ -20,6 +28,14 @@ import fr.upmc.components.interfaces.TwoWayI;
 public interface		RequestArrivalI
 extends		TwoWayI
 {
+	/** the request has been accepted by the receiver						*/
+	public static final int		ACCEPTED = 0 ;
+	/** the request has been rejected, the receiver is overloaded			*/
+	public static final int		REJECTED = 1 ;
+	/** the request has been accepted by another target than the first one
+	 *  chosen by the receiver												*/
+	public static final int		REDIRECTED = 2 ;
+
 	/**
 	 * accept a new request for servicing.
 	 * 
@@ -27,13 +43,31 @@ extends		TwoWayI
 	 * 
 	 * <pre>
 	 * pre	r != null
-	 * post	true			// no postcondition.
+	 * post	ret == ACCEPTED || ret == REJECTED || ret == REDIRECTED
 	 * </pre>
 	 *
 	 * @param r				request to be serviced.
+	 * @return				the admission outcome of the request.
+	 * @throws Exception	
+	 */
+	int				acceptRequest(Request r) throws Exception ;
+
+	/**
+	 * accept a batch of new requests for servicing, as if
+	 * <code>acceptRequest</code> was called for each of them in order.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	requests != null &amp;&amp; !requests.isEmpty()
+	 * post	ret.length == requests.size()
+	 * </pre>
+	 *
+	 * @param requests		requests to be serviced, in their order of arrival.
+	 * @return				the admission outcome of each request.
 	 * @throws Exception	
 	 */
-	void			acceptRequest(Request r) throws Exception ;
+	int[]			acceptRequests(ArrayList<Request> requests) throws Exception ;
 
 	/**
 	 * connect the response outbound port to the port pointed by the URI
@@ -49,5 +83,21 @@ extends		TwoWayI
 	 * @throws Exception	
 	 */
 	void 			connectResponseConnection(String responseArrivalInboundPortUri) throws Exception;
+
+	/**
+	 * disconnect the response outbound port, so that the receiver can later
+	 * be connected to another sender (eg. a core reassigned to a new virtual
+	 * machine).
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @throws Exception	
+	 */
+	void 			disconnectResponseConnection() throws Exception;
 	
 }
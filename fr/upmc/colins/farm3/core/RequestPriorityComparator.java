@@ -0,0 +1,52 @@
+package fr.upmc.colins.farm3.core;
+
+import java.io.Serializable;
+import java.util.Comparator;
+
+import fr.upmc.colins.farm3.objects.Request;
+
+/**
+ * The class <code>RequestPriorityComparator</code> defines the order in which
+ * a core services its pending requests.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The requests of the highest priority class come first; within a class, the
+ * requests are serviced in the order of their arrival at the core, the uri of
+ * the requests, given in increasing order by the generators, breaking the
+ * ties between requests arrived during the same millisecond. A preempted
+ * request keeps its arrival time and thus resumes before the requests of its
+ * class arrived after it.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	true
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			RequestPriorityComparator
+implements	Comparator<Request>, Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public int			compare(Request r1, Request r2)
+	{
+		if (r1.getPriority() != r2.getPriority()) {
+			return r1.getPriority() > r2.getPriority() ? -1 : 1 ;
+		}
+		if (r1.getArrivalTime() != r2.getArrivalTime()) {
+			return r1.getArrivalTime() < r2.getArrivalTime() ? -1 : 1 ;
+		}
+		return r1.getUri() < r2.getUri() ? -1 :
+									(r1.getUri() == r2.getUri() ? 0 : 1) ;
+	}
+}
@@ -1,5 +1,7 @@
 package fr.upmc.colins.farm3.core;
 
+import java.util.ArrayList;
+
 import fr.upmc.colins.farm3.objects.Response;
 import fr.upmc.components.interfaces.TwoWayI;
 
@@ -8,4 +10,19 @@ extends		TwoWayI {
 
 	void acceptResponse(Response response) throws Exception;
 
+	/**
+	 * accept a batch of responses in a single call, processed in their order.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	responses != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param responses	the responses of the batch
+	 * @throws Exception
+	 */
+	void acceptResponses(ArrayList<Response> responses) throws Exception;
+
 }
@@ -0,0 +1,118 @@
+package fr.upmc.colins.farm3.core;
+
+import java.util.ArrayList;
+
+import fr.upmc.colins.farm3.objects.Response;
+import fr.upmc.colins.farm3.utils.AbstractBatcher;
+import fr.upmc.components.AbstractComponent;
+
+/**
+ * The class <code>ResponseBatcher</code> groups the responses sent back
+ * through a port into batches, sent with a single call to
+ * <code>acceptResponses</code>.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The cores and the virtual machines send their responses through a batcher:
+ * the responses produced during a micro-batching window go back in a single
+ * call (see <code>AbstractBatcher</code>), the window acting as a periodic
+ * flush while responses keep coming. With a window of 0, each response is
+ * sent as soon as it is produced, and a batch received by a virtual machine
+ * is forwarded as a whole.
+ *
+ * The window and the size are read from the properties
+ * <code>farm3.batch.response.window</code> (milliseconds, 0 by default) and
+ * <code>farm3.batch.response.size</code>. The owner must flush the batcher
+ * before disconnecting the port.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	port != null
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			ResponseBatcher
+extends		AbstractBatcher<Response>
+{
+	/** name of the property giving the window in milliseconds				*/
+	public static final String	WINDOW_PROPERTY = "farm3.batch.response.window" ;
+	/** name of the property giving the maximal size of a batch				*/
+	public static final String	SIZE_PROPERTY = "farm3.batch.response.size" ;
+	/** window used when the property is not set, no batching				*/
+	public static final long	DEFAULT_WINDOW = 0L ;
+	/** maximal size used when the property is not set						*/
+	public static final int		DEFAULT_SIZE = 64 ;
+
+	/** port through which the responses are sent							*/
+	protected final ResponseArrivalI	port ;
+
+	/**
+	 * create a batcher with the window and the size given by the properties.
+	 *
+	 * @param owner		component executing the tasks closing the windows
+	 * @param port		port through which the responses are sent
+	 */
+	public				ResponseBatcher(
+		AbstractComponent owner,
+		ResponseArrivalI port
+		)
+	{
+		this(owner, port,
+			 Long.getLong(WINDOW_PROPERTY, DEFAULT_WINDOW),
+			 Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE)) ;
+	}
+
+	/**
+	 * create a batcher.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	owner != null &amp;&amp; port != null
+	 * pre	window >= 0 &amp;&amp; maxSize > 0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param owner		component executing the tasks closing the windows
+	 * @param port		port through which the responses are sent
+	 * @param window	length of the micro-batching window in milliseconds,
+	 * 					0 to send each response on its own
+	 * @param maxSize	maximal number of responses of a batch
+	 */
+	public				ResponseBatcher(
+		AbstractComponent owner,
+		ResponseArrivalI port,
+		long window,
+		int maxSize
+		)
+	{
+		super(owner, window, maxSize) ;
+
+		assert	port != null ;
+
+		this.port = port ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.utils.AbstractBatcher#sendOne(java.lang.Object)
+	 */
+	@Override
+	protected void		sendOne(Response r) throws Exception
+	{
+		this.port.acceptResponse(r) ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.utils.AbstractBatcher#sendMany(java.util.ArrayList)
+	 */
+	@Override
+	protected void		sendMany(ArrayList<Response> batch) throws Exception
+	{
+		this.port.acceptResponses(batch) ;
+	}
+}
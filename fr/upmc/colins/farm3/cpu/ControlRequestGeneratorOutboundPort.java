@@ -1,6 +1,7 @@
 package fr.upmc.colins.farm3.cpu;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import fr.upmc.colins.farm3.core.ControlRequestArrivalI;
 import fr.upmc.components.ComponentI;
@@ -71,6 +72,16 @@ implements	ControlRequestArrivalI
 	public boolean updateClockSpeedPlease(Double clockSpeed) throws Exception {
 		return ((ControlRequestArrivalI)this.connector).updateClockSpeedPlease(clockSpeed);
 	}
+
+	/**
+	 * ask the cpu of the core to update the clock speeds of several of its
+	 * cores at once
+	 */
+	@Override
+	public HashMap<Integer, Double> updateClockSpeedsPlease(
+			HashMap<Integer, Double> clockSpeeds) throws Exception {
+		return ((ControlRequestArrivalI)this.connector).updateClockSpeedsPlease(clockSpeeds);
+	}
 	
 	/**
 	 * return the list of uri of inbound port to each cores
@@ -92,6 +103,16 @@ implements	ControlRequestArrivalI
 		return ((ControlRequestArrivalI)this.connector).getClockSpeed();
 	}
 
+	@Override
+	public Integer getCoreId() throws Exception {
+		return ((ControlRequestArrivalI)this.connector).getCoreId();
+	}
+
+	@Override
+	public Integer getCpuId() throws Exception {
+		return ((ControlRequestArrivalI)this.connector).getCpuId();
+	}
+
 
 
 
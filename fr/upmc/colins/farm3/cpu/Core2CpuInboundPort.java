@@ -1,5 +1,7 @@
 package fr.upmc.colins.farm3.cpu;
 
+import java.util.HashMap;
+
 import fr.upmc.colins.farm3.core.Core2CpuI;
 import fr.upmc.components.ComponentI;
 import fr.upmc.components.ports.AbstractInboundPort;
@@ -64,5 +66,12 @@ implements	Core2CpuI
 		return sp.acceptUpdateClockspeedRequest(clockspeed, coreId);				
 	}
 
+	@Override
+	public HashMap<Integer, Double> setClockSpeeds(
+			HashMap<Integer, Double> clockSpeeds) throws Exception {
+		final Cpu sp = (Cpu) this.owner;
+		return sp.setClockSpeeds(clockSpeeds);
+	}
+
 
 }
@@ -2,8 +2,9 @@ package fr.upmc.colins.farm3.cpu;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
-
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import fr.upmc.colins.farm3.VerboseSettings;
 import fr.upmc.colins.farm3.connectors.ControlRequestServiceConnector;
@@ -11,6 +12,10 @@ import fr.upmc.colins.farm3.core.ControlRequestArrivalI;
 import fr.upmc.colins.farm3.core.Core;
 import fr.upmc.colins.farm3.core.Core2CpuI;
 import fr.upmc.colins.farm3.generator.RequestGeneratorOutboundPort;
+import fr.upmc.colins.farm3.metrics.Gauge;
+import fr.upmc.colins.farm3.metrics.Metric;
+import fr.upmc.colins.farm3.metrics.MetricsRegistry;
+import fr.upmc.colins.farm3.utils.ClockSpeedProcessing;
 import fr.upmc.components.AbstractComponent;
 import fr.upmc.components.cvm.AbstractCVM;
 import fr.upmc.components.cvm.pre.dcc.DynamicComponentCreationOutboundPort;
@@ -75,6 +80,12 @@ public class Cpu extends AbstractComponent {
 	protected ArrayList<String> coreControlRequestArrivalInboundPortUris;
 	/** list of outbound ports for control request generator					*/
 	protected ArrayList<ControlRequestGeneratorOutboundPort> controlRequestGeneratorOutboundPorts;
+	/** current clock speed of each core, updated upon their acknowledgements	*/
+	protected final double[] coreClockSpeeds;
+	/** clock speeds computed by the gap check, reused from call to call		*/
+	protected final double[] targetClockSpeeds;
+	/** metrics registered by the cpu											*/
+	protected final List<Metric> metrics;
 
 
 	
@@ -88,6 +99,12 @@ public class Cpu extends AbstractComponent {
 	 * 				clock speed of the cpu's cores
 	 * @param maxClockSpeed 
 	 * 				maximum clock speed of the cpu's cores
+	 * @param maxGapClockSpeed 
+	 * 				maximum gap in clock speed between the cores
+	 * @param coreQueueCapacity 
+	 * 				maximum number of requests queued or serviced by a core
+	 * @param corePreemption 
+	 * 				true if an urgent request preempts a less urgent one
 	 * @param controlInboundPortURI 
 	 *           	URI of the inbound port to connect to the admission control
 	 * @throws Exception
@@ -98,6 +115,8 @@ public class Cpu extends AbstractComponent {
 			Double clockSpeed,
 			Double maxClockSpeed,
 			Double maxGapClockSpeed,
+			Integer coreQueueCapacity,
+			Boolean corePreemption,
 			String controlInboundPortURI,
 			AbstractCVM cvm
 			) throws Exception 
@@ -115,6 +134,8 @@ public class Cpu extends AbstractComponent {
 		this.maxGapClockSpeed = maxGapClockSpeed;
 		this.coreRequestArrivalInboundPortUris = new ArrayList<>();
 		this.coreControlRequestArrivalInboundPortUris = new ArrayList<>();
+		this.coreClockSpeeds = new double[nrofCores.intValue()];
+		this.targetClockSpeeds = new double[nrofCores.intValue()];
 		
 		this.addRequiredInterface(ControlRequestArrivalI.class);
 		this.addOfferedInterface(ControlRequestArrivalI.class);
@@ -128,13 +149,17 @@ public class Cpu extends AbstractComponent {
 			// build the core
 			Core core = new Core(
 				i,
+				cpuId,
 				clockSpeed,
 				maxClockSpeed,
+				coreQueueCapacity,
+				corePreemption,
 				raipCoreUri,
 				craipCoreUri,
 				craipCpuUri 
 			);
 			cvm.addDeployedComponent(core);
+			this.coreClockSpeeds[i] = clockSpeed;
 			
 			coreRequestArrivalInboundPortUris.add(CPU_PREFIX + cpuId + CORE_RAIP_PREFIX + i);
 			coreControlRequestArrivalInboundPortUris.add(CPU_PREFIX + cpuId + CORE_CRAIP_PREFIX + i);
@@ -167,6 +192,9 @@ public class Cpu extends AbstractComponent {
 			this.cpuInboundPort.localPublishPort();
 		}
 
+		this.metrics = new ArrayList<>();
+		this.registerMetrics();
+
 		System.out.println(logId + " Central Processing Unit "
 				+ this.clockSpeed + " / " + this.maxClockSpeed + " GHz (id "
 				+ cpuId + ") created");
@@ -176,6 +204,49 @@ public class Cpu extends AbstractComponent {
 		assert this.nrofCores > 0.0 && this.clockSpeed > 0.0;
 	}
 
+	/**
+	 * register the metrics of the cpu: the spread of the clock speeds of its
+	 * cores, to be compared with the maximum gap, and their mean.
+	 */
+	protected void registerMetrics() {
+		final Cpu fcpu = this;
+		String labels = "cpu=\"" + this.cpuId + "\"";
+		this.metrics.add(new Gauge("cpu_clock_speed_spread", labels,
+				"gap between the highest and the lowest clock speeds of the cores") {
+			@Override
+			public double getValue() {
+				double min = Double.MAX_VALUE;
+				double max = 0.0;
+				for (double c : fcpu.coreClockSpeeds) {
+					min = Math.min(min, c);
+					max = Math.max(max, c);
+				}
+				return max - min;
+			}
+		});
+		this.metrics.add(new Gauge("cpu_max_gap_clock_speed", labels,
+				"maximum gap allowed between the clock speeds of the cores") {
+			@Override
+			public double getValue() {
+				return fcpu.maxGapClockSpeed;
+			}
+		});
+		this.metrics.add(new Gauge("cpu_mean_clock_speed", labels,
+				"mean clock speed of the cores") {
+			@Override
+			public double getValue() {
+				double sum = 0.0;
+				for (double c : fcpu.coreClockSpeeds) {
+					sum += c;
+				}
+				return sum / fcpu.coreClockSpeeds.length;
+			}
+		});
+		for (Metric m : this.metrics) {
+			MetricsRegistry.getDefault().register(m);
+		}
+	}
+
 	// -------------------------------------------------------------------------
 	// Component life-cycle
 	// -------------------------------------------------------------------------
@@ -217,6 +288,7 @@ public class Cpu extends AbstractComponent {
 		} catch (Exception e) {
 			throw new ComponentShutdownException();
 		}
+		MetricsRegistry.getDefault().unregister(this.metrics);
 		super.shutdown();
 	}
 
@@ -232,17 +304,18 @@ public class Cpu extends AbstractComponent {
 	 * @return true if all the cores were successfully updated, else false
 	 * @throws Exception
 	 */
-	public boolean updateClockSpeed(Double clockSpeed) throws Exception {
+	public synchronized boolean updateClockSpeed(Double clockSpeed) throws Exception {
 		if(clockSpeed > maxClockSpeed || clockSpeed <= 0){
 			return false;
 		}
-		boolean updated = true;
 		for (int i = 0; i < controlRequestGeneratorOutboundPorts.size(); i++) {
-			updated = updated
-					&& controlRequestGeneratorOutboundPorts.get(i)
-							.updateClockSpeed(clockSpeed);
+			if (!controlRequestGeneratorOutboundPorts.get(i)
+							.updateClockSpeed(clockSpeed)) {
+				return false;
+			}
+			this.coreClockSpeeds[i] = ClockSpeedProcessing.round(clockSpeed);
 		}
-		return updated;
+		return true;
 	}
 
 
@@ -259,68 +332,113 @@ public class Cpu extends AbstractComponent {
 
 	}
 
-	public Boolean acceptUpdateClockspeedRequest(Double newClockSpeed,
+	/**
+	 * ask for an update of the clock speed of one core, see
+	 * <code>setClockSpeeds</code>; this path does not allocate any object.
+	 * @param newClockSpeed new clock speed of the core
+	 * @param coreId identifier of the core
+	 * @return false if the clock speed exceeds the maximum clock speed
+	 * @throws Exception
+	 */
+	public synchronized Boolean acceptUpdateClockspeedRequest(Double newClockSpeed,
 			Integer coreId) throws Exception {
 
 		if (newClockSpeed > maxClockSpeed) {
 			return false;
 		}
-		
-		
-		int coreIndex = coreId;
-		ControlRequestGeneratorOutboundPort crgop = this.controlRequestGeneratorOutboundPorts
-				.get(coreIndex);
+		System.arraycopy(this.coreClockSpeeds, 0, this.targetClockSpeeds, 0,
+				this.coreClockSpeeds.length);
+		this.setTargetClockSpeed(coreId, newClockSpeed);
+		this.applyTargetClockSpeeds();
+		return true;
+	}
 
+	/**
+	 * update the clock speeds of several cores at once while keeping the gap
+	 * between the fastest and the slowest cores under the maximum gap, see
+	 * <code>applyTargetClockSpeeds</code>.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	clockSpeeds != null
+	 * post	ret != null &amp;&amp; ret.size() == nrofCores
+	 * </pre>
+	 *
+	 * @param clockSpeeds	new clock speed of each core, by core identifier
+	 * @return				the clock speed of each core after the update, by
+	 * 						core identifier
+	 * @throws Exception
+	 */
+	public synchronized HashMap<Integer, Double> setClockSpeeds(
+			HashMap<Integer, Double> clockSpeeds) throws Exception {
+		assert clockSpeeds != null;
+
+		System.arraycopy(this.coreClockSpeeds, 0, this.targetClockSpeeds, 0,
+				this.coreClockSpeeds.length);
+		for (Map.Entry<Integer, Double> e : clockSpeeds.entrySet()) {
+			this.setTargetClockSpeed(e.getKey(), e.getValue());
+		}
+		this.applyTargetClockSpeeds();
+
+		HashMap<Integer, Double> result = new HashMap<>();
+		for (int i = 0; i < this.coreClockSpeeds.length; i++) {
+			result.put(i, this.coreClockSpeeds[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * set the target clock speed of a core, rounded and bounded by the
+	 * minimum and maximum clock speeds; unknown cores are ignored.
+	 * @param coreId identifier of the core
+	 * @param clockSpeed requested clock speed
+	 */
+	protected void setTargetClockSpeed(int coreId, double clockSpeed) {
+		if (coreId < 0 || coreId >= this.targetClockSpeeds.length) {
+			return;
+		}
 		if(VerboseSettings.VERBOSE_CPU)
 			System.out.println(logId
 					+ " Received a request to update clockspeed of core " + coreId
-					+ " from " + crgop.getClockSpeed()
-					+ " to " + newClockSpeed + " GHz");
-		
-		DescriptiveStatistics stats = new DescriptiveStatistics();
-		// this method should not be called asynchronously
-		for (int i = 0; i < controlRequestGeneratorOutboundPorts.size(); i++) {
-			if (i == coreIndex) {
-				continue;
-			}
-			stats.addValue(controlRequestGeneratorOutboundPorts.get(i)
-					.getClockSpeed());
-		}
+					+ " from " + this.coreClockSpeeds[coreId]
+					+ " to " + clockSpeed + " GHz");
+		this.targetClockSpeeds[coreId] = Math.max(
+				ClockSpeedProcessing.MIN_CLOCK_SPEED,
+				Math.min(maxClockSpeed, ClockSpeedProcessing.round(clockSpeed)));
+	}
 
-		if (newClockSpeed > stats.getMax()) {
-			// allow and make the necessary overclocking
-			
-			for (int i = 0; i < controlRequestGeneratorOutboundPorts.size(); i++) {
-				if (i == coreIndex) {
-					continue;
-				}
-				ControlRequestGeneratorOutboundPort p = this.controlRequestGeneratorOutboundPorts
-						.get(i);
-				if (newClockSpeed - p.getClockSpeed() > maxGapClockSpeed) {
-					p.updateClockSpeed(Math.max(p.getClockSpeed(),
-							newClockSpeed - this.maxGapClockSpeed));
-				}
-			}
-		} else if (newClockSpeed < stats.getMin()) {
-			// allow only if we can make the changes without underclocking the
-			// others
-			for (Double freq : stats.getValues()) {
-				if (freq - newClockSpeed > maxGapClockSpeed) {
-					newClockSpeed = freq - maxGapClockSpeed;
-				}
+	/**
+	 * apply the target clock speeds: every core too slow compared to the
+	 * fastest one is first overclocked just enough to respect the maximum
+	 * gap, then the cores whose clock speed changes are updated. The gap
+	 * check is a scan of the clock speeds kept by the cpu, only the actual
+	 * updates are remote calls.
+	 * @throws Exception
+	 */
+	protected void applyTargetClockSpeeds() throws Exception {
+		int n = this.targetClockSpeeds.length;
+		double max = 0.0;
+		for (int i = 0; i < n; i++) {
+			max = Math.max(max, this.targetClockSpeeds[i]);
+		}
+		double min = ClockSpeedProcessing.roundUp(max - maxGapClockSpeed);
+		for (int i = 0; i < n; i++) {
+			double target = Math.max(this.targetClockSpeeds[i], min);
+			if (target != this.coreClockSpeeds[i]
+					&& this.controlRequestGeneratorOutboundPorts.get(i)
+							.updateClockSpeed(target)) {
+				this.coreClockSpeeds[i] = target;
 			}
 		}
-		this.controlRequestGeneratorOutboundPorts.get(coreIndex)
-				.updateClockSpeed(newClockSpeed);
-		
 
-		System.out.print(logId + " [ ");
-		for (int i = 0; i < controlRequestGeneratorOutboundPorts.size(); i++) {
-			System.out.print(controlRequestGeneratorOutboundPorts.get(i)
-					.getClockSpeed() + " GHz | ");
+		if(VerboseSettings.VERBOSE_CPU) {
+			StringBuilder sb = new StringBuilder(logId).append(" [ ");
+			for (int i = 0; i < n; i++) {
+				sb.append(this.coreClockSpeeds[i]).append(" GHz | ");
+			}
+			System.out.println(sb.append("]"));
 		}
-		System.out.println("]");
-		return true;
 	}
 	
 }
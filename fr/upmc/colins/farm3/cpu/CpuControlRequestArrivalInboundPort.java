@@ -1,6 +1,7 @@
 package fr.upmc.colins.farm3.cpu;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import fr.upmc.colins.farm3.core.ControlRequestArrivalI;
 import fr.upmc.components.ComponentI;
@@ -71,6 +72,13 @@ implements	ControlRequestArrivalI
 		return fc.updateClockSpeed(clockSpeed);
 	}
 
+	@Override
+	public HashMap<Integer, Double> updateClockSpeedsPlease(
+			HashMap<Integer, Double> clockSpeeds) throws Exception {
+		final Cpu fc = (Cpu) this.owner;
+		return fc.setClockSpeeds(clockSpeeds);
+	}
+
 	@Override
 	public ArrayList<String> getCoresRequestArrivalInboundPortUris() throws Exception {
 		final Cpu fc = (Cpu) this.owner;
@@ -108,6 +116,20 @@ implements	ControlRequestArrivalI
 		return fc.clockSpeed;
 	}
 
+	/**
+	 * a cpu is not a core
+	 */
+	@Override
+	public Integer getCoreId() throws Exception {
+		return -1;
+	}
+
+	@Override
+	public Integer getCpuId() throws Exception {
+		final Cpu fc = (Cpu) this.owner;
+		return fc.cpuId;
+	}
+
 
 
 }
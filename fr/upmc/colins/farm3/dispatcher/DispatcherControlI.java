@@ -0,0 +1,66 @@
+package fr.upmc.colins.farm3.dispatcher;
+
+import fr.upmc.components.interfaces.TwoWayI;
+
+/**
+ * The interface <code>DispatcherControlI</code> defines the protocol used by
+ * the admission control to change the virtual machines of a running request
+ * dispatcher.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * A virtual machine is designated by the uri of its request arrival inbound
+ * port. The changes are made without pausing the intake of requests.
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public interface		DispatcherControlI
+extends		TwoWayI
+{
+	/**
+	 * add a virtual machine to the targets of the dispatcher.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	vmUri != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param vmUri		uri of the request arrival inbound port of the vm
+	 * @return			false if the virtual machine was already a target
+	 * @throws Exception
+	 */
+	boolean			attachVirtualMachine(String vmUri) throws Exception ;
+
+	/**
+	 * remove a virtual machine from the targets of the dispatcher; the call
+	 * returns at once, the virtual machine getting no new request. Once the
+	 * requests sent to it have been answered, or abandoned after a timeout,
+	 * the dispatcher disconnects from it and notifies the drain through the
+	 * given inbound port (see <code>DrainNotificationI</code>).
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	vmUri != null &amp;&amp; drainNotificationUri != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param vmUri					uri of the request arrival inbound port
+	 * 								of the vm
+	 * @param drainNotificationUri	uri of the inbound port notified once the
+	 * 								vm has been drained
+	 * @return						true if the virtual machine is being
+	 * 								removed, false if it is not a target or
+	 * 								the last one
+	 * @throws Exception
+	 */
+	boolean			detachVirtualMachine(String vmUri,
+										 String drainNotificationUri)
+	throws Exception ;
+
+}
@@ -0,0 +1,56 @@
+package fr.upmc.colins.farm3.dispatcher;
+
+import fr.upmc.components.ComponentI;
+import fr.upmc.components.ports.AbstractInboundPort;
+
+/**
+ * The class <code>RDControlInboundPort</code> implements the inbound port
+ * through which the admission control changes the virtual machines of a
+ * request dispatcher.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The port implements the <code>DispatcherControlI</code> interface as offered
+ * and upon a call, passes it to the owner component that must also implement
+ * the methods <code>attachVirtualMachine</code> and
+ * <code>detachVirtualMachine</code>. The calls are executed by the calling
+ * thread, the owner synchronizing them with the dispatching.
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			RDControlInboundPort
+extends		AbstractInboundPort
+implements	DispatcherControlI
+{
+	private static final long serialVersionUID = 1L;
+
+	public				RDControlInboundPort(
+		String uri,
+		ComponentI owner
+		) throws Exception
+	{
+		super(uri, DispatcherControlI.class, owner) ;
+
+		assert	uri != null && owner instanceof RequestDispatcher ;
+		assert	owner.isOfferedInterface(DispatcherControlI.class) ;
+	}
+
+	@Override
+	public boolean		attachVirtualMachine(String vmUri) throws Exception
+	{
+		return ((RequestDispatcher) this.owner).attachVirtualMachine(vmUri) ;
+	}
+
+	@Override
+	public boolean		detachVirtualMachine(
+		String vmUri,
+		String drainNotificationUri
+		) throws Exception
+	{
+		return ((RequestDispatcher) this.owner).detachVirtualMachine(vmUri,
+													drainNotificationUri) ;
+	}
+}
@@ -0,0 +1,45 @@
+package fr.upmc.colins.farm3.dispatcher;
+
+import fr.upmc.colins.farm3.admission.DrainNotificationI;
+import fr.upmc.components.ComponentI;
+import fr.upmc.components.ports.AbstractOutboundPort;
+
+/**
+ * The class <code>RDDrainNotificationOutboundPort</code> implements the
+ * outbound port used by a request dispatcher to tell the admission control
+ * that a detached virtual machine has been drained.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The port implements the <code>DrainNotificationI</code> interface as
+ * required and upon a call, passes it to the connector that must also
+ * implement the same interface.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	true
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class RDDrainNotificationOutboundPort extends AbstractOutboundPort
+		implements DrainNotificationI {
+
+	public RDDrainNotificationOutboundPort(String uri, ComponentI owner)
+			throws Exception {
+		super(uri, DrainNotificationI.class, owner);
+
+		assert uri != null;
+		assert owner.isRequiredInterface(DrainNotificationI.class);
+	}
+
+	@Override
+	public void virtualMachineDrained(String vmUri) throws Exception {
+		((DrainNotificationI) this.connector).virtualMachineDrained(vmUri);
+	}
+
+}
@@ -1,7 +1,11 @@
 package fr.upmc.colins.farm3.dispatcher;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import fr.upmc.colins.farm3.core.RequestArrivalI;
 import fr.upmc.colins.farm3.objects.Request;
+import fr.upmc.colins.farm3.simulation.SimulationClock;
 import fr.upmc.components.ComponentI;
 import fr.upmc.components.ComponentI.ComponentService;
 import fr.upmc.components.ports.AbstractInboundPort;
@@ -14,7 +18,9 @@ import fr.upmc.components.ports.AbstractInboundPort;
  * 
  * The port implements the <code>RequestArrivalI</code> interface as offered
  * and upon a call, passes it to the owner component that must also implement
- * the method <code>requestArrivalEvent</code>.
+ * the method <code>requestArrivalEvent</code>. A request generator waiting
+ * for its responses asks the dispatcher to connect back to it through the
+ * method <code>connectResponseConnection</code>.
  * 
  * <p><strong>Invariant</strong></p>
  * 
@@ -64,11 +70,11 @@ implements	RequestArrivalI
 	 * @see fr.upmc.alasca.ssqueue.interfaces.RequestArrivalI#acceptRequest(fr.upmc.alasca.ssqueue.objects.Request)
 	 */
 	@Override
-	public void			acceptRequest(Request c) throws Exception
+	public int			acceptRequest(Request c) throws Exception
 	{
 		final RequestDispatcher sp = (RequestDispatcher) this.owner ;
 		final Request fc = c ;
-		sp.handleRequestAsync(
+		SimulationClock.submit(sp,
 				new ComponentService<Void>() {
 					@Override
 					public Void call() throws Exception {
@@ -76,11 +82,68 @@ implements	RequestArrivalI
 						return null;
 					}
 				}) ;
+		// the dispatcher always takes the request in charge, an overload is
+		// reported to the actuator through an early failure response
+		return RequestArrivalI.ACCEPTED ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.core.RequestArrivalI#acceptRequests(java.util.ArrayList)
+	 */
+	@Override
+	public int[]		acceptRequests(ArrayList<Request> requests) throws Exception
+	{
+		final RequestDispatcher sp = (RequestDispatcher) this.owner ;
+		final ArrayList<Request> frequests = requests ;
+		// a single task for the whole batch
+		SimulationClock.submit(sp,
+				new ComponentService<Void>() {
+					@Override
+					public Void call() throws Exception {
+						sp.requestArrivalEvents(frequests);
+						return null;
+					}
+				}) ;
+		int[] outcomes = new int[requests.size()] ;
+		Arrays.fill(outcomes, RequestArrivalI.ACCEPTED) ;
+		return outcomes ;
+	}
+
+	/**
+	 * ask the request dispatcher to send the responses back to the request
+	 * generator, through the given inbound port.
+	 * 
+	 * @see fr.upmc.colins.farm3.core.RequestArrivalI#connectResponseConnection(java.lang.String)
+	 */
+	@Override
+	public void connectResponseConnection(String responseArrivalInboundPortUri) throws Exception {
+		final RequestDispatcher sp = (RequestDispatcher) this.owner ;
+		final String furi = responseArrivalInboundPortUri ;
+		// synchronous, the generator starts sending once connected
+		sp.handleRequestSync(
+				new ComponentService<Void>() {
+					@Override
+					public Void call() throws Exception {
+						sp.connectResponseConnection(furi);
+						return null;
+					}
+				}) ;
 	}
 
+	/**
+	 * @see fr.upmc.colins.farm3.core.RequestArrivalI#disconnectResponseConnection()
+	 */
 	@Override
-	public void connectResponseConnection(String vmResponseArrivalInboundPortUri) throws Exception {
-		throw new Exception();
+	public void disconnectResponseConnection() throws Exception {
+		final RequestDispatcher sp = (RequestDispatcher) this.owner ;
+		SimulationClock.submit(sp,
+				new ComponentService<Void>() {
+					@Override
+					public Void call() throws Exception {
+						sp.disconnectResponseConnection();
+						return null;
+					}
+				}) ;
 	}
 
 
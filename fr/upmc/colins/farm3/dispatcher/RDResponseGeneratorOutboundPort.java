@@ -1,11 +1,35 @@
 package fr.upmc.colins.farm3.dispatcher;
 
+import java.util.ArrayList;
+
 import fr.upmc.colins.farm3.core.ResponseArrivalI;
 import fr.upmc.colins.farm3.objects.Response;
 import fr.upmc.components.ComponentI;
 import fr.upmc.components.ports.AbstractOutboundPort;
 
-public class RDResponseGeneratorOutboundPort 
+/**
+ * The class <code>RDResponseGeneratorOutboundPort</code> implements the outbound
+ * port of a request dispatcher sending the responses back to the request
+ * generator.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The port implements the <code>ResponseArrivalI</code> interface as required
+ * and upon a call, passes it to the connector that must also implement the same
+ * interface.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	true
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			RDResponseGeneratorOutboundPort
 extends		AbstractOutboundPort
 implements	ResponseArrivalI
 {
@@ -42,5 +66,13 @@ implements	ResponseArrivalI
 		((ResponseArrivalI)this.connector).acceptResponse(response) ;
 	}
 
+	/**
+	 * accept a batch of responses
+	 */
+	@Override
+	public void acceptResponses(ArrayList<Response> responses) throws Exception {
+		((ResponseArrivalI)this.connector).acceptResponses(responses) ;
+	}
+
 
-}
\ No newline at end of file
+}
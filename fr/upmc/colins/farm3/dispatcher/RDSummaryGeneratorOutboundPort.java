@@ -0,0 +1,46 @@
+package fr.upmc.colins.farm3.dispatcher;
+
+import fr.upmc.colins.farm3.actuator.SummaryArrivalI;
+import fr.upmc.colins.farm3.objects.ResponseSummary;
+import fr.upmc.components.ComponentI;
+import fr.upmc.components.ports.AbstractOutboundPort;
+
+public class RDSummaryGeneratorOutboundPort 
+extends		AbstractOutboundPort
+implements	SummaryArrivalI
+{
+	/**
+	 * create the port with its URI and owner component.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	uri != null && owner != null &&
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param uri
+	 * @param owner
+	 * @throws Exception
+	 */
+	public				RDSummaryGeneratorOutboundPort(
+		String uri,
+		ComponentI owner
+		) throws Exception
+	{
+		super(uri, SummaryArrivalI.class, owner) ;
+
+		assert	uri != null ;
+		assert	owner.isRequiredInterface(SummaryArrivalI.class) ;
+	}
+  
+	/**
+	 * send a summary
+	 */
+	@Override
+	public void acceptSummary(ResponseSummary summary) throws Exception {
+		((SummaryArrivalI)this.connector).acceptSummary(summary) ;
+	}
+
+
+}				
@@ -2,23 +2,46 @@ package fr.upmc.colins.farm3.dispatcher;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.math3.distribution.NormalDistribution;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
 import fr.upmc.colins.farm3.VerboseSettings;
+import fr.upmc.colins.farm3.actuator.SummaryArrivalI;
+import fr.upmc.colins.farm3.admission.DrainNotificationI;
+import fr.upmc.colins.farm3.connectors.DrainNotificationConnector;
 import fr.upmc.colins.farm3.connectors.RequestServiceConnector;
 import fr.upmc.colins.farm3.connectors.ResponseServiceConnector;
+import fr.upmc.colins.farm3.connectors.SummaryServiceConnector;
 import fr.upmc.colins.farm3.core.RequestArrivalI;
 import fr.upmc.colins.farm3.core.ResponseArrivalI;
+import fr.upmc.colins.farm3.core.ResponseBatcher;
+import fr.upmc.colins.farm3.dispatcher.policy.AbstractDispatchPolicy;
+import fr.upmc.colins.farm3.dispatcher.policy.DispatchPolicy;
+import fr.upmc.colins.farm3.dispatcher.policy.DispatchTarget;
 import fr.upmc.colins.farm3.generator.RequestGeneratorOutboundPort;
+import fr.upmc.colins.farm3.log.EventLog;
+import fr.upmc.colins.farm3.log.EventType;
+import fr.upmc.colins.farm3.metrics.Counter;
+import fr.upmc.colins.farm3.metrics.Gauge;
+import fr.upmc.colins.farm3.metrics.HistogramMetric;
+import fr.upmc.colins.farm3.metrics.Metric;
+import fr.upmc.colins.farm3.metrics.MetricsRegistry;
 import fr.upmc.colins.farm3.objects.Request;
 import fr.upmc.colins.farm3.objects.Response;
-import fr.upmc.colins.farm3.utils.TimeProcessing;
+import fr.upmc.colins.farm3.objects.ResponseSummary;
+import fr.upmc.colins.farm3.objects.TraceContext;
+import fr.upmc.colins.farm3.simulation.SimulationClock;
+import fr.upmc.colins.farm3.stats.LatencyHistogram;
+import fr.upmc.colins.farm3.stats.TraceAggregator;
+import fr.upmc.colins.farm3.stats.WindowedStatistics;
 import fr.upmc.components.AbstractComponent;
 import fr.upmc.components.cvm.AbstractCVM;
 import fr.upmc.components.exceptions.ComponentShutdownException;
@@ -30,8 +53,33 @@ import fr.upmc.components.exceptions.ComponentShutdownException;
  * <strong>Description</strong>
  * </p>
  * A request dispatcher is a component that will forward received requests to
- * its dedicated virtual machine. The request dispatcher choose the least
- * recently used virtual machine when forwarding request.
+ * its dedicated virtual machine. The virtual machine receiving a request is
+ * chosen by a pluggable <code>DispatchPolicy</code> (round-robin by default),
+ * relying on the number of requests in flight on each virtual machine which
+ * is maintained from the response arrival events.
+ * 
+ * Virtual machines can be attached to or detached from a running request
+ * dispatcher (see <code>DispatcherControlI</code>) when its application is
+ * scaled out or in. The set of targets is never modified in place: a new
+ * list replaces it, so that the dispatching reads it without any lock and
+ * the intake of requests is never paused. A detached virtual machine is
+ * drained without blocking the caller: it gets no new request, and its ports
+ * are disconnected once the requests it was servicing have been answered,
+ * upon the last response, or after <code>DRAIN_TIMEOUT</code> milliseconds,
+ * the requests still in flight being then answered as rejected. The
+ * admission control is notified of the end of the drain, so that it can tear
+ * the virtual machine down.
+ * 
+ * The responses are not forwarded to the actuator one by one: the request
+ * dispatcher sends it a <code>ResponseSummary</code> once per summary period,
+ * given by the property <code>farm3.summary.period</code> (milliseconds), with
+ * the number of responses and of rejections of the period and the statistics
+ * of the response times. No summary is sent for a period without any.
+ * 
+ * A request generator waiting for its responses, such as the closed-loop
+ * generator, asks the dispatcher to connect back to it: the responses, and
+ * a rejected response for each request rejected by all the virtual
+ * machines, are then also sent back to the generator.
  * 
  * 
  * <p>
@@ -46,6 +94,44 @@ extends		AbstractComponent
 {
 
 	protected String logId;
+
+	/** maximal time waited for a detached vm to be drained (ms)			*/
+	public static final long DRAIN_TIMEOUT = 10000L;
+
+	/**
+	 * a virtual machine being detached, kept until it has been drained.
+	 */
+	protected static class	Detachment
+	{
+		/** uri of the request arrival inbound port of the virtual machine	*/
+		protected final String							vmUri ;
+		/** outbound port to the virtual machine							*/
+		protected final RequestGeneratorOutboundPort	rgop ;
+		/** inbound port receiving the responses of the virtual machine		*/
+		protected final RDResponseArrivalInboundPort	respAip ;
+		/** uri of the inbound port notified at the end of the drain		*/
+		protected final String							notificationUri ;
+		/** future of the task ending the drain after the timeout			*/
+		protected Future<?>								timeout ;
+
+		protected			Detachment(
+			String vmUri,
+			RequestGeneratorOutboundPort rgop,
+			RDResponseArrivalInboundPort respAip,
+			String notificationUri
+			)
+		{
+			this.vmUri = vmUri ;
+			this.rgop = rgop ;
+			this.respAip = respAip ;
+			this.notificationUri = notificationUri ;
+		}
+	}
+
+	/** name of the property giving the summary period in milliseconds		*/
+	public static final String SUMMARY_PERIOD_PROPERTY = "farm3.summary.period";
+	/** summary period used when the property is not set (ms)				*/
+	public static final long DEFAULT_SUMMARY_PERIOD = 100L;
     
 	// -------------------------------------------------------------------------
 	// Constructors and instance variables
@@ -66,24 +152,70 @@ extends		AbstractComponent
 	protected long						totalServicingTime ;
 	/** total number of completely serviced requests.						*/
 	protected int						totalNumberOfServicedRequests ;
+	/** total number of requests rejected by all the virtual machines.		*/
+	protected int						totalNumberOfRejectedRequests ;
 	
 	
 	/** inbound port for the request generator								*/
 	protected RDRequestArrivalInboundPort raip;
-	/** outbound ports to the core											*/
-	protected Queue<RequestGeneratorOutboundPort> rgops;
+	/** outbound ports to the virtual machines								*/
+	protected ArrayList<RequestGeneratorOutboundPort> rgops;
+	/** dispatch targets, one per virtual machine, replaced on change		*/
+	protected volatile ArrayList<DispatchTarget> targets;
+	/** uris of the virtual machines, in the order of the outbound ports	*/
+	protected ArrayList<String> vmUris;
+	/** number of cores of each virtual machine								*/
+	protected int nrofCoresPerVM;
+	/** policy choosing the virtual machine of the next request				*/
+	protected DispatchPolicy policy;
+	/** target of each request sent and not yet answered, by request uri	*/
+	protected Map<Integer, DispatchTarget> pendingTargets;
+	/** virtual machines being detached, by target							*/
+	protected Map<DispatchTarget, Detachment> detachments;
+	/** outbound port notifying the admission control of the drains		*/
+	protected RDDrainNotificationOutboundPort drainGop;
 	
 	/** inbound ports for each cores (to obtain the response) 				*/
 	protected ArrayList<RDResponseArrivalInboundPort> respAips;
 	
-	/** statistics 															*/
-	protected DescriptiveStatistics stats = new DescriptiveStatistics();
+	/** statistics of the response times, guarded by their own lock			*/
+	protected WindowedStatistics stats;
+	/** latencies of the stages of the path of the requests					*/
+	protected TraceAggregator traces;
+	/** number of requests received											*/
+	protected Counter nrofRequests;
+	/** number of responses received										*/
+	protected Counter nrofResponses;
+	/** number of requests rejected by all the virtual machines				*/
+	protected Counter nrofRejections;
+	/** metrics registered by the request dispatcher						*/
+	protected List<Metric> metrics;
 	
 	/** outbound port to the actuator 										*/
-	protected RDResponseGeneratorOutboundPort respGop;
+	protected RDSummaryGeneratorOutboundPort respGop;
+	/** outbound port sending the responses back to the request generator	*/
+	protected RDResponseGeneratorOutboundPort clientRespGop;
+	/** batcher of the responses sent back to the request generator			*/
+	protected ResponseBatcher clientResponseBatcher;
+	/** true while the responses are sent back to the request generator		*/
+	protected volatile boolean clientConnected;
+
+	/** period between two summaries sent to the actuator (ms)				*/
+	protected long summaryPeriod;
+	/** number of responses received since the last summary					*/
+	protected final AtomicInteger summaryResponses = new AtomicInteger();
+	/** number of rejections since the last summary							*/
+	protected final AtomicInteger summaryRejections = new AtomicInteger();
+	/** future of the next summary task, null until the first request		*/
+	protected Future<?> nextSummaryTaskFuture;
+	/** true when the component is shut down, no more summary then			*/
+	protected boolean summaryStopped;
 
 	/** boolean to execute some code at first request received by the rd 	*/
-	private boolean firstCall = true;
+	private volatile boolean firstCall = true;
+
+	/** priority class given to the requests of the application				*/
+	protected int priority;
 	
 	
 	/**
@@ -110,7 +242,18 @@ extends		AbstractComponent
 	 * 				the mean number of instructions
 	 * @param standardDeviation 
 	 * 				the standard deviation
-	 * @param rdResponseGeneratorOutboundPortUri 
+	 * @param actuatorResponseArrivalInboundPortUri 
+	 * 				URI of the port of the actuator receiving the summaries
+	 * @param statisticsWindow 
+	 * 				length of the window of the response time statistics (ms)
+	 * @param smoothingFactor 
+	 * 				smoothing factor of the mean response time
+	 * @param dispatchPolicy 
+	 * 				canonical name of the class of the dispatch policy
+	 * @param nrofCoresPerVM 
+	 * 				number of cores of each virtual machine
+	 * @param priority 
+	 * 				priority class of the requests of the application
 	 * @throws Exception
 	 */
 	public				RequestDispatcher(
@@ -120,7 +263,12 @@ extends		AbstractComponent
 		ArrayList<String> vmRequestArrivalInboundPortUris, 
 		Double meanNrofInstructions, 
 		Double standardDeviation, 
-		String actuatorResponseArrivalInboundPortUri
+		String actuatorResponseArrivalInboundPortUri,
+		Long statisticsWindow,
+		Double smoothingFactor,
+		String dispatchPolicy,
+		Integer nrofCoresPerVM,
+		Integer priority
 		) throws Exception
 	{
 		super(true, true) ;
@@ -134,8 +282,11 @@ extends		AbstractComponent
 		this.dispatcherIdle = true ;
 		this.servicing = null ;
 		this.requestsQueue = new LinkedBlockingQueue<Request>() ;
+		this.priority = priority ;
+		this.nrofCoresPerVM = nrofCoresPerVM ;
 		this.totalServicingTime = 0L ;
 		this.totalNumberOfServicedRequests = 0 ;
+		this.totalNumberOfRejectedRequests = 0 ;
 
 		// inbound port for request arrival
 		this.addOfferedInterface(RequestArrivalI.class) ;
@@ -147,7 +298,11 @@ extends		AbstractComponent
 			this.raip.localPublishPort() ;
 		}
 		
-		this.rgops = new LinkedList<>(); 
+		this.rgops = new ArrayList<>(); 
+		this.vmUris = new ArrayList<>();
+		this.policy = AbstractDispatchPolicy.newInstance(dispatchPolicy);
+		this.pendingTargets = new ConcurrentHashMap<>();
+		this.detachments = new ConcurrentHashMap<>();
 		this.respAips = new ArrayList<>();
 		// interface is added once.
 		this.addRequiredInterface(RequestArrivalI.class) ;
@@ -155,10 +310,34 @@ extends		AbstractComponent
 		// receive response from the virtual machines
 		this.addOfferedInterface(ResponseArrivalI.class) ;
 		
-		// send response to actuator
+		// send the responses back to a request generator waiting for them
 		this.addRequiredInterface(ResponseArrivalI.class) ;
+		this.clientRespGop = new RDResponseGeneratorOutboundPort("rd-resp-rgop-"
+				+ java.util.UUID.randomUUID(), this);
+		this.addPort(this.clientRespGop) ;
+		if (AbstractCVM.isDistributed) {
+			this.clientRespGop.publishPort() ;
+		} else {
+			this.clientRespGop.localPublishPort();
+		}
+		this.clientResponseBatcher = new ResponseBatcher(this, this.clientRespGop);
+		this.clientConnected = false;
+
+		// notify the admission control of the drained virtual machines
+		this.addRequiredInterface(DrainNotificationI.class) ;
+		this.drainGop = new RDDrainNotificationOutboundPort("rd-drain-gop-"
+				+ java.util.UUID.randomUUID(), this);
+		this.addPort(this.drainGop) ;
+		if (AbstractCVM.isDistributed) {
+			this.drainGop.publishPort() ;
+		} else {
+			this.drainGop.localPublishPort();
+		}
+
+		// send summaries to actuator
+		this.addRequiredInterface(SummaryArrivalI.class) ;
 
-		this.respGop = new RDResponseGeneratorOutboundPort("rd-resp-rgop-"
+		this.respGop = new RDSummaryGeneratorOutboundPort("rd-summary-rgop-"
 				+ java.util.UUID.randomUUID(), this);
 		this.addPort(respGop) ;
 		if (AbstractCVM.isDistributed) {
@@ -167,41 +346,24 @@ extends		AbstractComponent
 			respGop.localPublishPort();
 		}
 		// connect the request dispatcher to the actuator
-		respGop.doConnection(actuatorResponseArrivalInboundPortUri, ResponseServiceConnector.class.getCanonicalName());
+		respGop.doConnection(actuatorResponseArrivalInboundPortUri, SummaryServiceConnector.class.getCanonicalName());
+		this.summaryPeriod = Long.getLong(SUMMARY_PERIOD_PROPERTY, DEFAULT_SUMMARY_PERIOD);
+		this.nextSummaryTaskFuture = null;
+		this.summaryStopped = false;
 		
+		ArrayList<DispatchTarget> initialTargets = new ArrayList<>();
 		for (int i = 0; i < outboundPortURIs.size(); i++) {
-			String outboundPortURI = outboundPortURIs.get(i);
-			// outbound port for request departure (into a virtual machine)
-			RequestGeneratorOutboundPort rgop = new RequestGeneratorOutboundPort(outboundPortURI, this);
-			this.rgops.add(rgop);
-			this.addPort(rgop) ;
-			if (AbstractCVM.isDistributed) {
-				rgop.publishPort() ;
-			} else {
-				rgop.localPublishPort();
-			}
-		
-			rgop.doConnection(vmRequestArrivalInboundPortUris.get(i),
-					RequestServiceConnector.class.getCanonicalName());
-			System.out.println(logId + " Connect the request dispatcher to the virtual machine (via "
-					+ rgop.getPortURI() + ")");
-
-			// the URI used here, doesn't really matter, it should just be unique
-			String rdResponseArrivalInboundPortUri = "rd-resp-raip-" + java.util.UUID.randomUUID();
-			
-			// create an inbound port for response from this virtual machine
-			RDResponseArrivalInboundPort respAip = new RDResponseArrivalInboundPort(rdResponseArrivalInboundPortUri, this);
-			this.respAips.add(respAip);
-			this.addPort(respAip);
-			if (AbstractCVM.isDistributed) {
-				respAip.publishPort();
-			} else {
-				respAip.localPublishPort();
-			}
+			initialTargets.add(this.addTarget(outboundPortURIs.get(i),
+					vmRequestArrivalInboundPortUris.get(i)));
 		}
+		this.targets = initialTargets;
 
 		this.nd = new NormalDistribution(meanNrofInstructions,
 				standardDeviation);
+		this.stats = new WindowedStatistics(statisticsWindow,
+				WindowedStatistics.DEFAULT_NROF_BUCKETS, smoothingFactor);
+		this.traces = new TraceAggregator();
+		this.registerMetrics();
 
 		System.out.println(logId + " Request dispatcher (id " + id + ") created") ;
 		assert	id != null;
@@ -210,6 +372,91 @@ extends		AbstractComponent
 		assert	totalServicingTime >= 0 && totalNumberOfServicedRequests >= 0 ;
 	}
 
+	/**
+	 * create and connect the outbound port to a virtual machine and the
+	 * inbound port receiving its responses, and return the dispatch target of
+	 * the virtual machine; the target is not added to the current targets.
+	 *
+	 * @param outboundPortURI	uri of the outbound port to the virtual machine
+	 * @param vmUri				uri of the request arrival inbound port of the
+	 * 							virtual machine
+	 * @return					the dispatch target of the virtual machine
+	 * @throws Exception
+	 */
+	protected DispatchTarget	addTarget(String outboundPortURI, String vmUri)
+	throws Exception
+	{
+		// outbound port for request departure (into a virtual machine)
+		RequestGeneratorOutboundPort rgop = new RequestGeneratorOutboundPort(outboundPortURI, this);
+		this.addPort(rgop) ;
+		if (AbstractCVM.isDistributed) {
+			rgop.publishPort() ;
+		} else {
+			rgop.localPublishPort();
+		}
+	
+		rgop.doConnection(vmUri,
+				RequestServiceConnector.class.getCanonicalName());
+		System.out.println(logId + " Connect the request dispatcher to the virtual machine (via "
+				+ rgop.getPortURI() + ")");
+
+		// the URI used here, doesn't really matter, it should just be unique
+		String rdResponseArrivalInboundPortUri = "rd-resp-raip-" + java.util.UUID.randomUUID();
+		
+		// create an inbound port for response from this virtual machine
+		RDResponseArrivalInboundPort respAip = new RDResponseArrivalInboundPort(rdResponseArrivalInboundPortUri, this);
+		this.addPort(respAip);
+		if (AbstractCVM.isDistributed) {
+			respAip.publishPort();
+		} else {
+			respAip.localPublishPort();
+		}
+		this.rgops.add(rgop);
+		this.respAips.add(respAip);
+		this.vmUris.add(vmUri);
+		return new DispatchTarget(rgop, this.nrofCoresPerVM);
+	}
+
+	/**
+	 * register the metrics of the request dispatcher: its throughput, its
+	 * number of requests in flight and the end-to-end response times.
+	 */
+	protected void		registerMetrics()
+	{
+		final RequestDispatcher frd = this;
+		String labels = "dispatcher=\"" + this.id + "\"";
+		this.metrics = new ArrayList<>();
+		this.nrofRequests = new Counter("rd_requests_total", labels,
+				"requests received by the request dispatcher");
+		this.nrofResponses = new Counter("rd_responses_total", labels,
+				"responses received from the virtual machines");
+		this.nrofRejections = new Counter("rd_rejected_requests_total", labels,
+				"requests rejected by all the virtual machines");
+		this.metrics.add(this.nrofRequests);
+		this.metrics.add(this.nrofResponses);
+		this.metrics.add(this.nrofRejections);
+		this.metrics.add(new Gauge("rd_in_flight", labels,
+				"requests sent to the virtual machines and not yet answered") {
+			@Override
+			public double getValue() {
+				return frd.pendingTargets.size();
+			}
+		});
+		this.metrics.add(new Gauge("rd_queue_length", labels,
+				"requests waiting in the request dispatcher") {
+			@Override
+			public double getValue() {
+				return frd.requestsQueue.size();
+			}
+		});
+		this.metrics.add(new HistogramMetric("rd_response_time_seconds",
+				labels, "end-to-end times of the requests",
+				this.getResponseTimeHistogram()));
+		for (Metric m : this.metrics) {
+			MetricsRegistry.getDefault().register(m);
+		}
+	}
+
 	// -------------------------------------------------------------------------
 	// Component life-cycle
 	// -------------------------------------------------------------------------
@@ -231,19 +478,44 @@ extends		AbstractComponent
 	@Override
 	public void			shutdown() throws ComponentShutdownException
 	{
-		// disconnect rgops
+		synchronized (this) {
+			this.summaryStopped = true;
+			if (this.nextSummaryTaskFuture != null) {
+				this.nextSummaryTaskFuture.cancel(false);
+			}
+		}
+		// report the responses of the last period
+		this.summaryEvent();
+		// disconnect rgops, the vms still being drained are released by the
+		// admission control with the application
 		try {
-			for (RequestGeneratorOutboundPort rgop : this.rgops) {
-				if (rgop.connected()) {
-					rgop.doDisconnection();
+			synchronized (this) {
+				for (RequestGeneratorOutboundPort rgop : this.rgops) {
+					if (rgop.connected()) {
+						rgop.doDisconnection();
+					}
+				}
+				for (Detachment detachment : this.detachments.values()) {
+					detachment.timeout.cancel(false);
+					if (detachment.rgop.connected()) {
+						detachment.rgop.doDisconnection();
+					}
 				}
+				this.detachments.clear();
 			}
 			if (respGop.connected()) {
 				respGop.doDisconnection();
 			}
+			this.disconnectResponseConnection();
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
+		MetricsRegistry.getDefault().unregister(this.metrics);
+		if (this.totalNumberOfServicedRequests > 0) {
+			System.out.println(this.traces.report(logId)) ;
+			System.out.println(logId + " Response time : " + this
+					.getResponseTimeHistogram().getSnapshot().toPercentileString()) ;
+		}
 
 		super.shutdown();
 	}
@@ -254,7 +526,9 @@ extends		AbstractComponent
 
 	/**
 	 * process a request arrival event, queueing the request and the processing
-	 * a begin sericing event if the server is currently idle.
+	 * a begin sericing event if the server is currently idle. The number of
+	 * instructions of the request is drawn from the normal distribution of
+	 * the application, unless the request already has one.
 	 * 
 	 * <p><strong>Contract</strong></p>
 	 * 
@@ -269,45 +543,255 @@ extends		AbstractComponent
 	public void			requestArrivalEvent(Request r) throws Exception
 	{
 		assert	r != null ;
-		long t = System.currentTimeMillis() ;
-		Long nrofInstructions = (long) nd.sample();
+		long t = SimulationClock.currentTimeMillis() ;
+		this.nrofRequests.inc();
 		
 		// ask the virtual machines to do the connection to the inbound port of the request dispatcher (for response)
 		if(firstCall){
-			firstCall =false;
-
-			if(VerboseSettings.VERBOSE_DISPATCHER)
-				System.out.println(logId + " Linking virtual machines to the request dispatcher for response connection");
-			RequestGeneratorOutboundPort[] rgopsArray = rgops.toArray(new RequestGeneratorOutboundPort[0]);
-			for (int i = 0; i < respAips.size(); i++) {
-				RDResponseArrivalInboundPort rdRespAip = respAips.get(i);
-				if (rgopsArray[i].connected()) {
-					try {
-						rgopsArray[i].connectResponseConnection(rdRespAip
-								.getPortURI());
-					} catch (Exception e) {
-						e.printStackTrace();
-					}
-				}
-			}
+			this.connectResponseConnections();
 		}
 		
-		r.setNrofInstructions(nrofInstructions);
-		if(VerboseSettings.VERBOSE_DISPATCHER)
-			System.out.println(logId + " Accepting request       " + r + " at "
-					+ TimeProcessing.toString(t) + " with " + nrofInstructions
-					+ " instructions");
+		// the requests replayed from a trace keep their recorded number
+		long nrofInstructions = r.getNrofInstructions();
+		if (nrofInstructions <= 0) {
+			nrofInstructions = (long) nd.sample();
+			r.setNrofInstructions(nrofInstructions);
+		}
+		// the class given by the client is relative to the application
+		r.setPriority(this.priority + r.getPriority());
+		EventLog.log(EventType.DISPATCHER_ACCEPT, this.id, r.getUri(),
+					 nrofInstructions) ;
 		r.setArrivalTime(t) ;
 		this.requestsQueue.add(r) ;
 		if (!this.dispatcherIdle) {
-			if(VerboseSettings.VERBOSE_DISPATCHER)
-				System.out.println(logId + " Queueing request " + r) ;
+			EventLog.log(EventType.DISPATCHER_QUEUE, this.id, r.getUri()) ;
 		} else {
 			this.beginServicingEvent() ;
 		}
 	}
 
 	
+	/**
+	 * process the arrival of a batch of requests, in their order of arrival.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	requests != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param requests	the requests of the batch
+	 * @throws Exception
+	 */
+	public void			requestArrivalEvents(List<Request> requests) throws Exception
+	{
+		for (Request r : requests) {
+			this.requestArrivalEvent(r) ;
+		}
+	}
+
+	/**
+	 * ask the virtual machines to connect to the response inbound ports of
+	 * the request dispatcher; the virtual machines attached later are asked
+	 * upon their attachment.
+	 */
+	protected synchronized void	connectResponseConnections()
+	{
+		if (!this.firstCall) {
+			return;
+		}
+		this.firstCall = false;
+		// the summaries start with the first request
+		this.scheduleSummary();
+		if(VerboseSettings.VERBOSE_DISPATCHER)
+			System.out.println(logId + " Linking virtual machines to the request dispatcher for response connection");
+		for (int i = 0; i < respAips.size(); i++) {
+			RDResponseArrivalInboundPort rdRespAip = respAips.get(i);
+			try {
+				if (rgops.get(i).connected()) {
+					rgops.get(i).connectResponseConnection(rdRespAip
+							.getPortURI());
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * attach a virtual machine to the request dispatcher: the ports to the
+	 * virtual machine are created and connected, then a new list of targets
+	 * including it replaces the current one.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	vmUri != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param vmUri		uri of the request arrival inbound port of the vm
+	 * @return			false if the virtual machine was already attached
+	 * @throws Exception
+	 */
+	public synchronized boolean	attachVirtualMachine(String vmUri)
+	throws Exception
+	{
+		assert	vmUri != null ;
+
+		if (this.vmUris.contains(vmUri)) {
+			return false;
+		}
+		DispatchTarget target = this.addTarget(
+				"rd-rgop-" + java.util.UUID.randomUUID(), vmUri);
+		if (!this.firstCall) {
+			target.getPort().connectResponseConnection(
+					this.respAips.get(this.respAips.size() - 1).getPortURI());
+		}
+		ArrayList<DispatchTarget> newTargets = new ArrayList<>(this.targets);
+		newTargets.add(target);
+		this.targets = newTargets;
+		System.out.println(logId + " Virtual machine " + vmUri + " attached, "
+					+ newTargets.size() + " targets");
+		return true;
+	}
+
+	/**
+	 * detach a virtual machine from the request dispatcher, unless it is the
+	 * last one: its target is marked as draining and a new list of targets
+	 * excluding it replaces the current one, so that it gets no new request.
+	 * The call does not wait for the drain: the detachment is ended by
+	 * <code>endDetachment</code> upon the response to the last request in
+	 * flight on the virtual machine, or by a task scheduled after
+	 * <code>DRAIN_TIMEOUT</code> milliseconds.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	vmUri != null &amp;&amp; notificationUri != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param vmUri				uri of the request arrival inbound port of the
+	 * 							vm
+	 * @param notificationUri	uri of the inbound port notified once the vm
+	 * 							has been drained
+	 * @return					true if the virtual machine is being detached
+	 * @throws Exception
+	 */
+	public synchronized boolean	detachVirtualMachine(
+		String vmUri,
+		String notificationUri
+		) throws Exception
+	{
+		assert	vmUri != null && notificationUri != null ;
+
+		int index = this.vmUris.indexOf(vmUri);
+		if (index < 0 || this.targets.size() <= 1) {
+			return false;
+		}
+		ArrayList<DispatchTarget> newTargets = new ArrayList<>(this.targets);
+		final DispatchTarget target = newTargets.remove(index);
+		// set before the number of requests in flight is read, see dispatch
+		target.setDraining(true);
+		this.targets = newTargets;
+		Detachment detachment = new Detachment(vmUri, this.rgops.remove(index),
+				this.respAips.remove(index), notificationUri);
+		this.vmUris.remove(index);
+		this.detachments.put(target, detachment);
+
+		final RequestDispatcher frd = this;
+		detachment.timeout = SimulationClock.schedule(this, new ComponentTask() {
+			@Override
+			public void run() {
+				frd.endDetachment(target, false);
+			}}, DRAIN_TIMEOUT, TimeUnit.MILLISECONDS);
+		if (target.getInFlight() == 0) {
+			this.scheduleDetachmentEnd(target);
+		}
+		System.out.println(logId + " Virtual machine " + vmUri + " detached, "
+					+ newTargets.size() + " targets");
+		return true;
+	}
+
+	/**
+	 * schedule the end of the detachment of a drained virtual machine, out of
+	 * the processing of its last response.
+	 *
+	 * @param target	the target of the virtual machine
+	 */
+	protected void		scheduleDetachmentEnd(final DispatchTarget target)
+	{
+		final RequestDispatcher frd = this;
+		SimulationClock.schedule(this, new ComponentTask() {
+			@Override
+			public void run() {
+				frd.endDetachment(target, true);
+			}}, 0L, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * end the detachment of a virtual machine: its ports are disconnected
+	 * and destroyed, then the admission control is notified. If the virtual
+	 * machine has not been drained, the requests still in flight on it are
+	 * abandoned and answered as rejected. Nothing is done if the detachment
+	 * has already ended.
+	 *
+	 * @param target	the target of the virtual machine
+	 * @param drained	false if the drain timed out
+	 */
+	protected void		endDetachment(DispatchTarget target, boolean drained)
+	{
+		Detachment detachment;
+		synchronized (this) {
+			detachment = this.detachments.remove(target);
+			if (detachment == null) {
+				return;
+			}
+			if (drained) {
+				detachment.timeout.cancel(false);
+			} else {
+				System.err.println(logId + " Virtual machine " + detachment.vmUri 
+						+ " not drained, " + target.getInFlight() 
+						+ " requests in flight abandoned");
+				for (Map.Entry<Integer, DispatchTarget> e : this.pendingTargets.entrySet()) {
+					if (e.getValue() == target 
+							&& this.pendingTargets.remove(e.getKey(), target)) {
+						target.responseReceived(0.0);
+						this.abandonEvent(e.getKey());
+					}
+				}
+			}
+			try {
+				if (detachment.rgop.connected()) {
+					if (!this.firstCall) {
+						detachment.rgop.disconnectResponseConnection();
+					}
+					detachment.rgop.doDisconnection();
+				}
+				detachment.rgop.destroyPort();
+				detachment.respAip.destroyPort();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+		// the admission control tears the virtual machine down
+		synchronized (this.drainGop) {
+			try {
+				this.drainGop.doConnection(detachment.notificationUri,
+						DrainNotificationConnector.class.getCanonicalName());
+				try {
+					this.drainGop.virtualMachineDrained(detachment.vmUri);
+				} finally {
+					this.drainGop.doDisconnection();
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
 	/**
 	 * process a begin servicing event, e.g. schedule a end servicing event
 	 * after a delay of the processing time of the request.
@@ -335,13 +819,14 @@ extends		AbstractComponent
 		
 		this.dispatcherIdle = false ;
 		try {
-			if(VerboseSettings.VERBOSE_DISPATCHER)
-				System.out.println(logId + " Dispatching request     "
-						+ this.servicing + " at "
-						+ TimeProcessing.toString(System.currentTimeMillis())) ;
-			RequestGeneratorOutboundPort rgop = this.rgops.poll();		
-			rgop.acceptRequest(request);
-			this.rgops.add(rgop);
+			EventLog.log(EventType.DISPATCHER_DISPATCH, this.id,
+						 request.getUri()) ;
+			request.getTrace().mark(TraceContext.DISPATCH) ;
+			int outcome = DispatchTarget.dispatch(this.policy, this.targets,
+					this.pendingTargets, request);
+			if (outcome == RequestArrivalI.REJECTED) {
+				this.rejectionEvent(request);
+			}
 			this.endServicingEvent() ;
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -364,7 +849,7 @@ extends		AbstractComponent
 	 */
 	public void			endServicingEvent() throws Exception
 	{
-		long t = System.currentTimeMillis() ;
+		long t = SimulationClock.currentTimeMillis() ;
 		long st = t - this.servicing.getArrivalTime() ; 
 		this.totalServicingTime += st ;
 		this.totalNumberOfServicedRequests++ ;
@@ -378,20 +863,222 @@ extends		AbstractComponent
 	}
 
 	/**
-	 * update the mean time of request processing (from the virtual machine)
-	 * and forward the mean of mean time to an actuator
+	 * process a rejection event, when all the virtual machines rejected a
+	 * request: the rejection is counted in the next summary, so that the
+	 * overload is reported to the actuator within a summary period instead of
+	 * letting the request wait in a full queue.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	request != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param request the rejected request
+	 */
+	protected void		rejectionEvent(Request request)
+	{
+		this.totalNumberOfRejectedRequests++ ;
+		this.nrofRejections.inc() ;
+		EventLog.log(EventType.DISPATCHER_REJECT, this.id, request.getUri()) ;
+		this.summaryRejections.incrementAndGet() ;
+		if (this.clientConnected) {
+			// the request generator waiting for the request gets a failure
+			Response response = new Response(request.getUri()) ;
+			response.setRejected(true) ;
+			response.setTrace(request.getTrace()) ;
+			this.sendClientResponse(response) ;
+		}
+	}
+
+	/**
+	 * process the abandon of a request sent to a virtual machine which was
+	 * not drained in time: it is counted and answered as a rejection.
+	 *
+	 * @param uri	uri of the abandoned request
+	 */
+	protected void		abandonEvent(Integer uri)
+	{
+		this.totalNumberOfRejectedRequests++ ;
+		this.nrofRejections.inc() ;
+		EventLog.log(EventType.DISPATCHER_REJECT, this.id, uri) ;
+		this.summaryRejections.incrementAndGet() ;
+		if (this.clientConnected) {
+			Response response = new Response(uri) ;
+			response.setRejected(true) ;
+			this.sendClientResponse(response) ;
+		}
+	}
+
+	/**
+	 * return the histogram of the end-to-end times of the requests of the
+	 * application, from their generation to the arrival of their response;
+	 * it may be read while the dispatcher records new values.
+	 *
+	 * @return	the histogram of the response times
+	 */
+	public LatencyHistogram	getResponseTimeHistogram()
+	{
+		return this.traces.getHistogram(TraceAggregator.TOTAL) ;
+	}
+
+	/**
+	 * update the mean time of request processing (from the virtual machine);
+	 * the response is reported to the actuator by the next summary
 	 * @param response the received response
 	 */
 	public void responseArrivalEvent(Response response) {
-		this.stats.addValue(response.getDuration());
+		long t = SimulationClock.currentTimeMillis() ;
+		DispatchTarget target = this.pendingTargets.remove(response.getUri());
+		if (target != null) {
+			target.responseReceived(response.getClockSpeed());
+			if (target.isDraining() && target.getInFlight() == 0) {
+				this.scheduleDetachmentEnd(target);
+			}
+		}
+		this.nrofResponses.inc();
+		if (response.getTrace() != null) {
+			response.getTrace().mark(TraceContext.RESPONSE);
+			this.traces.record(response.getTrace());
+		}
+		// the responses of several virtual machines may arrive at once
+		synchronized (this.stats) {
+			this.stats.addValue(response.getDuration(), t);
+		}
+		this.summaryResponses.incrementAndGet();
+		if (this.clientConnected) {
+			this.sendClientResponse(response);
+		}
+	}
+
+	/**
+	 * send a response back to the request generator.
+	 *
+	 * @param response	the response to be sent
+	 */
+	protected void		sendClientResponse(Response response)
+	{
+		try {
+			this.clientResponseBatcher.send(response);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * connect the request dispatcher to the request generator, so that the
+	 * responses and the rejections are sent back to it.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	furi != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param furi	uri of the inbound port of the request generator
+	 * @throws Exception
+	 */
+	public synchronized void	connectResponseConnection(String furi)
+	throws Exception
+	{
+		assert	furi != null ;
+
+		if (!this.clientRespGop.connected()) {
+			if(VerboseSettings.VERBOSE_DISPATCHER)
+				System.out.println(logId + " Connect the response connection to the request generator");
+			this.clientRespGop.doConnection(furi,
+					ResponseServiceConnector.class.getCanonicalName());
+			this.clientConnected = true;
+		}
+	}
+
+	/**
+	 * disconnect the request dispatcher from the request generator, after
+	 * sending the responses waiting in the batcher.
+	 * 
+	 * @throws Exception
+	 */
+	public synchronized void	disconnectResponseConnection()
+	throws Exception
+	{
+		if (this.clientConnected) {
+			this.clientConnected = false;
+			this.clientResponseBatcher.flush();
+			if (this.clientRespGop.connected()) {
+				this.clientRespGop.doDisconnection();
+			}
+		}
+	}
+
+	/**
+	 * process the arrival of a batch of responses, in their order.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	responses != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param responses	the responses of the batch
+	 */
+	public void responseArrivalEvents(List<Response> responses) {
+		for (Response response : responses) {
+			this.responseArrivalEvent(response);
+		}
+	}
+
+	/**
+	 * schedule the next summary event after one summary period.
+	 */
+	protected synchronized void	scheduleSummary() {
+		if (this.summaryStopped) {
+			return;
+		}
+		final RequestDispatcher frd = this;
+		final ComponentTask task = new ComponentTask() {
+			@Override
+			public void run() {
+				try {
+					frd.summaryEvent();
+				} catch (Exception e) {
+					e.printStackTrace();
+				} finally {
+					frd.scheduleSummary();
+				}
+			}};
+		this.nextSummaryTaskFuture = SimulationClock.schedule(this, task,
+				this.summaryPeriod, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * send to the actuator the summary of the responses and the rejections
+	 * since the previous summary, with the statistics of the response times
+	 * over the statistics window; nothing is sent if there are none.
+	 */
+	protected void		summaryEvent() {
+		int responses = this.summaryResponses.getAndSet(0);
+		int rejections = this.summaryRejections.getAndSet(0);
+		if (responses == 0 && rejections == 0) {
+			return;
+		}
+		ResponseSummary summary;
+		synchronized (this.stats) {
+			summary = new ResponseSummary(responses, rejections,
+					this.stats.getWindowMean(SimulationClock.currentTimeMillis()),
+					this.stats.getSmoothedMean(), this.stats.getP95(),
+					this.stats.getP99());
+		}
 
 		if(VerboseSettings.VERBOSE_DISPATCHER)
-			System.out.println(logId + " New mean time : " + this.stats.getMean());
+			System.out.println(logId + " Summary : " + summary);
 		
-		// send the new mean time of the request dispatcher to a controller
-		response.setDuration(this.stats.getMean());
 		try {
-			respGop.acceptResponse(response);
+			if (this.respGop.connected()) {
+				this.respGop.acceptSummary(summary);
+			}
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
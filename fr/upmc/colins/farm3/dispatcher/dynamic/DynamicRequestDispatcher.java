@@ -2,11 +2,24 @@ package fr.upmc.colins.farm3.dispatcher.dynamic;
 
 import java.util.ArrayList;
 
+import fr.upmc.colins.farm3.admission.ComponentTeardownI;
+import fr.upmc.colins.farm3.admission.ComponentTeardownInboundPort;
+import fr.upmc.colins.farm3.dispatcher.DispatcherControlI;
+import fr.upmc.colins.farm3.dispatcher.RDControlInboundPort;
 import fr.upmc.colins.farm3.dispatcher.RequestDispatcher;
+import fr.upmc.components.cvm.AbstractCVM;
 /**
  * The class <code>DynamicRequestDispatcher</code> implements the dynamic version of
  * the <code>RequestDispatcher</code> component.
  * 
+ * <p><strong>Description</strong></p>
+ * 
+ * The dynamic request dispatcher also offers a teardown port, through which the
+ * admission control shuts it down when the application it serves is
+ * released, and a control port, through which the admission control
+ * attaches and detaches virtual machines when the application is scaled out
+ * or in.
+ * 
  * <p><strong>Invariant</strong></p>
  * 
  * <pre>
@@ -20,6 +33,11 @@ import fr.upmc.colins.farm3.dispatcher.RequestDispatcher;
  */
 public class DynamicRequestDispatcher extends RequestDispatcher {
 
+	/** inbound port through which the admission control tears it down	*/
+	protected ComponentTeardownInboundPort teardownInboundPort;
+	/** inbound port through which the admission control changes its vms	*/
+	protected RDControlInboundPort controlInboundPort;
+
 	public DynamicRequestDispatcher(
 			Integer id, 
 			String inboundPortURI, 
@@ -27,7 +45,14 @@ public class DynamicRequestDispatcher extends RequestDispatcher {
 			ArrayList<String> vmRequestArrivalInboundPortUris, 
 			Double meanNrofInstructions, 
 			Double standardDeviation,
-			String actuatorResponseArrivalInboundPortUri
+			String actuatorResponseArrivalInboundPortUri,
+			Long statisticsWindow,
+			Double smoothingFactor,
+			String dispatchPolicy,
+			Integer nrofCoresPerVM,
+			Integer priority,
+			String teardownInboundPortURI,
+			String controlInboundPortURI
 			) throws Exception 
 	{		
 		super(id, 
@@ -36,8 +61,33 @@ public class DynamicRequestDispatcher extends RequestDispatcher {
 				vmRequestArrivalInboundPortUris, 
 				meanNrofInstructions, 
 				standardDeviation,
-				actuatorResponseArrivalInboundPortUri
+				actuatorResponseArrivalInboundPortUri,
+				statisticsWindow,
+				smoothingFactor,
+				dispatchPolicy,
+				nrofCoresPerVM,
+				priority
 				);
+
+		this.addOfferedInterface(ComponentTeardownI.class);
+		this.teardownInboundPort = new ComponentTeardownInboundPort(
+				teardownInboundPortURI, this);
+		this.addPort(this.teardownInboundPort);
+		if (AbstractCVM.isDistributed) {
+			this.teardownInboundPort.publishPort();
+		} else {
+			this.teardownInboundPort.localPublishPort();
+		}
+
+		this.addOfferedInterface(DispatcherControlI.class);
+		this.controlInboundPort = new RDControlInboundPort(
+				controlInboundPortURI, this);
+		this.addPort(this.controlInboundPort);
+		if (AbstractCVM.isDistributed) {
+			this.controlInboundPort.publishPort();
+		} else {
+			this.controlInboundPort.localPublishPort();
+		}
 	}
 
 
@@ -0,0 +1,84 @@
+package fr.upmc.colins.farm3.dispatcher.policy;
+
+import java.util.List;
+
+/**
+ * The class <code>AbstractDispatchPolicy</code> implements the common part of
+ * the policies choosing the target of lowest score.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The targets are scanned starting from a rotating offset so that ties are
+ * broken in a round-robin fashion rather than always favouring the first
+ * target. The class also provides the factory used by the components to
+ * instantiate a policy from the canonical name of its class.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public abstract class	AbstractDispatchPolicy
+implements	DispatchPolicy
+{
+	/** offset of the first target scanned at the next selection			*/
+	protected int		offset = 0 ;
+
+	/**
+	 * return the score of a target, the target of lowest score is chosen.
+	 *
+	 * @param target	the target to be scored
+	 * @return			the score of the target
+	 */
+	protected abstract double	score(DispatchTarget target) ;
+
+	/**
+	 * @see fr.upmc.colins.farm3.dispatcher.policy.DispatchPolicy#select(java.util.List)
+	 */
+	@Override
+	public int			select(List<DispatchTarget> targets)
+	{
+		assert	targets != null && !targets.isEmpty() ;
+
+		int size = targets.size() ;
+		int start = this.offset % size ;
+		int best = start ;
+		double bestScore = this.score(targets.get(start)) ;
+		for (int i = 1; i < size; i++) {
+			int index = (start + i) % size ;
+			double s = this.score(targets.get(index)) ;
+			if (s < bestScore) {
+				best = index ;
+				bestScore = s ;
+			}
+		}
+		this.offset = start + 1 ;
+		return best ;
+	}
+
+	/**
+	 * instantiate a policy from the canonical name of its class.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	policyClassName != null
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @param policyClassName	canonical name of the policy class
+	 * @return					a new instance of the policy
+	 * @throws Exception		if the class does not implement a policy
+	 */
+	public static DispatchPolicy	newInstance(String policyClassName)
+	throws Exception
+	{
+		assert	policyClassName != null ;
+
+		Object policy = Class.forName(policyClassName).newInstance() ;
+		if (!(policy instanceof DispatchPolicy)) {
+			throw new Exception(policyClassName + " is not a dispatch policy") ;
+		}
+		return (DispatchPolicy) policy ;
+	}
+}
@@ -0,0 +1,37 @@
+package fr.upmc.colins.farm3.dispatcher.policy;
+
+import java.util.List;
+
+/**
+ * The interface <code>DispatchPolicy</code> defines a load-balancing policy
+ * choosing the target of the next request.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * A policy is owned by a single dispatching component and is only called from
+ * its internal services; it may keep a state (eg. a cursor) between calls.
+ * Implementations must provide a public constructor without parameters as
+ * they are instantiated from the canonical name of their class.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public interface		DispatchPolicy
+{
+	/**
+	 * choose the target of the next request.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	targets != null &amp;&amp; !targets.isEmpty()
+	 * post	0 &lt;= ret &amp;&amp; ret &lt; targets.size()
+	 * </pre>
+	 *
+	 * @param targets	the available targets
+	 * @return			the index of the chosen target
+	 */
+	int				select(List<DispatchTarget> targets) ;
+}
@@ -0,0 +1,227 @@
+package fr.upmc.colins.farm3.dispatcher.policy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.upmc.colins.farm3.core.RequestArrivalI;
+import fr.upmc.colins.farm3.generator.RequestGeneratorOutboundPort;
+import fr.upmc.colins.farm3.objects.Request;
+
+/**
+ * The class <code>DispatchTarget</code> describes a destination of requests
+ * as seen by a dispatching component.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * A target wraps the outbound port used to send requests to it, and keeps the
+ * state the dispatch policies rely on: the number of requests sent and not yet
+ * answered, the number of servers behind the target (one for a core, the
+ * number of cores for a virtual machine) and a smoothed value of the clock
+ * speed reported by the responses coming back from it.
+ *
+ * A target being detached from its dispatcher is marked as draining: it gets
+ * no new request, even from a dispatch which started before it was removed
+ * from the targets, and it is detached once its requests in flight have been
+ * answered.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	port != null &amp;&amp; capacity > 0
+ * invariant	getInFlight() >= 0
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			DispatchTarget
+{
+	/** clock speed assumed until a response reports the actual one		*/
+	public static final double		DEFAULT_CLOCK_SPEED = 1.0 ;
+	/** smoothing factor applied to the reported clock speeds				*/
+	protected static final double	CLOCK_SPEED_SMOOTHING = 0.2 ;
+
+	/** outbound port used to send requests to the target					*/
+	protected final RequestGeneratorOutboundPort	port ;
+	/** number of servers behind the target									*/
+	protected final int				capacity ;
+	/** number of requests sent to the target and not yet answered			*/
+	protected final AtomicInteger	inFlight ;
+	/** smoothed clock speed reported by the target							*/
+	protected volatile double		clockSpeed ;
+	/** true if the target is being detached and gets no new request		*/
+	protected volatile boolean		draining ;
+
+	/**
+	 * create a target.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	port != null &amp;&amp; capacity > 0
+	 * post	getInFlight() == 0
+	 * </pre>
+	 *
+	 * @param port			outbound port used to send requests to the target
+	 * @param capacity		number of servers behind the target
+	 */
+	public				DispatchTarget(
+		RequestGeneratorOutboundPort port,
+		int capacity
+		)
+	{
+		assert	port != null && capacity > 0 ;
+
+		this.port = port ;
+		this.capacity = capacity ;
+		this.inFlight = new AtomicInteger() ;
+		this.clockSpeed = DEFAULT_CLOCK_SPEED ;
+		this.draining = false ;
+	}
+
+	/**
+	 * record that a request has been sent to the target.
+	 */
+	public void			requestSent()
+	{
+		this.inFlight.incrementAndGet() ;
+	}
+
+	/**
+	 * record that a response came back from the target.
+	 *
+	 * @param reportedClockSpeed	clock speed of the server which processed
+	 * 								the request, ignored if not positive
+	 */
+	public void			responseReceived(double reportedClockSpeed)
+	{
+		if (this.inFlight.decrementAndGet() < 0) {
+			this.inFlight.set(0) ;
+		}
+		if (reportedClockSpeed > 0) {
+			this.clockSpeed += CLOCK_SPEED_SMOOTHING *
+									(reportedClockSpeed - this.clockSpeed) ;
+		}
+	}
+
+	/**
+	 * mark the target as draining or not.
+	 *
+	 * @param draining	true if the target must get no new request
+	 */
+	public void			setDraining(boolean draining)
+	{
+		this.draining = draining ;
+	}
+
+	/**
+	 * @return	true if the target is being detached
+	 */
+	public boolean		isDraining()
+	{
+		return this.draining ;
+	}
+
+	/**
+	 * @return	the outbound port used to send requests to the target
+	 */
+	public RequestGeneratorOutboundPort	getPort()
+	{
+		return this.port ;
+	}
+
+	/**
+	 * @return	the number of requests sent and not yet answered
+	 */
+	public int			getInFlight()
+	{
+		return this.inFlight.get() ;
+	}
+
+	/**
+	 * @return	the number of servers behind the target
+	 */
+	public int			getCapacity()
+	{
+		return this.capacity ;
+	}
+
+	/**
+	 * @return	the smoothed clock speed of the target
+	 */
+	public double		getClockSpeed()
+	{
+		return this.clockSpeed ;
+	}
+
+	/**
+	 * send a request to the target chosen by the policy; if this target
+	 * rejects it, the other targets are tried in the order chosen by the
+	 * policy until one accepts it. A draining target is skipped without
+	 * sending it the request: the request is recorded as in flight before the
+	 * flag is read, so that the detaching thread, which sets the flag before
+	 * reading the number of requests in flight, either sees the request or
+	 * is seen by the dispatch.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	policy != null &amp;&amp; targets != null &amp;&amp; !targets.isEmpty()
+	 * pre	pendingTargets != null &amp;&amp; request != null
+	 * post	ret == ACCEPTED || ret == REJECTED || ret == REDIRECTED
+	 * </pre>
+	 *
+	 * @param policy			the dispatch policy
+	 * @param targets			the available targets
+	 * @param pendingTargets	target of each request in flight, by request uri
+	 * @param request			the request to be sent
+	 * @return					<code>RequestArrivalI.ACCEPTED</code> if the first
+	 * 							chosen target accepted it,
+	 * 							<code>RequestArrivalI.REDIRECTED</code> if another
+	 * 							one did, <code>RequestArrivalI.REJECTED</code> if
+	 * 							all the targets rejected it
+	 * @throws Exception
+	 */
+	public static int	dispatch(
+		DispatchPolicy policy,
+		List<DispatchTarget> targets,
+		Map<Integer, DispatchTarget> pendingTargets,
+		Request request
+		) throws Exception
+	{
+		assert	policy != null && targets != null && !targets.isEmpty() ;
+		assert	pendingTargets != null && request != null ;
+
+		List<DispatchTarget> candidates = targets ;
+		boolean copied = false ;
+		boolean redirected = false ;
+		while (!candidates.isEmpty()) {
+			int index = policy.select(candidates) ;
+			DispatchTarget target = candidates.get(index) ;
+			// registered before sending, the response may come back before
+			// the call returns
+			pendingTargets.put(request.getUri(), target) ;
+			target.requestSent() ;
+			if (!target.draining) {
+				int outcome = target.getPort().acceptRequest(request) ;
+				if (outcome != RequestArrivalI.REJECTED) {
+					return redirected ? RequestArrivalI.REDIRECTED : outcome ;
+				}
+				redirected = true ;
+			}
+			pendingTargets.remove(request.getUri()) ;
+			target.inFlight.decrementAndGet() ;
+			if (!copied) {
+				// only copied upon a rejection, the common path is allocation free
+				candidates = new ArrayList<DispatchTarget>(targets) ;
+				copied = true ;
+			}
+			candidates.remove(index) ;
+		}
+		return RequestArrivalI.REJECTED ;
+	}
+}
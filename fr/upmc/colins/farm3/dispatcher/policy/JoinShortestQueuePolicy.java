@@ -0,0 +1,29 @@
+package fr.upmc.colins.farm3.dispatcher.policy;
+
+/**
+ * The class <code>JoinShortestQueuePolicy</code> implements the join-shortest-queue dispatch policy.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The request is sent to the target with the shortest expected queue per
+ * server, ie. the number of requests not yet answered divided by the number of
+ * servers behind the target. With targets of the same capacity it behaves as
+ * the least-outstanding-requests policy.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			JoinShortestQueuePolicy
+extends		AbstractDispatchPolicy
+{
+	/**
+	 * @see fr.upmc.colins.farm3.dispatcher.policy.AbstractDispatchPolicy#score(fr.upmc.colins.farm3.dispatcher.policy.DispatchTarget)
+	 */
+	@Override
+	protected double	score(DispatchTarget target)
+	{
+		return (double) target.getInFlight() / target.getCapacity() ;
+	}
+}
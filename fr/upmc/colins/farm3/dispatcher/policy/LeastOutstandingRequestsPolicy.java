@@ -0,0 +1,27 @@
+package fr.upmc.colins.farm3.dispatcher.policy;
+
+/**
+ * The class <code>LeastOutstandingRequestsPolicy</code> implements the least-outstanding-requests dispatch policy.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The request is sent to the target with the fewest requests sent and not yet
+ * answered, so a slow or down-clocked target naturally receives less work.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			LeastOutstandingRequestsPolicy
+extends		AbstractDispatchPolicy
+{
+	/**
+	 * @see fr.upmc.colins.farm3.dispatcher.policy.AbstractDispatchPolicy#score(fr.upmc.colins.farm3.dispatcher.policy.DispatchTarget)
+	 */
+	@Override
+	protected double	score(DispatchTarget target)
+	{
+		return target.getInFlight() ;
+	}
+}
@@ -0,0 +1,57 @@
+package fr.upmc.colins.farm3.dispatcher.policy;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The class <code>PowerOfTwoChoicesPolicy</code> implements the power of two
+ * choices dispatch policy.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * Two distinct targets are drawn at random and the request is sent to the one
+ * with the fewest requests not yet answered. It gets most of the benefit of
+ * the least-outstanding-requests policy while only looking at two targets and
+ * avoiding the herd effect of always picking the same least loaded target.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			PowerOfTwoChoicesPolicy
+extends		AbstractDispatchPolicy
+{
+	/** random number generator used to draw the two candidates				*/
+	protected final Random	rnd = new Random() ;
+
+	/**
+	 * @see fr.upmc.colins.farm3.dispatcher.policy.AbstractDispatchPolicy#select(java.util.List)
+	 */
+	@Override
+	public int			select(List<DispatchTarget> targets)
+	{
+		assert	targets != null && !targets.isEmpty() ;
+
+		int size = targets.size() ;
+		if (size == 1) {
+			return 0 ;
+		}
+		int first = this.rnd.nextInt(size) ;
+		// draw the second one among the others
+		int second = (first + 1 + this.rnd.nextInt(size - 1)) % size ;
+		if (this.score(targets.get(second)) < this.score(targets.get(first))) {
+			return second ;
+		}
+		return first ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.dispatcher.policy.AbstractDispatchPolicy#score(fr.upmc.colins.farm3.dispatcher.policy.DispatchTarget)
+	 */
+	@Override
+	protected double	score(DispatchTarget target)
+	{
+		return target.getInFlight() ;
+	}
+}
@@ -0,0 +1,28 @@
+package fr.upmc.colins.farm3.dispatcher.policy;
+
+/**
+ * The class <code>RoundRobinPolicy</code> implements the round-robin dispatch policy.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * Every target has the same score, so the rotating scan of the superclass
+ * sends the requests to each target in turn. This is the behaviour of the
+ * components before the introduction of the policies, and the default one.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			RoundRobinPolicy
+extends		AbstractDispatchPolicy
+{
+	/**
+	 * @see fr.upmc.colins.farm3.dispatcher.policy.AbstractDispatchPolicy#score(fr.upmc.colins.farm3.dispatcher.policy.DispatchTarget)
+	 */
+	@Override
+	protected double	score(DispatchTarget target)
+	{
+		return 0.0 ;
+	}
+}
@@ -0,0 +1,30 @@
+package fr.upmc.colins.farm3.dispatcher.policy;
+
+/**
+ * The class <code>WeightedClockSpeedPolicy</code> implements the weighted-by-clock-speed dispatch policy.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The request is sent to the target which would finish its outstanding work
+ * first, estimated as the number of requests not yet answered (including the
+ * new one) divided by the processing power of the target, ie. its number of
+ * servers times its last reported clock speed.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			WeightedClockSpeedPolicy
+extends		AbstractDispatchPolicy
+{
+	/**
+	 * @see fr.upmc.colins.farm3.dispatcher.policy.AbstractDispatchPolicy#score(fr.upmc.colins.farm3.dispatcher.policy.DispatchTarget)
+	 */
+	@Override
+	protected double	score(DispatchTarget target)
+	{
+		return (target.getInFlight() + 1.0) /
+					(target.getCapacity() * target.getClockSpeed()) ;
+	}
+}
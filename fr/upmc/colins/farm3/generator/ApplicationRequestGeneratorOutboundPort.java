@@ -41,4 +41,9 @@ public class ApplicationRequestGeneratorOutboundPort extends
 		return ((ApplicationRequestArrivalI) this.connector).acceptApplication(a);
 	}
 
+	@Override
+	public boolean releaseApplication(Integer appUri) throws Exception {
+		return ((ApplicationRequestArrivalI) this.connector).releaseApplication(appUri);
+	}
+
 }
\ No newline at end of file
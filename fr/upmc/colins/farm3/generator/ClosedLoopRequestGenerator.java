@@ -0,0 +1,451 @@
+package fr.upmc.colins.farm3.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.upmc.colins.farm3.core.ResponseArrivalI;
+import fr.upmc.colins.farm3.metrics.Counter;
+import fr.upmc.colins.farm3.metrics.HistogramMetric;
+import fr.upmc.colins.farm3.metrics.Metric;
+import fr.upmc.colins.farm3.metrics.MetricsRegistry;
+import fr.upmc.colins.farm3.objects.Request;
+import fr.upmc.colins.farm3.objects.Response;
+import fr.upmc.colins.farm3.objects.TraceContext;
+import fr.upmc.colins.farm3.simulation.SimulationClock;
+import fr.upmc.colins.farm3.stats.LatencyHistogram;
+import fr.upmc.components.cvm.AbstractCVM;
+import fr.upmc.components.exceptions.ComponentShutdownException;
+
+/**
+ * The class <code>ClosedLoopRequestGenerator</code> implements a request
+ * generator simulating a fixed population of clients.
+ *
+ * <p>
+ * <strong>Description</strong>
+ * </p>
+ *
+ * Each application has <code>nrofClientsPerApp</code> virtual clients. A
+ * client sends a request, waits for its response, then thinks during a time
+ * following an exponential distribution before sending its next request: the
+ * offered load follows the responsiveness of the provider, and the
+ * throughput measured for increasing populations gives the saturation curve
+ * of the farm. The first requests of the clients are spread over one think
+ * time.
+ *
+ * All the applications are submitted first. The generator then asks the
+ * request dispatcher of each application to send the responses back to it,
+ * through one <code>GeneratorResponseArrivalInboundPort</code> per
+ * application; a request rejected by all the virtual machines comes back as
+ * a rejected response, after which the client thinks and retries; so does
+ * a client whose request could not be sent. The clients of a refused
+ * application never send any request. The think times are drawn from the
+ * random generator of the workload, seeded by the property
+ * <code>farm3.workload.seed</code> when it is set.
+ *
+ * The number of responses, rejections and send failures and the times from the generation
+ * of the requests to the arrival of their responses are exported as metrics,
+ * and the throughput is printed when the generation stops.
+ *
+ * <p>
+ * <strong>Invariant</strong>
+ * </p>
+ *
+ * <pre>
+ * invariant	nrofClientsPerApp > 0 &amp;&amp; meanThinkTime >= 0.0
+ * </pre>
+ *
+ * <p>
+ * Created on : march 2015
+ * </p>
+ *
+ * @author Colins-Alasca
+ * @version $Name$ -- $Revision$ -- $Date$
+ */
+public class ClosedLoopRequestGenerator extends RequestGenerator {
+
+	private static final String logId = "[ ClosedGen  ]";
+
+	/** name of the property giving the number of clients per application	*/
+	public static final String CLIENTS_PROPERTY = "farm3.closedloop.clients";
+	/** name of the property giving the mean think time in milliseconds		*/
+	public static final String THINK_TIME_PROPERTY = "farm3.closedloop.think";
+	/** mean think time used when the property is not set (ms)				*/
+	public static final double DEFAULT_THINK_TIME = 100.0;
+
+	/** number of clients of each application								*/
+	protected final int nrofClientsPerApp;
+	/** mean think time of the clients in ms, 0 to send again at once		*/
+	protected final double meanThinkTime;
+	/** inbound ports receiving the responses, one per application			*/
+	protected final List<GeneratorResponseArrivalInboundPort> respAips;
+	/** client waiting for each request, by request uri						*/
+	protected final Map<Integer, Integer> pendingClients;
+	/** counter used to generate the request uris							*/
+	protected final AtomicInteger uris;
+	/** true while the clients are sending requests							*/
+	protected volatile boolean running;
+	/** time at which the clients started (ms)								*/
+	protected long clientsStart;
+	/** task sending the next request of each client, reused at each cycle	*/
+	protected ComponentTask[] clientTasks;
+
+	/** times from the generation of the requests to their responses		*/
+	protected final LatencyHistogram responseTimes;
+	/** number of responses received										*/
+	protected final Counter nrofResponses;
+	/** number of rejected responses received								*/
+	protected final Counter nrofRejections;
+	/** number of requests which could not be sent							*/
+	protected final Counter nrofFailures;
+	/** metrics registered by the generator									*/
+	protected final List<Metric> metrics;
+
+	/**
+	 * create a closed-loop request generator component.
+	 *
+	 * <p>
+	 * <strong>Contract</strong>
+	 * </p>
+	 *
+	 * <pre>
+	 * pre	nrofClientsPerApp > 0 &amp;&amp; meanThinkTime >= 0.0
+	 * post	true			// no postcondition.
+	 * </pre>
+ 	 * @param nrofApplications
+	 * 			  number of applications to deploy
+	 * @param meanInterArrivalTime
+	 *            mean interarrival time of the requests in ms, used to size
+	 *            the applications
+	 * @param meanNrofInstructions
+	 *            mean number of instructions of the deployed apps.
+	 * @param standardDeviation
+	 *            standard deviation of the number of instructions
+	 * @param requestOutboundPortPrefix
+	 * 			  uri of the outbound ports to the dispatchers
+	 * @param appRequestOutboundPortURI
+	 *            uri of the outbound port to the admission control
+	 * @param nrofClientsPerApp
+	 *            number of clients of each application
+	 * @param meanThinkTime
+	 *            mean think time of the clients in ms
+	 * @throws Exception
+	 */
+	public ClosedLoopRequestGenerator(
+			long nrofApplications,
+			double meanInterArrivalTime,
+			double meanNrofInstructions,
+			double standardDeviation,
+			double boostStep,
+			int targetServiceTime,
+			int flexServiceTime,
+			String requestOutboundPortPrefix,
+			String appRequestOutboundPortURI,
+			int nrofClientsPerApp,
+			double meanThinkTime
+			) throws Exception {
+		super(nrofApplications, meanInterArrivalTime, meanNrofInstructions,
+				standardDeviation, boostStep, targetServiceTime,
+				flexServiceTime, requestOutboundPortPrefix,
+				appRequestOutboundPortURI);
+
+		assert nrofClientsPerApp > 0 && meanThinkTime >= 0.0;
+
+		this.nrofClientsPerApp = nrofClientsPerApp;
+		this.meanThinkTime = meanThinkTime;
+		this.pendingClients = new ConcurrentHashMap<>();
+		this.uris = new AtomicInteger();
+		this.running = false;
+
+		// receive the responses from the request dispatchers
+		this.addOfferedInterface(ResponseArrivalI.class);
+		this.respAips = new ArrayList<>();
+		for (int i = 0; i < nrofApplications; i++) {
+			GeneratorResponseArrivalInboundPort respAip =
+					new GeneratorResponseArrivalInboundPort(
+							requestOutboundPortPrefix + i + "-resp-raip", this);
+			this.addPort(respAip);
+			if (AbstractCVM.isDistributed) {
+				respAip.publishPort();
+			} else {
+				respAip.localPublishPort();
+			}
+			this.respAips.add(respAip);
+		}
+
+		this.responseTimes = new LatencyHistogram();
+		this.nrofResponses = new Counter("generator_responses_total", "",
+				"responses received by the closed-loop generator");
+		this.nrofRejections = new Counter("generator_rejected_responses_total", "",
+				"rejected responses received by the closed-loop generator");
+		this.nrofFailures = new Counter("generator_send_failures_total", "",
+				"requests the closed-loop generator could not send");
+		this.metrics = new ArrayList<>();
+		this.metrics.add(this.nrofResponses);
+		this.metrics.add(this.nrofRejections);
+		this.metrics.add(this.nrofFailures);
+		this.metrics.add(new HistogramMetric("generator_response_time_seconds",
+				"", "times from the generation of the requests to their responses",
+				this.responseTimes));
+		for (Metric m : this.metrics) {
+			MetricsRegistry.getDefault().register(m);
+		}
+
+		System.out.println(logId + " " + nrofClientsPerApp
+				+ " clients per application with a think time of "
+				+ meanThinkTime + " ms") ;
+	}
+
+	/**
+	 * @return	the number of clients per application given by the property
+	 * 			<code>CLIENTS_PROPERTY</code>, 0 if it is not set
+	 */
+	public static int getConfiguredNrofClients() {
+		return Math.max(0, Integer.getInteger(CLIENTS_PROPERTY, 0));
+	}
+
+	/**
+	 * return the mean think time given by the property
+	 * <code>THINK_TIME_PROPERTY</code>, or the default one if it is not set
+	 * or negative.
+	 *
+	 * @return	the configured mean think time in ms
+	 */
+	public static double getConfiguredThinkTime() {
+		String value = System.getProperty(THINK_TIME_PROPERTY);
+		if (value != null) {
+			try {
+				double thinkTime = Double.parseDouble(value.trim());
+				if (thinkTime >= 0.0) {
+					return thinkTime;
+				}
+			} catch (NumberFormatException e) {
+			}
+			System.err.println("Invalid think time " + value
+					+ ", using " + DEFAULT_THINK_TIME);
+		}
+		return DEFAULT_THINK_TIME;
+	}
+
+	/**
+	 * stop the clients before shutting down the component.
+	 *
+	 * @see fr.upmc.colins.farm3.generator.RequestGenerator#shutdown()
+	 */
+	@Override
+	public void shutdown() throws ComponentShutdownException {
+		this.stopClients();
+		MetricsRegistry.getDefault().unregister(this.metrics);
+		super.shutdown();
+	}
+
+	/**
+	 * stop the clients and ask the request dispatchers to stop sending the
+	 * responses back, then release the applications.
+	 *
+	 * @see fr.upmc.colins.farm3.generator.RequestGenerator#releaseApplications()
+	 */
+	@Override
+	public void releaseApplications() throws Exception {
+		this.stopClients();
+		for (int i = 0; i < this.appCount; i++) {
+			if (this.rgops.get(i).connected()) {
+				this.rgops.get(i).disconnectResponseConnection();
+			}
+		}
+		super.releaseApplications();
+	}
+
+	/**
+	 * submit all the applications, connect their request dispatchers back to
+	 * the generator and start the clients.
+	 *
+	 * <p>
+	 * <strong>Contract</strong>
+	 * </p>
+	 *
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @see fr.upmc.colins.farm3.generator.RequestGenerator#generateNextRequest()
+	 */
+	@Override
+	public void generateNextRequest() throws Exception {
+		if (this.running || this.appCount > 0) {
+			return;
+		}
+		while (this.appCount < this.nrofApplications) {
+			this.submitNextApplication();
+		}
+		for (int i = 0; i < this.appCount; i++) {
+			if (this.rgops.get(i).connected()) {
+				this.rgops.get(i).connectResponseConnection(
+						this.respAips.get(i).getPortURI());
+			}
+		}
+		this.running = true;
+		this.clientsStart = SimulationClock.currentTimeMillis();
+		int nrofClients = this.appCount * this.nrofClientsPerApp;
+		// a client has a single request in progress, its task can be reused
+		this.clientTasks = new ComponentTask[nrofClients];
+		final ClosedLoopRequestGenerator cg = this;
+		for (int client = 0; client < nrofClients; client++) {
+			final int fclient = client;
+			this.clientTasks[client] = new ComponentTask() {
+				@Override
+				public void run() {
+					try {
+						cg.sendClientRequest(fclient);
+					} catch (Exception e) {
+						e.printStackTrace();
+					}
+				}
+			};
+		}
+		for (int client = 0; client < nrofClients; client++) {
+			// spread the first requests over one think time
+			this.scheduleClient(client, (long) (this.workload.getRandom()
+					.nextDouble() * this.meanThinkTime));
+		}
+	}
+
+	/**
+	 * schedule the next request of a client.
+	 *
+	 * @param client	the client
+	 * @param delay		delay before the request in ms
+	 */
+	protected void scheduleClient(int client, long delay) {
+		SimulationClock.schedule(this, this.clientTasks[client], delay,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * send the next request of a client, which then waits for its response;
+	 * the client of an unconnected application stops, and a client whose
+	 * request could not be sent thinks and retries.
+	 *
+	 * @param client	the client
+	 * @throws Exception
+	 */
+	protected void sendClientRequest(int client) throws Exception {
+		if (!this.running) {
+			return;
+		}
+		int appId = client / this.nrofClientsPerApp;
+		if (!this.rgops.get(appId).connected()) {
+			return;
+		}
+		Request r = new Request(this.uris.getAndIncrement(), appId);
+		this.markUrgency(r);
+		r.getTrace().mark(TraceContext.GENERATION);
+		// registered before sending, the response may come back before the
+		// call returns
+		this.pendingClients.put(r.getUri(), client);
+		try {
+			this.batchers.get(appId).send(r);
+		} catch (Exception e) {
+			this.nrofFailures.inc();
+			// unless a response already came back and rescheduled the client
+			if (this.pendingClients.remove(r.getUri()) != null
+					&& this.running) {
+				this.scheduleClient(client, this.nextThinkTime());
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * process the arrival of a response: the client which sent the request
+	 * thinks, then sends its next request.
+	 *
+	 * <p>
+	 * <strong>Contract</strong>
+	 * </p>
+	 *
+	 * <pre>
+	 * pre	response != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param response	the response
+	 */
+	public void responseArrivalEvent(Response response) {
+		assert response != null;
+
+		Integer client = this.pendingClients.remove(response.getUri());
+		if (client == null) {
+			return;
+		}
+		if (response.isRejected()) {
+			this.nrofRejections.inc();
+		} else {
+			this.nrofResponses.inc();
+			if (response.getTrace() != null) {
+				long generation = response.getTrace().getStamp(TraceContext.GENERATION);
+				if (generation > 0) {
+					this.responseTimes.recordValue(SimulationClock.epochNanos()
+							- generation);
+				}
+			}
+		}
+		if (this.running) {
+			this.scheduleClient(client, this.nextThinkTime());
+		}
+	}
+
+	/**
+	 * process the arrival of a batch of responses, in their order.
+	 *
+	 * <p>
+	 * <strong>Contract</strong>
+	 * </p>
+	 *
+	 * <pre>
+	 * pre	responses != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param responses	the responses of the batch
+	 */
+	public void responseArrivalEvents(List<Response> responses) {
+		for (Response response : responses) {
+			this.responseArrivalEvent(response);
+		}
+	}
+
+	/**
+	 * @return	a think time following an exponential distribution, in ms
+	 */
+	protected long nextThinkTime() {
+		if (this.meanThinkTime <= 0.0) {
+			return 0L;
+		}
+		return (long) (-this.meanThinkTime
+				* Math.log(1.0 - this.workload.getRandom().nextDouble()));
+	}
+
+	/**
+	 * stop the clients and print the throughput of the population.
+	 */
+	protected void stopClients() {
+		if (!this.running) {
+			return;
+		}
+		this.running = false;
+		long elapsed = SimulationClock.currentTimeMillis() - this.clientsStart;
+		double throughput = elapsed > 0
+				? this.nrofResponses.get() * 1000.0 / elapsed : 0.0;
+		System.out.println(logId + " " + this.appCount * this.nrofClientsPerApp
+				+ " clients, " + this.nrofResponses.get() + " responses, "
+				+ this.nrofRejections.get() + " rejections, "
+				+ this.nrofFailures.get() + " failures, throughput "
+				+ String.format("%.1f", throughput) + " requests/s, response time "
+				+ this.responseTimes.getSnapshot().toPercentileString());
+	}
+}
@@ -0,0 +1,95 @@
+package fr.upmc.colins.farm3.generator;
+
+import java.util.ArrayList;
+
+import fr.upmc.colins.farm3.core.ResponseArrivalI;
+import fr.upmc.colins.farm3.objects.Response;
+import fr.upmc.colins.farm3.simulation.SimulationClock;
+import fr.upmc.components.ComponentI;
+import fr.upmc.components.ComponentI.ComponentService;
+import fr.upmc.components.ports.AbstractInboundPort;
+
+/**
+ * The class <code>GeneratorResponseArrivalInboundPort</code> implements the
+ * inbound port of a closed-loop request generator receiving the responses to
+ * its requests from a request dispatcher.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The port implements the <code>ResponseArrivalI</code> interface as offered
+ * and upon a call, passes it to the owner component that must also implement
+ * the method <code>responseArrivalEvent</code>.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	true
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			GeneratorResponseArrivalInboundPort
+extends		AbstractInboundPort
+implements	ResponseArrivalI
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * create an inbound port.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	uri != null && owner != null
+	 * pre	owner.isOfferedInterface(ResponseArrivalI.class)
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param uri			URI of the port.
+	 * @param owner			owner component of the port.
+	 * @throws Exception
+	 */
+	public				GeneratorResponseArrivalInboundPort(
+		String uri,
+		ComponentI owner
+		) throws Exception
+	{
+		super(uri, ResponseArrivalI.class, owner) ;
+
+		assert	uri != null && owner != null ;
+		assert	owner.isOfferedInterface(ResponseArrivalI.class) ;
+	}
+
+	@Override
+	public void acceptResponse(Response resp) throws Exception {
+		final ClosedLoopRequestGenerator sp = (ClosedLoopRequestGenerator) this.owner ;
+		final Response fresp = resp ;
+		SimulationClock.submit(sp,
+				new ComponentService<Void>() {
+					@Override
+					public Void call() throws Exception {
+						sp.responseArrivalEvent(fresp);
+						return null;
+					}
+				}) ;
+	}
+
+	@Override
+	public void acceptResponses(ArrayList<Response> resps) throws Exception {
+		final ClosedLoopRequestGenerator sp = (ClosedLoopRequestGenerator) this.owner ;
+		final ArrayList<Response> fresps = resps ;
+		SimulationClock.submit(sp,
+				new ComponentService<Void>() {
+					@Override
+					public Void call() throws Exception {
+						sp.responseArrivalEvents(fresps);
+						return null;
+					}
+				}) ;
+	}
+
+
+}
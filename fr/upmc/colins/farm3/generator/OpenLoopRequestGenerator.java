@@ -0,0 +1,397 @@
+package fr.upmc.colins.farm3.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import fr.upmc.colins.farm3.metrics.Counter;
+import fr.upmc.colins.farm3.metrics.HistogramMetric;
+import fr.upmc.colins.farm3.metrics.Metric;
+import fr.upmc.colins.farm3.metrics.MetricsRegistry;
+import fr.upmc.colins.farm3.objects.Request;
+import fr.upmc.colins.farm3.objects.TraceContext;
+import fr.upmc.colins.farm3.simulation.SimulationClock;
+import fr.upmc.colins.farm3.stats.LatencyHistogram;
+import fr.upmc.components.exceptions.ComponentShutdownException;
+
+/**
+ * The class <code>OpenLoopRequestGenerator</code> implements a request
+ * generator sending its requests on a fixed schedule, whatever the
+ * responsiveness of the provider.
+ *
+ * <p>
+ * <strong>Description</strong>
+ * </p>
+ * 
+ * The closed-loop <code>RequestGenerator</code> schedules its next request
+ * once the current one has been sent: a stall of the provider delays all the
+ * next requests, lowering the offered load and hiding the latency the
+ * requests would have suffered. Here, all the applications are submitted
+ * first, then the intended sending times of the requests are drawn in
+ * advance as a Poisson process of the target rate, split among
+ * <code>nrofThreads</code> sending threads, each following the absolute
+ * schedule of a Poisson process of <code>rate / nrofThreads</code>: a thread
+ * late on its schedule sends its next requests at once until it catches up,
+ * instead of shifting the schedule.
+ * 
+ * Each request records its intended sending time in its trace, besides its
+ * actual generation time, so that the end-to-end times aggregated by the
+ * request dispatcher can be measured from the intended time; the lag of the
+ * sending is also recorded by the generator. In virtual time, the schedule
+ * is followed by the events of the simulation instead of the threads.
+ * 
+ * The sending stops when the applications are released or the component is
+ * shut down.
+ * 
+ * <p>
+ * <strong>Invariant</strong>
+ * </p>
+ * 
+ * <pre>
+ * invariant	rate > 0.0 &amp;&amp; nrofThreads > 0
+ * </pre>
+ * 
+ * <p>
+ * Created on : march 2015
+ * </p>
+ * 
+ * @author Colins-Alasca
+ * @version $Name$ -- $Revision$ -- $Date$
+ */
+public class OpenLoopRequestGenerator extends RequestGenerator {
+
+	private static final String logId = "[ OpenLoopGen]";
+
+	/** name of the property giving the target rate in requests per second	*/
+	public static final String RATE_PROPERTY = "farm3.openloop.rate";
+	/** name of the property giving the number of sending threads			*/
+	public static final String THREADS_PROPERTY = "farm3.openloop.threads";
+	/** number of sending threads used when the property is not set			*/
+	public static final int DEFAULT_NROF_THREADS = 4;
+
+	/** target rate in requests per second									*/
+	protected final double rate;
+	/** number of sending threads											*/
+	protected final int nrofThreads;
+	/** sending threads, empty in virtual time								*/
+	protected final List<Thread> senders;
+	/** true while the requests are being sent								*/
+	protected volatile boolean running;
+	/** counter used to generate the request uris							*/
+	protected final AtomicInteger uris;
+	/** value of the nanosecond time source at the start of the schedule	*/
+	protected long startNanos;
+	/** epoch time in nanoseconds at the start of the schedule				*/
+	protected long startEpochNanos;
+	/** random number generator of the schedule in virtual time				*/
+	protected final Random rnd;
+	/** intended time of the next request in virtual time (ms)				*/
+	protected double nextIntendedTime;
+
+	/** lags of the sending behind the schedule								*/
+	protected final LatencyHistogram sendLags;
+	/** number of requests sent, the rejected ones included					*/
+	protected final Counter nrofSent;
+	/** number of requests rejected by the provider							*/
+	protected final Counter nrofRejected;
+	/** number of requests which could not be sent							*/
+	protected final Counter nrofFailures;
+	/** metrics registered by the generator									*/
+	protected final List<Metric> metrics;
+
+	/**
+	 * create an open-loop request generator component.
+	 * 
+	 * <p>
+	 * <strong>Contract</strong>
+	 * </p>
+	 * 
+	 * <pre>
+	 * pre	rate > 0.0 &amp;&amp; nrofThreads > 0
+	 * post	true			// no postcondition.
+	 * </pre>
+ 	 * @param nrofApplications 
+	 * 			  number of applications to deploy
+	 * @param meanInterArrivalTime
+	 *            mean interarrival time of the requests in ms, used to size
+	 *            the applications
+	 * @param meanNrofInstructions
+	 *            mean number of instructions of the deployed apps.
+	 * @param standardDeviation
+	 *            standard deviation of the number of instructions
+	 * @param requestOutboundPortPrefix
+	 * 			  uri of the outbound ports to the dispatchers
+	 * @param appRequestOutboundPortURI
+	 *            uri of the outbound port to the admission control
+	 * @param rate
+	 *            target rate in requests per second, over all the apps
+	 * @param nrofThreads
+	 *            number of sending threads
+	 * @throws Exception
+	 */
+	public OpenLoopRequestGenerator(
+			long nrofApplications,
+			double meanInterArrivalTime,
+			double meanNrofInstructions, 
+			double standardDeviation,
+			double boostStep,
+			int targetServiceTime,
+			int flexServiceTime,
+			String requestOutboundPortPrefix, 
+			String appRequestOutboundPortURI,
+			double rate,
+			int nrofThreads
+			) throws Exception {
+		super(nrofApplications, meanInterArrivalTime, meanNrofInstructions,
+				standardDeviation, boostStep, targetServiceTime,
+				flexServiceTime, requestOutboundPortPrefix,
+				appRequestOutboundPortURI);
+
+		assert rate > 0.0 && nrofThreads > 0;
+
+		this.rate = rate;
+		this.nrofThreads = nrofThreads;
+		this.senders = new ArrayList<>();
+		this.running = false;
+		this.uris = new AtomicInteger();
+		this.rnd = new Random();
+
+		this.sendLags = new LatencyHistogram();
+		this.nrofSent = new Counter("generator_requests_sent_total", "",
+				"requests sent by the open-loop generator, rejected ones included");
+		this.nrofRejected = new Counter("generator_requests_rejected_total", "",
+				"requests of the open-loop generator rejected by the provider");
+		for (RequestBatcher batcher : this.batchers) {
+			batcher.countOutcomes(this.nrofRejected, null);
+		}
+		this.nrofFailures = new Counter("generator_send_failures_total", "",
+				"requests the open-loop generator could not send");
+		this.metrics = new ArrayList<>();
+		this.metrics.add(this.nrofSent);
+		this.metrics.add(this.nrofRejected);
+		this.metrics.add(this.nrofFailures);
+		this.metrics.add(new HistogramMetric("generator_send_lag_seconds", "",
+				"lags of the sending behind the schedule", this.sendLags));
+		for (Metric m : this.metrics) {
+			MetricsRegistry.getDefault().register(m);
+		}
+
+		System.out.println(logId + " Target rate of " + rate
+				+ " requests per second with " + nrofThreads + " threads") ;
+	}
+
+	/**
+	 * return the rate given by the property <code>RATE_PROPERTY</code>.
+	 *
+	 * @return	the configured rate, 0 if the property is not set or not a
+	 * 			positive number
+	 */
+	public static double getConfiguredRate() {
+		String value = System.getProperty(RATE_PROPERTY);
+		if (value != null) {
+			try {
+				double rate = Double.parseDouble(value.trim());
+				if (rate > 0.0) {
+					return rate;
+				}
+			} catch (NumberFormatException e) {
+			}
+			System.err.println("Invalid open-loop rate " + value);
+		}
+		return 0.0;
+	}
+
+	/**
+	 * @return	the number of sending threads given by the property
+	 * 			<code>THREADS_PROPERTY</code>, at least one
+	 */
+	public static int getConfiguredNrofThreads() {
+		return Math.max(1, Integer.getInteger(THREADS_PROPERTY, DEFAULT_NROF_THREADS));
+	}
+
+	/**
+	 * stop the sending before shutting down the component.
+	 * 
+	 * @see fr.upmc.colins.farm3.generator.RequestGenerator#shutdown()
+	 */
+	@Override
+	public void shutdown() throws ComponentShutdownException {
+		this.stopSending();
+		MetricsRegistry.getDefault().unregister(this.metrics);
+		super.shutdown();
+	}
+
+	/**
+	 * stop the sending, then release the applications.
+	 * 
+	 * @see fr.upmc.colins.farm3.generator.RequestGenerator#releaseApplications()
+	 */
+	@Override
+	public void releaseApplications() throws Exception {
+		this.stopSending();
+		super.releaseApplications();
+	}
+
+	/**
+	 * submit all the applications, then start the sending of the requests;
+	 * in virtual time, send the requests whose intended time has come and
+	 * schedule the next run at the intended time of the next request.
+	 * 
+	 * <p>
+	 * <strong>Contract</strong>
+	 * </p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @see fr.upmc.colins.farm3.generator.RequestGenerator#generateNextRequest()
+	 */
+	@Override
+	public void generateNextRequest() throws Exception {
+		if (!this.running) {
+			if (this.appCount > 0) {
+				// stopped
+				return;
+			}
+			while (this.appCount < this.nrofApplications) {
+				this.submitNextApplication();
+			}
+			this.startSending();
+			if (!SimulationClock.isVirtual()) {
+				return;
+			}
+		}
+
+		long now = SimulationClock.currentTimeMillis();
+		while (this.nextIntendedTime <= now) {
+			// the virtual epoch time is the simulated time in nanoseconds
+			this.sendRequest(this.rnd.nextInt(this.appCount),
+					Math.max(1L, (long) (this.nextIntendedTime * 1.0e6)));
+			this.nextIntendedTime += this.nextInterArrival(this.rnd,
+					1000.0 / this.rate);
+		}
+		// a stopped generator returns at once from its next run
+		this.nextRequestTaskFuture = SimulationClock.reschedule(this,
+				this.generationTask, this.nextRequestTaskFuture,
+				(long) Math.ceil(this.nextIntendedTime) - now,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * start the schedule, with one sending thread per share of the rate in
+	 * real time, or with the events of the simulation in virtual time.
+	 */
+	protected void startSending() {
+		this.running = true;
+		this.startNanos = System.nanoTime();
+		this.startEpochNanos = SimulationClock.epochNanos();
+		if (SimulationClock.isVirtual()) {
+			this.nextIntendedTime = SimulationClock.currentTimeMillis()
+					+ this.nextInterArrival(this.rnd, 1000.0 / this.rate);
+			return;
+		}
+		for (int i = 0; i < this.nrofThreads; i++) {
+			final OpenLoopRequestGenerator cg = this;
+			Thread sender = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					cg.runSender();
+				}
+			}, "open-loop-sender-" + i);
+			sender.setDaemon(true);
+			this.senders.add(sender);
+			sender.start();
+		}
+	}
+
+	/**
+	 * follow the schedule of one sending thread, a Poisson process of
+	 * <code>rate / nrofThreads</code> starting with the schedule, until the
+	 * sending is stopped.
+	 */
+	protected void runSender() {
+		Random threadRnd = new Random();
+		double meanNanos = this.nrofThreads * 1.0e9 / this.rate;
+		long next = this.startNanos;
+		while (this.running) {
+			next += (long) this.nextInterArrival(threadRnd, meanNanos);
+			long wait;
+			while (this.running && (wait = next - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			if (!this.running) {
+				break;
+			}
+			this.sendRequest(threadRnd.nextInt(this.appCount),
+					this.startEpochNanos + (next - this.startNanos));
+		}
+	}
+
+	/**
+	 * draw an interarrival time of a Poisson process.
+	 *
+	 * @param r		the random number generator
+	 * @param mean	the mean interarrival time
+	 * @return		the interarrival time, in the unit of the mean
+	 */
+	protected double nextInterArrival(Random r, double mean) {
+		return -mean * Math.log(1.0 - r.nextDouble());
+	}
+
+	/**
+	 * send a request to an application, recording its intended sending time
+	 * and the lag of the sending.
+	 *
+	 * @param appId				the application of the request
+	 * @param intendedEpochNanos	intended sending time, epoch in nanoseconds
+	 */
+	protected void sendRequest(int appId, long intendedEpochNanos) {
+		try {
+			if (!this.rgops.get(appId).connected()) {
+				// refused application
+				return;
+			}
+			Request r = new Request(this.uris.getAndIncrement(), appId);
+			this.markUrgency(r);
+			r.getTrace().markAt(TraceContext.INTENDED, intendedEpochNanos);
+			r.getTrace().mark(TraceContext.GENERATION);
+			this.sendLags.recordValue(r.getTrace().elapsed(
+					TraceContext.INTENDED, TraceContext.GENERATION));
+			this.batchers.get(appId).send(r);
+			this.nrofSent.inc();
+		} catch (Exception e) {
+			this.nrofFailures.inc();
+		}
+	}
+
+	/**
+	 * stop the sending and wait for the sending threads to end.
+	 */
+	protected void stopSending() {
+		if (!this.running) {
+			return;
+		}
+		this.running = false;
+		if (this.nextRequestTaskFuture != null) {
+			this.nextRequestTaskFuture.cancel(false);
+		}
+		for (Thread sender : this.senders) {
+			LockSupport.unpark(sender);
+			try {
+				sender.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		this.senders.clear();
+		System.out.println(logId + " " + this.nrofSent.get() + " requests sent, "
+				+ this.nrofRejected.get() + " rejected, "
+				+ this.nrofFailures.get() + " failures, send lag "
+				+ this.sendLags.getSnapshot().toPercentileString());
+	}
+}
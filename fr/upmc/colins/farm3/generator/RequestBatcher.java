@@ -0,0 +1,163 @@
+package fr.upmc.colins.farm3.generator;
+
+import java.util.ArrayList;
+
+import fr.upmc.colins.farm3.core.RequestArrivalI;
+import fr.upmc.colins.farm3.metrics.Counter;
+import fr.upmc.colins.farm3.objects.Request;
+import fr.upmc.colins.farm3.utils.AbstractBatcher;
+import fr.upmc.components.AbstractComponent;
+
+/**
+ * The class <code>RequestBatcher</code> groups the requests sent through a
+ * port into batches, sent with a single call to <code>acceptRequests</code>.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The requests sent during a micro-batching window go in a single call (see
+ * <code>AbstractBatcher</code>); with a window of 0, each request is sent on
+ * its own with <code>acceptRequest</code>.
+ *
+ * The window and the size are read from the properties
+ * <code>farm3.batch.window</code> (milliseconds, 0 by default) and
+ * <code>farm3.batch.size</code>. The outcome of each request, returned by
+ * the call which carried it, is counted in the counters given by
+ * <code>countOutcomes</code>, if any, so that the requests rejected by the
+ * provider can be told from the accepted ones whether they were batched or
+ * not.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	port != null
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			RequestBatcher
+extends		AbstractBatcher<Request>
+{
+	/** name of the property giving the window in milliseconds				*/
+	public static final String	WINDOW_PROPERTY = "farm3.batch.window" ;
+	/** name of the property giving the maximal size of a batch				*/
+	public static final String	SIZE_PROPERTY = "farm3.batch.size" ;
+	/** window used when the property is not set, no batching				*/
+	public static final long	DEFAULT_WINDOW = 0L ;
+	/** maximal size used when the property is not set						*/
+	public static final int		DEFAULT_SIZE = 64 ;
+
+	/** port through which the requests are sent							*/
+	protected final RequestArrivalI		port ;
+	/** counter of the rejected requests, null if not counted				*/
+	protected volatile Counter			nrofRejected ;
+	/** counter of the redirected requests, null if not counted			*/
+	protected volatile Counter			nrofRedirected ;
+
+	/**
+	 * create a batcher with the window and the size given by the properties.
+	 *
+	 * @param owner		component executing the tasks closing the windows
+	 * @param port		port through which the requests are sent
+	 */
+	public				RequestBatcher(
+		AbstractComponent owner,
+		RequestArrivalI port
+		)
+	{
+		this(owner, port,
+			 Long.getLong(WINDOW_PROPERTY, DEFAULT_WINDOW),
+			 Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE)) ;
+	}
+
+	/**
+	 * create a batcher.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	owner != null &amp;&amp; port != null
+	 * pre	window >= 0 &amp;&amp; maxSize > 0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param owner		component executing the tasks closing the windows
+	 * @param port		port through which the requests are sent
+	 * @param window	length of the micro-batching window in milliseconds,
+	 * 					0 to send each request on its own
+	 * @param maxSize	maximal number of requests of a batch
+	 */
+	public				RequestBatcher(
+		AbstractComponent owner,
+		RequestArrivalI port,
+		long window,
+		int maxSize
+		)
+	{
+		super(owner, window, maxSize) ;
+
+		assert	port != null ;
+
+		this.port = port ;
+		this.nrofRejected = null ;
+		this.nrofRedirected = null ;
+	}
+
+	/**
+	 * count the outcomes of the requests sent from now on.
+	 *
+	 * @param nrofRejected		counter of the requests rejected by the
+	 * 							provider, null if not counted
+	 * @param nrofRedirected	counter of the requests redirected by the
+	 * 							provider, null if not counted
+	 */
+	public void			countOutcomes(
+		Counter nrofRejected,
+		Counter nrofRedirected
+		)
+	{
+		this.nrofRejected = nrofRejected ;
+		this.nrofRedirected = nrofRedirected ;
+	}
+
+	/**
+	 * count the outcome of a request.
+	 *
+	 * @param outcome	the value returned by the provider for the request
+	 */
+	protected void		record(int outcome)
+	{
+		Counter c = null ;
+		if (outcome == RequestArrivalI.REJECTED) {
+			c = this.nrofRejected ;
+		} else if (outcome == RequestArrivalI.REDIRECTED) {
+			c = this.nrofRedirected ;
+		}
+		if (c != null) {
+			c.inc() ;
+		}
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.utils.AbstractBatcher#sendOne(java.lang.Object)
+	 */
+	@Override
+	protected void		sendOne(Request r) throws Exception
+	{
+		this.record(this.port.acceptRequest(r)) ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.utils.AbstractBatcher#sendMany(java.util.ArrayList)
+	 */
+	@Override
+	protected void		sendMany(ArrayList<Request> batch) throws Exception
+	{
+		int[] outcomes = this.port.acceptRequests(batch) ;
+		for (int i = 0; i < outcomes.length; i++) {
+			this.record(outcomes[i]) ;
+		}
+	}
+}
@@ -2,19 +2,22 @@ package fr.upmc.colins.farm3.generator;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.math3.random.RandomDataGenerator;
-
 import fr.upmc.colins.farm3.VerboseSettings;
 import fr.upmc.colins.farm3.admission.ApplicationRequestArrivalI;
 import fr.upmc.colins.farm3.connectors.RequestServiceConnector;
 import fr.upmc.colins.farm3.core.RequestArrivalI;
+import fr.upmc.colins.farm3.generator.workload.AppMix;
+import fr.upmc.colins.farm3.generator.workload.UniformMix;
+import fr.upmc.colins.farm3.generator.workload.Workload;
 import fr.upmc.colins.farm3.objects.Application;
+import fr.upmc.colins.farm3.log.EventLog;
+import fr.upmc.colins.farm3.log.EventType;
 import fr.upmc.colins.farm3.objects.Request;
-import fr.upmc.colins.farm3.utils.TimeProcessing;
+import fr.upmc.colins.farm3.objects.TraceContext;
+import fr.upmc.colins.farm3.simulation.SimulationClock;
 import fr.upmc.components.AbstractComponent;
 import fr.upmc.components.exceptions.ComponentShutdownException;
 
@@ -26,22 +29,52 @@ import fr.upmc.components.exceptions.ComponentShutdownException;
  * <strong>Description</strong>
  * </p>
  *
- * A request has a processing time and an arrival process that both follow an
- * exponential probability distribution. The generation process is started by
+ * The arrival process of the requests and the application of each request
+ * are given by a <code>Workload</code>, read from the file given by the
+ * property <code>farm3.workload.file</code> when it is set: by default, the
+ * requests follow a Poisson process slowed down by a sinusoid and go to an
+ * application chosen uniformly. The generation process is started by
  * executing the method <code>generateNextRequest</code> as a component task. It
- * generates an instance of the class <code>Request</code>, with a processing
- * time generated from its exponential distribution, and then schedule its next
- * run after the interarrival time also generated from its exponential
- * distribution. To stop the generation process, the method
- * <code>shutdown</code> uses the future returned when scheduling the next
- * request generation to cancel its execution.
+ * generates an instance of the class <code>Request</code>, and then schedule
+ * its next run after the interarrival time drawn from the workload. To stop
+ * the generation process, the method <code>shutdown</code> uses the future
+ * returned when scheduling the next request generation to cancel its
+ * execution.
+ * 
+ * The requests of each application are sent through a
+ * <code>RequestBatcher</code>, which groups them into batches when a
+ * micro-batching window is configured.
+ * 
+ * The settings of the submitted applications are read from the properties
+ * <code>farm3.app.&lt;id&gt;.&lt;key&gt;</code>, or
+ * <code>farm3.app.&lt;key&gt;</code> for all the applications, the default
+ * settings of <code>Application</code> being kept when neither is set. The
+ * key <code>policy</code> gives the class of the dispatch policy, a simple
+ * name being taken in the package of the policies, e.g.
+ * <code>-Dfarm3.app.1.policy=JoinShortestQueuePolicy</code>; the key
+ * <code>controller</code> gives the class of the frequency controller of
+ * its actuator, a simple name being taken in the package of the actuator,
+ * and the key <code>period</code> its control period in milliseconds. The
+ * key <code>priority</code> gives the priority class of the application, the
+ * higher the more urgent, and the key <code>urgent</code> the share of its
+ * requests marked urgent by the generator, one class above the other ones:
+ * as an application has cores of its own, only its urgent requests preempt
+ * its other requests on the preemptive cores.
+ * 
+ * The task scheduling the next run is reused, and the workload draws from a
+ * single random number generator, seeded by the property
+ * <code>farm3.workload.seed</code> when the generation must be reproducible.
+ * In virtual-time mode, the future and the event of the next run are reused
+ * as well, so that a run only allocates the request, apart from what sending
+ * it through the port allocates; in real-time mode, scheduling the next run
+ * through the component allocates its future.
  * 
  * <p>
  * <strong>Invariant</strong>
  * </p>
  * 
  * <pre>
- * invariant	rng != null && counter >= 0
+ * invariant	workload != null && counter >= 0
  * invariant	meanInterArrivalTime > 0.0 && meanProcessingTime > 0.0
  * invariant	rgop != null && rgop instanceof RequestArrivalI
  * </pre>
@@ -58,13 +91,32 @@ public class RequestGenerator extends AbstractComponent {
 
 	private static final String logId = "[ RequestGen ]";
 
+	/** prefix of the properties giving the settings of the applications	*/
+	public static final String APP_PROPERTY_PREFIX = "farm3.app.";
+	/** key of the property giving the dispatch policy of an application	*/
+	public static final String POLICY_KEY = "policy";
+	/** key of the property giving the frequency controller of an application */
+	public static final String CONTROLLER_KEY = "controller";
+	/** key of the property giving the control period of an application	*/
+	public static final String PERIOD_KEY = "period";
+	/** key of the property giving the priority class of an application	*/
+	public static final String PRIORITY_KEY = "priority";
+	/** key of the property giving the share of urgent requests of an app	*/
+	public static final String URGENT_KEY = "urgent";
+	/** package of the policies named by their simple name					*/
+	protected static final String POLICY_PACKAGE =
+			"fr.upmc.colins.farm3.dispatcher.policy.";
+	/** package of the controllers named by their simple name				*/
+	protected static final String CONTROLLER_PACKAGE =
+			"fr.upmc.colins.farm3.actuator.";
+
 
 	// -------------------------------------------------------------------------
 	// Constructors and instance variables
 	// -------------------------------------------------------------------------
 
-	/** a random number generator used to generate processing times. 			*/
-	protected RandomDataGenerator rng;
+	/** arrival process and application mix of the requests. 				*/
+	protected Workload workload;
 	/** a counter used to generate request URI. 								*/
 	protected int counter;
 	/** the mean interarrival time of requests in ms. 							*/
@@ -75,14 +127,20 @@ public class RequestGenerator extends AbstractComponent {
 	protected double meanNrofInstructions;
 	/** the output port used to send requests to the service provider. 			*/
 	protected List<RequestGeneratorOutboundPort> rgops;
+	/** the batchers of the requests sent through each output port. 			*/
+	protected List<RequestBatcher> batchers;
 	/** the output port used to send applications to the service provider. 		*/
 	protected ApplicationRequestGeneratorOutboundPort argop;
+	/** the request generation task, reused at each run. 						*/
+	protected final ComponentTask generationTask;
 	/** a future pointing to the next request generation task. 					*/
 	protected Future<?> nextRequestTaskFuture;
 	/** number of applications 													*/
 	protected long nrofApplications;
 	/** count of application deployed 											*/
 	protected int appCount;
+	/** share of the requests of each application marked urgent			*/
+	protected final double[] urgentShares;
 
 	/** step value of frequency when changing the frequency						*/
 	protected double boostStep;
@@ -92,7 +150,7 @@ public class RequestGenerator extends AbstractComponent {
 	protected int flexServiceTime;
 
 	/** starting time															*/
-	protected long startTime = System.currentTimeMillis();
+	protected long startTime = SimulationClock.currentTimeMillis();
 	
 
 	/**
@@ -132,6 +190,53 @@ public class RequestGenerator extends AbstractComponent {
 			String requestOutboundPortPrefix, 
 			String appRequestOutboundPortURI
 			) throws Exception {
+		this(nrofApplications, meanInterArrivalTime, meanNrofInstructions,
+				standardDeviation, boostStep, targetServiceTime,
+				flexServiceTime, requestOutboundPortPrefix,
+				appRequestOutboundPortURI, new UniformMix());
+	}
+
+	/**
+	 * create a request generator component with a given application mix,
+	 * used unless the workload file gives another one.
+	 * 
+	 * <p>
+	 * <strong>Contract</strong>
+	 * </p>
+	 * 
+	 * <pre>
+	 * pre	meanInterArrivalTime > 0.0 && meanProcessingTime > 0.0
+	 * pre	outboundPortURI != null && defaultMix != null
+	 * post	true			// no postcondition.
+	 * </pre>
+ 	 * @param nrofApplications 
+	 * 			  number of applications to deploy
+	 * @param meanInterArrivalTime
+	 *            mean interarrival time of the requests in ms.
+	 * @param meanNrofInstructions
+	 *            mean number of instructions of the deployed apps.
+	 * @param standardDeviation
+	 *            standard deviation of the number of instructions
+	 * @param requestOutboundPortPrefix
+	 * 			  uri of the outbound ports to the dispatchers
+	 * @param appRequestOutboundPortURI
+	 *            uri of the outbound port to the admission control
+	 * @param defaultMix
+	 *            popularity of the applications
+	 * @throws Exception	if the workload file is invalid
+	 */
+	protected RequestGenerator(
+			long nrofApplications,
+			double meanInterArrivalTime,
+			double meanNrofInstructions, 
+			double standardDeviation,
+			double boostStep,
+			int targetServiceTime,
+			int flexServiceTime,
+			String requestOutboundPortPrefix, 
+			String appRequestOutboundPortURI,
+			AppMix defaultMix
+			) throws Exception {
 		super(true, true);
 
 		assert meanInterArrivalTime > 0.0 && meanNrofInstructions > 0.0;
@@ -142,14 +247,26 @@ public class RequestGenerator extends AbstractComponent {
 		this.meanInterArrivalTime = meanInterArrivalTime;
 		this.meanNrofInstructions = meanNrofInstructions;
 		this.standardDeviation = standardDeviation;
-		this.rng = new RandomDataGenerator();
-		this.rng.reSeed();
+		this.workload = Workload.getConfigured(meanInterArrivalTime, defaultMix);
+		// a single run is scheduled at a time, the task can be reused
+		final RequestGenerator cg = this;
+		this.generationTask = new ComponentTask() {
+			@Override
+			public void run() {
+				try {
+					cg.generateNextRequest();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		};
 		this.nextRequestTaskFuture = null;
 		this.boostStep = boostStep;
 		this.targetServiceTime = targetServiceTime;
 		this.flexServiceTime = flexServiceTime;
 
 		this.rgops = new ArrayList<>();
+		this.batchers = new ArrayList<>();
 		// Component management
 		this.addRequiredInterface(RequestArrivalI.class);
 		for (int i = 0; i < nrofApplications; i++) {
@@ -157,6 +274,7 @@ public class RequestGenerator extends AbstractComponent {
 			this.addPort(rgop);
 			rgop.localPublishPort();
 			this.rgops.add(rgop);
+			this.batchers.add(new RequestBatcher(this, rgop));
 		}
 		
 		this.addRequiredInterface(ApplicationRequestArrivalI.class);
@@ -167,10 +285,11 @@ public class RequestGenerator extends AbstractComponent {
 
 		this.nrofApplications = nrofApplications;
 		this.appCount = 0;
+		this.urgentShares = new double[(int) nrofApplications];
 
 		System.out.println(logId + " Request generator created") ;
 		
-		assert rng != null && counter >= 0;
+		assert workload != null && counter >= 0;
 		assert meanInterArrivalTime > 0.0 && meanNrofInstructions > 0.0;
 		assert rgops.size() == this.nrofApplications;
 		assert argop != null && argop instanceof ApplicationRequestArrivalI;
@@ -205,14 +324,43 @@ public class RequestGenerator extends AbstractComponent {
 		super.shutdown();
 	}
 
+	/**
+	 * stop the request generation, then disconnect from the deployed
+	 * applications and release them, so that their cores are given back to
+	 * the provider; the port to the admission control must still be connected.
+	 * 
+	 * <p>
+	 * <strong>Contract</strong>
+	 * </p>
+	 * 
+	 * <pre>
+	 * pre	argop.connected()
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @throws Exception
+	 */
+	public void releaseApplications() throws Exception {
+		if (this.nextRequestTaskFuture != null) {
+			this.nextRequestTaskFuture.cancel(false);
+		}
+		for (int i = 0; i < this.appCount; i++) {
+			if (this.rgops.get(i).connected()) {
+				this.batchers.get(i).flush();
+				this.rgops.get(i).doDisconnection();
+				this.argop.releaseApplication(i);
+			}
+		}
+	}
+
 	// -------------------------------------------------------------------------
 	// Component internal services
 	// -------------------------------------------------------------------------
 
 	/**
-	 * generate a new request with some processing time following an exponential
-	 * distribution and then schedule the next request generation in a delay
-	 * also following an exponential distribution.
+	 * generate a new request for an application chosen by the workload and
+	 * then schedule the next request generation after an interarrival time
+	 * drawn from the workload.
 	 * 
 	 * <p>
 	 * <strong>Contract</strong>
@@ -228,54 +376,188 @@ public class RequestGenerator extends AbstractComponent {
 	public void generateNextRequest() throws Exception {
 
 		if(appCount < nrofApplications){
-			if(VerboseSettings.VERBOSE_GENERATOR)
-				System.out.println(logId + " Submit a new app (id "
-						+ appCount + ")");
-			String rdUri = this.argop.acceptApplication(
-					new Application(
-							appCount,
-							this.meanNrofInstructions,
-							this.standardDeviation,
-							this.boostStep,
-							this.targetServiceTime,
-							this.flexServiceTime
-							));
+			this.submitNextApplication();
+		}
+		
+		// draw an app from the deployed apps
+		int	requestedApp = this.workload.nextApp(appCount); 
 
+		if(this.rgops.get(requestedApp).connected()){
+			Request r = new Request(this.counter++, requestedApp) ;
+			this.markUrgency(r) ;
+			r.getTrace().mark(TraceContext.GENERATION) ;
+			this.batchers.get(requestedApp).send(r);
+		}
+		long interArrivalDelay = (long) this.workload.nextInterArrival(
+				SimulationClock.currentTimeMillis() - this.startTime);
+		EventLog.log(EventType.GENERATOR_SCHEDULE, 0, requestedApp,
+					 interArrivalDelay) ;
+		this.nextRequestTaskFuture = SimulationClock.reschedule(this,
+				this.generationTask, this.nextRequestTaskFuture,
+				interArrivalDelay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * submit the next application to the admission control and connect its
+	 * outbound port to the request dispatcher of the application; a refused
+	 * application keeps its port unconnected.
+	 * 
+	 * <p>
+	 * <strong>Contract</strong>
+	 * </p>
+	 * 
+	 * <pre>
+	 * pre	appCount &lt; nrofApplications
+	 * post	appCount == appCount@pre + 1
+	 * </pre>
+	 *
+	 * @throws Exception
+	 */
+	protected void submitNextApplication() throws Exception {
+		assert appCount < nrofApplications;
+
+		if(VerboseSettings.VERBOSE_GENERATOR)
+			System.out.println(logId + " Submit a new app (id "
+					+ appCount + ")");
+		Application app = new Application(
+				appCount,
+				this.meanNrofInstructions,
+				this.standardDeviation,
+				this.boostStep,
+				this.targetServiceTime,
+				this.flexServiceTime
+				);
+		// the requests are shared between the applications
+		app.setMeanInterArrivalTime(this.meanInterArrivalTime * this.nrofApplications);
+		configureApplication(app);
+		this.urgentShares[appCount] = getUrgentShare(appCount);
+		String rdUri = this.argop.acceptApplication(app);
+
+		if (rdUri.isEmpty()) {
+			// refused for lack of free cores, its port stays unconnected
+			// and no request is sent for it
+			System.err.println(logId + " App (id " + appCount + ") refused");
+		} else {
 			if(VerboseSettings.VERBOSE_GENERATOR)
 				System.out
 						.println(logId + " Connect to the request dispatcher for the requested app (via " + rdUri+")");
 			this.rgops.get(appCount).doConnection(rdUri,
 					RequestServiceConnector.class.getCanonicalName());
-			appCount++;
 		}
-		
-		// draw a random app from the deployed app
-		
-		Random rnd = new Random();
-		int	requestedApp = rnd.nextInt(appCount); 
+		appCount++;
+	}
 
-		if(this.rgops.get(requestedApp).connected()){
-			this.rgops.get(requestedApp).acceptRequest(new Request(this.counter++, requestedApp));
+	/**
+	 * return the name of the property giving a setting of an application.
+	 * 
+	 * @param appId		identifier of the application
+	 * @param key		key of the setting
+	 * @return			the name of the property
+	 */
+	public static String getAppPropertyName(int appId, String key) {
+		return APP_PROPERTY_PREFIX + appId + "." + key;
+	}
+
+	/**
+	 * return the value of a setting of an application, given by its own
+	 * property or else by the property common to all the applications.
+	 * 
+	 * @param appId		identifier of the application
+	 * @param key		key of the setting
+	 * @return			the trimmed value, or null if neither property is set
+	 */
+	public static String getAppProperty(int appId, String key) {
+		String value = System.getProperty(getAppPropertyName(appId, key),
+				System.getProperty(APP_PROPERTY_PREFIX + key));
+		return value == null || value.trim().isEmpty() ? null : value.trim();
+	}
+
+	/**
+	 * set the settings of an application given by the properties.
+	 * 
+	 * <p>
+	 * <strong>Contract</strong>
+	 * </p>
+	 * 
+	 * <pre>
+	 * pre	app != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param app	the application to be submitted
+	 */
+	public static void configureApplication(Application app) {
+		assert app != null;
+
+		String policy = getAppProperty(app.getUri(), POLICY_KEY);
+		if (policy != null) {
+			app.setDispatchPolicy(policy.indexOf('.') < 0
+					? POLICY_PACKAGE + policy : policy);
 		}
-		final RequestGenerator cg = this;
-		long interArrivalDelay = (long) this.rng
-				.nextExponential(this.meanInterArrivalTime);
-//		System.err.println(System.currentTimeMillis()-this.startTime);
-//		System.err.println(Math.max(0.1, Math.sin((System.currentTimeMillis()-this.startTime)/10000.0)));
-		interArrivalDelay = (long) (interArrivalDelay + interArrivalDelay * Math.max(0.1, Math.sin((System.currentTimeMillis()-this.startTime)/5000.0)));
-		if(VerboseSettings.VERBOSE_GENERATOR)
-			System.out.println(logId + " Scheduling request app " + requestedApp + "  at "
-					+ TimeProcessing.toString(System.currentTimeMillis()
-							+ interArrivalDelay));
-		this.nextRequestTaskFuture = this.scheduleTask(new ComponentTask() {
-			@Override
-			public void run() {
-				try {
-					cg.generateNextRequest();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
+		String priority = getAppProperty(app.getUri(), PRIORITY_KEY);
+		if (priority != null) {
+			try {
+				app.setPriority(Integer.parseInt(priority));
+			} catch (NumberFormatException e) {
+				System.err.println(logId + " Invalid priority " + priority
+						+ " for app (id " + app.getUri() + "), using "
+						+ app.getPriority());
+			}
+		}
+		String controller = getAppProperty(app.getUri(), CONTROLLER_KEY);
+		if (controller != null) {
+			app.setFrequencyController(controller.indexOf('.') < 0
+					? CONTROLLER_PACKAGE + controller : controller);
+		}
+		String period = getAppProperty(app.getUri(), PERIOD_KEY);
+		if (period != null) {
+			long p = -1L;
+			try {
+				p = Long.parseLong(period);
+			} catch (NumberFormatException e) {
+				// reported below
+			}
+			if (p > 0) {
+				app.setControlPeriod(p);
+			} else {
+				System.err.println(logId + " Invalid control period " + period
+						+ " for app (id " + app.getUri() + "), using "
+						+ app.getControlPeriod());
 			}
-		}, interArrivalDelay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * return the share of the requests of an application to be marked
+	 * urgent, given by the properties.
+	 * 
+	 * @param appId		identifier of the application
+	 * @return			the share, between 0 and 1, 0 if not set
+	 */
+	public static double getUrgentShare(int appId) {
+		String share = getAppProperty(appId, URGENT_KEY);
+		if (share != null) {
+			try {
+				return Math.max(0.0, Math.min(1.0, Double.parseDouble(share)));
+			} catch (NumberFormatException e) {
+				System.err.println(logId + " Invalid urgent share " + share
+						+ " for app (id " + appId + "), using 0");
+			}
+		}
+		return 0.0;
+	}
+
+	/**
+	 * mark a request urgent with the probability given by the share of its
+	 * application; the workload is only drawn from if the share is not 0,
+	 * so that the draws of the other generations are unchanged.
+	 * 
+	 * @param r		the request to be sent
+	 */
+	protected void markUrgency(Request r) {
+		double share = this.urgentShares[(int) r.getAppId()];
+		if (share > 0.0 && this.workload.getRandom().nextDouble() < share) {
+			r.setPriority(Request.URGENT_PRIORITY);
+		}
 	}
 }
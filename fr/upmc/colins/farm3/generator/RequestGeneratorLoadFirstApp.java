@@ -1,22 +1,6 @@
 package fr.upmc.colins.farm3.generator;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-
-import org.apache.commons.math3.random.RandomDataGenerator;
-
-import fr.upmc.colins.farm3.VerboseSettings;
-import fr.upmc.colins.farm3.admission.ApplicationRequestArrivalI;
-import fr.upmc.colins.farm3.connectors.RequestServiceConnector;
-import fr.upmc.colins.farm3.core.RequestArrivalI;
-import fr.upmc.colins.farm3.objects.Application;
-import fr.upmc.colins.farm3.objects.Request;
-import fr.upmc.colins.farm3.utils.TimeProcessing;
-import fr.upmc.components.AbstractComponent;
-import fr.upmc.components.exceptions.ComponentShutdownException;
+import fr.upmc.colins.farm3.generator.workload.HotAppMix;
 
 /**
  * The class <code>RequestGeneratorLoadFirstApp</code> implements a component that generates
@@ -28,22 +12,18 @@ import fr.upmc.components.exceptions.ComponentShutdownException;
  * <strong>Description</strong>
  * </p>
  *
- * A request has a processing time and an arrival process that both follow an
- * exponential probability distribution. The generation process is started by
- * executing the method <code>generateNextRequest</code> as a component task. It
- * generates an instance of the class <code>Request</code>, with a processing
- * time generated from its exponential distribution, and then schedule its next
- * run after the interarrival time also generated from its exponential
- * distribution. To stop the generation process, the method
- * <code>shutdown</code> uses the future returned when scheduling the next
- * request generation to cancel its execution.
+ * The generator behaves as a <code>RequestGenerator</code> whose default
+ * application mix is a <code>HotAppMix</code>: a request goes to the first
+ * application with the probability <code>PROBABILITY_FIRST_APP_REQUEST</code>,
+ * and else to an application chosen uniformly. A workload file giving its own
+ * mix overrides it.
  * 
  * <p>
  * <strong>Invariant</strong>
  * </p>
  * 
  * <pre>
- * invariant	rng != null && counter >= 0
+ * invariant	workload != null && counter >= 0
  * invariant	meanInterArrivalTime > 0.0 && meanProcessingTime > 0.0
  * invariant	rgop != null && rgop instanceof RequestArrivalI
  * </pre>
@@ -56,51 +36,13 @@ import fr.upmc.components.exceptions.ComponentShutdownException;
  * @author Colins-Alasca
  * @version $Name$ -- $Revision$ -- $Date$
  */
-public class RequestGeneratorLoadFirstApp extends AbstractComponent {
-
-	private static final String logId = "[ RequestGen ]";
+public class RequestGeneratorLoadFirstApp extends RequestGenerator {
 
 	/**	probability that the request will be for the first app					*/
-	private static final double PROBABILITY_FIRST_APP_REQUEST = 0.8;
-
-	// -------------------------------------------------------------------------
-	// Constructors and instance variables
-	// -------------------------------------------------------------------------
-
-	/** a random number generator used to generate processing times. 			*/
-	protected RandomDataGenerator rng;
-	/** a counter used to generate request URI. 								*/
-	protected int counter;
-	/** the mean interarrival time of requests in ms. 							*/
-	protected double meanInterArrivalTime;
-	/** the standard deviation													*/
-	protected double standardDeviation;
-	/** the mean number of instructions of the deployed apps					*/
-	protected double meanNrofInstructions;
-	/** the output port used to send requests to the service provider. 			*/
-	protected List<RequestGeneratorOutboundPort> rgops;
-	/** the output port used to send applications to the service provider. 		*/
-	protected ApplicationRequestGeneratorOutboundPort argop;
-	/** a future pointing to the next request generation task. 					*/
-	protected Future<?> nextRequestTaskFuture;
-	/** number of applications 													*/
-	protected long nrofApplications;
-	/** count of application deployed 											*/
-	protected int appCount;
-
-	/** step value of frequency when changing the frequency						*/
-	protected double boostStep;
-	/** target service time in milliseconds										*/
-	protected int targetServiceTime;
-	/** flex time for target service time in milliseconds						*/
-	protected int flexServiceTime;
-
-	/** starting time															*/
-	protected long startTime = System.currentTimeMillis();
-	
+	public static final double PROBABILITY_FIRST_APP_REQUEST = 0.8;
 
 	/**
-	 * create a request generator component.
+	 * create a request generator component loading the first application.
 	 * 
 	 * <p>
 	 * <strong>Contract</strong>
@@ -136,153 +78,10 @@ public class RequestGeneratorLoadFirstApp extends AbstractComponent {
 			String requestOutboundPortPrefix, 
 			String appRequestOutboundPortURI
 			) throws Exception {
-		super(true, true);
-
-		assert meanInterArrivalTime > 0.0 && meanNrofInstructions > 0.0;
-		assert requestOutboundPortPrefix != null;
-		assert appRequestOutboundPortURI != null;
-
-		this.counter = 0;
-		this.meanInterArrivalTime = meanInterArrivalTime;
-		this.meanNrofInstructions = meanNrofInstructions;
-		this.standardDeviation = standardDeviation;
-		this.rng = new RandomDataGenerator();
-		this.rng.reSeed();
-		this.nextRequestTaskFuture = null;
-		this.boostStep = boostStep;
-		this.targetServiceTime = targetServiceTime;
-		this.flexServiceTime = flexServiceTime;
-
-		this.rgops = new ArrayList<>();
-		// Component management
-		this.addRequiredInterface(RequestArrivalI.class);
-		for (int i = 0; i < nrofApplications; i++) {
-			RequestGeneratorOutboundPort rgop = new RequestGeneratorOutboundPort(requestOutboundPortPrefix + i, this);
-			this.addPort(rgop);
-			rgop.localPublishPort();
-			this.rgops.add(rgop);
-		}
-		
-		this.addRequiredInterface(ApplicationRequestArrivalI.class);
-		this.argop = new ApplicationRequestGeneratorOutboundPort(
-				appRequestOutboundPortURI, this);
-		this.addPort(this.argop);
-		this.argop.localPublishPort();
-
-		this.nrofApplications = nrofApplications;
-		this.appCount = 0;
-
-		System.out.println(logId + " Request generator created") ;
-		
-		assert rng != null && counter >= 0;
-		assert meanInterArrivalTime > 0.0 && meanNrofInstructions > 0.0;
-		assert rgops.size() == this.nrofApplications;
-		assert argop != null && argop instanceof ApplicationRequestArrivalI;
-	}
-
-	// -------------------------------------------------------------------------
-	// Component life-cycle
-	// -------------------------------------------------------------------------
-
-	/**
-	 * shut down the component, first cancelling any future request generation
-	 * already scheduled.
-	 * 
-	 * <p>
-	 * <strong>Contract</strong>
-	 * </p>
-	 * 
-	 * <pre>
-	 * pre	true				// no more preconditions.
-	 * post	true				// no more postconditions.
-	 * </pre>
-	 * 
-	 * @see fr.upmc.components.AbstractComponent#shutdown()
-	 */
-	@Override
-	public void shutdown() throws ComponentShutdownException {
-		if (this.nextRequestTaskFuture != null
-				&& !(this.nextRequestTaskFuture.isCancelled() || this.nextRequestTaskFuture
-						.isDone())) {
-			this.nextRequestTaskFuture.cancel(true);
-		}
-		super.shutdown();
-	}
-
-	// -------------------------------------------------------------------------
-	// Component internal services
-	// -------------------------------------------------------------------------
-
-	/**
-	 * generate a new request with some processing time following an exponential
-	 * distribution and then schedule the next request generation in a delay
-	 * also following an exponential distribution.
-	 * 
-	 * <p>
-	 * <strong>Contract</strong>
-	 * </p>
-	 * 
-	 * <pre>
-	 * pre	true			// no precondition.
-	 * post	true			// no postcondition.
-	 * </pre>
-	 *
-	 * @throws Exception
-	 */
-	public void generateNextRequest() throws Exception {
-
-		if(appCount < nrofApplications){
-			if(VerboseSettings.VERBOSE_GENERATOR)
-				System.out.println(logId + " Submit a new app (id "
-						+ appCount + ")");
-			String rdUri = this.argop.acceptApplication(
-					new Application(
-							appCount,
-							this.meanNrofInstructions,
-							this.standardDeviation,
-							this.boostStep,
-							this.targetServiceTime,
-							this.flexServiceTime
-							));
-
-			if(VerboseSettings.VERBOSE_GENERATOR)
-				System.out
-						.println(logId + " Connect to the request dispatcher for the requested app (via " + rdUri+")");
-			this.rgops.get(appCount).doConnection(rdUri,
-					RequestServiceConnector.class.getCanonicalName());
-			appCount++;
-		}
-		
-		// draw a random app from the deployed app
-		
-		Random rnd = new Random();
-		int	requestedApp = 0; // first app by default
-		if(rnd.nextDouble() > PROBABILITY_FIRST_APP_REQUEST){
-			requestedApp = rnd.nextInt(appCount); // draw one randomly
-		}
-
-		if(this.rgops.get(requestedApp).connected()){
-			this.rgops.get(requestedApp).acceptRequest(new Request(this.counter++, requestedApp));
-		}
-		final RequestGeneratorLoadFirstApp cg = this;
-		long interArrivalDelay = (long) this.rng
-				.nextExponential(this.meanInterArrivalTime);
-//		System.err.println(System.currentTimeMillis()-this.startTime);
-//		System.err.println(Math.max(0.1, Math.sin((System.currentTimeMillis()-this.startTime)/10000.0)));
-		interArrivalDelay = (long) (interArrivalDelay + interArrivalDelay * Math.max(0.1, Math.sin((System.currentTimeMillis()-this.startTime)/5000.0)));
-		if(VerboseSettings.VERBOSE_GENERATOR)
-			System.out.println(logId + " Scheduling request app " + requestedApp + "  at "
-					+ TimeProcessing.toString(System.currentTimeMillis()
-							+ interArrivalDelay));
-		this.nextRequestTaskFuture = this.scheduleTask(new ComponentTask() {
-			@Override
-			public void run() {
-				try {
-					cg.generateNextRequest();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-		}, interArrivalDelay, TimeUnit.MILLISECONDS);
+		super(nrofApplications, meanInterArrivalTime, meanNrofInstructions,
+				standardDeviation, boostStep, targetServiceTime,
+				flexServiceTime, requestOutboundPortPrefix,
+				appRequestOutboundPortURI,
+				new HotAppMix(0, PROBABILITY_FIRST_APP_REQUEST));
 	}
 }
@@ -1,5 +1,7 @@
 package fr.upmc.colins.farm3.generator;
 
+import java.util.ArrayList;
+
 import fr.upmc.colins.farm3.core.RequestArrivalI;
 import fr.upmc.colins.farm3.objects.Request;
 import fr.upmc.components.ComponentI;
@@ -68,14 +70,25 @@ implements	RequestArrivalI
 	 * @see fr.upmc.alasca.ssqueue.interfaces.RequestArrivalI#acceptRequest(fr.upmc.alasca.ssqueue.objects.Request)
 	 */
 	@Override
-	public void			acceptRequest(Request r) throws Exception
+	public int			acceptRequest(Request r) throws Exception
 	{
-		((RequestArrivalI)this.connector).acceptRequest(r) ;
+		return ((RequestArrivalI)this.connector).acceptRequest(r) ;
 	}
 	
+	@Override
+	public int[]		acceptRequests(ArrayList<Request> requests) throws Exception
+	{
+		return ((RequestArrivalI)this.connector).acceptRequests(requests) ;
+	}
+
 	@Override
 	public void 			connectResponseConnection(String vmResponseArrivalInboundPortUri) throws Exception {
 		((RequestArrivalI)this.connector).connectResponseConnection(vmResponseArrivalInboundPortUri) ;
 	}
 
+	@Override
+	public void 			disconnectResponseConnection() throws Exception {
+		((RequestArrivalI)this.connector).disconnectResponseConnection() ;
+	}
+
 }
@@ -0,0 +1,167 @@
+package fr.upmc.colins.farm3.generator;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * The class <code>TraceReader</code> reads the records of a recorded trace of
+ * requests one at a time.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * A trace is a text file with one request per line:
+ *
+ * <pre>
+ * timestamp appId [nrofInstructions]
+ * </pre>
+ *
+ * where the timestamp is in milliseconds, on any origin, and the fields are
+ * separated by spaces, tabulations or commas. A missing or non positive
+ * number of instructions lets the request dispatcher draw it as for the
+ * generated requests. Empty lines and lines starting with <code>#</code> are
+ * ignored, as well as the malformed lines, which are counted. The file is
+ * streamed: only the current record is kept in memory, whatever the length
+ * of the trace.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	getNrofMalformedLines() >= 0
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			TraceReader
+{
+	/** reader of the lines of the trace									*/
+	protected final BufferedReader	reader ;
+	/** timestamp of the current record in milliseconds						*/
+	protected long					timestamp ;
+	/** application of the current record									*/
+	protected int					appId ;
+	/** number of instructions of the current record, 0 if unknown			*/
+	protected long					nrofInstructions ;
+	/** number of lines read												*/
+	protected long					nrofLines ;
+	/** number of malformed lines ignored									*/
+	protected long					nrofMalformedLines ;
+
+	/**
+	 * open a trace file.
+	 *
+	 * @param fileName	name of the trace file
+	 * @throws IOException	if the file cannot be opened
+	 */
+	public				TraceReader(String fileName) throws IOException
+	{
+		this(new FileReader(fileName)) ;
+	}
+
+	/**
+	 * read a trace from a reader.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	in != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param in	the reader of the trace
+	 */
+	public				TraceReader(Reader in)
+	{
+		assert	in != null ;
+
+		this.reader = new BufferedReader(in) ;
+		this.nrofLines = 0 ;
+		this.nrofMalformedLines = 0 ;
+	}
+
+	/**
+	 * advance to the next record of the trace.
+	 *
+	 * @return	false if the end of the trace has been reached
+	 * @throws IOException
+	 */
+	public boolean		next() throws IOException
+	{
+		String line ;
+		while ((line = this.reader.readLine()) != null) {
+			this.nrofLines++ ;
+			line = line.trim() ;
+			if (line.isEmpty() || line.charAt(0) == '#') {
+				continue ;
+			}
+			String[] fields = line.split("[\\s,]+") ;
+			try {
+				if (fields.length < 2 || fields.length > 3) {
+					throw new NumberFormatException() ;
+				}
+				this.timestamp = Long.parseLong(fields[0]) ;
+				this.appId = Integer.parseInt(fields[1]) ;
+				this.nrofInstructions = fields.length == 3 ?
+						Math.max(0L, Long.parseLong(fields[2])) : 0L ;
+				return true ;
+			} catch (NumberFormatException e) {
+				this.nrofMalformedLines++ ;
+			}
+		}
+		return false ;
+	}
+
+	/**
+	 * close the trace file.
+	 *
+	 * @throws IOException
+	 */
+	public void			close() throws IOException
+	{
+		this.reader.close() ;
+	}
+
+	/**
+	 * @return	the timestamp of the current record in milliseconds
+	 */
+	public long			getTimestamp()
+	{
+		return this.timestamp ;
+	}
+
+	/**
+	 * @return	the application of the current record
+	 */
+	public int			getAppId()
+	{
+		return this.appId ;
+	}
+
+	/**
+	 * @return	the number of instructions of the current record, 0 if unknown
+	 */
+	public long			getNrofInstructions()
+	{
+		return this.nrofInstructions ;
+	}
+
+	/**
+	 * @return	the number of lines read
+	 */
+	public long			getNrofLines()
+	{
+		return this.nrofLines ;
+	}
+
+	/**
+	 * @return	the number of malformed lines ignored
+	 */
+	public long			getNrofMalformedLines()
+	{
+		return this.nrofMalformedLines ;
+	}
+}
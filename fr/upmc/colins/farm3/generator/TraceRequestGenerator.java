@@ -0,0 +1,272 @@
+package fr.upmc.colins.farm3.generator;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import fr.upmc.colins.farm3.VerboseSettings;
+import fr.upmc.colins.farm3.log.EventLog;
+import fr.upmc.colins.farm3.log.EventType;
+import fr.upmc.colins.farm3.objects.Request;
+import fr.upmc.colins.farm3.objects.TraceContext;
+import fr.upmc.colins.farm3.simulation.SimulationClock;
+import fr.upmc.components.exceptions.ComponentShutdownException;
+
+/**
+ * The class <code>TraceRequestGenerator</code> implements a request generator
+ * replaying a recorded trace of requests.
+ *
+ * <p>
+ * <strong>Description</strong>
+ * </p>
+ * 
+ * All the applications are submitted when the replay starts, then each record
+ * of the trace (see <code>TraceReader</code>) becomes a request of its
+ * application, sent at the time of the record relative to the first one,
+ * divided by the compression factor: with a factor of 10, an hour of trace is
+ * replayed in six minutes. The times are computed from the start of the
+ * replay rather than from the previous request, so that the delays of the
+ * scheduling do not accumulate; the records whose time has passed are sent
+ * at once. The recorded number of instructions is given to the request, and
+ * the request dispatcher only draws it when the record has none.
+ * 
+ * The trace is streamed and read one record ahead, so that the memory used
+ * does not depend on its length. The records of an application which is not
+ * in the trace range, or which has been refused, are skipped and counted. The
+ * replay stops at the end of the trace.
+ * 
+ * <p>
+ * <strong>Invariant</strong>
+ * </p>
+ * 
+ * <pre>
+ * invariant	compression > 0.0
+ * </pre>
+ * 
+ * <p>
+ * Created on : march 2015
+ * </p>
+ * 
+ * @author Colins-Alasca
+ * @version $Name$ -- $Revision$ -- $Date$
+ */
+public class TraceRequestGenerator extends RequestGenerator {
+
+	private static final String logId = "[ TraceGen   ]";
+
+	/** name of the property giving the trace file to be replayed			*/
+	public static final String TRACE_PROPERTY = "farm3.trace.file";
+	/** name of the property giving the time compression factor				*/
+	public static final String COMPRESSION_PROPERTY = "farm3.trace.compression";
+	/** compression factor used when the property is not set, real time		*/
+	public static final double DEFAULT_COMPRESSION = 1.0;
+
+	/** reader of the trace, positioned on the next record to be sent		*/
+	protected TraceReader reader;
+	/** name of the trace file												*/
+	protected String traceFile;
+	/** factor dividing the times of the trace								*/
+	protected double compression;
+	/** true while the reader is positioned on a record						*/
+	protected boolean hasNext;
+	/** true once the replay has started									*/
+	protected boolean started;
+	/** timestamp of the first record of the trace							*/
+	protected long firstTimestamp;
+	/** time at which the replay started									*/
+	protected long replayStart;
+	/** number of requests sent												*/
+	protected long nrofReplayed;
+	/** number of records skipped											*/
+	protected long nrofSkipped;
+
+	/**
+	 * create a trace replaying request generator component.
+	 * 
+	 * <p>
+	 * <strong>Contract</strong>
+	 * </p>
+	 * 
+	 * <pre>
+	 * pre	traceFile != null &amp;&amp; compression > 0.0
+	 * post	true			// no postcondition.
+	 * </pre>
+ 	 * @param nrofApplications 
+	 * 			  number of applications to deploy
+	 * @param meanInterArrivalTime
+	 *            mean interarrival time of the requests of the trace in ms,
+	 *            used to size the applications
+	 * @param meanNrofInstructions
+	 *            mean number of instructions of the deployed apps.
+	 * @param standardDeviation
+	 *            standard deviation of the number of instructions
+	 * @param requestOutboundPortPrefix
+	 * 			  uri of the outbound ports to the dispatchers
+	 * @param appRequestOutboundPortURI
+	 *            uri of the outbound port to the admission control
+	 * @param traceFile
+	 *            name of the trace file to be replayed
+	 * @param compression
+	 *            factor dividing the times of the trace
+	 * @throws Exception	if the trace file cannot be opened
+	 */
+	public TraceRequestGenerator(
+			long nrofApplications,
+			double meanInterArrivalTime,
+			double meanNrofInstructions, 
+			double standardDeviation,
+			double boostStep,
+			int targetServiceTime,
+			int flexServiceTime,
+			String requestOutboundPortPrefix, 
+			String appRequestOutboundPortURI,
+			String traceFile,
+			double compression
+			) throws Exception {
+		super(nrofApplications, meanInterArrivalTime, meanNrofInstructions,
+				standardDeviation, boostStep, targetServiceTime,
+				flexServiceTime, requestOutboundPortPrefix,
+				appRequestOutboundPortURI);
+
+		assert traceFile != null && compression > 0.0;
+
+		this.traceFile = traceFile;
+		this.compression = compression;
+		this.reader = new TraceReader(traceFile);
+		this.hasNext = this.reader.next();
+		this.started = false;
+		this.nrofReplayed = 0;
+		this.nrofSkipped = 0;
+
+		System.out.println(logId + " Replaying " + traceFile
+				+ " with a compression factor of " + compression) ;
+	}
+
+	/**
+	 * return the compression factor given by the property
+	 * <code>COMPRESSION_PROPERTY</code>, or the default one if it is not set
+	 * or not a positive number.
+	 *
+	 * @return	the configured compression factor
+	 */
+	public static double getConfiguredCompression() {
+		String value = System.getProperty(COMPRESSION_PROPERTY);
+		if (value != null) {
+			try {
+				double compression = Double.parseDouble(value.trim());
+				if (compression > 0.0) {
+					return compression;
+				}
+			} catch (NumberFormatException e) {
+			}
+			System.err.println("Invalid compression factor " + value
+					+ ", using " + DEFAULT_COMPRESSION);
+		}
+		return DEFAULT_COMPRESSION;
+	}
+
+	/**
+	 * close the trace before shutting down the component.
+	 * 
+	 * @see fr.upmc.colins.farm3.generator.RequestGenerator#shutdown()
+	 */
+	@Override
+	public void shutdown() throws ComponentShutdownException {
+		super.shutdown();
+		this.closeTrace();
+	}
+
+	/**
+	 * send the requests of the records whose time has come, then schedule
+	 * the next run at the time of the next record; the applications are
+	 * submitted at the first run.
+	 * 
+	 * <p>
+	 * <strong>Contract</strong>
+	 * </p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @see fr.upmc.colins.farm3.generator.RequestGenerator#generateNextRequest()
+	 */
+	@Override
+	public void generateNextRequest() throws Exception {
+		if (!this.started) {
+			while (this.appCount < this.nrofApplications) {
+				this.submitNextApplication();
+			}
+			this.started = true;
+			this.replayStart = SimulationClock.currentTimeMillis();
+			this.firstTimestamp = this.reader.getTimestamp();
+		}
+
+		long now = SimulationClock.currentTimeMillis();
+		while (this.hasNext && this.getReplayTime() <= now) {
+			this.sendRecord();
+			this.hasNext = this.reader.next();
+		}
+		if (!this.hasNext) {
+			System.out.println(logId + " End of the trace, " + this.nrofReplayed
+					+ " requests replayed, " + this.nrofSkipped
+					+ " records skipped, " + this.reader.getNrofMalformedLines()
+					+ " malformed lines");
+			this.closeTrace();
+			return;
+		}
+
+		long delay = this.getReplayTime() - now;
+		EventLog.log(EventType.GENERATOR_SCHEDULE, 0,
+					 this.reader.getAppId(), delay) ;
+		this.nextRequestTaskFuture = SimulationClock.reschedule(this,
+				this.generationTask, this.nextRequestTaskFuture, delay,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return	the time at which the current record must be sent
+	 */
+	protected long getReplayTime() {
+		// a timestamp going back in time is sent at once
+		long offset = Math.max(0L, this.reader.getTimestamp() - this.firstTimestamp);
+		return this.replayStart + (long) (offset / this.compression);
+	}
+
+	/**
+	 * send the request of the current record to its application.
+	 *
+	 * @throws Exception
+	 */
+	protected void sendRecord() throws Exception {
+		int appId = this.reader.getAppId();
+		if (appId < 0 || appId >= this.appCount
+				|| !this.rgops.get(appId).connected()) {
+			this.nrofSkipped++;
+			if (VerboseSettings.VERBOSE_GENERATOR)
+				System.out.println(logId + " Record of app " + appId
+						+ " skipped (line " + this.reader.getNrofLines() + ")");
+			return;
+		}
+		Request r = new Request(this.counter++, appId);
+		this.markUrgency(r);
+		if (this.reader.getNrofInstructions() > 0) {
+			r.setNrofInstructions(this.reader.getNrofInstructions());
+		}
+		r.getTrace().mark(TraceContext.GENERATION);
+		this.batchers.get(appId).send(r);
+		this.nrofReplayed++;
+	}
+
+	/**
+	 * close the trace file, the replay is then over.
+	 */
+	protected void closeTrace() {
+		this.hasNext = false;
+		try {
+			this.reader.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
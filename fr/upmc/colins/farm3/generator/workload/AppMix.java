@@ -0,0 +1,37 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+import java.util.Random;
+
+/**
+ * The interface <code>AppMix</code> defines the popularity of the
+ * applications of a workload, choosing the application of each request.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The number of applications is given at each call, as the generators
+ * submit their applications progressively. A mix is owned by a single
+ * generator and may keep a state between calls.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public interface		AppMix
+{
+	/**
+	 * choose the application of the next request.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	nrofApps > 0 &amp;&amp; rnd != null
+	 * post	0 &lt;= ret &amp;&amp; ret &lt; nrofApps
+	 * </pre>
+	 *
+	 * @param nrofApps	number of applications
+	 * @param rnd		the random number generator of the workload
+	 * @return			the identifier of the chosen application
+	 */
+	int				nextApp(int nrofApps, Random rnd) ;
+}
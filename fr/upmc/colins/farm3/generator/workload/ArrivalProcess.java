@@ -0,0 +1,40 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+import java.util.Random;
+
+/**
+ * The interface <code>ArrivalProcess</code> defines the arrival process of
+ * the requests of a workload.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * An arrival process draws the time between a request and the next one. It
+ * receives the time elapsed since the start of the workload, so that the
+ * processes whose rate varies over time (see <code>ModulatedArrivals</code>)
+ * can be composed with any other one, and the random number generator of
+ * the workload, so that a seeded workload is reproducible. A process is
+ * owned by a single generator and may keep a state between calls.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public interface		ArrivalProcess
+{
+	/**
+	 * draw the time until the next request.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	time >= 0.0 &amp;&amp; rnd != null
+	 * post	ret >= 0.0
+	 * </pre>
+	 *
+	 * @param time	time elapsed since the start of the workload in ms
+	 * @param rnd	the random number generator of the workload
+	 * @return		the interarrival time in ms
+	 */
+	double			nextInterArrival(double time, Random rnd) ;
+}
@@ -0,0 +1,80 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+/**
+ * The class <code>DiurnalProfile</code> implements a rate varying as a
+ * sinusoid, such as the daily cycle of the activity of the clients.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The factor is <code>1 + amplitude * cos(2 pi (t - peakTime) / period)</code>:
+ * it reaches <code>1 + amplitude</code> at the peak time, and
+ * <code>1 - amplitude</code> half a period later. The period is usually
+ * compressed, a day of activity being simulated in a few minutes.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	period > 0.0 &amp;&amp; 0.0 &lt;= amplitude &amp;&amp; amplitude &lt;= 1.0
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			DiurnalProfile
+implements	RateProfile
+{
+	/** period of the cycle in ms											*/
+	protected final double	period ;
+	/** relative amplitude of the variation of the rate						*/
+	protected final double	amplitude ;
+	/** time of the first peak in ms										*/
+	protected final double	peakTime ;
+
+	/**
+	 * create a diurnal profile.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	period > 0.0 &amp;&amp; 0.0 &lt;= amplitude &amp;&amp; amplitude &lt;= 1.0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param period		period of the cycle in ms
+	 * @param amplitude		relative amplitude of the variation of the rate
+	 * @param peakTime		time of the first peak in ms
+	 */
+	public				DiurnalProfile(
+		double period,
+		double amplitude,
+		double peakTime
+		)
+	{
+		assert	period > 0.0 && 0.0 <= amplitude && amplitude <= 1.0 ;
+
+		this.period = period ;
+		this.amplitude = amplitude ;
+		this.peakTime = peakTime ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.RateProfile#factor(double)
+	 */
+	@Override
+	public double		factor(double time)
+	{
+		return 1.0 + this.amplitude *
+					 Math.cos(2.0 * Math.PI * (time - this.peakTime) / this.period) ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.RateProfile#getMaxFactor()
+	 */
+	@Override
+	public double		getMaxFactor()
+	{
+		return 1.0 + this.amplitude ;
+	}
+}
@@ -0,0 +1,68 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+import java.util.Random;
+
+/**
+ * The class <code>HotAppMix</code> implements a mix in which one application
+ * gets most of the requests.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * A request goes to the hot application with the given probability, and
+ * else to an application chosen uniformly, the hot one included. Until the
+ * hot application is submitted, the requests are spread uniformly.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	hotApp >= 0 &amp;&amp; 0.0 &lt;= probability &amp;&amp; probability &lt;= 1.0
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			HotAppMix
+implements	AppMix
+{
+	/** identifier of the hot application									*/
+	protected final int		hotApp ;
+	/** probability that a request goes to the hot application				*/
+	protected final double	probability ;
+
+	/**
+	 * create a mix with a hot application.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	hotApp >= 0 &amp;&amp; 0.0 &lt;= probability &amp;&amp; probability &lt;= 1.0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param hotApp		identifier of the hot application
+	 * @param probability	probability that a request goes to it
+	 */
+	public				HotAppMix(int hotApp, double probability)
+	{
+		assert	hotApp >= 0 && 0.0 <= probability && probability <= 1.0 ;
+
+		this.hotApp = hotApp ;
+		this.probability = probability ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.AppMix#nextApp(int, java.util.Random)
+	 */
+	@Override
+	public int			nextApp(int nrofApps, Random rnd)
+	{
+		assert	nrofApps > 0 ;
+
+		if (this.hotApp < nrofApps && rnd.nextDouble() <= this.probability) {
+			return this.hotApp ;
+		}
+		return rnd.nextInt(nrofApps) ;
+	}
+}
@@ -0,0 +1,121 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+import java.util.Random;
+
+/**
+ * The class <code>MmppArrivals</code> implements a Markov-modulated Poisson
+ * process, producing bursts of requests.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The process has several states, each with the mean interarrival time of a
+ * Poisson process and the mean of its exponentially distributed sojourn
+ * time. At the end of a sojourn, the process jumps to one of the other
+ * states, chosen uniformly. With two states, a short interarrival time and a
+ * short sojourn in the first one, the process alternates between bursts and
+ * quiet periods. As the Poisson processes are memoryless, an interarrival
+ * time crossing the end of a sojourn is drawn again from the end of the
+ * sojourn, in the new state.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	meanInterArrivalTimes.length == meanSojournTimes.length
+ * invariant	meanInterArrivalTimes.length > 0
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			MmppArrivals
+implements	ArrivalProcess
+{
+	/** mean interarrival time of each state in ms							*/
+	protected final double[]	meanInterArrivalTimes ;
+	/** mean sojourn time of each state in ms								*/
+	protected final double[]	meanSojournTimes ;
+	/** current state, -1 before the first request							*/
+	protected int				state ;
+	/** time at which the current sojourn ends in ms						*/
+	protected double			sojournEnd ;
+
+	/**
+	 * create a Markov-modulated Poisson process, starting in the first state.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	meanInterArrivalTimes != null &amp;&amp; meanSojournTimes != null
+	 * pre	meanInterArrivalTimes.length == meanSojournTimes.length
+	 * pre	meanInterArrivalTimes.length > 0
+	 * pre	all the means are positive
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param meanInterArrivalTimes	mean interarrival time of each state in ms
+	 * @param meanSojournTimes		mean sojourn time of each state in ms
+	 */
+	public				MmppArrivals(
+		double[] meanInterArrivalTimes,
+		double[] meanSojournTimes
+		)
+	{
+		assert	meanInterArrivalTimes != null && meanSojournTimes != null ;
+		assert	meanInterArrivalTimes.length == meanSojournTimes.length ;
+		assert	meanInterArrivalTimes.length > 0 ;
+
+		this.meanInterArrivalTimes = meanInterArrivalTimes.clone() ;
+		this.meanSojournTimes = meanSojournTimes.clone() ;
+		this.state = -1 ;
+		this.sojournEnd = 0.0 ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.ArrivalProcess#nextInterArrival(double, java.util.Random)
+	 */
+	@Override
+	public double		nextInterArrival(double time, Random rnd)
+	{
+		if (this.state < 0) {
+			this.state = 0 ;
+			this.sojournEnd = time + PoissonArrivals.exponential(
+									this.meanSojournTimes[0], rnd) ;
+		}
+		double t = time ;
+		while (true) {
+			double next = t + PoissonArrivals.exponential(
+							this.meanInterArrivalTimes[this.state], rnd) ;
+			if (next <= this.sojournEnd) {
+				return next - time ;
+			}
+			t = this.sojournEnd ;
+			this.state = this.nextState(rnd) ;
+			this.sojournEnd = t + PoissonArrivals.exponential(
+								this.meanSojournTimes[this.state], rnd) ;
+		}
+	}
+
+	/**
+	 * @param rnd	the random number generator
+	 * @return		the state following the current one
+	 */
+	protected int		nextState(Random rnd)
+	{
+		int n = this.meanInterArrivalTimes.length ;
+		if (n == 1) {
+			return 0 ;
+		}
+		int s = rnd.nextInt(n - 1) ;
+		return s >= this.state ? s + 1 : s ;
+	}
+
+	/**
+	 * @return	the current state, -1 before the first request
+	 */
+	public int			getState()
+	{
+		return this.state ;
+	}
+}
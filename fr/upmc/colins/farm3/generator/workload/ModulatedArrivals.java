@@ -0,0 +1,90 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+import java.util.Random;
+
+/**
+ * The class <code>ModulatedArrivals</code> implements an arrival process whose
+ * rate follows a profile over time.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The arrivals are generated by thinning (Lewis and Shedler): candidate
+ * arrivals are drawn from the base process sped up by the largest factor of
+ * the profile, and a candidate at time <code>t</code> is kept with the
+ * probability <code>factor(t) / maxFactor</code>, so that the rate follows
+ * the profile at every time: a factor of 2 doubles the rate, a step or a
+ * spike takes effect at its exact time, and a short spike is never skipped.
+ * The thinning is exact for a Poisson base process; any process can be
+ * modulated, a Markov-modulated process included, and the profiles can be
+ * combined with a <code>ProductProfile</code>.
+ *
+ * The historical stretching of the interarrival times, used by the default
+ * workload of the generators, is implemented by
+ * <code>StretchedArrivals</code>.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	base != null &amp;&amp; profile != null
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			ModulatedArrivals
+implements	ArrivalProcess
+{
+	/** smallest factor applied, so that a null rate does not stop the
+	 *  process forever														*/
+	public static final double		MIN_FACTOR = 1.0e-3 ;
+
+	/** largest factor of the profile, rate of the candidate arrivals		*/
+	protected final double			maxFactor ;
+
+	/** process drawing the interarrival times at the nominal rate			*/
+	protected final ArrivalProcess	base ;
+	/** profile of the rate over time										*/
+	protected final RateProfile		profile ;
+
+	/**
+	 * create a modulated arrival process.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	base != null &amp;&amp; profile != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param base		process drawing the interarrival times at the nominal
+	 * 					rate
+	 * @param profile	profile of the rate over time
+	 */
+	public				ModulatedArrivals(
+		ArrivalProcess base,
+		RateProfile profile
+		)
+	{
+		assert	base != null && profile != null ;
+
+		this.base = base ;
+		this.profile = profile ;
+		this.maxFactor = Math.max(MIN_FACTOR, profile.getMaxFactor()) ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.ArrivalProcess#nextInterArrival(double, java.util.Random)
+	 */
+	@Override
+	public double		nextInterArrival(double time, Random rnd)
+	{
+		double t = time ;
+		do {
+			t += this.base.nextInterArrival(t, rnd) / this.maxFactor ;
+		} while (rnd.nextDouble() * this.maxFactor
+					> Math.max(MIN_FACTOR, this.profile.factor(t))) ;
+		return t - time ;
+	}
+}
@@ -0,0 +1,95 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+import java.util.Random;
+
+/**
+ * The class <code>PoissonArrivals</code> implements a Poisson arrival process,
+ * with exponentially distributed interarrival times.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The exponential draws of unit mean are precomputed in batches of
+ * <code>BATCH_SIZE</code> into an array allocated once, then scaled by the
+ * mean: the draws are the same as one at a time, in the same order, but the
+ * logarithms are computed in a tight loop and no draw allocates.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	meanInterArrivalTime > 0.0
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			PoissonArrivals
+implements	ArrivalProcess
+{
+	/** number of draws precomputed at once								*/
+	public static final int		BATCH_SIZE = 256 ;
+
+	/** mean interarrival time in ms										*/
+	protected final double		meanInterArrivalTime ;
+	/** precomputed exponential draws of unit mean							*/
+	protected final double[]	batch ;
+	/** index of the next draw in the batch, its size when it is used up	*/
+	protected int				next ;
+
+	/**
+	 * create a Poisson arrival process.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	meanInterArrivalTime > 0.0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param meanInterArrivalTime	mean interarrival time in ms
+	 */
+	public				PoissonArrivals(double meanInterArrivalTime)
+	{
+		assert	meanInterArrivalTime > 0.0 ;
+
+		this.meanInterArrivalTime = meanInterArrivalTime ;
+		this.batch = new double[BATCH_SIZE] ;
+		this.next = BATCH_SIZE ;
+	}
+
+	/**
+	 * draw a time following an exponential distribution.
+	 *
+	 * @param mean	the mean of the distribution
+	 * @param rnd	the random number generator
+	 * @return		the drawn time
+	 */
+	public static double	exponential(double mean, Random rnd)
+	{
+		return -mean * Math.log(1.0 - rnd.nextDouble()) ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.ArrivalProcess#nextInterArrival(double, java.util.Random)
+	 */
+	@Override
+	public double		nextInterArrival(double time, Random rnd)
+	{
+		if (this.next == BATCH_SIZE) {
+			for (int i = 0; i < BATCH_SIZE; i++) {
+				this.batch[i] = -Math.log(1.0 - rnd.nextDouble()) ;
+			}
+			this.next = 0 ;
+		}
+		return this.meanInterArrivalTime * this.batch[this.next++] ;
+	}
+
+	/**
+	 * @return	the mean interarrival time in ms
+	 */
+	public double		getMeanInterArrivalTime()
+	{
+		return this.meanInterArrivalTime ;
+	}
+}
@@ -0,0 +1,71 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The class <code>ProductProfile</code> combines several profiles by
+ * multiplying their factors, eg. a spike over a diurnal cycle.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	profiles != null
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			ProductProfile
+implements	RateProfile
+{
+	/** combined profiles, the factor is 1 if there is none					*/
+	protected final List<RateProfile>	profiles ;
+
+	/**
+	 * create a product of profiles.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	profiles != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param profiles	the profiles to be combined
+	 */
+	public				ProductProfile(List<RateProfile> profiles)
+	{
+		assert	profiles != null ;
+
+		this.profiles = new ArrayList<RateProfile>(profiles) ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.RateProfile#factor(double)
+	 */
+	@Override
+	public double		factor(double time)
+	{
+		double f = 1.0 ;
+		for (RateProfile p : this.profiles) {
+			f *= p.factor(time) ;
+		}
+		return f ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.RateProfile#getMaxFactor()
+	 */
+	@Override
+	public double		getMaxFactor()
+	{
+		double f = 1.0 ;
+		for (RateProfile p : this.profiles) {
+			f *= p.getMaxFactor() ;
+		}
+		return f ;
+	}
+}
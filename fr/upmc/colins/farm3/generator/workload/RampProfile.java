@@ -0,0 +1,89 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+/**
+ * The class <code>RampProfile</code> implements a linear change of the rate
+ * between two times.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The factor is <code>from</code> until the start of the ramp, varies
+ * linearly up to <code>to</code> at its end, and keeps this value after.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	start &lt; end &amp;&amp; from >= 0.0 &amp;&amp; to >= 0.0
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			RampProfile
+implements	RateProfile
+{
+	/** time of the start of the ramp in ms									*/
+	protected final double	start ;
+	/** time of the end of the ramp in ms									*/
+	protected final double	end ;
+	/** factor of the rate before the ramp									*/
+	protected final double	from ;
+	/** factor of the rate after the ramp									*/
+	protected final double	to ;
+
+	/**
+	 * create a ramp profile.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	start &lt; end &amp;&amp; from >= 0.0 &amp;&amp; to >= 0.0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param start		time of the start of the ramp in ms
+	 * @param end		time of the end of the ramp in ms
+	 * @param from		factor of the rate before the ramp
+	 * @param to		factor of the rate after the ramp
+	 */
+	public				RampProfile(
+		double start,
+		double end,
+		double from,
+		double to
+		)
+	{
+		assert	start < end && from >= 0.0 && to >= 0.0 ;
+
+		this.start = start ;
+		this.end = end ;
+		this.from = from ;
+		this.to = to ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.RateProfile#factor(double)
+	 */
+	@Override
+	public double		factor(double time)
+	{
+		if (time <= this.start) {
+			return this.from ;
+		}
+		if (time >= this.end) {
+			return this.to ;
+		}
+		return this.from + (this.to - this.from) *
+							(time - this.start) / (this.end - this.start) ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.RateProfile#getMaxFactor()
+	 */
+	@Override
+	public double		getMaxFactor()
+	{
+		return Math.max(this.from, this.to) ;
+	}
+}
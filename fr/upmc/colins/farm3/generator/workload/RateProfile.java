@@ -0,0 +1,51 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+/**
+ * The interface <code>RateProfile</code> defines the variation over time of
+ * the rate of an arrival process.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * A profile gives the factor applied to the nominal rate of a process at a
+ * given time since the start of the workload (see
+ * <code>ModulatedArrivals</code>): 1 keeps the nominal rate, 2 doubles it.
+ * The profiles are stateless and can be combined with a
+ * <code>ProductProfile</code>.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public interface		RateProfile
+{
+	/**
+	 * return the factor of the rate at a given time.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	time >= 0.0
+	 * post	ret >= 0.0
+	 * </pre>
+	 *
+	 * @param time	time elapsed since the start of the workload in ms
+	 * @return		the factor applied to the nominal rate
+	 */
+	double			factor(double time) ;
+
+	/**
+	 * return an upper bound of the factor of the rate over all times, used
+	 * to thin the arrivals (see <code>ModulatedArrivals</code>).
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	ret >= factor(t) for all t >= 0.0
+	 * </pre>
+	 *
+	 * @return		the largest factor of the profile
+	 */
+	double			getMaxFactor() ;
+}
@@ -0,0 +1,88 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+/**
+ * The class <code>SinusoidProfile</code> implements the sinusoidal slowdown
+ * historically applied by the request generators.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The interarrival times are stretched by
+ * <code>1 + max(floor, amplitude * sin(2 pi t / period))</code>, so that the
+ * factor of the rate is the inverse of this stretch: the rate never exceeds
+ * <code>1 / (1 + floor)</code> of the nominal rate and falls to
+ * <code>1 / (1 + amplitude)</code> of it at the top of the sinusoid. The
+ * profile of the generators, with a period of <code>2 pi 5000</code> ms, an
+ * amplitude of 1 and a floor of 0.1, is given by <code>DEFAULT</code>.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	period > 0.0 &amp;&amp; amplitude >= 0.0 &amp;&amp; floor > -1.0
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			SinusoidProfile
+implements	RateProfile
+{
+	/** profile historically applied by the request generators				*/
+	public static final SinusoidProfile	DEFAULT =
+							new SinusoidProfile(2.0 * Math.PI * 5000.0, 1.0, 0.1) ;
+
+	/** period of the sinusoid in ms										*/
+	protected final double	period ;
+	/** amplitude of the sinusoid											*/
+	protected final double	amplitude ;
+	/** smallest stretch of the interarrival times, minus one				*/
+	protected final double	floor ;
+
+	/**
+	 * create a sinusoidal profile.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	period > 0.0 &amp;&amp; amplitude >= 0.0 &amp;&amp; floor > -1.0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param period		period of the sinusoid in ms
+	 * @param amplitude		amplitude of the sinusoid
+	 * @param floor			smallest stretch of the interarrival times, minus
+	 * 						one
+	 */
+	public				SinusoidProfile(
+		double period,
+		double amplitude,
+		double floor
+		)
+	{
+		assert	period > 0.0 && amplitude >= 0.0 && floor > -1.0 ;
+
+		this.period = period ;
+		this.amplitude = amplitude ;
+		this.floor = floor ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.RateProfile#factor(double)
+	 */
+	@Override
+	public double		factor(double time)
+	{
+		double s = this.amplitude * Math.sin(2.0 * Math.PI * time / this.period) ;
+		return 1.0 / (1.0 + Math.max(this.floor, s)) ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.RateProfile#getMaxFactor()
+	 */
+	@Override
+	public double		getMaxFactor()
+	{
+		return 1.0 / (1.0 + Math.max(this.floor, -this.amplitude)) ;
+	}
+}
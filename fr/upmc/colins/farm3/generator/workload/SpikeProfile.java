@@ -0,0 +1,73 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+/**
+ * The class <code>SpikeProfile</code> implements a temporary surge of the
+ * rate, such as a flash crowd.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	duration > 0.0 &amp;&amp; factor >= 0.0
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			SpikeProfile
+implements	RateProfile
+{
+	/** time of the start of the spike in ms								*/
+	protected final double	start ;
+	/** duration of the spike in ms											*/
+	protected final double	duration ;
+	/** factor of the rate during the spike, 1 outside						*/
+	protected final double	factor ;
+
+	/**
+	 * create a spike profile.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	duration > 0.0 &amp;&amp; factor >= 0.0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param start		time of the start of the spike in ms
+	 * @param duration	duration of the spike in ms
+	 * @param factor	factor of the rate during the spike
+	 */
+	public				SpikeProfile(
+		double start,
+		double duration,
+		double factor
+		)
+	{
+		assert	duration > 0.0 && factor >= 0.0 ;
+
+		this.start = start ;
+		this.duration = duration ;
+		this.factor = factor ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.RateProfile#factor(double)
+	 */
+	@Override
+	public double		factor(double time)
+	{
+		return time >= this.start && time < this.start + this.duration
+				? this.factor : 1.0 ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.RateProfile#getMaxFactor()
+	 */
+	@Override
+	public double		getMaxFactor()
+	{
+		return Math.max(1.0, this.factor) ;
+	}
+}
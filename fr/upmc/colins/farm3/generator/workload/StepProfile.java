@@ -0,0 +1,64 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+/**
+ * The class <code>StepProfile</code> implements a sudden and lasting change
+ * of the rate at a given time.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	factor >= 0.0
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			StepProfile
+implements	RateProfile
+{
+	/** time of the step in ms												*/
+	protected final double	time ;
+	/** factor of the rate after the step, 1 before							*/
+	protected final double	factor ;
+
+	/**
+	 * create a step profile.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	factor >= 0.0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param time		time of the step in ms
+	 * @param factor	factor of the rate after the step
+	 */
+	public				StepProfile(double time, double factor)
+	{
+		assert	factor >= 0.0 ;
+
+		this.time = time ;
+		this.factor = factor ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.RateProfile#factor(double)
+	 */
+	@Override
+	public double		factor(double time)
+	{
+		return time < this.time ? 1.0 : this.factor ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.RateProfile#getMaxFactor()
+	 */
+	@Override
+	public double		getMaxFactor()
+	{
+		return Math.max(1.0, this.factor) ;
+	}
+}
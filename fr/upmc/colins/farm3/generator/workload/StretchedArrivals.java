@@ -0,0 +1,75 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+import java.util.Random;
+
+/**
+ * The class <code>StretchedArrivals</code> implements the arrival process
+ * historically used by the request generators, whose interarrival times are
+ * stretched by a profile.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * Each interarrival time drawn from the base process is divided by the
+ * factor of the profile at the time of the previous request. Unlike the
+ * thinning of <code>ModulatedArrivals</code>, the rate only approximately
+ * follows the profile: a change of the factor is seen at the first request
+ * after it, and a spike shorter than an interarrival time can be skipped.
+ * The process is kept for the default workload of the generators, whose
+ * arrivals are thus unchanged; the workloads read from a file use
+ * <code>ModulatedArrivals</code>.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	base != null &amp;&amp; profile != null
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			StretchedArrivals
+implements	ArrivalProcess
+{
+	/** process drawing the interarrival times at the nominal rate			*/
+	protected final ArrivalProcess	base ;
+	/** profile of the rate over time										*/
+	protected final RateProfile		profile ;
+
+	/**
+	 * create a stretched arrival process.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	base != null &amp;&amp; profile != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param base		process drawing the interarrival times at the nominal
+	 * 					rate
+	 * @param profile	profile of the rate over time
+	 */
+	public				StretchedArrivals(
+		ArrivalProcess base,
+		RateProfile profile
+		)
+	{
+		assert	base != null && profile != null ;
+
+		this.base = base ;
+		this.profile = profile ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.ArrivalProcess#nextInterArrival(double, java.util.Random)
+	 */
+	@Override
+	public double		nextInterArrival(double time, Random rnd)
+	{
+		double factor = Math.max(ModulatedArrivals.MIN_FACTOR,
+									this.profile.factor(time)) ;
+		return this.base.nextInterArrival(time, rnd) / factor ;
+	}
+}
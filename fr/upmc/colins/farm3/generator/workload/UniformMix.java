@@ -0,0 +1,27 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+import java.util.Random;
+
+/**
+ * The class <code>UniformMix</code> implements a mix in which all the
+ * applications are equally popular.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			UniformMix
+implements	AppMix
+{
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.AppMix#nextApp(int, java.util.Random)
+	 */
+	@Override
+	public int			nextApp(int nrofApps, Random rnd)
+	{
+		assert	nrofApps > 0 ;
+
+		return rnd.nextInt(nrofApps) ;
+	}
+}
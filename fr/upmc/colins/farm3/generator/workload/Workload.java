@@ -0,0 +1,446 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * The class <code>Workload</code> gathers the arrival process and the
+ * application mix driving a request generator.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * A workload draws the interarrival times from its <code>ArrivalProcess</code>
+ * and the applications of the requests from its <code>AppMix</code>, with a
+ * single random number generator, seeded when the workload must be
+ * reproducible by the property <code>farm3.workload.seed</code>. The default
+ * workload of the generators is a Poisson process whose interarrival times
+ * are stretched by the historical <code>SinusoidProfile</code>
+ * (<code>StretchedArrivals</code>); the profiles of a workload file thin
+ * the arrivals (<code>ModulatedArrivals</code>). Drawing from a workload does not
+ * allocate.
+ *
+ * A workload can be described by a properties file, given by the property
+ * <code>farm3.workload.file</code>:
+ * <pre>
+ * # poisson (default) or mmpp
+ * arrival = mmpp
+ * # poisson: mean interarrival time in ms, the one of the generator by default
+ * arrival.mean = 10
+ * # mmpp: mean interarrival time and mean sojourn time of each state in ms
+ * arrival.means = 2, 20
+ * arrival.sojourns = 1000, 5000
+ * # profiles of the rate, multiplied; none by default
+ * profiles = diurnal, spike, spike2
+ * diurnal.period = 600000
+ * diurnal.amplitude = 0.5
+ * diurnal.peak = 300000
+ * spike.start = 60000
+ * spike.duration = 5000
+ * spike.factor = 4
+ * spike2.start = 120000
+ * spike2.duration = 5000
+ * spike2.factor = 8
+ * # uniform, zipf or hot; the one of the generator by default
+ * mix = zipf
+ * mix.exponent = 1.0
+ * # seed of the random number generator, farm3.workload.seed by default
+ * seed = 42
+ * </pre>
+ * The type of a profile is its name without its trailing digits, so that a
+ * profile can be used several times. The other profiles are
+ * <code>step</code> (<code>time</code>, <code>factor</code>),
+ * <code>ramp</code> (<code>start</code>, <code>end</code>, <code>from</code>,
+ * <code>to</code>) and <code>sinusoid</code> (<code>period</code>,
+ * <code>amplitude</code>, <code>floor</code>); the <code>hot</code> mix has
+ * the parameters <code>mix.app</code> and <code>mix.probability</code>. All
+ * the times are in ms from the start of the workload.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	arrivals != null &amp;&amp; mix != null &amp;&amp; rnd != null
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			Workload
+{
+	/** name of the property giving the workload file						*/
+	public static final String	FILE_PROPERTY = "farm3.workload.file" ;
+	/** name of the property giving the seed of the random number generator	*/
+	public static final String	SEED_PROPERTY = "farm3.workload.seed" ;
+
+	/** arrival process of the requests										*/
+	protected final ArrivalProcess	arrivals ;
+	/** popularity of the applications										*/
+	protected final AppMix			mix ;
+	/** random number generator of the workload								*/
+	protected final Random			rnd ;
+
+	/**
+	 * create a workload.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	arrivals != null &amp;&amp; mix != null &amp;&amp; rnd != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param arrivals	arrival process of the requests
+	 * @param mix		popularity of the applications
+	 * @param rnd		random number generator of the workload
+	 */
+	public				Workload(
+		ArrivalProcess arrivals,
+		AppMix mix,
+		Random rnd
+		)
+	{
+		assert	arrivals != null && mix != null && rnd != null ;
+
+		this.arrivals = arrivals ;
+		this.mix = mix ;
+		this.rnd = rnd ;
+	}
+
+	/**
+	 * draw the time until the next request.
+	 *
+	 * @param time	time elapsed since the start of the workload in ms
+	 * @return		the interarrival time in ms
+	 */
+	public double		nextInterArrival(double time)
+	{
+		return this.arrivals.nextInterArrival(Math.max(0.0, time), this.rnd) ;
+	}
+
+	/**
+	 * choose the application of the next request.
+	 *
+	 * @param nrofApps	number of applications
+	 * @return			the identifier of the chosen application
+	 */
+	public int			nextApp(int nrofApps)
+	{
+		return this.mix.nextApp(nrofApps, this.rnd) ;
+	}
+
+	/**
+	 * @return	the random number generator of the workload, for the other
+	 * 			draws of the generator which must be reproducible
+	 */
+	public Random		getRandom()
+	{
+		return this.rnd ;
+	}
+
+	/**
+	 * @return	the arrival process of the requests
+	 */
+	public ArrivalProcess	getArrivals()
+	{
+		return this.arrivals ;
+	}
+
+	/**
+	 * @return	the popularity of the applications
+	 */
+	public AppMix		getMix()
+	{
+		return this.mix ;
+	}
+
+	/**
+	 * return the historical workload of the generators: a Poisson process
+	 * whose interarrival times are stretched by the default sinusoidal
+	 * profile.
+	 *
+	 * @param meanInterArrivalTime	mean interarrival time in ms
+	 * @param mix					popularity of the applications
+	 * @return						the default workload
+	 */
+	public static Workload	defaultWorkload(
+		double meanInterArrivalTime,
+		AppMix mix
+		)
+	{
+		return new Workload(
+				new StretchedArrivals(
+						new PoissonArrivals(meanInterArrivalTime),
+						SinusoidProfile.DEFAULT),
+				mix, newRandom(System.getProperty(SEED_PROPERTY))) ;
+	}
+
+	/**
+	 * create the random number generator of a workload.
+	 *
+	 * @param seed	the seed, null for a generator seeded differently at each
+	 * 				run
+	 * @return		the random number generator
+	 * @throws NumberFormatException	if the seed is not an integer
+	 */
+	protected static Random	newRandom(String seed)
+	{
+		return seed == null ? new Random() : new Random(Long.parseLong(seed.trim())) ;
+	}
+
+	/**
+	 * return the workload described by the file given by the property
+	 * <code>FILE_PROPERTY</code>, or the default workload if it is not set.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	meanInterArrivalTime > 0.0 &amp;&amp; defaultMix != null
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @param meanInterArrivalTime	mean interarrival time of the generator
+	 * 								in ms
+	 * @param defaultMix			mix of the generator
+	 * @return						the configured workload
+	 * @throws Exception			if the file cannot be read or is invalid
+	 */
+	public static Workload	getConfigured(
+		double meanInterArrivalTime,
+		AppMix defaultMix
+		) throws Exception
+	{
+		String file = System.getProperty(FILE_PROPERTY) ;
+		if (file == null) {
+			return defaultWorkload(meanInterArrivalTime, defaultMix) ;
+		}
+		return load(file, meanInterArrivalTime, defaultMix) ;
+	}
+
+	/**
+	 * read a workload from a file.
+	 *
+	 * @param fileName				name of the workload file
+	 * @param meanInterArrivalTime	mean interarrival time of the generator
+	 * 								in ms
+	 * @param defaultMix			mix of the generator
+	 * @return						the workload described by the file
+	 * @throws Exception			if the file cannot be read or is invalid
+	 */
+	public static Workload	load(
+		String fileName,
+		double meanInterArrivalTime,
+		AppMix defaultMix
+		) throws Exception
+	{
+		Properties p = new Properties() ;
+		try (Reader in = new FileReader(fileName)) {
+			p.load(in) ;
+		} catch (IOException e) {
+			throw new Exception("Cannot read the workload " + fileName, e) ;
+		}
+		return parse(p, meanInterArrivalTime, defaultMix) ;
+	}
+
+	/**
+	 * build a workload from its description.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	p != null &amp;&amp; meanInterArrivalTime > 0.0 &amp;&amp; defaultMix != null
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @param p						the description of the workload
+	 * @param meanInterArrivalTime	mean interarrival time of the generator
+	 * 								in ms
+	 * @param defaultMix			mix of the generator
+	 * @return						the workload
+	 * @throws Exception			if the description is invalid
+	 */
+	public static Workload	parse(
+		Properties p,
+		double meanInterArrivalTime,
+		AppMix defaultMix
+		) throws Exception
+	{
+		assert	p != null && meanInterArrivalTime > 0.0 && defaultMix != null ;
+
+		ArrivalProcess arrivals ;
+		String arrival = p.getProperty("arrival", "poisson").trim() ;
+		if (arrival.equals("poisson")) {
+			arrivals = new PoissonArrivals(
+					getPositive(p, "arrival.mean", meanInterArrivalTime)) ;
+		} else if (arrival.equals("mmpp")) {
+			double[] means = getList(p, "arrival.means") ;
+			double[] sojourns = getList(p, "arrival.sojourns") ;
+			if (means.length == 0 || means.length != sojourns.length) {
+				throw new Exception("arrival.means and arrival.sojourns must "
+						+ "give as many values") ;
+			}
+			arrivals = new MmppArrivals(means, sojourns) ;
+		} else {
+			throw new Exception("Unknown arrival process " + arrival) ;
+		}
+
+		String names = p.getProperty("profiles", "").trim() ;
+		if (!names.isEmpty()) {
+			List<RateProfile> profiles = new ArrayList<RateProfile>() ;
+			for (String name : names.split("[\\s,]+")) {
+				profiles.add(parseProfile(p, name)) ;
+			}
+			arrivals = new ModulatedArrivals(arrivals,
+					profiles.size() == 1 ? profiles.get(0)
+										 : new ProductProfile(profiles)) ;
+		}
+
+		AppMix mix ;
+		String mixName = p.getProperty("mix", "").trim() ;
+		if (mixName.isEmpty()) {
+			mix = defaultMix ;
+		} else if (mixName.equals("uniform")) {
+			mix = new UniformMix() ;
+		} else if (mixName.equals("zipf")) {
+			mix = new ZipfMix(getDouble(p, "mix.exponent", 1.0)) ;
+		} else if (mixName.equals("hot")) {
+			mix = new HotAppMix((int) getDouble(p, "mix.app", 0.0),
+								getDouble(p, "mix.probability", 0.8)) ;
+		} else {
+			throw new Exception("Unknown application mix " + mixName) ;
+		}
+
+		String seed = p.getProperty("seed", System.getProperty(SEED_PROPERTY)) ;
+		try {
+			return new Workload(arrivals, mix, newRandom(seed)) ;
+		} catch (NumberFormatException e) {
+			throw new Exception("Invalid workload seed " + seed) ;
+		}
+	}
+
+	/**
+	 * build a profile from its description, its type being its name without
+	 * its trailing digits.
+	 *
+	 * @param p		the description of the workload
+	 * @param name	the name of the profile
+	 * @return		the profile
+	 * @throws Exception	if the description is invalid
+	 */
+	protected static RateProfile	parseProfile(Properties p, String name)
+	throws Exception
+	{
+		String type = name.replaceAll("\\d+$", "") ;
+		String k = name + "." ;
+		if (type.equals("diurnal")) {
+			return new DiurnalProfile(getPositive(p, k + "period", null),
+									  getDouble(p, k + "amplitude", 0.5),
+									  getDouble(p, k + "peak", 0.0)) ;
+		} else if (type.equals("step")) {
+			return new StepProfile(getDouble(p, k + "time", null),
+								   getDouble(p, k + "factor", null)) ;
+		} else if (type.equals("ramp")) {
+			return new RampProfile(getDouble(p, k + "start", null),
+								   getDouble(p, k + "end", null),
+								   getDouble(p, k + "from", 1.0),
+								   getDouble(p, k + "to", null)) ;
+		} else if (type.equals("spike")) {
+			return new SpikeProfile(getDouble(p, k + "start", null),
+									getPositive(p, k + "duration", null),
+									getDouble(p, k + "factor", null)) ;
+		} else if (type.equals("sinusoid")) {
+			return new SinusoidProfile(
+					getPositive(p, k + "period", 2.0 * Math.PI * 5000.0),
+					getDouble(p, k + "amplitude", 1.0),
+					getDouble(p, k + "floor", 0.1)) ;
+		}
+		throw new Exception("Unknown profile " + name) ;
+	}
+
+	/**
+	 * @param p				the description of the workload
+	 * @param key			the key of the value
+	 * @param defaultValue	the value if the key is missing, null if the key
+	 * 						is mandatory
+	 * @return				the value of the key
+	 * @throws Exception	if the value is missing or not a number
+	 */
+	protected static double	getDouble(
+		Properties p,
+		String key,
+		Double defaultValue
+		) throws Exception
+	{
+		String value = p.getProperty(key) ;
+		if (value == null) {
+			if (defaultValue == null) {
+				throw new Exception("Missing workload parameter " + key) ;
+			}
+			return defaultValue ;
+		}
+		try {
+			return Double.parseDouble(value.trim()) ;
+		} catch (NumberFormatException e) {
+			throw new Exception("Invalid workload parameter " + key + " = "
+					+ value) ;
+		}
+	}
+
+	/**
+	 * @param p				the description of the workload
+	 * @param key			the key of the value
+	 * @param defaultValue	the value if the key is missing, null if the key
+	 * 						is mandatory
+	 * @return				the value of the key
+	 * @throws Exception	if the value is missing or not a positive number
+	 */
+	protected static double	getPositive(
+		Properties p,
+		String key,
+		Double defaultValue
+		) throws Exception
+	{
+		double value = getDouble(p, key, defaultValue) ;
+		if (value <= 0.0) {
+			throw new Exception("Workload parameter " + key
+					+ " must be positive") ;
+		}
+		return value ;
+	}
+
+	/**
+	 * @param p				the description of the workload
+	 * @param key			the key of the list
+	 * @return				the positive values of the list, separated by
+	 * 						spaces or commas
+	 * @throws Exception	if the list is missing or has invalid values
+	 */
+	protected static double[]	getList(Properties p, String key)
+	throws Exception
+	{
+		String value = p.getProperty(key) ;
+		if (value == null || value.trim().isEmpty()) {
+			throw new Exception("Missing workload parameter " + key) ;
+		}
+		String[] fields = value.trim().split("[\\s,]+") ;
+		double[] values = new double[fields.length] ;
+		for (int i = 0; i < fields.length; i++) {
+			try {
+				values[i] = Double.parseDouble(fields[i]) ;
+			} catch (NumberFormatException e) {
+				throw new Exception("Invalid workload parameter " + key
+						+ " = " + value) ;
+			}
+			if (values[i] <= 0.0) {
+				throw new Exception("Workload parameter " + key
+						+ " must be positive") ;
+			}
+		}
+		return values ;
+	}
+}
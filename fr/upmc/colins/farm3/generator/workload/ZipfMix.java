@@ -0,0 +1,83 @@
+package fr.upmc.colins.farm3.generator.workload;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The class <code>ZipfMix</code> implements a mix in which the popularity of
+ * the applications follows a Zipf law.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The application of rank <code>k</code>, starting from 1, gets a share of
+ * the requests proportional to <code>1 / k^exponent</code>: the first
+ * application is the most popular, and the higher the exponent, the more
+ * skewed the popularity. The cumulative distribution is computed once per
+ * number of applications, then each choice is a binary search.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	exponent >= 0.0
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			ZipfMix
+implements	AppMix
+{
+	/** exponent of the Zipf law, 0 for a uniform popularity				*/
+	protected final double	exponent ;
+	/** cumulative distribution of the popularity, null until the first
+	 *  choice																*/
+	protected double[]		cumulative ;
+
+	/**
+	 * create a Zipf mix.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	exponent >= 0.0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param exponent	exponent of the Zipf law
+	 */
+	public				ZipfMix(double exponent)
+	{
+		assert	exponent >= 0.0 ;
+
+		this.exponent = exponent ;
+		this.cumulative = null ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.generator.workload.AppMix#nextApp(int, java.util.Random)
+	 */
+	@Override
+	public int			nextApp(int nrofApps, Random rnd)
+	{
+		assert	nrofApps > 0 ;
+
+		if (this.cumulative == null || this.cumulative.length != nrofApps) {
+			this.cumulative = new double[nrofApps] ;
+			double sum = 0.0 ;
+			for (int k = 0; k < nrofApps; k++) {
+				sum += 1.0 / Math.pow(k + 1, this.exponent) ;
+				this.cumulative[k] = sum ;
+			}
+			for (int k = 0; k < nrofApps; k++) {
+				this.cumulative[k] /= sum ;
+			}
+		}
+		int index = Arrays.binarySearch(this.cumulative, rnd.nextDouble()) ;
+		if (index < 0) {
+			index = -index - 1 ;
+		}
+		return Math.min(index, nrofApps - 1) ;
+	}
+}
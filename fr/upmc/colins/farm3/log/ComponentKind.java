@@ -0,0 +1,64 @@
+package fr.upmc.colins.farm3.log;
+
+import java.text.MessageFormat;
+
+import fr.upmc.colins.farm3.VerboseSettings;
+
+/**
+ * The enumeration <code>ComponentKind</code> defines the kinds of components
+ * emitting events, each with the prefix of its human-readable lines.
+ *
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public enum				ComponentKind
+{
+	ACTUATOR("[ ACTT {0}  ]", VerboseSettings.VERBOSE_ACTUATOR),
+	ADMISSION("[ AdmControl ]", VerboseSettings.VERBOSE_ADMISSION),
+	CORE("[ Core {0}  ]", VerboseSettings.VERBOSE_CORE),
+	CPU("[  Cpu {0}  ]", VerboseSettings.VERBOSE_CPU),
+	DISPATCHER("[   RD {0}  ]", VerboseSettings.VERBOSE_DISPATCHER),
+	GENERATOR("[ RequestGen ]", VerboseSettings.VERBOSE_GENERATOR),
+	VM("[   VM {0}  ]", VerboseSettings.VERBOSE_VM) ;
+
+	/** pattern of the prefix, {0} being the identifier of the component	*/
+	protected final String		logIdPattern ;
+	/** true if the kind logs by default									*/
+	protected final boolean		verbose ;
+
+	private				ComponentKind(String logIdPattern, boolean verbose)
+	{
+		this.logIdPattern = logIdPattern ;
+		this.verbose = verbose ;
+	}
+
+	/**
+	 * @return	the name of the system property setting the level of the kind
+	 */
+	public String		getPropertyName()
+	{
+		return "farm3.log." + this.name().toLowerCase() ;
+	}
+
+	/**
+	 * @return	the level of the kind when no property sets it
+	 */
+	public LogLevel		getDefaultLevel()
+	{
+		return this.verbose ? LogLevel.DEBUG : LogLevel.OFF ;
+	}
+
+	/**
+	 * return the prefix of the lines of a component of this kind.
+	 *
+	 * @param componentId	identifier of the component
+	 * @return				the prefix, eg. <code>[ Core 0003  ]</code>
+	 */
+	public String		getLogId(int componentId)
+	{
+		return MessageFormat.format(this.logIdPattern,
+									String.format("%04d", componentId)) ;
+	}
+}
@@ -0,0 +1,429 @@
+package fr.upmc.colins.farm3.log;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import fr.upmc.colins.farm3.simulation.SimulationClock;
+
+/**
+ * The class <code>EventLog</code> implements the asynchronous binary event
+ * log of the components.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The log is a bounded ring buffer made of preallocated parallel arrays, one
+ * per field of an event. A producer claims a sequence number with a CAS,
+ * writes the fields in the slot of this sequence and publishes the slot; it
+ * never blocks nor allocates, and the event is dropped and counted if the
+ * buffer is full. A single daemon thread drains the published slots in order
+ * and writes them to the binary file, and flushes the file when the buffer is
+ * empty. The remaining events are written by a shutdown hook.
+ * 
+ * The file starts with a header made of <code>MAGIC</code>,
+ * <code>VERSION</code> and the pair (epoch time in milliseconds, time source
+ * in nanoseconds) taken at the creation of the log, which is used to convert
+ * the time of the events back to wall-clock time. Each record is made of the
+ * time of the event in nanoseconds (long), the code of its type (int), the
+ * identifier of the component (int), the identifier of the request (long) and
+ * the value (double).
+ * 
+ * The level of each kind of component is checked before anything else, so a
+ * disabled event costs an array read; the log itself is only created when the
+ * first enabled event is recorded.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	capacity is a power of two
+ * invariant	tail &lt;= head.get() &amp;&amp; head.get() - tail &lt;= capacity
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			EventLog
+{
+	/** first int of the file												*/
+	public static final int		MAGIC = 0x46334556 ;
+	/** version of the binary format, 2 since the removal of VM_QUEUE		*/
+	public static final int		VERSION = 2 ;
+	/** default number of events of the ring buffer							*/
+	public static final int		DEFAULT_CAPACITY = 1 << 16 ;
+	/** default path of the binary file										*/
+	public static final String	DEFAULT_FILE = "logs/events.bin" ;
+	/** delay of the draining thread when the buffer is empty				*/
+	protected static final long	DRAIN_PERIOD_NANOS = 1000000L ;
+
+	/** level of each kind of component, by ordinal; replaced on update		*/
+	private static volatile int[]	levels = initialLevels() ;
+
+	/** mask giving the slot of a sequence number							*/
+	protected final int				mask ;
+	/** time of the event of each slot, in nanoseconds						*/
+	protected final long[]			times ;
+	/** code of the type of the event of each slot							*/
+	protected final int[]			types ;
+	/** identifier of the component of each slot							*/
+	protected final int[]			componentIds ;
+	/** identifier of the request of each slot								*/
+	protected final long[]			requestIds ;
+	/** value of the event of each slot										*/
+	protected final double[]		values ;
+	/** sequence number + 1 of the event published in each slot				*/
+	protected final AtomicLongArray	published ;
+	/** next sequence number to be claimed by a producer					*/
+	protected final AtomicLong		head ;
+	/** next sequence number to be drained									*/
+	protected volatile long			tail ;
+	/** number of events dropped because the buffer was full				*/
+	protected final AtomicLong		dropped ;
+
+	/** epoch time in milliseconds at the creation of the log				*/
+	protected final long			originMillis ;
+	/** time source in nanoseconds at the creation of the log				*/
+	protected final long			originNanos ;
+	/** binary file, null if it could not be opened							*/
+	protected DataOutputStream		out ;
+	/** true if the drained events are also printed on the console			*/
+	protected final boolean			console ;
+	/** true once the log has been closed									*/
+	protected boolean				closed ;
+
+	/**
+	 * holder of the log, created when the first enabled event is recorded.
+	 */
+	private static class	Holder
+	{
+		static final EventLog	INSTANCE = EventLog.start() ;
+	}
+
+	/**
+	 * create a log.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	capacity > 0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param capacity	minimal number of events of the ring buffer, rounded up
+	 * 					to a power of two
+	 * @param out		binary file, null to only print on the console
+	 * @param console	true if the drained events are printed on the console
+	 * @throws IOException	if the header cannot be written
+	 */
+	protected			EventLog(
+		int capacity,
+		DataOutputStream out,
+		boolean console
+		) throws IOException
+	{
+		assert	capacity > 0 ;
+
+		int size = Integer.highestOneBit(Math.max(2, capacity)) ;
+		if (size < capacity) {
+			size <<= 1 ;
+		}
+		this.mask = size - 1 ;
+		this.times = new long[size] ;
+		this.types = new int[size] ;
+		this.componentIds = new int[size] ;
+		this.requestIds = new long[size] ;
+		this.values = new double[size] ;
+		this.published = new AtomicLongArray(size) ;
+		this.head = new AtomicLong() ;
+		this.tail = 0L ;
+		this.dropped = new AtomicLong() ;
+		this.originMillis = SimulationClock.currentTimeMillis() ;
+		this.originNanos = SimulationClock.nanoTime() ;
+		this.console = console ;
+		this.closed = false ;
+		this.out = out ;
+		if (out != null) {
+			out.writeInt(MAGIC) ;
+			out.writeInt(VERSION) ;
+			out.writeLong(this.originMillis) ;
+			out.writeLong(this.originNanos) ;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// Levels
+	// ------------------------------------------------------------------------
+
+	private static int[]	initialLevels()
+	{
+		LogLevel all = LogLevel.parse(System.getProperty("farm3.log.level"),
+									  null) ;
+		ComponentKind[] kinds = ComponentKind.values() ;
+		int[] ret = new int[kinds.length] ;
+		for (ComponentKind k : kinds) {
+			LogLevel l = LogLevel.parse(System.getProperty(k.getPropertyName()),
+							all != null ? all : k.getDefaultLevel()) ;
+			ret[k.ordinal()] = l.ordinal() ;
+		}
+		return ret ;
+	}
+
+	/**
+	 * set the level of a kind of component.
+	 *
+	 * @param kind		the kind of component
+	 * @param level		its new level
+	 */
+	public static synchronized void	setLevel(ComponentKind kind, LogLevel level)
+	{
+		assert	kind != null && level != null ;
+
+		int[] copy = levels.clone() ;
+		copy[kind.ordinal()] = level.ordinal() ;
+		levels = copy ;
+	}
+
+	/**
+	 * @param kind		a kind of component
+	 * @return			the level of this kind of component
+	 */
+	public static LogLevel	getLevel(ComponentKind kind)
+	{
+		return LogLevel.values()[levels[kind.ordinal()]] ;
+	}
+
+	/**
+	 * @param type		a type of event
+	 * @return			true if the events of this type are recorded
+	 */
+	public static boolean	isEnabled(EventType type)
+	{
+		return type.level.ordinal() <= levels[type.kind.ordinal()] ;
+	}
+
+	// ------------------------------------------------------------------------
+	// Recording
+	// ------------------------------------------------------------------------
+
+	/**
+	 * record an event if its type is enabled; never blocks.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	type != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param type			type of the event
+	 * @param componentId	identifier of the emitting component
+	 * @param requestId		identifier of the request, -1 if none
+	 * @param value			value of the event, see its template
+	 */
+	public static void	log(
+		EventType type,
+		int componentId,
+		long requestId,
+		double value
+		)
+	{
+		if (type.level.ordinal() <= levels[type.kind.ordinal()]) {
+			Holder.INSTANCE.record(type, componentId, requestId, value) ;
+		}
+	}
+
+	/**
+	 * record an event without value if its type is enabled; never blocks.
+	 *
+	 * @param type			type of the event
+	 * @param componentId	identifier of the emitting component
+	 * @param requestId		identifier of the request
+	 */
+	public static void	log(EventType type, int componentId, long requestId)
+	{
+		log(type, componentId, requestId, 0.0) ;
+	}
+
+	/**
+	 * @return	the number of events dropped since the creation of the log
+	 */
+	public static long	getNrofDroppedEvents()
+	{
+		return Holder.INSTANCE.dropped.get() ;
+	}
+
+	protected void		record(
+		EventType type,
+		int componentId,
+		long requestId,
+		double value
+		)
+	{
+		long seq ;
+		do {
+			seq = this.head.get() ;
+			if (seq - this.tail > this.mask) {
+				this.dropped.incrementAndGet() ;
+				return ;
+			}
+		} while (!this.head.compareAndSet(seq, seq + 1)) ;
+		int slot = (int) (seq & this.mask) ;
+		this.times[slot] = SimulationClock.nanoTime() ;
+		this.types[slot] = type.ordinal() ;
+		this.componentIds[slot] = componentId ;
+		this.requestIds[slot] = requestId ;
+		this.values[slot] = value ;
+		// ordered after the writes of the fields
+		this.published.lazySet(slot, seq + 1) ;
+	}
+
+	// ------------------------------------------------------------------------
+	// Draining
+	// ------------------------------------------------------------------------
+
+	/**
+	 * write the published events to the file, in order.
+	 *
+	 * @return	the number of events written
+	 */
+	protected synchronized int	drain()
+	{
+		int n = 0 ;
+		long seq = this.tail ;
+		int slot = (int) (seq & this.mask) ;
+		while (!this.closed && this.published.get(slot) == seq + 1) {
+			this.write(this.times[slot], this.types[slot],
+					   this.componentIds[slot], this.requestIds[slot],
+					   this.values[slot]) ;
+			// releases the slot to the producers
+			this.tail = ++seq ;
+			slot = (int) (seq & this.mask) ;
+			n++ ;
+		}
+		return n ;
+	}
+
+	private void		write(
+		long time,
+		int type,
+		int componentId,
+		long requestId,
+		double value
+		)
+	{
+		if (this.out != null) {
+			try {
+				this.out.writeLong(time) ;
+				this.out.writeInt(type) ;
+				this.out.writeInt(componentId) ;
+				this.out.writeLong(requestId) ;
+				this.out.writeDouble(value) ;
+			} catch (IOException e) {
+				e.printStackTrace() ;
+				this.out = null ;
+			}
+		}
+		if (this.console) {
+			System.out.println(EventType.fromCode(type).format(componentId,
+								requestId, this.toMillis(time), value)) ;
+		}
+	}
+
+	/**
+	 * convert a time of the time source to an epoch time.
+	 *
+	 * @param nanos		time of the time source in nanoseconds
+	 * @return			the corresponding epoch time in milliseconds
+	 */
+	protected long		toMillis(long nanos)
+	{
+		return this.originMillis + (nanos - this.originNanos) / 1000000L ;
+	}
+
+	protected synchronized void	flush()
+	{
+		if (this.out != null) {
+			try {
+				this.out.flush() ;
+			} catch (IOException e) {
+				e.printStackTrace() ;
+				this.out = null ;
+			}
+		}
+	}
+
+	protected synchronized void	close()
+	{
+		this.drain() ;
+		this.flush() ;
+		if (this.out != null) {
+			try {
+				this.out.close() ;
+			} catch (IOException e) {
+				e.printStackTrace() ;
+			}
+		}
+		if (this.dropped.get() > 0) {
+			System.err.println("[  EventLog  ] " + this.dropped.get()
+									+ " events dropped") ;
+		}
+		this.closed = true ;
+	}
+
+	/**
+	 * create the log from the system properties and start its draining thread.
+	 */
+	private static EventLog	start()
+	{
+		int capacity = Integer.getInteger("farm3.log.capacity",
+										  DEFAULT_CAPACITY) ;
+		boolean console = Boolean.getBoolean("farm3.log.console") ;
+		String path = System.getProperty("farm3.log.file", DEFAULT_FILE) ;
+		EventLog log ;
+		try {
+			DataOutputStream out = null ;
+			try {
+				File file = new File(path) ;
+				if (file.getParentFile() != null) {
+					file.getParentFile().mkdirs() ;
+				}
+				out = new DataOutputStream(new BufferedOutputStream(
+										new FileOutputStream(file))) ;
+			} catch (IOException e) {
+				System.err.println("[  EventLog  ] cannot open " + path
+										+ ", " + e.getMessage()) ;
+			}
+			log = new EventLog(capacity, out, console) ;
+		} catch (IOException e) {
+			throw new IllegalStateException(e) ;
+		}
+
+		final EventLog fLog = log ;
+		Thread drainer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (!fLog.closed) {
+					if (fLog.drain() == 0) {
+						fLog.flush() ;
+						LockSupport.parkNanos(DRAIN_PERIOD_NANOS) ;
+					}
+				}
+			}
+		}, "farm3-event-log") ;
+		drainer.setDaemon(true) ;
+		drainer.start() ;
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				fLog.close() ;
+			}
+		})) ;
+		return log ;
+	}
+}
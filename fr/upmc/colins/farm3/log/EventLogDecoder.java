@@ -0,0 +1,90 @@
+package fr.upmc.colins.farm3.log;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * The class <code>EventLogDecoder</code> decodes a binary file written by the
+ * event log into the human-readable lines formerly printed by the components.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * Usage: <code>java fr.upmc.colins.farm3.log.EventLogDecoder [file]</code>,
+ * the file being <code>EventLog.DEFAULT_FILE</code> if not given. The lines
+ * are printed on the standard output in the order of the records.
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			EventLogDecoder
+{
+	/**
+	 * decode a binary file.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	in != null &amp;&amp; ps != null
+	 * post	ret >= 0
+	 * </pre>
+	 *
+	 * @param in		the binary file
+	 * @param ps		the stream receiving the lines
+	 * @return			the number of decoded events
+	 * @throws IOException	if the file is not an event log
+	 */
+	public static long	decode(DataInputStream in, PrintStream ps)
+	throws IOException
+	{
+		assert	in != null && ps != null ;
+
+		if (in.readInt() != EventLog.MAGIC) {
+			throw new IOException("not an event log") ;
+		}
+		int version = in.readInt() ;
+		if (version != EventLog.VERSION) {
+			throw new IOException("unsupported version " + version) ;
+		}
+		long originMillis = in.readLong() ;
+		long originNanos = in.readLong() ;
+		long n = 0 ;
+		while (true) {
+			long time ;
+			try {
+				time = in.readLong() ;
+			} catch (EOFException e) {
+				return n ;
+			}
+			int code = in.readInt() ;
+			int componentId = in.readInt() ;
+			long requestId = in.readLong() ;
+			double value = in.readDouble() ;
+			long millis = originMillis + (time - originNanos) / 1000000L ;
+			EventType type = EventType.fromCode(code) ;
+			if (type == null) {
+				ps.println("[  EventLog  ] unknown event code " + code) ;
+			} else {
+				ps.println(type.format(componentId, requestId, millis, value)) ;
+			}
+			n++ ;
+		}
+	}
+
+	public static void	main(String[] args) throws IOException
+	{
+		String path = args.length > 0 ? args[0] : EventLog.DEFAULT_FILE ;
+		DataInputStream in = new DataInputStream(
+						new BufferedInputStream(new FileInputStream(path))) ;
+		try {
+			decode(in, System.out) ;
+		} finally {
+			in.close() ;
+		}
+	}
+}
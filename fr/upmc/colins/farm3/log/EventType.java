@@ -0,0 +1,143 @@
+package fr.upmc.colins.farm3.log;
+
+import java.text.MessageFormat;
+
+import fr.upmc.colins.farm3.utils.TimeProcessing;
+
+/**
+ * The enumeration <code>EventType</code> defines the events of the event log.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * Each type is bound to the kind of component emitting it, to its level and
+ * to the template of its human-readable line, where <code>{0}</code> is the
+ * identifier of the request, <code>{1}</code> the time of the event,
+ * <code>{2}</code> the value of the event and <code>{3}</code> the time of
+ * the event delayed by the value in milliseconds. The code of a type is
+ * written in the binary records, new types must therefore be appended, and
+ * removing or reordering types requires a new <code>EventLog.VERSION</code>.
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public enum				EventType
+{
+	CORE_ACCEPT(ComponentKind.CORE, LogLevel.DEBUG,
+				"Accepting request       {0} at {1}"),
+	CORE_QUEUE(ComponentKind.CORE, LogLevel.DEBUG,
+				"Queueing request        {0}"),
+	CORE_REJECT(ComponentKind.CORE, LogLevel.INFO,
+				"Rejecting request, {2} requests already accepted"),
+	CORE_PREEMPT(ComponentKind.CORE, LogLevel.INFO,
+				"Preempting request      {0} ({2} instructions left)"),
+	VM_DISPATCH(ComponentKind.VM, LogLevel.DEBUG,
+				"Dispatching request     {0} at {1}"),
+	VM_REJECT(ComponentKind.VM, LogLevel.INFO,
+				"All cores rejected request {0}"),
+	DISPATCHER_ACCEPT(ComponentKind.DISPATCHER, LogLevel.DEBUG,
+				"Accepting request       {0} at {1} with {2} instructions"),
+	DISPATCHER_QUEUE(ComponentKind.DISPATCHER, LogLevel.DEBUG,
+				"Queueing request {0}"),
+	DISPATCHER_DISPATCH(ComponentKind.DISPATCHER, LogLevel.DEBUG,
+				"Dispatching request     {0} at {1}"),
+	DISPATCHER_REJECT(ComponentKind.DISPATCHER, LogLevel.INFO,
+				"Request {0} rejected by all the virtual machines"),
+	GENERATOR_SCHEDULE(ComponentKind.GENERATOR, LogLevel.DEBUG,
+				"Scheduling request app {0}  at {3}") ;
+
+	/** kind of the components emitting the event							*/
+	protected final ComponentKind	kind ;
+	/** level of the event													*/
+	protected final LogLevel	level ;
+	/** template of the human-readable line									*/
+	protected final String		template ;
+
+	private				EventType(
+		ComponentKind kind,
+		LogLevel level,
+		String template
+		)
+	{
+		this.kind = kind ;
+		this.level = level ;
+		this.template = template ;
+	}
+
+	/**
+	 * @return	the kind of the components emitting the event
+	 */
+	public ComponentKind	getKind()
+	{
+		return this.kind ;
+	}
+
+	/**
+	 * @return	the level of the event
+	 */
+	public LogLevel		getLevel()
+	{
+		return this.level ;
+	}
+
+	/**
+	 * @return	the code of the event in the binary records
+	 */
+	public int			getCode()
+	{
+		return this.ordinal() ;
+	}
+
+	/**
+	 * return the type of a given code.
+	 *
+	 * @param code		code read in a binary record
+	 * @return			the type of the code, null if unknown
+	 */
+	public static EventType	fromCode(int code)
+	{
+		EventType[] types = values() ;
+		return code >= 0 && code < types.length ? types[code] : null ;
+	}
+
+	/**
+	 * format the human-readable line of an event.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @param componentId	identifier of the emitting component
+	 * @param requestId		identifier of the request
+	 * @param timeMillis	time of the event in milliseconds
+	 * @param value			value of the event
+	 * @return				the line, as formerly printed on the console
+	 */
+	public String		format(
+		int componentId,
+		long requestId,
+		long timeMillis,
+		double value
+		)
+	{
+		// the arguments are given as strings so that no grouping is applied
+		return this.kind.getLogId(componentId) + " " +
+			MessageFormat.format(this.template,
+				Long.toString(requestId),
+				TimeProcessing.toString(timeMillis),
+				formatValue(value),
+				TimeProcessing.toString(timeMillis + (long) value)) ;
+	}
+
+	private static String	formatValue(double value)
+	{
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			return Long.toString((long) value) ;
+		}
+		return Double.toString(value) ;
+	}
+}
@@ -0,0 +1,43 @@
+package fr.upmc.colins.farm3.log;
+
+/**
+ * The enumeration <code>LogLevel</code> defines the levels of the event log,
+ * from the least to the most verbose.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * An event is recorded if its level is lower or equal to the level of the
+ * kind of component which emits it: <code>INFO</code> events are the rare
+ * ones (rejections, preemptions), <code>DEBUG</code> events are emitted for
+ * every request.
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public enum				LogLevel
+{
+	OFF,
+	INFO,
+	DEBUG ;
+
+	/**
+	 * parse a level, ignoring the case.
+	 *
+	 * @param name		name of the level, may be null
+	 * @param defaultLevel	level returned if the name is null or unknown
+	 * @return			the level of the given name
+	 */
+	public static LogLevel	parse(String name, LogLevel defaultLevel)
+	{
+		if (name != null) {
+			for (LogLevel l : values()) {
+				if (l.name().equalsIgnoreCase(name.trim())) {
+					return l ;
+				}
+			}
+		}
+		return defaultLevel ;
+	}
+}
@@ -0,0 +1,87 @@
+package fr.upmc.colins.farm3.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class <code>Counter</code> implements a monotonic counter, updated with
+ * an atomic increment.
+ *
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			Counter
+extends		Metric
+{
+	/** value of the counter												*/
+	protected final AtomicLong	value ;
+
+	/**
+	 * create a counter at zero.
+	 *
+	 * @param name		name of the counter, ending with <code>_total</code>
+	 * @param labels	labels of the counter, empty if none
+	 * @param help		help text of the counter
+	 */
+	public				Counter(String name, String labels, String help)
+	{
+		super(name, labels, help) ;
+		this.value = new AtomicLong() ;
+	}
+
+	/**
+	 * increment the counter.
+	 */
+	public void			inc()
+	{
+		this.value.incrementAndGet() ;
+	}
+
+	/**
+	 * add a non negative amount to the counter.
+	 *
+	 * @param amount	the amount to be added
+	 */
+	public void			add(long amount)
+	{
+		assert	amount >= 0 ;
+
+		this.value.addAndGet(amount) ;
+	}
+
+	/**
+	 * @return	the value of the counter
+	 */
+	public long			get()
+	{
+		return this.value.get() ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.metrics.Metric#getType()
+	 */
+	@Override
+	public String		getType()
+	{
+		return "counter" ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.metrics.Metric#writePrometheus(java.lang.StringBuilder)
+	 */
+	@Override
+	public void			writePrometheus(StringBuilder sb)
+	{
+		this.sample(sb, "", null, this.get()) ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.metrics.Metric#writeCsv(java.lang.StringBuilder, long)
+	 */
+	@Override
+	public void			writeCsv(StringBuilder sb, long time)
+	{
+		this.csv(sb, time, "", null, this.get()) ;
+	}
+}
@@ -0,0 +1,64 @@
+package fr.upmc.colins.farm3.metrics;
+
+/**
+ * The class <code>Gauge</code> defines a gauge whose value is computed when it
+ * is exported, so that it costs nothing to the component it observes.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The components subclass it anonymously to read their state; the value is
+ * read from the exporting thread, the fields read must therefore tolerate
+ * a stale read (eg. be volatile or atomic).
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public abstract class	Gauge
+extends		Metric
+{
+	/**
+	 * create a gauge.
+	 *
+	 * @param name		name of the gauge
+	 * @param labels	labels of the gauge, empty if none
+	 * @param help		help text of the gauge
+	 */
+	public				Gauge(String name, String labels, String help)
+	{
+		super(name, labels, help) ;
+	}
+
+	/**
+	 * @return	the current value of the gauge
+	 */
+	public abstract double	getValue() ;
+
+	/**
+	 * @see fr.upmc.colins.farm3.metrics.Metric#getType()
+	 */
+	@Override
+	public String		getType()
+	{
+		return "gauge" ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.metrics.Metric#writePrometheus(java.lang.StringBuilder)
+	 */
+	@Override
+	public void			writePrometheus(StringBuilder sb)
+	{
+		this.sample(sb, "", null, this.getValue()) ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.metrics.Metric#writeCsv(java.lang.StringBuilder, long)
+	 */
+	@Override
+	public void			writeCsv(StringBuilder sb, long time)
+	{
+		this.csv(sb, time, "", null, this.getValue()) ;
+	}
+}
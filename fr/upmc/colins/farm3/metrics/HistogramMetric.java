@@ -0,0 +1,106 @@
+package fr.upmc.colins.farm3.metrics;
+
+import java.math.BigDecimal;
+
+import fr.upmc.colins.farm3.stats.HistogramSnapshot;
+import fr.upmc.colins.farm3.stats.LatencyHistogram;
+
+/**
+ * The class <code>HistogramMetric</code> exports a latency histogram as a
+ * Prometheus summary: the exported percentiles, the count and the sum, in
+ * seconds, of all the values recorded since its creation.
+ *
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			HistogramMetric
+extends		Metric
+{
+	/** the exported histogram, in nanoseconds								*/
+	protected final LatencyHistogram	histogram ;
+
+	/**
+	 * create a metric exporting a histogram.
+	 *
+	 * @param name		name of the metric, ending with <code>_seconds</code>
+	 * @param labels	labels of the metric, empty if none
+	 * @param help		help text of the metric
+	 * @param histogram	the histogram, recording nanoseconds
+	 */
+	public				HistogramMetric(
+		String name,
+		String labels,
+		String help,
+		LatencyHistogram histogram
+		)
+	{
+		super(name, labels, help) ;
+		assert	histogram != null ;
+		this.histogram = histogram ;
+	}
+
+	/**
+	 * @return	the exported histogram
+	 */
+	public LatencyHistogram	getHistogram()
+	{
+		return this.histogram ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.metrics.Metric#getType()
+	 */
+	@Override
+	public String		getType()
+	{
+		return "summary" ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.metrics.Metric#writePrometheus(java.lang.StringBuilder)
+	 */
+	@Override
+	public void			writePrometheus(StringBuilder sb)
+	{
+		HistogramSnapshot s = this.histogram.getSnapshot() ;
+		for (double p : HistogramSnapshot.EXPORTED_PERCENTILES) {
+			this.sample(sb, "", quantileLabel(p),
+						s.getValueAtPercentile(p) / 1e9) ;
+		}
+		this.sample(sb, "_sum", null, sum(s)) ;
+		this.sample(sb, "_count", null, s.getCount()) ;
+	}
+
+	/**
+	 * @param s		a snapshot of the histogram
+	 * @return		the sum of the recorded values, in seconds
+	 */
+	private static double	sum(HistogramSnapshot s)
+	{
+		return s.getCount() == 0 ? 0.0 : s.getMean() * s.getCount() / 1e9 ;
+	}
+
+	private static String	quantileLabel(double percentile)
+	{
+		// computed in decimal, 99.9 / 100.0 is not 0.999 in binary
+		return "quantile=\"" + new BigDecimal(Double.toString(percentile))
+				.movePointLeft(2).stripTrailingZeros().toPlainString() + "\"" ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.metrics.Metric#writeCsv(java.lang.StringBuilder, long)
+	 */
+	@Override
+	public void			writeCsv(StringBuilder sb, long time)
+	{
+		HistogramSnapshot s = this.histogram.getSnapshot() ;
+		for (double p : HistogramSnapshot.EXPORTED_PERCENTILES) {
+			this.csv(sb, time, "", quantileLabel(p),
+					 s.getValueAtPercentile(p) / 1e9) ;
+		}
+		this.csv(sb, time, "_sum", null, sum(s)) ;
+		this.csv(sb, time, "_count", null, s.getCount()) ;
+	}
+}
@@ -0,0 +1,167 @@
+package fr.upmc.colins.farm3.metrics;
+
+/**
+ * The class <code>Metric</code> defines the common part of the metrics: a name
+ * and labels identifying it in the registry.
+ *
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	name != null &amp;&amp; labels != null
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public abstract class	Metric
+{
+	/** name of the metric, eg. <code>core_queue_length</code>				*/
+	protected final String		name ;
+	/** labels in the Prometheus syntax, eg. <code>cpu="0",core="3"</code>	*/
+	protected final String		labels ;
+	/** help text of the metric												*/
+	protected final String		help ;
+
+	/**
+	 * create a metric.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	name != null &amp;&amp; labels != null &amp;&amp; help != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param name		name of the metric
+	 * @param labels	labels of the metric, empty if none
+	 * @param help		help text of the metric
+	 */
+	protected			Metric(String name, String labels, String help)
+	{
+		assert	name != null && labels != null && help != null ;
+
+		this.name = name ;
+		this.labels = labels ;
+		this.help = help ;
+	}
+
+	/**
+	 * @return	the name of the metric
+	 */
+	public String		getName()
+	{
+		return this.name ;
+	}
+
+	/**
+	 * @return	the labels of the metric, empty if none
+	 */
+	public String		getLabels()
+	{
+		return this.labels ;
+	}
+
+	/**
+	 * @return	the help text of the metric
+	 */
+	public String		getHelp()
+	{
+		return this.help ;
+	}
+
+	/**
+	 * @return	the identifier of the metric in the registry
+	 */
+	public String		getKey()
+	{
+		return this.labels.isEmpty() ? this.name
+									 : this.name + "{" + this.labels + "}" ;
+	}
+
+	/**
+	 * @return	the Prometheus type of the metric
+	 */
+	public abstract String	getType() ;
+
+	/**
+	 * append the samples of the metric in the Prometheus text format.
+	 *
+	 * @param sb	the buffer receiving the samples
+	 */
+	public abstract void	writePrometheus(StringBuilder sb) ;
+
+	/**
+	 * append the samples of the metric as CSV lines
+	 * <code>time,name,labels,value</code>.
+	 *
+	 * @param sb	the buffer receiving the lines
+	 * @param time	time of the export in milliseconds
+	 */
+	public abstract void	writeCsv(StringBuilder sb, long time) ;
+
+	/**
+	 * append a sample in the Prometheus text format.
+	 *
+	 * @param sb		the buffer receiving the sample
+	 * @param suffix	suffix of the name, empty if none
+	 * @param extra		additional label, null if none
+	 * @param value		value of the sample
+	 */
+	protected void		sample(
+		StringBuilder sb,
+		String suffix,
+		String extra,
+		double value
+		)
+	{
+		sb.append(this.name).append(suffix) ;
+		if (!this.labels.isEmpty() || extra != null) {
+			sb.append('{').append(this.labels) ;
+			if (extra != null) {
+				if (!this.labels.isEmpty()) {
+					sb.append(',') ;
+				}
+				sb.append(extra) ;
+			}
+			sb.append('}') ;
+		}
+		sb.append(' ').append(formatValue(value)).append('\n') ;
+	}
+
+	/**
+	 * append a CSV line; the labels are quoted as they contain commas.
+	 *
+	 * @param sb		the buffer receiving the line
+	 * @param time		time of the export in milliseconds
+	 * @param suffix	suffix of the name, empty if none
+	 * @param extra		additional label, null if none
+	 * @param value		value of the sample
+	 */
+	protected void		csv(
+		StringBuilder sb,
+		long time,
+		String suffix,
+		String extra,
+		double value
+		)
+	{
+		String l = extra == null ? this.labels
+					: (this.labels.isEmpty() ? extra : this.labels + "," + extra) ;
+		sb.append(time).append(',').append(this.name).append(suffix)
+		  .append(",\"").append(l.replace("\"", "\"\"")).append("\",")
+		  .append(formatValue(value)).append('\n') ;
+	}
+
+	protected static String	formatValue(double value)
+	{
+		if (Double.isNaN(value)) {
+			return "NaN" ;
+		}
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			return Long.toString((long) value) ;
+		}
+		return Double.toString(value) ;
+	}
+}
@@ -0,0 +1,169 @@
+package fr.upmc.colins.farm3.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import fr.upmc.colins.farm3.simulation.SimulationClock;
+
+/**
+ * The class <code>MetricsExporter</code> writes periodically the metrics of
+ * the default registry to a local file.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * In the Prometheus format, the file is rewritten at each export, through a
+ * temporary file renamed over it so that a reader never sees a partial
+ * export. In the CSV format, the lines <code>time,name,labels,value</code>
+ * are appended at each export. The exporter runs on a daemon thread and makes
+ * a last export when the Java virtual machine exits.
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			MetricsExporter
+{
+	/** default period of the export in milliseconds						*/
+	public static final long	DEFAULT_PERIOD = 5000L ;
+	/** default file in the Prometheus format								*/
+	public static final String	DEFAULT_PROMETHEUS_FILE = "metrics/farm3.prom" ;
+	/** default file in the CSV format										*/
+	public static final String	DEFAULT_CSV_FILE = "metrics/farm3.csv" ;
+
+	/** true once the exporter has been started								*/
+	protected static boolean	started = false ;
+
+	/** the exported registry												*/
+	protected final MetricsRegistry	registry ;
+	/** the file receiving the metrics										*/
+	protected final File		file ;
+	/** true for the CSV format, false for the Prometheus one				*/
+	protected final boolean		csv ;
+
+	/**
+	 * create an exporter.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	registry != null &amp;&amp; file != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param registry	the exported registry
+	 * @param file		the file receiving the metrics
+	 * @param csv		true for the CSV format, false for the Prometheus one
+	 */
+	public				MetricsExporter(
+		MetricsRegistry registry,
+		File file,
+		boolean csv
+		)
+	{
+		assert	registry != null && file != null ;
+
+		this.registry = registry ;
+		this.file = file ;
+		this.csv = csv ;
+	}
+
+	/**
+	 * start the export of the default registry as set by the system
+	 * properties, unless already started.
+	 */
+	protected static synchronized void	ensureStarted()
+	{
+		if (started) {
+			return ;
+		}
+		started = true ;
+		long period = Long.getLong("farm3.metrics.period", DEFAULT_PERIOD) ;
+		if (period <= 0) {
+			return ;
+		}
+		boolean csv = "csv".equalsIgnoreCase(
+							System.getProperty("farm3.metrics.format")) ;
+		String path = System.getProperty("farm3.metrics.file",
+							csv ? DEFAULT_CSV_FILE : DEFAULT_PROMETHEUS_FILE) ;
+		final MetricsExporter exporter = new MetricsExporter(
+							MetricsRegistry.getDefault(), new File(path), csv) ;
+
+		ScheduledExecutorService executor =
+				Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "farm3-metrics") ;
+						t.setDaemon(true) ;
+						return t ;
+					}
+				}) ;
+		Runnable export = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					exporter.export() ;
+				} catch (IOException e) {
+					System.err.println("[  Metrics   ] cannot export to "
+										+ exporter.file + ", " + e.getMessage()) ;
+				}
+			}
+		} ;
+		executor.scheduleAtFixedRate(export, period, period,
+									 TimeUnit.MILLISECONDS) ;
+		Runtime.getRuntime().addShutdownHook(new Thread(export)) ;
+	}
+
+	/**
+	 * write the metrics of the registry to the file.
+	 *
+	 * @throws IOException	if the file cannot be written
+	 */
+	public synchronized void	export() throws IOException
+	{
+		File dir = this.file.getAbsoluteFile().getParentFile() ;
+		if (dir != null) {
+			dir.mkdirs() ;
+		}
+		StringBuilder sb = new StringBuilder() ;
+		if (this.csv) {
+			boolean header = !this.file.exists() ;
+			if (header) {
+				sb.append("time,name,labels,value\n") ;
+			}
+			this.registry.writeCsv(sb, SimulationClock.currentTimeMillis()) ;
+			write(this.file, sb, true) ;
+		} else {
+			this.registry.writePrometheus(sb) ;
+			File tmp = new File(this.file.getPath() + ".tmp") ;
+			write(tmp, sb, false) ;
+			if (!tmp.renameTo(this.file)) {
+				// not atomic on the platforms refusing to rename over a file
+				this.file.delete() ;
+				if (!tmp.renameTo(this.file)) {
+					throw new IOException("cannot rename " + tmp) ;
+				}
+			}
+		}
+	}
+
+	private static void	write(File f, CharSequence content, boolean append)
+	throws IOException
+	{
+		Writer w = new OutputStreamWriter(new FileOutputStream(f, append),
+										  Charset.forName("UTF-8")) ;
+		try {
+			w.append(content) ;
+		} finally {
+			w.close() ;
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package fr.upmc.colins.farm3.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The class <code>MetricsRegistry</code> implements the registry of the
+ * metrics of a Java virtual machine.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The metrics are kept sorted by name and labels, so that the samples of a
+ * metric name are exported together. Registering a metric with the name and
+ * the labels of a registered one replaces it. The first registration starts
+ * the periodic exporter.
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			MetricsRegistry
+{
+	/** registry of the Java virtual machine								*/
+	protected static final MetricsRegistry	DEFAULT = new MetricsRegistry() ;
+
+	/** metrics, by name and labels											*/
+	protected final ConcurrentSkipListMap<String, Metric>	metrics ;
+
+	/**
+	 * create an empty registry.
+	 */
+	public				MetricsRegistry()
+	{
+		this.metrics = new ConcurrentSkipListMap<String, Metric>() ;
+	}
+
+	/**
+	 * @return	the registry of the Java virtual machine
+	 */
+	public static MetricsRegistry	getDefault()
+	{
+		return DEFAULT ;
+	}
+
+	private static String	keyOf(Metric m)
+	{
+		// the space sorts before any character of a name
+		return m.getName() + " " + m.getLabels() ;
+	}
+
+	/**
+	 * register a metric, replacing the metric of same name and labels.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	m != null
+	 * post	getMetrics().contains(m)
+	 * </pre>
+	 *
+	 * @param m		the metric
+	 * @return		the metric
+	 */
+	public <M extends Metric> M	register(M m)
+	{
+		assert	m != null ;
+
+		this.metrics.put(keyOf(m), m) ;
+		if (this == DEFAULT) {
+			MetricsExporter.ensureStarted() ;
+		}
+		return m ;
+	}
+
+	/**
+	 * create and register a counter.
+	 *
+	 * @param name		name of the counter
+	 * @param labels	labels of the counter, empty if none
+	 * @param help		help text of the counter
+	 * @return			the registered counter
+	 */
+	public Counter		counter(String name, String labels, String help)
+	{
+		return this.register(new Counter(name, labels, help)) ;
+	}
+
+	/**
+	 * unregister a metric, if it is still the registered one.
+	 *
+	 * @param m		the metric
+	 */
+	public void			unregister(Metric m)
+	{
+		this.metrics.remove(keyOf(m), m) ;
+	}
+
+	/**
+	 * unregister metrics.
+	 *
+	 * @param ms	the metrics
+	 */
+	public void			unregister(Collection<? extends Metric> ms)
+	{
+		for (Metric m : ms) {
+			this.unregister(m) ;
+		}
+	}
+
+	/**
+	 * @return	the registered metrics, sorted by name and labels
+	 */
+	public List<Metric>	getMetrics()
+	{
+		return new ArrayList<Metric>(this.metrics.values()) ;
+	}
+
+	/**
+	 * append the samples of all the metrics in the Prometheus text format.
+	 *
+	 * @param sb	the buffer receiving the samples
+	 */
+	public void			writePrometheus(StringBuilder sb)
+	{
+		String previous = null ;
+		for (Metric m : this.metrics.values()) {
+			if (!m.getName().equals(previous)) {
+				sb.append("# HELP ").append(m.getName()).append(' ')
+				  .append(m.getHelp()).append('\n') ;
+				sb.append("# TYPE ").append(m.getName()).append(' ')
+				  .append(m.getType()).append('\n') ;
+				previous = m.getName() ;
+			}
+			m.writePrometheus(sb) ;
+		}
+	}
+
+	/**
+	 * append the samples of all the metrics as CSV lines.
+	 *
+	 * @param sb	the buffer receiving the lines
+	 * @param time	time of the export in milliseconds
+	 */
+	public void			writeCsv(StringBuilder sb, long time)
+	{
+		for (Metric m : this.metrics.values()) {
+			m.writeCsv(sb, time) ;
+		}
+	}
+}
@@ -1,6 +1,9 @@
 package fr.upmc.colins.farm3.objects;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 
 /**
  * The class <code>Application</code> defines objects representing application
@@ -13,7 +16,12 @@ import java.io.Serializable;
  * creation time and a standard deviation.
  * 
  * As the object can be passed as parameter of a remote method call, the class
- * implements the Java interface <code>Serializable</code>.
+ * implements the Java interface <code>Externalizable</code>: its fields are
+ * written as fixed-width primitive values, and the class names as UTF
+ * strings, without the class descriptors of the default serialization. The
+ * default settings are constants of the class, and the classes of the
+ * policy and of the controller are only named, so that the class depends on
+ * none of the components.
  * 
  * <p>
  * <strong>Invariant</strong>
@@ -31,10 +39,23 @@ import java.io.Serializable;
  * @version $Name$ -- $Revision$ -- $Date$
  */
 public class			Application
-implements 	Serializable
+implements 	Externalizable
 {
 	private static final long serialVersionUID = 1L;
 
+	/** default length of the window of the response time statistics in ms	*/
+	public static final long	DEFAULT_STATISTICS_WINDOW = 30000L ;
+	/** default smoothing factor of the mean response time					*/
+	public static final double	DEFAULT_SMOOTHING_FACTOR = 0.1 ;
+	/** canonical name of the class of the default dispatch policy			*/
+	public static final String	DEFAULT_DISPATCH_POLICY =
+			"fr.upmc.colins.farm3.dispatcher.policy.RoundRobinPolicy" ;
+	/** canonical name of the class of the default frequency controller		*/
+	public static final String	DEFAULT_FREQUENCY_CONTROLLER =
+			"fr.upmc.colins.farm3.actuator.ThresholdFrequencyController" ;
+	/** default length of the control period of the actuator in ms			*/
+	public static final long	DEFAULT_CONTROL_PERIOD = 1000L ;
+
 	/** unique identifier of the request, for tracing purposes.				*/
 	protected int		uri ;
 	/** mean number of instructions											*/
@@ -49,8 +70,30 @@ implements 	Serializable
 	protected long		targetServiceTime ;
 	/** flex service time 													*/
 	protected long		flexServiceTime ;
+	/** length of the window of the response time statistics in ms		*/
+	protected long		statisticsWindow ;
+	/** smoothing factor of the mean response time						*/
+	protected double	smoothingFactor ;
+	/** canonical name of the class of the dispatch policy					*/
+	protected String	dispatchPolicy ;
+	/** canonical name of the class of the frequency controller			*/
+	protected String	frequencyController ;
+	/** length of the control period of the actuator in ms				*/
+	protected long		controlPeriod ;
+	/** priority class of the requests, the higher the more urgent			*/
+	protected int		priority ;
+	/** expected mean interarrival time of the requests in ms, 0 if unknown	*/
+	protected double	meanInterArrivalTime ;
 	
 
+	/**
+	 * create an empty application, only used by the externalization.
+	 */
+	public				Application()
+	{
+		super() ;
+	}
+
 	/**
 	 * create a new application with given uri, a mean number of instructions
 	 * and a standard deviation
@@ -85,6 +128,13 @@ implements 	Serializable
 		this.boostStep = boostStep;
 		this.targetServiceTime = targetServiceTime;
 		this.flexServiceTime = flexServiceTime;
+		this.statisticsWindow = DEFAULT_STATISTICS_WINDOW;
+		this.smoothingFactor = DEFAULT_SMOOTHING_FACTOR;
+		this.dispatchPolicy = DEFAULT_DISPATCH_POLICY;
+		this.frequencyController = DEFAULT_FREQUENCY_CONTROLLER;
+		this.controlPeriod = DEFAULT_CONTROL_PERIOD;
+		this.priority = Request.DEFAULT_PRIORITY;
+		this.meanInterArrivalTime = 0.0;
 
 		assert	this.meanNrofInstructions >= 0 && this.arrivalTime >= 0 ;
 	}
@@ -237,6 +287,311 @@ implements 	Serializable
 		return flexServiceTime;
 	}
 
+
+	/**
+	 * return the length of the window of the response time statistics
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @return	the length of the statistics window in milliseconds
+	 */
+	public long getStatisticsWindow() {
+		return statisticsWindow;
+	}
+
+	/**
+	 * sets the length of the window of the response time statistics
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	statisticsWindow > 0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param statisticsWindow	the length of the statistics window in milliseconds
+	 */
+	public void setStatisticsWindow(long statisticsWindow) {
+		assert	statisticsWindow > 0 ;
+
+		this.statisticsWindow = statisticsWindow;
+	}
+
+	/**
+	 * return the smoothing factor of the mean response time
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @return	the smoothing factor of the mean response time
+	 */
+	public double getSmoothingFactor() {
+		return smoothingFactor;
+	}
+
+	/**
+	 * sets the smoothing factor of the mean response time
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	0 &lt; smoothingFactor &amp;&amp; smoothingFactor &lt;= 1
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param smoothingFactor	the smoothing factor of the mean response time
+	 */
+	public void setSmoothingFactor(double smoothingFactor) {
+		assert	smoothingFactor > 0 && smoothingFactor <= 1 ;
+
+		this.smoothingFactor = smoothingFactor;
+	}
+
+	/**
+	 * return the canonical name of the class of the dispatch policy used by
+	 * the request dispatcher and the virtual machines of this app
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @return	the canonical name of the class of the dispatch policy
+	 */
+	public String getDispatchPolicy() {
+		return dispatchPolicy;
+	}
+
+	/**
+	 * sets the canonical name of the class of the dispatch policy used by
+	 * the request dispatcher and the virtual machines of this app
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	dispatchPolicy != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param dispatchPolicy	the canonical name of the class of the policy
+	 */
+	public void setDispatchPolicy(String dispatchPolicy) {
+		assert	dispatchPolicy != null ;
+
+		this.dispatchPolicy = dispatchPolicy;
+	}
+
+	/**
+	 * return the canonical name of the class of the frequency controller
+	 * used by the actuator of this app
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @return	the canonical name of the class of the frequency controller
+	 */
+	public String getFrequencyController() {
+		return frequencyController;
+	}
+
+	/**
+	 * sets the canonical name of the class of the frequency controller
+	 * used by the actuator of this app
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	frequencyController != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param frequencyController	the canonical name of the class of the controller
+	 */
+	public void setFrequencyController(String frequencyController) {
+		assert	frequencyController != null ;
+
+		this.frequencyController = frequencyController;
+	}
+
+	/**
+	 * return the length of the control period of the actuator of this app
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @return	the length of the control period in milliseconds
+	 */
+	public long getControlPeriod() {
+		return controlPeriod;
+	}
+
+	/**
+	 * sets the length of the control period of the actuator of this app
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	controlPeriod > 0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param controlPeriod	the length of the control period in milliseconds
+	 */
+	public void setControlPeriod(long controlPeriod) {
+		assert	controlPeriod > 0 ;
+
+		this.controlPeriod = controlPeriod;
+	}
+
+	/**
+	 * return the priority class of the requests of this app
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @return	the priority class, the higher the more urgent
+	 */
+	public int getPriority() {
+		return priority;
+	}
+
+	/**
+	 * sets the priority class of the requests of this app; with preemptive
+	 * cores, a request preempts the processing of a request of a lower class
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param priority	the priority class, the higher the more urgent
+	 */
+	public void setPriority(int priority) {
+		this.priority = priority;
+	}
+
+	/**
+	 * return the expected mean interarrival time of the requests, used by
+	 * the admission control to size the resources of the app
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	ret >= 0
+	 * </pre>
+	 *
+	 * @return	the mean interarrival time in ms, 0 if unknown
+	 */
+	public double getMeanInterArrivalTime() {
+		return meanInterArrivalTime;
+	}
+
+	/**
+	 * sets the expected mean interarrival time of the requests
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	meanInterArrivalTime >= 0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param meanInterArrivalTime	the mean interarrival time in ms, 0 if
+	 * 								unknown
+	 */
+	public void setMeanInterArrivalTime(double meanInterArrivalTime) {
+		assert meanInterArrivalTime >= 0;
+		this.meanInterArrivalTime = meanInterArrivalTime;
+	}
 	
-	
+
+	/**
+	 * @see java.io.Externalizable#writeExternal(java.io.ObjectOutput)
+	 */
+	@Override
+	public void			writeExternal(ObjectOutput out) throws IOException
+	{
+		out.writeInt(this.uri) ;
+		out.writeDouble(this.meanNrofInstructions) ;
+		out.writeDouble(this.standardDeviation) ;
+		out.writeLong(this.arrivalTime) ;
+		out.writeDouble(this.boostStep) ;
+		out.writeLong(this.targetServiceTime) ;
+		out.writeLong(this.flexServiceTime) ;
+		out.writeLong(this.statisticsWindow) ;
+		out.writeDouble(this.smoothingFactor) ;
+		writeName(out, this.dispatchPolicy) ;
+		writeName(out, this.frequencyController) ;
+		out.writeLong(this.controlPeriod) ;
+		out.writeInt(this.priority) ;
+		out.writeDouble(this.meanInterArrivalTime) ;
+	}
+
+	/**
+	 * @see java.io.Externalizable#readExternal(java.io.ObjectInput)
+	 */
+	@Override
+	public void			readExternal(ObjectInput in) throws IOException
+	{
+		this.uri = in.readInt() ;
+		this.meanNrofInstructions = in.readDouble() ;
+		this.standardDeviation = in.readDouble() ;
+		this.arrivalTime = in.readLong() ;
+		this.boostStep = in.readDouble() ;
+		this.targetServiceTime = in.readLong() ;
+		this.flexServiceTime = in.readLong() ;
+		this.statisticsWindow = in.readLong() ;
+		this.smoothingFactor = in.readDouble() ;
+		this.dispatchPolicy = readName(in) ;
+		this.frequencyController = readName(in) ;
+		this.controlPeriod = in.readLong() ;
+		this.priority = in.readInt() ;
+		this.meanInterArrivalTime = in.readDouble() ;
+	}
+
+	/**
+	 * write a class name which may be null.
+	 */
+	private static void	writeName(ObjectOutput out, String name)
+	throws IOException
+	{
+		out.writeBoolean(name != null) ;
+		if (name != null) {
+			out.writeUTF(name) ;
+		}
+	}
+
+	/**
+	 * read a class name written by <code>writeName</code>.
+	 */
+	private static String	readName(ObjectInput in) throws IOException
+	{
+		return in.readBoolean() ? in.readUTF() : null ;
+	}
 }
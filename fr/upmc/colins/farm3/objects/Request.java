@@ -1,6 +1,9 @@
 package fr.upmc.colins.farm3.objects;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 
 /**
  * The class <code>Request</code> defines objects representing requests.
@@ -15,8 +18,20 @@ import java.io.Serializable;
  * request finishes to compute the service time (waiting + processing) of the
  * request.
  * 
+ * A request also carries its priority class, the higher the more urgent,
+ * and the number of instructions remaining to be processed when its
+ * processing has been preempted by a more urgent request. Its client gives
+ * the class relative to its application, <code>DEFAULT_PRIORITY</code> or
+ * <code>URGENT_PRIORITY</code>, and the request dispatcher of the
+ * application adds the class of the application.
+ * 
+ * The time at which the request goes through each stage of its path is kept
+ * in its trace, as the arrival time is overwritten at each hop.
+ * 
  * As the object can be passed as parameter of a remote method call, the class
- * implements the Java interface <code>Serializable</code>.
+ * implements the Java interface <code>Externalizable</code>: its fields are
+ * written as fixed-width primitive values, its trace included, without the
+ * class descriptors of the default serialization.
  * 
  * <p>
  * <strong>Invariant</strong>
@@ -35,7 +50,7 @@ import java.io.Serializable;
  * @version $Name$ -- $Revision$ -- $Date$
  */
 public class			Request
-implements 	Serializable
+implements 	Externalizable
 {
 	private static final long serialVersionUID = 1L;
 
@@ -47,6 +62,25 @@ implements 	Serializable
 	protected long 		nrofInstructions ;
 	/** time at which it has been received by the service provider.			*/
 	protected long		arrivalTime ;
+	/** priority class, the higher the more urgent							*/
+	protected int		priority ;
+	/** instructions remaining after a preemption, -1 if never preempted		*/
+	protected long		remainingInstructions ;
+	/** times of the stages of the path of the request						*/
+	protected TraceContext	trace ;
+
+	/** priority class of the requests of an application by default			*/
+	public static final int	DEFAULT_PRIORITY = 0 ;
+	/** priority class of an urgent request, relative to its application	*/
+	public static final int	URGENT_PRIORITY = 1 ;
+
+	/**
+	 * create an empty request, only used by the externalization.
+	 */
+	public Request()
+	{
+		this(0, 0) ;
+	}
 
 	/**
 	 * create a new request with given uri and processing time.
@@ -68,6 +102,9 @@ implements 	Serializable
 		this.appId = appId ;
 		this.nrofInstructions = 0;
 		this.arrivalTime = 0 ;
+		this.priority = DEFAULT_PRIORITY ;
+		this.remainingInstructions = -1 ;
+		this.trace = new TraceContext() ;
 
 		assert this.arrivalTime >= 0 ;
 	}
@@ -161,4 +198,101 @@ implements 	Serializable
 		return uri;
 	}
 
+	/**
+	 * return the priority class of the request
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @return	the priority class, the higher the more urgent
+	 */
+	public int			getPriority() {
+		return this.priority;
+	}
+
+	/**
+	 * sets the priority class of the request
+	 * @param priority the priority class, the higher the more urgent
+	 */
+	public void setPriority(int priority) {
+		this.priority = priority;
+	}
+
+	/**
+	 * return the number of instructions remaining to be processed after a
+	 * preemption
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @return	the remaining instructions, -1 if the request was never preempted
+	 */
+	public long			getRemainingInstructions() {
+		return this.remainingInstructions;
+	}
+
+	/**
+	 * sets the number of instructions remaining to be processed after a
+	 * preemption
+	 * @param remainingInstructions the remaining instructions
+	 */
+	public void setRemainingInstructions(long remainingInstructions) {
+		this.remainingInstructions = remainingInstructions;
+	}
+
+
+	/**
+	 * return the trace of the request
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @return	the times of the stages of the path of the request
+	 */
+	public TraceContext	getTrace()
+	{
+		return this.trace ;
+	}
+
+	/**
+	 * @see java.io.Externalizable#writeExternal(java.io.ObjectOutput)
+	 */
+	@Override
+	public void			writeExternal(ObjectOutput out) throws IOException
+	{
+		out.writeInt(this.uri) ;
+		out.writeInt(this.appId) ;
+		out.writeLong(this.nrofInstructions) ;
+		out.writeLong(this.arrivalTime) ;
+		out.writeInt(this.priority) ;
+		out.writeLong(this.remainingInstructions) ;
+		this.trace.writeStamps(out) ;
+	}
+
+	/**
+	 * @see java.io.Externalizable#readExternal(java.io.ObjectInput)
+	 */
+	@Override
+	public void			readExternal(ObjectInput in) throws IOException
+	{
+		this.uri = in.readInt() ;
+		this.appId = in.readInt() ;
+		this.nrofInstructions = in.readLong() ;
+		this.arrivalTime = in.readLong() ;
+		this.priority = in.readInt() ;
+		this.remainingInstructions = in.readLong() ;
+		this.trace.readStamps(in) ;
+	}
 }
@@ -1,6 +1,9 @@
 package fr.upmc.colins.farm3.objects;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 
 /**
  * The class <code>Response</code> defines objects representing a response.
@@ -10,9 +13,14 @@ import java.io.Serializable;
  * <strong>Description</strong>
  * </p>
  * A response is composed of an uri and the duration time taken by the request
+ * 
+ * It also carries the trace of the request, so that the stages of its path
+ * can be aggregated where the response arrives.
  *
  * As the object can be passed as parameter of a remote method call, the class
- * implements the Java interface <code>Serializable</code>.
+ * implements the Java interface <code>Externalizable</code>: its fields are
+ * written as fixed-width primitive values, its trace included, without the
+ * class descriptors of the default serialization.
  * 
  * <p>
  * <strong>Invariant</strong>
@@ -30,14 +38,28 @@ import java.io.Serializable;
  * @version $Name$ -- $Revision$ -- $Date$
  */
 public class			Response
-    implements 	Serializable
+    implements 	Externalizable
 {
     private static final long serialVersionUID = 1L;
 
     /** unique identifier of the response, for tracing purposes.			*/
     protected int		uri ;
     /** time at which it has been received by the service consumer.			*/
-    protected Double	duration ;
+    protected double	duration ;
+    /** clock speed of the core which processed the request, 0 if unknown	*/
+    protected double	clockSpeed ;
+    /** true if the request has been rejected instead of being processed	*/
+    protected boolean	rejected ;
+    /** trace of the request, null if unknown								*/
+    protected TraceContext	trace ;
+
+    /**
+     * create an empty response, only used by the externalization.
+     */
+    public				Response()
+    {
+        this(0) ;
+    }
 
     /**
      * create a new response with given uri and processing time.
@@ -60,6 +82,8 @@ public class			Response
 
         this.uri = uri ;
         this.duration = 0.0 ;
+        this.clockSpeed = 0.0 ;
+        this.rejected = false ;
 
         assert	this.duration >= 0 ;
     }
@@ -76,7 +100,7 @@ public class			Response
      *
      * @return	the duration
      */
-    public Double		getDuration()
+    public double		getDuration()
     {
         return duration;
     }
@@ -93,13 +117,135 @@ public class			Response
      *
      * @param duration
      */
-    public void			setDuration(Double duration)
+    public void			setDuration(double duration)
     {
         assert	duration > 0 ;
 
         this.duration = duration;
     }
 
+    /**
+     * return the uri of the response, ie. the uri of the request it answers
+     *
+     * <p><strong>Contract</strong></p>
+     *
+     * <pre>
+     * pre	true			// no precondition.
+     * post	true			// no postcondition.
+     * </pre>
+     *
+     * @return	the uri
+     */
+    public int			getUri()
+    {
+        return uri;
+    }
+
+    /**
+     * return the clock speed of the core which processed the request
+     *
+     * <p><strong>Contract</strong></p>
+     *
+     * <pre>
+     * pre	true			// no precondition.
+     * post	true			// no postcondition.
+     * </pre>
+     *
+     * @return	the clock speed, 0 if unknown
+     */
+    public double		getClockSpeed()
+    {
+        return clockSpeed;
+    }
+
+    /**
+     * sets the clock speed of the core which processed the request
+     *
+     * <p><strong>Contract</strong></p>
+     *
+     * <pre>
+     * pre	clockSpeed > 0
+     * post	true			// no postcondition.
+     * </pre>
+     *
+     * @param clockSpeed
+     */
+    public void			setClockSpeed(double clockSpeed)
+    {
+        assert	clockSpeed > 0 ;
+
+        this.clockSpeed = clockSpeed;
+    }
+
+    /**
+     * return true if the request has been rejected by the service provider
+     * instead of being processed (early failure response)
+     *
+     * <p><strong>Contract</strong></p>
+     *
+     * <pre>
+     * pre	true			// no precondition.
+     * post	true			// no postcondition.
+     * </pre>
+     *
+     * @return	true if the request has been rejected
+     */
+    public boolean		isRejected()
+    {
+        return rejected;
+    }
+
+    /**
+     * sets whether the request has been rejected by the service provider
+     *
+     * <p><strong>Contract</strong></p>
+     *
+     * <pre>
+     * pre	true			// no precondition.
+     * post	true			// no postcondition.
+     * </pre>
+     *
+     * @param rejected
+     */
+    public void			setRejected(boolean rejected)
+    {
+        this.rejected = rejected;
+    }
+
+    /**
+     * return the trace of the request answered by the response
+     *
+     * <p><strong>Contract</strong></p>
+     *
+     * <pre>
+     * pre	true			// no precondition.
+     * post	true			// no postcondition.
+     * </pre>
+     *
+     * @return	the trace, null if unknown
+     */
+    public TraceContext	getTrace()
+    {
+        return trace;
+    }
+
+    /**
+     * sets the trace of the request answered by the response
+     *
+     * <p><strong>Contract</strong></p>
+     *
+     * <pre>
+     * pre	true			// no precondition.
+     * post	true			// no postcondition.
+     * </pre>
+     *
+     * @param trace
+     */
+    public void			setTrace(TraceContext trace)
+    {
+        this.trace = trace;
+    }
+
     /**
      * @see java.lang.Object#toString()
      */
@@ -108,4 +254,38 @@ public class			Response
     {
         return "" + this.uri ;
     }
+
+    /**
+     * @see java.io.Externalizable#writeExternal(java.io.ObjectOutput)
+     */
+    @Override
+    public void			writeExternal(ObjectOutput out) throws IOException
+    {
+        out.writeInt(this.uri) ;
+        out.writeDouble(this.duration) ;
+        out.writeDouble(this.clockSpeed) ;
+        out.writeBoolean(this.rejected) ;
+        out.writeBoolean(this.trace != null) ;
+        if (this.trace != null) {
+            this.trace.writeStamps(out) ;
+        }
+    }
+
+    /**
+     * @see java.io.Externalizable#readExternal(java.io.ObjectInput)
+     */
+    @Override
+    public void			readExternal(ObjectInput in) throws IOException
+    {
+        this.uri = in.readInt() ;
+        this.duration = in.readDouble() ;
+        this.clockSpeed = in.readDouble() ;
+        this.rejected = in.readBoolean() ;
+        if (in.readBoolean()) {
+            this.trace = new TraceContext() ;
+            this.trace.readStamps(in) ;
+        } else {
+            this.trace = null ;
+        }
+    }
 }
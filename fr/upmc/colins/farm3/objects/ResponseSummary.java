@@ -0,0 +1,146 @@
+package fr.upmc.colins.farm3.objects;
+
+import java.io.Serializable;
+
+/**
+ * The class <code>ResponseSummary</code> defines the statistics of the
+ * responses received by a request dispatcher during a summary period.
+ *
+ * <p>
+ * <strong>Description</strong>
+ * </p>
+ * 
+ * A request dispatcher sends a summary to its actuator once per period
+ * instead of one message per response: the number of responses and of
+ * rejections of the period, and the statistics of the response times over
+ * the statistics window of the dispatcher at the end of the period.
+ * 
+ * As the object can be passed as parameter of a remote method call, the class
+ * implements the Java interface <code>Serializable</code>.
+ * 
+ * <p>
+ * <strong>Invariant</strong>
+ * </p>
+ * 
+ * <pre>
+ * invariant	nrofResponses >= 0 &amp;&amp; nrofRejections >= 0
+ * </pre>
+ * 
+ * <p>
+ * Created on : march 2015
+ * </p>
+ * 
+ * @author Colins-Alasca
+ * @version $Name$ -- $Revision$ -- $Date$
+ */
+public class			ResponseSummary
+implements	Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	/** number of responses received during the period						*/
+	protected final int		nrofResponses ;
+	/** number of requests rejected during the period						*/
+	protected final int		nrofRejections ;
+	/** mean response time over the statistics window, NaN if none		*/
+	protected final double	meanTime ;
+	/** exponentially smoothed mean response time							*/
+	protected final double	smoothedMeanTime ;
+	/** estimated 95th percentile of the response times						*/
+	protected final double	p95 ;
+	/** estimated 99th percentile of the response times						*/
+	protected final double	p99 ;
+
+	/**
+	 * create a summary.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	nrofResponses >= 0 &amp;&amp; nrofRejections >= 0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param nrofResponses		number of responses received during the period
+	 * @param nrofRejections	number of requests rejected during the period
+	 * @param meanTime			mean response time over the statistics window
+	 * @param smoothedMeanTime	exponentially smoothed mean response time
+	 * @param p95				estimated 95th percentile of the response times
+	 * @param p99				estimated 99th percentile of the response times
+	 */
+	public				ResponseSummary(
+		int nrofResponses,
+		int nrofRejections,
+		double meanTime,
+		double smoothedMeanTime,
+		double p95,
+		double p99
+		)
+	{
+		assert	nrofResponses >= 0 && nrofRejections >= 0 ;
+
+		this.nrofResponses = nrofResponses ;
+		this.nrofRejections = nrofRejections ;
+		this.meanTime = meanTime ;
+		this.smoothedMeanTime = smoothedMeanTime ;
+		this.p95 = p95 ;
+		this.p99 = p99 ;
+	}
+
+	/**
+	 * @return	the number of responses received during the period
+	 */
+	public int			getNrofResponses()
+	{
+		return this.nrofResponses ;
+	}
+
+	/**
+	 * @return	the number of requests rejected during the period
+	 */
+	public int			getNrofRejections()
+	{
+		return this.nrofRejections ;
+	}
+
+	/**
+	 * @return	the mean response time over the statistics window
+	 */
+	public double		getMeanTime()
+	{
+		return this.meanTime ;
+	}
+
+	/**
+	 * @return	the exponentially smoothed mean response time
+	 */
+	public double		getSmoothedMeanTime()
+	{
+		return this.smoothedMeanTime ;
+	}
+
+	/**
+	 * @return	the estimated 95th percentile of the response times
+	 */
+	public double		getP95()
+	{
+		return this.p95 ;
+	}
+
+	/**
+	 * @return	the estimated 99th percentile of the response times
+	 */
+	public double		getP99()
+	{
+		return this.p99 ;
+	}
+
+	@Override
+	public String		toString()
+	{
+		return this.nrofResponses + " responses, " + this.nrofRejections
+				+ " rejections, mean " + this.meanTime
+				+ " (smoothed " + this.smoothedMeanTime
+				+ ", p95 " + this.p95 + ", p99 " + this.p99 + ")" ;
+	}
+}
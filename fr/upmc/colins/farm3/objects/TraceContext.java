@@ -0,0 +1,217 @@
+package fr.upmc.colins.farm3.objects;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+import fr.upmc.colins.farm3.simulation.SimulationClock;
+
+/**
+ * The class <code>TraceContext</code> defines the trace of a request along
+ * its path in the farm.
+ *
+ * <p>
+ * <strong>Description</strong>
+ * </p>
+ * 
+ * The trace keeps the time at which the request went through each stage of
+ * its path: its generation, its dispatching by the request dispatcher, its
+ * arrival in the queue of a virtual machine, the beginning and the end of its
+ * servicing by a core, and the arrival of its response at the request
+ * dispatcher. The times are epoch times in nanoseconds so that stages
+ * recorded in different Java virtual machines can be compared. The trace is
+ * carried by the request, then by its response.
+ * 
+ * A stage keeps its first time: a request resuming its servicing after a
+ * preemption keeps the time of its first servicing.
+ * 
+ * A request of an open-loop generator also records the time at which it was
+ * intended to be sent, given by the schedule of the generator, which comes
+ * before its generation when the generator lags behind its schedule.
+ * 
+ * As the object can be passed as parameter of a remote method call, the class
+ * implements the Java interface <code>Serializable</code>. The requests and
+ * the responses carrying a trace write its stamps within their own
+ * externalized form (see <code>writeStamps</code>), as fixed-width fields.
+ * 
+ * <p>
+ * <strong>Invariant</strong>
+ * </p>
+ * 
+ * <pre>
+ * invariant	getStamp(stage) >= 0 for each stage, 0 if not reached
+ * </pre>
+ * 
+ * <p>
+ * Created on : march 2015
+ * </p>
+ * 
+ * @author Colins-Alasca
+ * @version $Name$ -- $Revision$ -- $Date$
+ */
+public class			TraceContext
+implements	Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	/** generation of the request by the request generator					*/
+	public static final int		GENERATION = 0 ;
+	/** dispatching of the request by the request dispatcher				*/
+	public static final int		DISPATCH = 1 ;
+	/** arrival of the request in the queue of a virtual machine			*/
+	public static final int		VM_ENQUEUE = 2 ;
+	/** beginning of the servicing of the request by a core					*/
+	public static final int		CORE_START = 3 ;
+	/** end of the servicing of the request by a core						*/
+	public static final int		CORE_END = 4 ;
+	/** arrival of the response at the request dispatcher					*/
+	public static final int		RESPONSE = 5 ;
+	/** intended sending of the request by an open-loop generator		*/
+	public static final int		INTENDED = 6 ;
+	/** number of stages													*/
+	public static final int		NROF_STAGES = 7 ;
+	/** names of the stages, by index										*/
+	public static final String[]	STAGE_NAMES = {
+		"generation", "dispatch", "vm enqueue",
+		"core start", "core end", "response", "intended"
+	} ;
+
+	/** epoch time in nanoseconds of each stage, 0 if not reached			*/
+	protected final long[]	stamps ;
+
+	/**
+	 * create an empty trace.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	getStamp(stage) == 0 for each stage
+	 * </pre>
+	 */
+	public				TraceContext()
+	{
+		this.stamps = new long[NROF_STAGES] ;
+	}
+
+	/**
+	 * record the current time as the time of a stage, unless this stage has
+	 * already been reached.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	0 &lt;= stage &amp;&amp; stage &lt; NROF_STAGES
+	 * post	getStamp(stage) > 0
+	 * </pre>
+	 *
+	 * @param stage		the stage reached by the request
+	 */
+	public void			mark(int stage)
+	{
+		assert	0 <= stage && stage < NROF_STAGES ;
+
+		if (this.stamps[stage] == 0) {
+			this.stamps[stage] = SimulationClock.epochNanos() ;
+		}
+	}
+
+	/**
+	 * record a given time as the time of a stage, unless this stage has
+	 * already been reached.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	0 &lt;= stage &amp;&amp; stage &lt; NROF_STAGES
+	 * pre	epochNanos > 0
+	 * post	getStamp(stage) > 0
+	 * </pre>
+	 *
+	 * @param stage			the stage reached by the request
+	 * @param epochNanos	epoch time of the stage in nanoseconds
+	 */
+	public void			markAt(int stage, long epochNanos)
+	{
+		assert	0 <= stage && stage < NROF_STAGES ;
+		assert	epochNanos > 0 ;
+
+		if (this.stamps[stage] == 0) {
+			this.stamps[stage] = epochNanos ;
+		}
+	}
+
+	/**
+	 * return the time of a stage
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	0 &lt;= stage &amp;&amp; stage &lt; NROF_STAGES
+	 * post	ret >= 0
+	 * </pre>
+	 *
+	 * @param stage		a stage
+	 * @return			its epoch time in nanoseconds, 0 if not reached
+	 */
+	public long			getStamp(int stage)
+	{
+		assert	0 <= stage && stage < NROF_STAGES ;
+
+		return this.stamps[stage] ;
+	}
+
+	/**
+	 * return the time elapsed between two stages.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	0 &lt;= from &amp;&amp; from &lt; NROF_STAGES
+	 * pre	0 &lt;= to &amp;&amp; to &lt; NROF_STAGES
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param from		the first stage
+	 * @param to		the second stage
+	 * @return			the elapsed time in nanoseconds, -1 if one of the
+	 * 					stages has not been reached
+	 */
+	public long			elapsed(int from, int to)
+	{
+		long f = this.getStamp(from) ;
+		long t = this.getStamp(to) ;
+		if (f == 0 || t == 0) {
+			return -1L ;
+		}
+		return t - f ;
+	}
+
+	/**
+	 * write the stamps of all the stages, one long each.
+	 *
+	 * @param out		the output the stamps are written to
+	 * @throws IOException
+	 */
+	public void			writeStamps(DataOutput out) throws IOException
+	{
+		for (int stage = 0 ; stage < NROF_STAGES ; stage++) {
+			out.writeLong(this.stamps[stage]) ;
+		}
+	}
+
+	/**
+	 * read the stamps of all the stages, as written by
+	 * <code>writeStamps</code>.
+	 *
+	 * @param in		the input the stamps are read from
+	 * @throws IOException
+	 */
+	public void			readStamps(DataInput in) throws IOException
+	{
+		for (int stage = 0 ; stage < NROF_STAGES ; stage++) {
+			this.stamps[stage] = in.readLong() ;
+		}
+	}
+}
@@ -0,0 +1,289 @@
+package fr.upmc.colins.farm3.simulation;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The class <code>DiscreteEventScheduler</code> implements the engine of the
+ * virtual-time execution mode.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The scheduler keeps a virtual clock and a priority queue of events ordered
+ * by virtual time. <code>runUntil</code> repeatedly removes the earliest
+ * event, moves the clock to its time and executes it, until the queue is
+ * empty or the next event is after the end of the simulation. The events are
+ * executed one at a time by the thread calling <code>runUntil</code>; they
+ * may schedule new events, possibly from other threads when they make
+ * synchronous calls to components, hence the synchronisation of the queue.
+ *
+ * A task scheduling its own next run, as the request generators do, uses
+ * <code>reschedule</code> rather than <code>schedule</code>: its future and
+ * its event are created upon the first call and then reused by each run, so
+ * that the steady state allocates nothing, whereas <code>schedule</code>
+ * creates a <code>FutureTask</code> and an event per call.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	getTime() never decreases
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			DiscreteEventScheduler
+{
+	/** pending events, ordered by virtual time								*/
+	protected final PriorityQueue<SimulationEvent>	events ;
+	/** current virtual time in milliseconds								*/
+	protected volatile long		time ;
+	/** number of events created, used to order the simultaneous events		*/
+	protected long				sequence ;
+	/** number of events executed											*/
+	protected long				nrofExecutedEvents ;
+
+	/**
+	 * future of a task rescheduled by <code>reschedule</code>; a run does not
+	 * complete it, so it stays pending until it is cancelled or its task
+	 * throws an exception.
+	 */
+	protected static class	RecurringTask
+	extends		FutureTask<Void>
+	{
+		/** scheduler of the task											*/
+		protected final DiscreteEventScheduler	scheduler ;
+		/** the rescheduled task												*/
+		protected final Runnable				task ;
+		/** event executing the task, reused by each run						*/
+		protected SimulationEvent				event ;
+
+		protected			RecurringTask(
+			DiscreteEventScheduler scheduler,
+			Runnable task
+			)
+		{
+			super(task, null) ;
+			this.scheduler = scheduler ;
+			this.task = task ;
+			this.event = null ;
+		}
+
+		/**
+		 * run the task, leaving the future ready for the next run.
+		 *
+		 * @see java.util.concurrent.FutureTask#run()
+		 */
+		@Override
+		public void		run()
+		{
+			this.runAndReset() ;
+		}
+	}
+
+	/**
+	 * create a scheduler.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	startTime >= 0
+	 * post	getTime() == startTime
+	 * </pre>
+	 *
+	 * @param startTime		virtual time at the start of the simulation
+	 */
+	public				DiscreteEventScheduler(long startTime)
+	{
+		assert	startTime >= 0 ;
+
+		this.events = new PriorityQueue<SimulationEvent>() ;
+		this.time = startTime ;
+		this.sequence = 0 ;
+		this.nrofExecutedEvents = 0 ;
+	}
+
+	/**
+	 * @return	the current virtual time in milliseconds
+	 */
+	public long			getTime()
+	{
+		return this.time ;
+	}
+
+	/**
+	 * schedule a task after a virtual delay.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	task != null &amp;&amp; delay >= 0
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @param task		the task to be executed
+	 * @param delay		virtual delay in milliseconds
+	 * @return			the future of the task, cancellable until it is executed
+	 */
+	public Future<?>	schedule(Runnable task, long delay)
+	{
+		assert	task != null ;
+
+		FutureTask<Void> ft = new FutureTask<Void>(task, null) ;
+		this.enqueue(ft, delay) ;
+		return ft ;
+	}
+
+	/**
+	 * schedule a computation at the current virtual time, after the events
+	 * already scheduled at this time.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	service != null
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @param service	the computation to be executed
+	 * @return			the future of the result of the computation
+	 */
+	public <T> Future<T>	submit(Callable<T> service)
+	{
+		assert	service != null ;
+
+		FutureTask<T> ft = new FutureTask<T>(service) ;
+		this.enqueue(ft, 0) ;
+		return ft ;
+	}
+
+	/**
+	 * schedule a task after a virtual delay, reusing the future returned by
+	 * its previous scheduling when possible.
+	 *
+	 * <p><strong>Description</strong></p>
+	 *
+	 * The previous future is reused when it has been returned by this method
+	 * of this scheduler for the same task, when its event has already been
+	 * executed and when it is neither cancelled nor failed; the caller must
+	 * then no longer use it for the previous run, which is the case of a task
+	 * keeping only the future of its next run. Otherwise a new future is
+	 * created. The returned future is never done after a run, it can only be
+	 * cancelled.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	task != null &amp;&amp; delay >= 0
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @param previous	future of the previous run of the task, or null
+	 * @param task		the task to be executed
+	 * @param delay		virtual delay in milliseconds
+	 * @return			the future of the task, cancellable until it is executed
+	 */
+	public synchronized Future<?>	reschedule(
+		Future<?> previous,
+		Runnable task,
+		long delay
+		)
+	{
+		assert	task != null ;
+
+		RecurringTask rt = null ;
+		if (previous instanceof RecurringTask) {
+			rt = (RecurringTask) previous ;
+			if (rt.scheduler != this || rt.task != task
+								|| rt.event.queued || rt.isDone()) {
+				rt = null ;
+			}
+		}
+		long t = this.time + Math.max(0, delay) ;
+		if (rt == null) {
+			rt = new RecurringTask(this, task) ;
+			rt.event = new SimulationEvent(t, this.sequence++, rt) ;
+		} else {
+			rt.event.time = t ;
+			rt.event.sequence = this.sequence++ ;
+		}
+		rt.event.queued = true ;
+		this.events.add(rt.event) ;
+		return rt ;
+	}
+
+	protected synchronized void	enqueue(FutureTask<?> task, long delay)
+	{
+		// a negative delay is treated as "now", as the executors do
+		long t = this.time + Math.max(0, delay) ;
+		SimulationEvent e = new SimulationEvent(t, this.sequence++, task) ;
+		e.queued = true ;
+		this.events.add(e) ;
+	}
+
+	protected synchronized SimulationEvent	next(long endTime)
+	{
+		SimulationEvent e = this.events.peek() ;
+		if (e == null || e.time > endTime) {
+			return null ;
+		}
+		this.events.poll() ;
+		e.queued = false ;
+		this.time = e.time ;
+		return e ;
+	}
+
+	/**
+	 * execute the events in the order of their virtual time until none is
+	 * left before <code>endTime</code>; the clock is then set to
+	 * <code>endTime</code>.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	endTime >= getTime()
+	 * post	getTime() == endTime
+	 * </pre>
+	 *
+	 * @param endTime	virtual time at which the simulation stops
+	 * @return			the number of events executed
+	 */
+	public long			runUntil(long endTime)
+	{
+		assert	endTime >= this.time ;
+
+		long executed = 0 ;
+		SimulationEvent e ;
+		while ((e = this.next(endTime)) != null) {
+			// a cancelled task does nothing, the exceptions are kept in its
+			// future as the executors of the components do
+			e.task.run() ;
+			executed++ ;
+		}
+		synchronized (this) {
+			this.time = endTime ;
+			this.nrofExecutedEvents += executed ;
+		}
+		return executed ;
+	}
+
+	/**
+	 * @return	the number of events not executed yet, cancelled ones included
+	 */
+	public synchronized int	getNrofPendingEvents()
+	{
+		return this.events.size() ;
+	}
+
+	/**
+	 * @return	the number of events executed since the creation
+	 */
+	public synchronized long	getNrofExecutedEvents()
+	{
+		return this.nrofExecutedEvents ;
+	}
+}
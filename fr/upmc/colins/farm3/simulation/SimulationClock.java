@@ -0,0 +1,209 @@
+package fr.upmc.colins.farm3.simulation;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import fr.upmc.components.AbstractComponent;
+import fr.upmc.components.ComponentI;
+import fr.upmc.components.ComponentI.ComponentService;
+import fr.upmc.components.ComponentI.ComponentTask;
+
+/**
+ * The class <code>SimulationClock</code> implements the facade through which
+ * the components read the time and schedule their work.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * In real-time mode, the default, the methods forward to the wall clock and
+ * to the executors of the components. Once <code>useVirtualTime</code> has
+ * been called, before the components are created, they forward to a single
+ * <code>DiscreteEventScheduler</code>: the time is its virtual time, and the
+ * scheduled tasks and the asynchronous calls become events executed by the
+ * thread running the scheduler.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	isVirtual() == (getScheduler() != null)
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			SimulationClock
+{
+	/** the scheduler of the virtual-time mode, null in real-time mode		*/
+	protected static volatile DiscreteEventScheduler	scheduler = null ;
+	/** epoch time in nanoseconds when the class has been loaded			*/
+	protected static final long	ORIGIN_EPOCH_NANOS =
+				TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) ;
+	/** value of the nanosecond time source when the class has been loaded	*/
+	protected static final long	ORIGIN_NANOS = System.nanoTime() ;
+
+	/**
+	 * switch to the virtual-time mode; must be called before the creation of
+	 * the components.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	startTime >= 0
+	 * post	isVirtual() &amp;&amp; currentTimeMillis() == startTime
+	 * </pre>
+	 *
+	 * @param startTime		virtual time at the start of the simulation
+	 * @return				the scheduler driving the simulation
+	 */
+	public static synchronized DiscreteEventScheduler	useVirtualTime(
+		long startTime
+		)
+	{
+		scheduler = new DiscreteEventScheduler(startTime) ;
+		return scheduler ;
+	}
+
+	/**
+	 * @return	true if the virtual-time mode is used
+	 */
+	public static boolean	isVirtual()
+	{
+		return scheduler != null ;
+	}
+
+	/**
+	 * @return	the scheduler of the virtual-time mode, null in real-time mode
+	 */
+	public static DiscreteEventScheduler	getScheduler()
+	{
+		return scheduler ;
+	}
+
+	/**
+	 * @return	the current time in milliseconds
+	 */
+	public static long		currentTimeMillis()
+	{
+		DiscreteEventScheduler s = scheduler ;
+		return s == null ? System.currentTimeMillis() : s.getTime() ;
+	}
+
+	/**
+	 * @return	the current value of the time source in nanoseconds, only
+	 * 			meaningful to measure elapsed times
+	 */
+	public static long		nanoTime()
+	{
+		DiscreteEventScheduler s = scheduler ;
+		return s == null ? System.nanoTime()
+						 : TimeUnit.MILLISECONDS.toNanos(s.getTime()) ;
+	}
+
+	/**
+	 * return the epoch time in nanoseconds, with the precision of the
+	 * nanosecond time source; unlike <code>nanoTime</code>, the values read
+	 * in different virtual machines are comparable up to the skew of their
+	 * wall clocks.
+	 *
+	 * @return	the current epoch time in nanoseconds
+	 */
+	public static long		epochNanos()
+	{
+		DiscreteEventScheduler s = scheduler ;
+		return s == null ? ORIGIN_EPOCH_NANOS + (System.nanoTime() - ORIGIN_NANOS)
+						 : TimeUnit.MILLISECONDS.toNanos(s.getTime()) ;
+	}
+
+	/**
+	 * schedule a task of a component after a delay.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	owner != null &amp;&amp; task != null &amp;&amp; unit != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param owner		the component executing the task in real-time mode
+	 * @param task		the task to be executed
+	 * @param delay		delay before the execution
+	 * @param unit		time unit of the delay
+	 * @return			the future of the task
+	 */
+	public static Future<?>	schedule(
+		AbstractComponent owner,
+		ComponentTask task,
+		long delay,
+		TimeUnit unit
+		)
+	{
+		DiscreteEventScheduler s = scheduler ;
+		if (s == null) {
+			return owner.scheduleTask(task, delay, unit) ;
+		}
+		return s.schedule(task, unit.toMillis(delay)) ;
+	}
+
+	/**
+	 * schedule the next run of a task of a component after a delay; in
+	 * virtual-time mode, the future of the previous run is reused when
+	 * possible, as explained in <code>DiscreteEventScheduler.reschedule</code>,
+	 * whereas in real-time mode the component allocates a new one.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	owner != null &amp;&amp; task != null &amp;&amp; unit != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param owner		the component executing the task in real-time mode
+	 * @param task		the task to be executed
+	 * @param previous	future of the previous run of the task, or null
+	 * @param delay		delay before the execution
+	 * @param unit		time unit of the delay
+	 * @return			the future of the task
+	 */
+	public static Future<?>	reschedule(
+		AbstractComponent owner,
+		ComponentTask task,
+		Future<?> previous,
+		long delay,
+		TimeUnit unit
+		)
+	{
+		DiscreteEventScheduler s = scheduler ;
+		if (s == null) {
+			return owner.scheduleTask(task, delay, unit) ;
+		}
+		return s.reschedule(previous, task, unit.toMillis(delay)) ;
+	}
+
+	/**
+	 * submit an asynchronous call to a component.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	owner != null &amp;&amp; service != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param owner		the component executing the call in real-time mode
+	 * @param service	the call to be executed
+	 * @return			the future of the result of the call
+	 * @throws Exception
+	 */
+	public static <T> Future<T>	submit(
+		ComponentI owner,
+		ComponentService<T> service
+		) throws Exception
+	{
+		DiscreteEventScheduler s = scheduler ;
+		if (s == null) {
+			return owner.handleRequestAsync(service) ;
+		}
+		return s.submit(service) ;
+	}
+}
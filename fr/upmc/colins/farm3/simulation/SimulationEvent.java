@@ -0,0 +1,73 @@
+package fr.upmc.colins.farm3.simulation;
+
+import java.util.concurrent.FutureTask;
+
+/**
+ * The class <code>SimulationEvent</code> implements an event of the
+ * discrete-event scheduler.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * An event wraps the task to be executed at a given virtual time. The events
+ * are ordered by time, then by creation order so that events scheduled at the
+ * same time are executed in the order they have been scheduled. The task is a
+ * <code>FutureTask</code> given back to the caller as the future of the event:
+ * cancelling it makes the execution of the event do nothing.
+ *
+ * The event of a task rescheduled by <code>reschedule</code> is reused by each
+ * of its runs, hence the time and the creation order may change while the
+ * event is not in the queue.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	time >= 0 &amp;&amp; task != null
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+class					SimulationEvent
+implements	Comparable<SimulationEvent>
+{
+	/** virtual time of the event in milliseconds							*/
+	protected long					time ;
+	/** creation order of the event, to break the ties						*/
+	protected long					sequence ;
+	/** task executed by the event											*/
+	protected final FutureTask<?>	task ;
+	/** true while the event is in the queue of the scheduler				*/
+	protected boolean				queued ;
+
+	/**
+	 * create an event.
+	 *
+	 * @param time		virtual time of the event in milliseconds
+	 * @param sequence	creation order of the event
+	 * @param task		task executed by the event
+	 */
+	SimulationEvent(long time, long sequence, FutureTask<?> task)
+	{
+		assert	time >= 0 && task != null ;
+
+		this.time = time ;
+		this.sequence = sequence ;
+		this.task = task ;
+		this.queued = false ;
+	}
+
+	/**
+	 * @see java.lang.Comparable#compareTo(java.lang.Object)
+	 */
+	@Override
+	public int			compareTo(SimulationEvent other)
+	{
+		if (this.time != other.time) {
+			return this.time < other.time ? -1 : 1 ;
+		}
+		return this.sequence < other.sequence ? -1 :
+									(this.sequence == other.sequence ? 0 : 1) ;
+	}
+}
@@ -0,0 +1,176 @@
+package fr.upmc.colins.farm3.stats;
+
+/**
+ * The class <code>HistogramSnapshot</code> implements an immutable copy of the
+ * counts of a <code>LatencyHistogram</code>.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The percentiles of a snapshot are the highest values of the sub-buckets
+ * they fall in, hence within the precision of the histogram. The difference
+ * of two snapshots of the same histogram holds the values recorded between
+ * them.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	counts.length == highestValues.length
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			HistogramSnapshot
+{
+	/** percentiles exported by the components								*/
+	public static final double[]	EXPORTED_PERCENTILES = {
+		50.0, 90.0, 99.0, 99.9
+	} ;
+
+	/** number of values of each sub-bucket									*/
+	protected final long[]		counts ;
+	/** highest value of each sub-bucket									*/
+	protected final long[]		highestValues ;
+	/** sum of the values													*/
+	protected final long		sum ;
+	/** number of values													*/
+	protected final long		count ;
+
+	/**
+	 * create a snapshot.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	counts.length == highestValues.length
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param counts			number of values of each sub-bucket, not copied
+	 * @param highestValues		highest value of each sub-bucket, not copied
+	 * @param sum				sum of the values
+	 */
+	protected			HistogramSnapshot(
+		long[] counts,
+		long[] highestValues,
+		long sum
+		)
+	{
+		assert	counts.length == highestValues.length ;
+
+		this.counts = counts ;
+		this.highestValues = highestValues ;
+		this.sum = sum ;
+		long c = 0 ;
+		for (int i = 0; i < counts.length; i++) {
+			c += counts[i] ;
+		}
+		this.count = c ;
+	}
+
+	/**
+	 * return the difference between this snapshot and an earlier one.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	earlier is a previous snapshot of the same histogram
+	 * post	ret.getCount() == getCount() - earlier.getCount()
+	 * </pre>
+	 *
+	 * @param earlier	an earlier snapshot of the same histogram
+	 * @return			the snapshot of the values recorded in between
+	 */
+	public HistogramSnapshot	minus(HistogramSnapshot earlier)
+	{
+		assert	earlier.counts.length == this.counts.length ;
+
+		long[] diff = new long[this.counts.length] ;
+		for (int i = 0; i < diff.length; i++) {
+			diff[i] = Math.max(0L, this.counts[i] - earlier.counts[i]) ;
+		}
+		return new HistogramSnapshot(diff, this.highestValues,
+									 Math.max(0L, this.sum - earlier.sum)) ;
+	}
+
+	/**
+	 * return the value at a given percentile.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	0 &lt;= percentile &amp;&amp; percentile &lt;= 100
+	 * post	ret >= 0
+	 * </pre>
+	 *
+	 * @param percentile	the percentile (eg. 99.9)
+	 * @return				the value, 0 if the snapshot is empty
+	 */
+	public long			getValueAtPercentile(double percentile)
+	{
+		assert	0.0 <= percentile && percentile <= 100.0 ;
+
+		if (this.count == 0) {
+			return 0L ;
+		}
+		long rank = Math.max(1L,
+						(long) Math.ceil(percentile / 100.0 * this.count)) ;
+		long seen = 0 ;
+		for (int i = 0; i < this.counts.length; i++) {
+			seen += this.counts[i] ;
+			if (seen >= rank) {
+				return this.highestValues[i] ;
+			}
+		}
+		return this.getMax() ;
+	}
+
+	/**
+	 * @return	the number of values
+	 */
+	public long			getCount()
+	{
+		return this.count ;
+	}
+
+	/**
+	 * @return	the mean of the values, NaN if none
+	 */
+	public double		getMean()
+	{
+		return this.count == 0 ? Double.NaN : (double) this.sum / this.count ;
+	}
+
+	/**
+	 * @return	the maximum value within the precision, 0 if none
+	 */
+	public long			getMax()
+	{
+		for (int i = this.counts.length - 1; i >= 0; i--) {
+			if (this.counts[i] > 0) {
+				return this.highestValues[i] ;
+			}
+		}
+		return 0L ;
+	}
+
+	/**
+	 * return the exported percentiles in milliseconds, on one line.
+	 *
+	 * @return	eg. <code>count 12 p50 1.234 p90 ... p99.9 ... (ms)</code>
+	 */
+	public String		toPercentileString()
+	{
+		StringBuilder sb = new StringBuilder() ;
+		sb.append("count ").append(this.count) ;
+		for (double p : EXPORTED_PERCENTILES) {
+			sb.append(String.format(" p%s %.3f",
+					p == Math.rint(p) ? Long.toString((long) p)
+									  : Double.toString(p),
+					this.getValueAtPercentile(p) / 1e6)) ;
+		}
+		return sb.append(" (ms)").toString() ;
+	}
+}
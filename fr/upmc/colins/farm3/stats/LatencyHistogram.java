@@ -0,0 +1,235 @@
+package fr.upmc.colins.farm3.stats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The class <code>LatencyHistogram</code> implements a fixed-memory,
+ * allocation-free recorder of latencies in nanoseconds.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The histogram is log-linear, as HdrHistogram: the values are split in
+ * buckets whose bounds are the powers of two, and each bucket is split in
+ * <code>2^(precisionBits-1)</code> linear sub-buckets, so the relative error
+ * on a value is below <code>2^-(precisionBits-1)</code> whatever its
+ * magnitude. The values below <code>2^precisionBits</code> are exact and
+ * the values above the highest trackable value are counted as the highest
+ * trackable value.
+ *
+ * The counts are kept in an <code>AtomicLongArray</code>: recording a value
+ * is an atomic increment, and the histogram can be read at any time from
+ * another thread without stopping the recording threads. A reader takes
+ * snapshots; a snapshot is an immutable copy of the counts, and an interval
+ * snapshot holds the values recorded since the previous interval snapshot.
+ * The copy of the counts is not atomic as a whole, a value recorded during
+ * the copy being either in the snapshot or in the next one.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	1 &lt; precisionBits &amp;&amp; precisionBits &lt;= 16
+ * invariant	highestTrackableValue >= 2^precisionBits
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			LatencyHistogram
+{
+	/** default precision, sub-buckets of less than 1% of their values		*/
+	public static final int		DEFAULT_PRECISION_BITS = 8 ;
+	/** default highest trackable value, one hour							*/
+	public static final long	DEFAULT_HIGHEST_TRACKABLE_VALUE =
+											TimeUnit.HOURS.toNanos(1) ;
+
+	/** number of bits of the sub-bucket index								*/
+	protected final int			precisionBits ;
+	/** number of sub-buckets of a bucket, but the first one				*/
+	protected final int			halfSubBucketCount ;
+	/** highest trackable value												*/
+	protected final long		highestTrackableValue ;
+	/** highest value of each sub-bucket, shared by the snapshots			*/
+	protected final long[]		highestValues ;
+	/** number of values of each sub-bucket									*/
+	protected final AtomicLongArray	counts ;
+	/** sum of the recorded values, for the mean							*/
+	protected final AtomicLong	sum ;
+	/** last interval snapshot, reader side									*/
+	protected HistogramSnapshot	lastInterval ;
+
+	/**
+	 * create an empty histogram with the default precision and range.
+	 */
+	public				LatencyHistogram()
+	{
+		this(DEFAULT_PRECISION_BITS, DEFAULT_HIGHEST_TRACKABLE_VALUE) ;
+	}
+
+	/**
+	 * create an empty histogram.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	1 &lt; precisionBits &amp;&amp; precisionBits &lt;= 16
+	 * pre	highestTrackableValue >= 2^precisionBits
+	 * post	getCount() == 0
+	 * </pre>
+	 *
+	 * @param precisionBits			number of significant bits of the values
+	 * @param highestTrackableValue	highest value distinguished from the
+	 * 								others, in nanoseconds
+	 */
+	public				LatencyHistogram(
+		int precisionBits,
+		long highestTrackableValue
+		)
+	{
+		assert	1 < precisionBits && precisionBits <= 16 ;
+		assert	highestTrackableValue >= (1L << precisionBits) ;
+
+		this.precisionBits = precisionBits ;
+		this.halfSubBucketCount = 1 << (precisionBits - 1) ;
+		this.highestTrackableValue = highestTrackableValue ;
+		int length = this.indexOf(highestTrackableValue) + 1 ;
+		this.counts = new AtomicLongArray(length) ;
+		this.highestValues = new long[length] ;
+		for (int i = 0; i < length; i++) {
+			this.highestValues[i] = this.highestValueAt(i) ;
+		}
+		this.sum = new AtomicLong() ;
+		this.lastInterval = null ;
+	}
+
+	/**
+	 * return the index of the sub-bucket of a value.
+	 *
+	 * @param value		a value between 0 and the highest trackable value
+	 * @return			the index of its sub-bucket
+	 */
+	protected int		indexOf(long value)
+	{
+		// 0 for the values below 2^precisionBits, which are exact
+		int bucket = Math.max(0, 64 - Long.numberOfLeadingZeros(value)
+												- this.precisionBits) ;
+		return bucket * this.halfSubBucketCount + (int) (value >>> bucket) ;
+	}
+
+	/**
+	 * return the highest value of a sub-bucket.
+	 *
+	 * @param index		the index of a sub-bucket
+	 * @return			the highest value counted in this sub-bucket
+	 */
+	protected long		highestValueAt(int index)
+	{
+		int bucket = Math.max(0, index / this.halfSubBucketCount - 1) ;
+		long subBucket = index - bucket * this.halfSubBucketCount ;
+		return ((subBucket + 1) << bucket) - 1 ;
+	}
+
+	/**
+	 * record a value; negative values are ignored.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	value &lt; 0 || getCount() == getCount()@pre + 1
+	 * </pre>
+	 *
+	 * @param value		the latency in nanoseconds
+	 */
+	public void			recordValue(long value)
+	{
+		if (value < 0) {
+			return ;
+		}
+		long v = Math.min(value, this.highestTrackableValue) ;
+		this.counts.incrementAndGet(this.indexOf(v)) ;
+		this.sum.addAndGet(v) ;
+	}
+
+	/**
+	 * return a snapshot of all the values recorded since the creation.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @return	the snapshot
+	 */
+	public HistogramSnapshot	getSnapshot()
+	{
+		long[] copy = new long[this.counts.length()] ;
+		// the sum is read first, so the mean never includes unseen values
+		long s = this.sum.get() ;
+		for (int i = 0; i < copy.length; i++) {
+			copy[i] = this.counts.get(i) ;
+		}
+		return new HistogramSnapshot(copy, this.highestValues, s) ;
+	}
+
+	/**
+	 * return a snapshot of the values recorded since the previous call, or
+	 * since the creation at the first call; meant to be called by a single
+	 * reader.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	ret != null
+	 * </pre>
+	 *
+	 * @return	the interval snapshot
+	 */
+	public synchronized HistogramSnapshot	getIntervalSnapshot()
+	{
+		HistogramSnapshot current = this.getSnapshot() ;
+		HistogramSnapshot ret = this.lastInterval == null ? current
+								: current.minus(this.lastInterval) ;
+		this.lastInterval = current ;
+		return ret ;
+	}
+
+	/**
+	 * @param percentile	a percentile (eg. 99.0)
+	 * @return				the value at this percentile, 0 if none
+	 */
+	public long			getValueAtPercentile(double percentile)
+	{
+		return this.getSnapshot().getValueAtPercentile(percentile) ;
+	}
+
+	/**
+	 * @return	the number of recorded values
+	 */
+	public long			getCount()
+	{
+		return this.getSnapshot().getCount() ;
+	}
+
+	/**
+	 * @return	the mean of the recorded values, NaN if none
+	 */
+	public double		getMean()
+	{
+		return this.getSnapshot().getMean() ;
+	}
+
+	/**
+	 * @return	the maximum recorded value within the precision, 0 if none
+	 */
+	public long			getMax()
+	{
+		return this.getSnapshot().getMax() ;
+	}
+}
@@ -0,0 +1,207 @@
+package fr.upmc.colins.farm3.stats;
+
+import java.util.Arrays;
+
+/**
+ * The class <code>P2QuantileEstimator</code> implements the P-square
+ * algorithm of Jain and Chlamtac to estimate a quantile of a stream of values
+ * without storing them.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The estimator keeps five markers whose heights approximate the minimum, the
+ * p/2-quantile, the p-quantile, the (1+p)/2-quantile and the maximum of the
+ * values seen so far. Each new value moves the markers positions and their
+ * heights are adjusted with a piecewise-parabolic interpolation. Both the
+ * memory and the cost of an update are constant.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	0 &lt; p &amp;&amp; p &lt; 1
+ * invariant	count >= 0
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			P2QuantileEstimator
+{
+	/** number of markers of the algorithm									*/
+	protected static final int	MARKERS = 5;
+
+	/** quantile to be estimated											*/
+	protected final double		p;
+	/** number of values added since the last reset							*/
+	protected long				count;
+	/** heights of the markers												*/
+	protected final double[]	heights;
+	/** actual positions of the markers										*/
+	protected final long[]		positions;
+	/** desired positions of the markers									*/
+	protected final double[]	desired;
+	/** increments of the desired positions									*/
+	protected final double[]	increments;
+
+	/**
+	 * create an estimator for the given quantile.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	0 &lt; p &amp;&amp; p &lt; 1
+	 * post	count == 0
+	 * </pre>
+	 *
+	 * @param p		quantile to be estimated (eg. 0.95)
+	 */
+	public				P2QuantileEstimator(double p)
+	{
+		assert	p > 0.0 && p < 1.0 ;
+
+		this.p = p ;
+		this.heights = new double[MARKERS] ;
+		this.positions = new long[MARKERS] ;
+		this.desired = new double[MARKERS] ;
+		this.increments = new double[] { 0.0, p / 2.0, p, (1.0 + p) / 2.0, 1.0 } ;
+		this.reset() ;
+	}
+
+	/**
+	 * forget all the values added so far.
+	 */
+	public void			reset()
+	{
+		this.count = 0 ;
+		for (int i = 0; i < MARKERS; i++) {
+			this.heights[i] = 0.0 ;
+			this.positions[i] = i ;
+		}
+		this.desired[0] = 0.0 ;
+		this.desired[1] = 2.0 * this.p ;
+		this.desired[2] = 4.0 * this.p ;
+		this.desired[3] = 2.0 + 2.0 * this.p ;
+		this.desired[4] = 4.0 ;
+	}
+
+	/**
+	 * add a value to the stream.
+	 *
+	 * @param x		the new value
+	 */
+	public void			addValue(double x)
+	{
+		if (this.count < MARKERS) {
+			// the first values are stored as they are, and sorted once the
+			// markers are all initialised
+			this.heights[(int) this.count] = x ;
+			this.count++ ;
+			if (this.count == MARKERS) {
+				Arrays.sort(this.heights) ;
+			}
+			return ;
+		}
+		this.count++ ;
+
+		// find the cell k such as heights[k] <= x < heights[k + 1]
+		int k ;
+		if (x < this.heights[0]) {
+			this.heights[0] = x ;
+			k = 0 ;
+		} else if (x >= this.heights[MARKERS - 1]) {
+			this.heights[MARKERS - 1] = x ;
+			k = MARKERS - 2 ;
+		} else {
+			k = 0 ;
+			while (x >= this.heights[k + 1]) {
+				k++ ;
+			}
+		}
+
+		for (int i = k + 1; i < MARKERS; i++) {
+			this.positions[i]++ ;
+		}
+		for (int i = 0; i < MARKERS; i++) {
+			this.desired[i] += this.increments[i] ;
+		}
+
+		// adjust the heights of the three middle markers if necessary
+		for (int i = 1; i < MARKERS - 1; i++) {
+			double d = this.desired[i] - this.positions[i] ;
+			if ((d >= 1.0 && this.positions[i + 1] - this.positions[i] > 1) ||
+				(d <= -1.0 && this.positions[i - 1] - this.positions[i] < -1)) {
+				int sign = d >= 0 ? 1 : -1 ;
+				double q = this.parabolic(i, sign) ;
+				if (this.heights[i - 1] < q && q < this.heights[i + 1]) {
+					this.heights[i] = q ;
+				} else {
+					this.heights[i] = this.linear(i, sign) ;
+				}
+				this.positions[i] += sign ;
+			}
+		}
+	}
+
+	/**
+	 * return the current estimation of the quantile, or <code>NaN</code> if no
+	 * value has been added yet.
+	 *
+	 * @return	the estimated quantile
+	 */
+	public double		getQuantile()
+	{
+		if (this.count == 0) {
+			return Double.NaN ;
+		}
+		if (this.count < MARKERS) {
+			// not enough values for the markers, compute the exact quantile
+			// on the few stored values (no allocation on the hot path as this
+			// only happens on the very first values)
+			double[] sorted = Arrays.copyOf(this.heights, (int) this.count) ;
+			Arrays.sort(sorted) ;
+			int index = (int) Math.round(this.p * (this.count - 1)) ;
+			return sorted[index] ;
+		}
+		return this.heights[2] ;
+	}
+
+	/**
+	 * @return	the number of values added since the last reset
+	 */
+	public long			getCount()
+	{
+		return this.count ;
+	}
+
+	/**
+	 * @return	the estimated quantile
+	 */
+	public double		getP()
+	{
+		return this.p ;
+	}
+
+	/**
+	 * piecewise-parabolic prediction of the height of marker i moved by d.
+	 */
+	private double		parabolic(int i, int d)
+	{
+		double ni = this.positions[i] ;
+		double nm = this.positions[i - 1] ;
+		double np = this.positions[i + 1] ;
+		return this.heights[i] + d / (np - nm) *
+				((ni - nm + d) * (this.heights[i + 1] - this.heights[i]) / (np - ni) +
+				 (np - ni - d) * (this.heights[i] - this.heights[i - 1]) / (ni - nm)) ;
+	}
+
+	/**
+	 * linear prediction of the height of marker i moved by d.
+	 */
+	private double		linear(int i, int d)
+	{
+		return this.heights[i] + d * (this.heights[i + d] - this.heights[i]) /
+				(this.positions[i + d] - this.positions[i]) ;
+	}
+}
@@ -0,0 +1,124 @@
+package fr.upmc.colins.farm3.stats;
+
+import fr.upmc.colins.farm3.objects.TraceContext;
+
+/**
+ * The class <code>TraceAggregator</code> aggregates the traces of the requests
+ * of an application into one latency histogram per stage.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The stages are the intervals between consecutive steps of the path of a
+ * request: the wait in the request dispatcher, the transfer to the virtual
+ * machine, the wait in the virtual machine and in the queue of the core, the
+ * servicing by the core and the return of the response; the end-to-end time
+ * from the generation to the response is aggregated too. A trace missing one
+ * of the steps of a stage is ignored for this stage.
+ *
+ * The requests of an open-loop generator also carry the time at which they
+ * were intended to be sent: the lag of the sending and the end-to-end time
+ * from the intended time, which is not hidden by the stalls of the
+ * generator, are aggregated as two more stages, left out of the report when
+ * they are empty.
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			TraceAggregator
+{
+	/** first step of each stage											*/
+	protected static final int[]	FROM = {
+		TraceContext.GENERATION, TraceContext.DISPATCH,
+		TraceContext.VM_ENQUEUE, TraceContext.CORE_START,
+		TraceContext.CORE_END, TraceContext.GENERATION,
+		TraceContext.INTENDED, TraceContext.INTENDED
+	} ;
+	/** last step of each stage												*/
+	protected static final int[]	TO = {
+		TraceContext.DISPATCH, TraceContext.VM_ENQUEUE,
+		TraceContext.CORE_START, TraceContext.CORE_END,
+		TraceContext.RESPONSE, TraceContext.RESPONSE,
+		TraceContext.GENERATION, TraceContext.RESPONSE
+	} ;
+	/** index of the end-to-end stage									*/
+	public static final int			TOTAL = 5 ;
+	/** index of the end-to-end stage from the intended sending time		*/
+	public static final int			INTENDED_TOTAL = 7 ;
+	/** name of each stage													*/
+	public static final String[]	STAGE_NAMES = {
+		"dispatcher wait", "to vm", "queueing", "service", "return", "total",
+		"send lag", "intended total"
+	} ;
+
+	/** histogram of each stage												*/
+	protected final LatencyHistogram[]	histograms ;
+
+	/**
+	 * create an empty aggregator.
+	 */
+	public				TraceAggregator()
+	{
+		this.histograms = new LatencyHistogram[STAGE_NAMES.length] ;
+		for (int i = 0; i < this.histograms.length; i++) {
+			this.histograms[i] = new LatencyHistogram() ;
+		}
+	}
+
+	/**
+	 * add the stages of a trace to the histograms.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	trace != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param trace		the trace of a request whose response has arrived
+	 */
+	public void			record(TraceContext trace)
+	{
+		assert	trace != null ;
+
+		for (int i = 0; i < this.histograms.length; i++) {
+			long elapsed = trace.elapsed(FROM[i], TO[i]) ;
+			if (elapsed >= 0) {
+				this.histograms[i].recordValue(elapsed) ;
+			}
+		}
+	}
+
+	/**
+	 * @param stage		index of a stage in <code>STAGE_NAMES</code>
+	 * @return			the histogram of the stage
+	 */
+	public LatencyHistogram	getHistogram(int stage)
+	{
+		return this.histograms[stage] ;
+	}
+
+	/**
+	 * return a report of the stages, one line per stage, with the exported
+	 * percentiles in milliseconds.
+	 *
+	 * @param logId		prefix of the lines
+	 * @return			the report
+	 */
+	public String		report(String logId)
+	{
+		StringBuilder sb = new StringBuilder() ;
+		for (int i = 0; i < this.histograms.length; i++) {
+			if (i > TOTAL && this.histograms[i].getCount() == 0) {
+				continue ;
+			}
+			if (i > 0) {
+				sb.append('\n') ;
+			}
+			sb.append(logId).append(String.format(" %-16s ", STAGE_NAMES[i]))
+			  .append(this.histograms[i].getSnapshot().toPercentileString()) ;
+		}
+		return sb.toString() ;
+	}
+}
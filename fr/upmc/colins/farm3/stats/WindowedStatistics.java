@@ -0,0 +1,292 @@
+package fr.upmc.colins.farm3.stats;
+
+/**
+ * The class <code>WindowedStatistics</code> implements a constant-memory
+ * statistics engine over a stream of timestamped values.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * Three views of the stream are maintained, each with an O(1) update:
+ *
+ * <ol>
+ * <li>a sliding time window of length <code>windowLength</code> split in
+ *   <code>nrofBuckets</code> buckets, each keeping a count and a sum, giving the
+ *   mean of the values of the last window;</li>
+ * <li>an exponentially-weighted moving average of smoothing factor
+ *   <code>smoothingFactor</code>;</li>
+ * <li>the p50, p95 and p99 quantiles, estimated with the P-square algorithm.
+ *   The estimators are restarted at each window so that they only reflect
+ *   recent values; the estimators of the previous window are used until the
+ *   current one has seen enough values.</li>
+ * </ol>
+ *
+ * The object is not thread safe, it is meant to be owned by a component and
+ * updated from its internal services.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	windowLength > 0 &amp;&amp; nrofBuckets > 0
+ * invariant	0 &lt; smoothingFactor &amp;&amp; smoothingFactor &lt;= 1
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			WindowedStatistics
+{
+	/** default length of the sliding window in milliseconds				*/
+	public static final long	DEFAULT_WINDOW_LENGTH = 30000L ;
+	/** default smoothing factor of the moving average						*/
+	public static final double	DEFAULT_SMOOTHING_FACTOR = 0.1 ;
+	/** default number of buckets of the sliding window						*/
+	public static final int		DEFAULT_NROF_BUCKETS = 10 ;
+	/** minimum number of values before trusting the current estimators		*/
+	protected static final long	MIN_QUANTILE_COUNT = 20 ;
+
+	/** length of the sliding window in milliseconds						*/
+	protected final long		windowLength ;
+	/** length of a bucket in milliseconds									*/
+	protected final long		bucketLength ;
+	/** number of values in each bucket										*/
+	protected final long[]		bucketCounts ;
+	/** sum of the values in each bucket									*/
+	protected final double[]	bucketSums ;
+	/** index of the current bucket											*/
+	protected int				currentBucket ;
+	/** time at which the current bucket has started						*/
+	protected long				currentBucketStart ;
+
+	/** smoothing factor of the moving average								*/
+	protected final double		smoothingFactor ;
+	/** exponentially-weighted moving average, NaN if no value yet			*/
+	protected double			smoothedMean ;
+
+	/** quantile estimators of the current window (p50, p95, p99)			*/
+	protected P2QuantileEstimator[]	currentQuantiles ;
+	/** quantile estimators of the previous window (p50, p95, p99)			*/
+	protected P2QuantileEstimator[]	previousQuantiles ;
+	/** time at which the current quantile estimators have been started		*/
+	protected long				quantilesStart ;
+
+	/** total number of values added since the creation						*/
+	protected long				totalCount ;
+
+	/**
+	 * create a statistics engine with the default settings.
+	 */
+	public				WindowedStatistics()
+	{
+		this(DEFAULT_WINDOW_LENGTH, DEFAULT_NROF_BUCKETS,
+			 DEFAULT_SMOOTHING_FACTOR) ;
+	}
+
+	/**
+	 * create a statistics engine.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	windowLength >= nrofBuckets &amp;&amp; nrofBuckets > 0
+	 * pre	0 &lt; smoothingFactor &amp;&amp; smoothingFactor &lt;= 1
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param windowLength		length of the sliding window in milliseconds
+	 * @param nrofBuckets		number of buckets of the sliding window
+	 * @param smoothingFactor	smoothing factor of the moving average
+	 */
+	public				WindowedStatistics(
+		long windowLength,
+		int nrofBuckets,
+		double smoothingFactor
+		)
+	{
+		assert	nrofBuckets > 0 && windowLength >= nrofBuckets ;
+		assert	smoothingFactor > 0.0 && smoothingFactor <= 1.0 ;
+
+		this.windowLength = windowLength ;
+		this.bucketLength = windowLength / nrofBuckets ;
+		this.bucketCounts = new long[nrofBuckets] ;
+		this.bucketSums = new double[nrofBuckets] ;
+		this.currentBucket = 0 ;
+		this.currentBucketStart = -1L ;
+		this.smoothingFactor = smoothingFactor ;
+		this.smoothedMean = Double.NaN ;
+		this.currentQuantiles = newQuantiles() ;
+		this.previousQuantiles = newQuantiles() ;
+		this.quantilesStart = -1L ;
+		this.totalCount = 0 ;
+	}
+
+	private static P2QuantileEstimator[]	newQuantiles()
+	{
+		return new P2QuantileEstimator[] {
+			new P2QuantileEstimator(0.50),
+			new P2QuantileEstimator(0.95),
+			new P2QuantileEstimator(0.99)
+		} ;
+	}
+
+	/**
+	 * add a value observed at time <code>now</code>.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	now >= 0
+	 * post	getCount() == getCount()@pre + 1
+	 * </pre>
+	 *
+	 * @param value		the observed value
+	 * @param now		time of the observation in milliseconds
+	 */
+	public void			addValue(double value, long now)
+	{
+		this.advance(now) ;
+		this.bucketCounts[this.currentBucket]++ ;
+		this.bucketSums[this.currentBucket] += value ;
+
+		if (Double.isNaN(this.smoothedMean)) {
+			this.smoothedMean = value ;
+		} else {
+			this.smoothedMean += this.smoothingFactor * (value - this.smoothedMean) ;
+		}
+
+		for (int i = 0; i < this.currentQuantiles.length; i++) {
+			this.currentQuantiles[i].addValue(value) ;
+		}
+		this.totalCount++ ;
+	}
+
+	/**
+	 * move the window up to time <code>now</code>, clearing the buckets which
+	 * went out of it; at most <code>nrofBuckets</code> buckets are cleared.
+	 *
+	 * @param now		current time in milliseconds
+	 */
+	protected void		advance(long now)
+	{
+		if (this.currentBucketStart < 0) {
+			this.currentBucketStart = now ;
+			this.quantilesStart = now ;
+			return ;
+		}
+		long elapsed = (now - this.currentBucketStart) / this.bucketLength ;
+		if (elapsed > 0) {
+			int toClear = (int) Math.min(elapsed, this.bucketCounts.length) ;
+			for (int i = 0; i < toClear; i++) {
+				this.currentBucket =
+						(this.currentBucket + 1) % this.bucketCounts.length ;
+				this.bucketCounts[this.currentBucket] = 0 ;
+				this.bucketSums[this.currentBucket] = 0.0 ;
+			}
+			this.currentBucketStart += elapsed * this.bucketLength ;
+		}
+		if (now - this.quantilesStart >= this.windowLength) {
+			// swap the estimators rather than allocating new ones
+			P2QuantileEstimator[] tmp = this.previousQuantiles ;
+			this.previousQuantiles = this.currentQuantiles ;
+			this.currentQuantiles = tmp ;
+			for (int i = 0; i < this.currentQuantiles.length; i++) {
+				this.currentQuantiles[i].reset() ;
+			}
+			this.quantilesStart = now ;
+		}
+	}
+
+	/**
+	 * return the mean of the values of the window ending at <code>now</code>,
+	 * or <code>NaN</code> if the window is empty.
+	 *
+	 * @param now		current time in milliseconds
+	 * @return			the mean over the sliding window
+	 */
+	public double		getWindowMean(long now)
+	{
+		this.advance(now) ;
+		long count = 0 ;
+		double sum = 0.0 ;
+		for (int i = 0; i < this.bucketCounts.length; i++) {
+			count += this.bucketCounts[i] ;
+			sum += this.bucketSums[i] ;
+		}
+		return count == 0 ? Double.NaN : sum / count ;
+	}
+
+	/**
+	 * return the number of values of the window ending at <code>now</code>.
+	 *
+	 * @param now		current time in milliseconds
+	 * @return			the number of values in the sliding window
+	 */
+	public long			getWindowCount(long now)
+	{
+		this.advance(now) ;
+		long count = 0 ;
+		for (int i = 0; i < this.bucketCounts.length; i++) {
+			count += this.bucketCounts[i] ;
+		}
+		return count ;
+	}
+
+	/**
+	 * @return	the exponentially-weighted moving average, NaN if no value
+	 */
+	public double		getSmoothedMean()
+	{
+		return this.smoothedMean ;
+	}
+
+	/**
+	 * @return	the estimated median of the recent values
+	 */
+	public double		getP50()
+	{
+		return this.getQuantile(0) ;
+	}
+
+	/**
+	 * @return	the estimated 95th percentile of the recent values
+	 */
+	public double		getP95()
+	{
+		return this.getQuantile(1) ;
+	}
+
+	/**
+	 * @return	the estimated 99th percentile of the recent values
+	 */
+	public double		getP99()
+	{
+		return this.getQuantile(2) ;
+	}
+
+	private double		getQuantile(int index)
+	{
+		P2QuantileEstimator current = this.currentQuantiles[index] ;
+		P2QuantileEstimator previous = this.previousQuantiles[index] ;
+		if (current.getCount() < MIN_QUANTILE_COUNT && previous.getCount() > 0) {
+			return previous.getQuantile() ;
+		}
+		return current.getQuantile() ;
+	}
+
+	/**
+	 * @return	the total number of values added since the creation
+	 */
+	public long			getCount()
+	{
+		return this.totalCount ;
+	}
+
+	/**
+	 * @return	the length of the sliding window in milliseconds
+	 */
+	public long			getWindowLength()
+	{
+		return this.windowLength ;
+	}
+}
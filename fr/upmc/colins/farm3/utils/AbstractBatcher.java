@@ -0,0 +1,253 @@
+package fr.upmc.colins.farm3.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import fr.upmc.colins.farm3.simulation.SimulationClock;
+import fr.upmc.components.AbstractComponent;
+import fr.upmc.components.ComponentI.ComponentTask;
+
+/**
+ * The class <code>AbstractBatcher</code> implements the grouping of the
+ * messages sent by a component into batches, sent with a single call.
+ *
+ * <p><strong>Description</strong></p>
+ *
+ * The first message of a batch opens a micro-batching window: the batch is
+ * sent when the window closes, or as soon as it holds <code>maxSize</code>
+ * messages, whichever comes first. A message thus waits at most
+ * <code>window</code> milliseconds before being sent, while at high rates one
+ * call carries many messages. With a window of 0, each message is sent on its
+ * own, as without batcher. The subclasses define how one message and a batch
+ * of messages are sent. The batcher is thread safe, the messages are sent
+ * outside of its lock.
+ *
+ * <p><strong>Invariant</strong></p>
+ *
+ * <pre>
+ * invariant	owner != null
+ * invariant	window >= 0 &amp;&amp; maxSize > 0
+ * </pre>
+ *
+ * <p>Created on : march 2015</p>
+ *
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public abstract class	AbstractBatcher<T>
+{
+	/** component executing the tasks closing the windows					*/
+	protected final AbstractComponent	owner ;
+	/** length of the micro-batching window in milliseconds					*/
+	protected final long				window ;
+	/** maximal number of messages of a batch								*/
+	protected final int					maxSize ;
+	/** messages of the current batch, null if no window is open			*/
+	protected ArrayList<T>				pending ;
+	/** future of the task closing the current window						*/
+	protected Future<?>					closingFuture ;
+
+	/**
+	 * create a batcher.
+	 *
+	 * <p><strong>Contract</strong></p>
+	 *
+	 * <pre>
+	 * pre	owner != null
+	 * pre	window >= 0 &amp;&amp; maxSize > 0
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param owner		component executing the tasks closing the windows
+	 * @param window	length of the micro-batching window in milliseconds,
+	 * 					0 to send each message on its own
+	 * @param maxSize	maximal number of messages of a batch
+	 */
+	public				AbstractBatcher(
+		AbstractComponent owner,
+		long window,
+		int maxSize
+		)
+	{
+		assert	owner != null ;
+		assert	window >= 0 && maxSize > 0 ;
+
+		this.owner = owner ;
+		this.window = window ;
+		this.maxSize = maxSize ;
+		this.pending = null ;
+		this.closingFuture = null ;
+	}
+
+	/**
+	 * send one message on its own.
+	 *
+	 * @param message	the message to be sent
+	 * @throws Exception
+	 */
+	protected abstract void	sendOne(T message) throws Exception ;
+
+	/**
+	 * send a batch of at least two messages in a single call.
+	 *
+	 * @param batch		the messages to be sent, in their order
+	 * @throws Exception
+	 */
+	protected abstract void	sendMany(ArrayList<T> batch) throws Exception ;
+
+	/**
+	 * send a message, either immediately or in the current batch.
+	 *
+	 * @param message	the message to be sent
+	 * @throws Exception
+	 */
+	public void			send(T message) throws Exception
+	{
+		assert	message != null ;
+
+		if (this.window <= 0) {
+			this.sendOne(message) ;
+			return ;
+		}
+		ArrayList<T> full = null ;
+		synchronized (this) {
+			if (this.pending == null) {
+				this.pending = new ArrayList<T>(this.maxSize) ;
+				this.openWindow() ;
+			}
+			this.pending.add(message) ;
+			if (this.pending.size() >= this.maxSize) {
+				full = this.takePending() ;
+			}
+		}
+		if (full != null) {
+			this.sendBatch(full) ;
+		}
+	}
+
+	/**
+	 * send several messages, in their order; with a window of 0 they are sent
+	 * together in a single call, else they join the current batch.
+	 *
+	 * @param messages	the messages to be sent
+	 * @throws Exception
+	 */
+	public void			sendAll(List<T> messages) throws Exception
+	{
+		assert	messages != null ;
+
+		if (messages.isEmpty()) {
+			return ;
+		}
+		if (this.window <= 0) {
+			this.sendBatch(new ArrayList<T>(messages)) ;
+			return ;
+		}
+		ArrayList<ArrayList<T>> full = null ;
+		synchronized (this) {
+			for (T message : messages) {
+				if (this.pending == null) {
+					this.pending = new ArrayList<T>(this.maxSize) ;
+					this.openWindow() ;
+				}
+				this.pending.add(message) ;
+				if (this.pending.size() >= this.maxSize) {
+					if (full == null) {
+						full = new ArrayList<ArrayList<T>>() ;
+					}
+					full.add(this.takePending()) ;
+				}
+			}
+		}
+		if (full != null) {
+			for (ArrayList<T> batch : full) {
+				this.sendBatch(batch) ;
+			}
+		}
+	}
+
+	/**
+	 * send the current batch immediately, if any.
+	 *
+	 * @throws Exception
+	 */
+	public void			flush() throws Exception
+	{
+		ArrayList<T> batch ;
+		synchronized (this) {
+			batch = this.takePending() ;
+		}
+		if (batch != null) {
+			this.sendBatch(batch) ;
+		}
+	}
+
+	/**
+	 * schedule the task closing the window just opened.
+	 */
+	protected void		openWindow()
+	{
+		final AbstractBatcher<T> fb = this ;
+		this.closingFuture = SimulationClock.schedule(this.owner,
+			new ComponentTask() {
+				@Override
+				public void run() {
+					try {
+						fb.flush() ;
+					} catch (Exception e) {
+						e.printStackTrace() ;
+					}
+				}
+			}, this.window, TimeUnit.MILLISECONDS) ;
+	}
+
+	/**
+	 * take the current batch and close its window; must be called while
+	 * holding the lock of the batcher.
+	 *
+	 * @return	the current batch, null if none
+	 */
+	protected ArrayList<T>	takePending()
+	{
+		ArrayList<T> batch = this.pending ;
+		this.pending = null ;
+		if (this.closingFuture != null) {
+			this.closingFuture.cancel(false) ;
+			this.closingFuture = null ;
+		}
+		return batch ;
+	}
+
+	/**
+	 * send a batch, on its own if it holds a single message.
+	 *
+	 * @param batch		the messages to be sent
+	 * @throws Exception
+	 */
+	protected void		sendBatch(ArrayList<T> batch) throws Exception
+	{
+		if (batch.size() == 1) {
+			this.sendOne(batch.get(0)) ;
+		} else {
+			this.sendMany(batch) ;
+		}
+	}
+
+	/**
+	 * @return	the length of the micro-batching window in milliseconds
+	 */
+	public long			getWindow()
+	{
+		return this.window ;
+	}
+
+	/**
+	 * @return	the maximal number of messages of a batch
+	 */
+	public int			getMaxSize()
+	{
+		return this.maxSize ;
+	}
+}
@@ -0,0 +1,67 @@
+package fr.upmc.colins.farm3.utils;
+
+/**
+ * The class <code>ClockSpeedProcessing</code> implements utilities for
+ * processing clock speeds.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * The cores only run at clock speeds multiple of <code>RESOLUTION</code>;
+ * the cores, the cpus and the actuators share these methods so that a clock
+ * speed computed by one of them compares equal to the one applied by a core.
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	true
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			ClockSpeedProcessing
+{
+	/** resolution of the clock speed of the cores							*/
+	public static final double	RESOLUTION = 0.1 ;
+	/** minimum clock speed of the cores										*/
+	public static final double	MIN_CLOCK_SPEED = RESOLUTION ;
+
+	/**
+	 * round a clock speed to the nearest clock speed of the cores.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param clockSpeed	the clock speed to be rounded
+	 * @return				the nearest clock speed of the cores
+	 */
+	public static double	round(double clockSpeed)
+	{
+		return (double) Math.round(clockSpeed * 10) / 10 ;
+	}
+
+	/**
+	 * round a clock speed up to the smallest clock speed of the cores above
+	 * it; the small epsilon avoids rounding 0.30000000000000004 up to 0.4.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	true			// no precondition.
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
+	 * @param clockSpeed	the clock speed to be rounded
+	 * @return				the smallest clock speed of the cores above it
+	 */
+	public static double	roundUp(double clockSpeed)
+	{
+		return Math.ceil(clockSpeed * 10 - 1e-9) / 10 ;
+	}
+}
@@ -0,0 +1,237 @@
+package fr.upmc.colins.farm3.utils;
+
+/**
+ * The class <code>QueueingModel</code> implements the formulas of the M/M/c
+ * queueing model used to size the resources of an application.
+ *
+ * <p><strong>Description</strong></p>
+ * 
+ * Requests arrive following a Poisson process of rate <code>lambda</code> and
+ * are serviced by <code>c</code> identical servers whose service times follow
+ * an exponential distribution of rate <code>mu</code>. All the rates are
+ * expressed in requests per millisecond, so that the times are in
+ * milliseconds. With the naive unit of the cores (a clock speed of 1.0
+ * processes 1000 instructions per second), a core at clock speed
+ * <code>s</code> processing requests of <code>n</code> instructions in mean has
+ * a service rate of <code>s / n</code>.
+ * 
+ * When the service times are not exponential, the waiting time of the M/G/c
+ * queue is approximated with the Allen-Cunneen formula, which scales the
+ * M/M/c waiting time by <code>(1 + scv) / 2</code>, <code>scv</code> being the
+ * squared coefficient of variation of the service times (1 for the
+ * exponential distribution).
+ * 
+ * <p><strong>Invariant</strong></p>
+ * 
+ * <pre>
+ * invariant	true
+ * </pre>
+ * 
+ * <p>Created on : march 2015</p>
+ * 
+ * @author	Colins-Alasca
+ * @version	$Name$ -- $Revision$ -- $Date$
+ */
+public class			QueueingModel
+{
+	/**
+	 * return the Erlang C probability that an arriving request has to wait,
+	 * computed with the numerically stable recurrence on the Erlang B formula.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	c > 0 &amp;&amp; a >= 0
+	 * post	0 &lt;= ret &amp;&amp; ret &lt;= 1
+	 * </pre>
+	 *
+	 * @param c		number of servers
+	 * @param a		offered load lambda / mu (in Erlangs)
+	 * @return		the probability of waiting, 1 if the system is unstable
+	 */
+	public static double	erlangC(int c, double a)
+	{
+		assert	c > 0 && a >= 0 ;
+
+		if (a >= c) {
+			return 1.0 ;
+		}
+		double b = 1.0 ;
+		for (int k = 1; k <= c; k++) {
+			b = a * b / (k + a * b) ;
+		}
+		double rho = a / c ;
+		return b / (1.0 - rho + rho * b) ;
+	}
+
+	/**
+	 * return the mean response time (waiting + processing) of the M/M/c queue.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	c > 0 &amp;&amp; lambda >= 0 &amp;&amp; mu > 0
+	 * post	ret > 0
+	 * </pre>
+	 *
+	 * @param c			number of servers
+	 * @param lambda	arrival rate (requests per ms)
+	 * @param mu		service rate of one server (requests per ms)
+	 * @return			the mean response time in ms, infinite if unstable
+	 */
+	public static double	meanResponseTime(int c, double lambda, double mu)
+	{
+		return meanResponseTime(c, lambda, mu, 1.0) ;
+	}
+
+	/**
+	 * return the mean response time (waiting + processing) of the M/G/c queue,
+	 * using the Allen-Cunneen approximation of the waiting time.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	c > 0 &amp;&amp; lambda >= 0 &amp;&amp; mu > 0 &amp;&amp; scv >= 0
+	 * post	ret > 0
+	 * </pre>
+	 *
+	 * @param c			number of servers
+	 * @param lambda	arrival rate (requests per ms)
+	 * @param mu		service rate of one server (requests per ms)
+	 * @param scv		squared coefficient of variation of the service times
+	 * @return			the mean response time in ms, infinite if unstable
+	 */
+	public static double	meanResponseTime(
+		int c,
+		double lambda,
+		double mu,
+		double scv
+		)
+	{
+		assert	c > 0 && lambda >= 0 && mu > 0 && scv >= 0 ;
+
+		if (lambda >= c * mu) {
+			return Double.POSITIVE_INFINITY ;
+		}
+		double waiting = erlangC(c, lambda / mu) / (c * mu - lambda) ;
+		if (scv != 1.0) {
+			waiting *= (1.0 + scv) / 2.0 ;
+		}
+		return waiting + 1.0 / mu ;
+	}
+
+	/**
+	 * return the minimal service rate of each of the <code>c</code> servers
+	 * such that the mean response time does not exceed
+	 * <code>targetResponseTime</code>, found by bisection.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	c > 0 &amp;&amp; lambda >= 0 &amp;&amp; targetResponseTime > 0
+	 * post	ret > 0
+	 * </pre>
+	 *
+	 * @param c						number of servers
+	 * @param lambda				arrival rate (requests per ms)
+	 * @param targetResponseTime	target mean response time (ms)
+	 * @return						the minimal service rate (requests per ms)
+	 */
+	public static double	minimalServiceRate(
+		int c,
+		double lambda,
+		double targetResponseTime
+		)
+	{
+		assert	c > 0 && lambda >= 0 && targetResponseTime > 0 ;
+
+		// the processing time alone must fit in the target
+		double low = Math.max(1.0 / targetResponseTime, lambda / c) ;
+		double high = 2.0 * low ;
+		while (meanResponseTime(c, lambda, high) > targetResponseTime) {
+			low = high ;
+			high *= 2.0 ;
+		}
+		for (int i = 0; i < 50; i++) {
+			double mid = (low + high) / 2.0 ;
+			if (meanResponseTime(c, lambda, mid) > targetResponseTime) {
+				low = mid ;
+			} else {
+				high = mid ;
+			}
+		}
+		return high ;
+	}
+
+	/**
+	 * return the minimal number of servers of service rate <code>mu</code>
+	 * such that the mean response time does not exceed
+	 * <code>targetResponseTime</code>, or -1 if it cannot be reached with at
+	 * most <code>maxServers</code> servers.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	lambda >= 0 &amp;&amp; mu > 0 &amp;&amp; targetResponseTime > 0
+	 * pre	maxServers > 0
+	 * post	ret == -1 || (0 &lt; ret &amp;&amp; ret &lt;= maxServers)
+	 * </pre>
+	 *
+	 * @param lambda				arrival rate (requests per ms)
+	 * @param mu					service rate of one server (requests per ms)
+	 * @param targetResponseTime	target mean response time (ms)
+	 * @param maxServers			maximum number of servers
+	 * @return						the minimal number of servers, or -1
+	 */
+	public static int		minimalNumberOfServers(
+		double lambda,
+		double mu,
+		double targetResponseTime,
+		int maxServers
+		)
+	{
+		return minimalNumberOfServers(lambda, mu, 1.0, targetResponseTime,
+									  maxServers) ;
+	}
+
+	/**
+	 * return the minimal number of servers of service rate <code>mu</code>
+	 * such that the mean response time of the M/G/c queue does not exceed
+	 * <code>targetResponseTime</code>, or -1 if it cannot be reached with at
+	 * most <code>maxServers</code> servers.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	lambda >= 0 &amp;&amp; mu > 0 &amp;&amp; scv >= 0
+	 * pre	targetResponseTime > 0 &amp;&amp; maxServers > 0
+	 * post	ret == -1 || (0 &lt; ret &amp;&amp; ret &lt;= maxServers)
+	 * </pre>
+	 *
+	 * @param lambda				arrival rate (requests per ms)
+	 * @param mu					service rate of one server (requests per ms)
+	 * @param scv					squared coefficient of variation of the
+	 * 								service times
+	 * @param targetResponseTime	target mean response time (ms)
+	 * @param maxServers			maximum number of servers
+	 * @return						the minimal number of servers, or -1
+	 */
+	public static int		minimalNumberOfServers(
+		double lambda,
+		double mu,
+		double scv,
+		double targetResponseTime,
+		int maxServers
+		)
+	{
+		assert	lambda >= 0 && mu > 0 && scv >= 0 ;
+		assert	targetResponseTime > 0 && maxServers > 0 ;
+
+		for (int c = Math.max(1, (int) Math.floor(lambda / mu)); c <= maxServers; c++) {
+			if (meanResponseTime(c, lambda, mu, scv) <= targetResponseTime) {
+				return c ;
+			}
+		}
+		return -1 ;
+	}
+}
@@ -2,20 +2,32 @@ package fr.upmc.colins.farm3.vm;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import fr.upmc.colins.farm3.VerboseSettings;
 import fr.upmc.colins.farm3.connectors.RequestServiceConnector;
 import fr.upmc.colins.farm3.connectors.ResponseServiceConnector;
 import fr.upmc.colins.farm3.core.RequestArrivalI;
 import fr.upmc.colins.farm3.core.ResponseArrivalI;
+import fr.upmc.colins.farm3.core.ResponseBatcher;
+import fr.upmc.colins.farm3.dispatcher.policy.AbstractDispatchPolicy;
+import fr.upmc.colins.farm3.dispatcher.policy.DispatchPolicy;
+import fr.upmc.colins.farm3.dispatcher.policy.DispatchTarget;
 import fr.upmc.colins.farm3.generator.RequestGeneratorOutboundPort;
+import fr.upmc.colins.farm3.log.EventLog;
+import fr.upmc.colins.farm3.log.EventType;
+import fr.upmc.colins.farm3.metrics.Counter;
+import fr.upmc.colins.farm3.metrics.Gauge;
+import fr.upmc.colins.farm3.metrics.HistogramMetric;
+import fr.upmc.colins.farm3.metrics.Metric;
+import fr.upmc.colins.farm3.metrics.MetricsRegistry;
 import fr.upmc.colins.farm3.objects.Request;
 import fr.upmc.colins.farm3.objects.Response;
-import fr.upmc.colins.farm3.utils.TimeProcessing;
+import fr.upmc.colins.farm3.objects.TraceContext;
+import fr.upmc.colins.farm3.simulation.SimulationClock;
+import fr.upmc.colins.farm3.stats.LatencyHistogram;
 import fr.upmc.components.AbstractComponent;
 import fr.upmc.components.cvm.AbstractCVM;
 import fr.upmc.components.exceptions.ComponentShutdownException;
@@ -26,8 +38,15 @@ import fr.upmc.components.exceptions.ComponentShutdownException;
  * <p><strong>Description</strong></p>
  * A virtual machine is a component that will make its cores execute the request.
  * The request are received from the request dispatcher.
- * The virtual machine will chose the least recently used cores to execute the request.
+ * The core executing a request is chosen by a pluggable
+ * <code>DispatchPolicy</code> (round-robin by default), relying on the number
+ * of requests in flight on each core which is maintained from the response
+ * arrival events.
  * 
+ * A request is dispatched as soon as it arrives and the virtual machine
+ * answers with the outcome of the dispatch: a request rejected by all the
+ * cores is rejected by the virtual machine, so that the request dispatcher
+ * never waits for a response which will not come.
  * 
  * <p>Created on : jan. 2015</p>
  * 
@@ -47,22 +66,26 @@ extends		AbstractComponent
 
 	/** identifier 															*/
 	protected final Integer 				id;
-	/** true if the virtual machine is idle otherwise false.				*/
-	protected boolean						vmIdle ;
-	/** request currently being serviced, null if any.						*/
-	protected Request						servicing ;
-	/** queue of pending requests.											*/
-	protected BlockingQueue<Request>		requestsQueue ;
-	/** sum of the service time of all completed requets.					*/
-	protected long							totalServicingTime ;
-	/** total number of completely serviced requests.						*/
-	protected int							totalNumberOfServicedRequests ;
+	/** histogram of the times from the arrival to the response			*/
+	protected LatencyHistogram				responseTimes ;
+	/** number of requests received											*/
+	protected Counter						nrofRequests ;
+	/** number of responses received										*/
+	protected Counter						nrofResponses ;
+	/** metrics registered by the virtual machine							*/
+	protected List<Metric>					metrics ;
 	
 	
 	/** inbound port for the request generator								*/
 	protected VMInboundPort 	raip;
 	/** outbound ports to the core											*/
-	protected Queue<RequestGeneratorOutboundPort> rgops;
+	protected ArrayList<RequestGeneratorOutboundPort> rgops;
+	/** dispatch targets, one per core										*/
+	protected ArrayList<DispatchTarget> targets;
+	/** policy choosing the core of the next request						*/
+	protected DispatchPolicy policy;
+	/** target of each request sent and not yet answered, by request uri	*/
+	protected Map<Integer, DispatchTarget> pendingTargets;
 
 	/** inbound ports for each cores (to obtain the response) 				*/
 	protected ArrayList<VMResponseArrivalInboundPort> respAips;
@@ -70,6 +93,9 @@ extends		AbstractComponent
 	/** outbound port of the VM to send response to the request dispatcher	*/
 	protected VMResponseGeneratorOutboundPort vmResponseGeneratorOutboundPort;
 
+	/** batcher of the responses sent to the request dispatcher				*/
+	protected ResponseBatcher responseBatcher;
+
 	/** this is true until the first request arrival event					*/
 	protected boolean cold = true;
 
@@ -94,13 +120,16 @@ extends		AbstractComponent
 	 * 				URI of the ports used to send requests, linked to the core
 	 * @param coreRequestArrivalInboundPortUris 
 	 * 				URIs of the port to the core
+	 * @param dispatchPolicy 
+	 * 				canonical name of the class of the dispatch policy
 	 * @throws Exception
 	 */
 	public				VM(
 		Integer id,
 		String inboundPortURI,
 		ArrayList<String> outboundPortURIs,
-		ArrayList<String> coreRequestArrivalInboundPortUris
+		ArrayList<String> coreRequestArrivalInboundPortUris,
+		String dispatchPolicy
 		) throws Exception
 	{
 		super(true, true) ;
@@ -111,11 +140,7 @@ extends		AbstractComponent
 		
 		this.logId = MessageFormat.format("[   VM {0}  ]", String.format("%04d", id));
 		this.id = id ;
-		this.vmIdle = true ;
-		this.servicing = null ;
-		this.requestsQueue = new LinkedBlockingQueue<Request>() ;
-		this.totalServicingTime = 0L ;
-		this.totalNumberOfServicedRequests = 0 ;
+		this.responseTimes = new LatencyHistogram() ;
 
 		// inbound port for request arrival
 		this.addOfferedInterface(RequestArrivalI.class) ;
@@ -127,7 +152,10 @@ extends		AbstractComponent
 			this.raip.localPublishPort() ;
 		}
 		
-		this.rgops = new LinkedList<>();
+		this.rgops = new ArrayList<>();
+		this.targets = new ArrayList<>();
+		this.policy = AbstractDispatchPolicy.newInstance(dispatchPolicy);
+		this.pendingTargets = new ConcurrentHashMap<>();
 		this.respAips = new ArrayList<>();
 		// interface is added once.
 		this.addRequiredInterface(RequestArrivalI.class) ;
@@ -141,6 +169,7 @@ extends		AbstractComponent
 			// outbound port for request departure (into a core)
 			RequestGeneratorOutboundPort rgop = new RequestGeneratorOutboundPort(outboundPortURI, this);
 			this.rgops.add(rgop) ;
+			this.targets.add(new DispatchTarget(rgop, 1)) ;
 			this.addPort(rgop) ;
 			if (AbstractCVM.isDistributed) {
 				rgop.publishPort() ;
@@ -172,6 +201,8 @@ extends		AbstractComponent
 		this.addRequiredInterface(ResponseArrivalI.class);
 		this.vmResponseGeneratorOutboundPort = new VMResponseGeneratorOutboundPort(inboundPortURI + "response", this);
 		this.addPort(vmResponseGeneratorOutboundPort);
+		this.responseBatcher = new ResponseBatcher(this,
+				this.vmResponseGeneratorOutboundPort);
 		
 		if(AbstractCVM.isDistributed){
 			vmResponseGeneratorOutboundPort.publishPort();
@@ -179,12 +210,41 @@ extends		AbstractComponent
 			vmResponseGeneratorOutboundPort.localPublishPort();
 		}
 		
+		this.registerMetrics() ;
+
 		System.out.println(logId + " Virtual machine (id " + id + ") created") ;
 		
 		assert	id != null;
-		assert	!vmIdle || (servicing == null) ;
-		assert	vmIdle || (servicing != null) ;
-		assert	totalServicingTime >= 0 && totalNumberOfServicedRequests >= 0 ;
+	}
+
+	/**
+	 * register the metrics of the virtual machine: its throughput, its number
+	 * of requests in flight on its cores and its response times.
+	 */
+	protected void		registerMetrics()
+	{
+		final VM fvm = this ;
+		String labels = "vm=\"" + this.id + "\"" ;
+		this.metrics = new ArrayList<>() ;
+		this.nrofRequests = new Counter("vm_requests_total", labels,
+				"requests received by the virtual machine") ;
+		this.nrofResponses = new Counter("vm_responses_total", labels,
+				"responses received from the cores") ;
+		this.metrics.add(this.nrofRequests) ;
+		this.metrics.add(this.nrofResponses) ;
+		this.metrics.add(new Gauge("vm_in_flight", labels,
+				"requests sent to the cores and not yet answered") {
+			@Override
+			public double getValue() {
+				return fvm.pendingTargets.size() ;
+			}
+		}) ;
+		this.metrics.add(new HistogramMetric("vm_response_time_seconds", labels,
+				"times from the arrival of the requests to their response",
+				this.responseTimes)) ;
+		for (Metric m : this.metrics) {
+			MetricsRegistry.getDefault().register(m) ;
+		}
 	}
 
 	// -------------------------------------------------------------------------
@@ -211,15 +271,26 @@ extends		AbstractComponent
 		try {
 			for (RequestGeneratorOutboundPort rgop : rgops) {
 				if (rgop.connected()) {
+					// release the cores so that they can be assigned to
+					// another virtual machine
+					if (!this.cold) {
+						rgop.disconnectResponseConnection();
+					}
 					rgop.doDisconnection();
 				}
 			}
 			if (this.vmResponseGeneratorOutboundPort.connected()) {
+				this.responseBatcher.flush();
 				this.vmResponseGeneratorOutboundPort.doDisconnection();
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
+		MetricsRegistry.getDefault().unregister(this.metrics) ;
+		if (VerboseSettings.VERBOSE_VM && this.responseTimes.getCount() > 0) {
+			System.out.println(logId + " Response time : "
+						+ this.responseTimes.getSnapshot().toPercentileString()) ;
+		}
 		super.shutdown();		
 	}
 
@@ -228,8 +299,10 @@ extends		AbstractComponent
 	// -------------------------------------------------------------------------
 
 	/**
-	 * process a request arrival event, queueing the request and the processing
-	 * a begin sericing event if the server is currently idle.
+	 * process a request arrival event, dispatching the request to a core at
+	 * once: the request is not queued in the virtual machine, so that the
+	 * caller gets the actual outcome of the dispatch and can try another
+	 * virtual machine when all the cores rejected it.
 	 * 
 	 * <p><strong>Contract</strong></p>
 	 * 
@@ -239,119 +312,154 @@ extends		AbstractComponent
 	 * </pre>
 	 *
 	 * @param r
+	 * @return the admission outcome of the request
 	 * @throws Exception
 	 */
-	public void			requestArrivalEvent(Request r) throws Exception
+	public int			requestArrivalEvent(Request r) throws Exception
 	{
 		assert	r != null ;
 
 		// ask the core to do the connection to the inbound port of the VM (for response)
 		if(cold){
-			RequestGeneratorOutboundPort[] rgopsArray = rgops.toArray(new RequestGeneratorOutboundPort[0]);
 			for (int i = 0; i < respAips.size(); i++) {
 				VMResponseArrivalInboundPort vmRespAip = respAips.get(i);
-				rgopsArray[i].connectResponseConnection(vmRespAip.getPortURI());
+				rgops.get(i).connectResponseConnection(vmRespAip.getPortURI());
 			}
 			cold = false;
 		}
 		
-		long t = System.currentTimeMillis() ;
+		long t = SimulationClock.currentTimeMillis() ;
+		this.nrofRequests.inc() ;
 
 		r.setArrivalTime(t) ;
-		this.requestsQueue.add(r) ;
-		if (!this.vmIdle) {
-			if(VerboseSettings.VERBOSE_VM)
-				System.out.println(logId + " Queueing request " + r) ;
-		} else {
-			this.beginServicingEvent() ;
-		}
+		r.getTrace().mark(TraceContext.VM_ENQUEUE) ;
+		return this.dispatchEvent(r) ;
 	}
 
 	
 	/**
-	 * process a begin servicing event, e.g. schedule a end servicing event
-	 * after a delay of the processing time of the request.
+	 * process the arrival of a batch of requests, in their order of arrival.
 	 * 
 	 * <p><strong>Contract</strong></p>
 	 * 
 	 * <pre>
-	 * pre	true			// no precondition.
-	 * post	true			// no postcondition.
+	 * pre	requests != null
+	 * post	ret.length == requests.size()
 	 * </pre>
 	 *
+	 * @param requests	the requests of the batch
+	 * @return			the admission outcome of each request
+	 * @throws Exception
 	 */
-	public void			beginServicingEvent()
+	public int[]		requestArrivalEvents(List<Request> requests) throws Exception
 	{
-		this.servicing = this.requestsQueue.remove() ; 
-		scheduleServicing(this.servicing);
+		int[] outcomes = new int[requests.size()] ;
+		for (int i = 0; i < outcomes.length; i++) {
+			outcomes[i] = this.requestArrivalEvent(requests.get(i)) ;
+		}
+		return outcomes ;
 	}
-	
+
 	/**
-	 * schedule the request contained in the servicing field as a task.
-	 * called by beginServicingEvent and also by endServicingEvent
+	 * process a dispatch event, e.g. send the request to the core chosen by
+	 * the dispatch policy, the other cores being tried if it rejects it.
+	 * 
+	 * <p><strong>Contract</strong></p>
+	 * 
+	 * <pre>
+	 * pre	request != null
+	 * post	true			// no postcondition.
+	 * </pre>
+	 *
 	 * @param request the request to pass to a core
+	 * @return the admission outcome of the request
 	 */
-	private void		scheduleServicing(Request request){
-		
-		this.vmIdle = false ;
+	protected int		dispatchEvent(Request request)
+	{
+		int outcome = RequestArrivalI.REJECTED ;
 		try {
-
-			if(VerboseSettings.VERBOSE_VM)
-				System.out.println(logId + " Dispatching request     "
-						+ this.servicing + " at "
-						+ TimeProcessing.toString(System.currentTimeMillis())) ;
-			RequestGeneratorOutboundPort rgop = this.rgops.poll();		
-			rgop.acceptRequest(request);
-			this.rgops.add(rgop);
-			this.endServicingEvent() ;
+			EventLog.log(EventType.VM_DISPATCH, this.id, request.getUri()) ;
+			outcome = DispatchTarget.dispatch(this.policy, this.targets,
+					this.pendingTargets, request);
+			if (outcome == RequestArrivalI.REJECTED) {
+				EventLog.log(EventType.VM_REJECT, this.id, request.getUri()) ;
+			}
 		} catch (Exception e) {
 			e.printStackTrace();
 		}	
+		return outcome ;
 	}
-	
+
+	/**
+	 * update the number of requests in flight on the core which processed
+	 * the request and forward the response to the request dispatcher
+	 * @param response the received response
+	 */
+	public void 			responseArrivalEvent(Response response) throws Exception {
+		this.recordResponse(response);
+		//		System.out.println(logId + " Received a response from core");
+		// forward the response to the request dispatcher
+
+		if (this.vmResponseGeneratorOutboundPort.connected()) {
+			this.responseBatcher.send(response);
+		}
+	}
+
 	/**
-	 * process a end servicing event, e.g. update the statistics for the average
-	 * service time, and then if the queue is not empty execute a begin
-	 * servicing event immediately.
+	 * process the arrival of a batch of responses, forwarded to the request
+	 * dispatcher as a whole when the responses are not batched by the
+	 * virtual machine itself.
 	 * 
 	 * <p><strong>Contract</strong></p>
 	 * 
 	 * <pre>
-	 * pre	true			// no precondition.
+	 * pre	responses != null
 	 * post	true			// no postcondition.
 	 * </pre>
 	 *
+	 * @param responses	the responses of the batch
 	 * @throws Exception
 	 */
-	public void			endServicingEvent() throws Exception
-	{
-		long t = System.currentTimeMillis() ;
-		long st = t - this.servicing.getArrivalTime() ; 
-		this.totalServicingTime += st ;
-		this.totalNumberOfServicedRequests++ ;
-				
-		if (this.requestsQueue.isEmpty()) {
-			this.servicing = null ;
-			this.vmIdle = true ;
-		} else {
-			this.beginServicingEvent() ;
+	public void 			responseArrivalEvents(List<Response> responses) throws Exception {
+		for (Response response : responses) {
+			this.recordResponse(response);
+		}
+		if (this.vmResponseGeneratorOutboundPort.connected()) {
+			this.responseBatcher.sendAll(responses);
 		}
 	}
 
 	/**
-	 * update the mean time of request processing (inside the virtual machine)
-	 * and forward the new mean time to the request dispatcher
+	 * update the number of requests in flight on the core which processed
+	 * the request and the response time statistics.
 	 * @param response the received response
 	 */
-	public void 			responseArrivalEvent(Response response) throws Exception {
-		//		System.out.println(logId + " Received a response from core");
-		// forward the response to the request dispatcher
-
-		if (this.vmResponseGeneratorOutboundPort.connected()) {
-			this.vmResponseGeneratorOutboundPort.acceptResponse(response);
+	protected void 			recordResponse(Response response) {
+		DispatchTarget target = this.pendingTargets.remove(response.getUri());
+		if (target != null) {
+			target.responseReceived(response.getClockSpeed());
+		}
+		this.nrofResponses.inc();
+		if (response.getTrace() != null) {
+			long enqueued = response.getTrace().getStamp(TraceContext.VM_ENQUEUE);
+			if (enqueued > 0) {
+				this.responseTimes.recordValue(SimulationClock.epochNanos() - enqueued);
+			}
 		}
 	}
 	
+	/**
+	 * return the histogram of the times from the arrival of the requests in
+	 * the virtual machine to the arrival of their response; it may be read
+	 * while the virtual machine records new values.
+	 *
+	 * @return	the histogram of the response times
+	 */
+	public LatencyHistogram	getResponseTimeHistogram()
+	{
+		return this.responseTimes ;
+	}
+
 	/**
 	 * Connect the virtual machine for response connection
 	 * @param furi	uri of outbound port of the virtual machine
@@ -368,4 +476,17 @@ extends		AbstractComponent
 					.doConnection(furi, ResponseServiceConnector.class.getCanonicalName());
 		}
 	}
+
+	/**
+	 * Disconnect the response connection from the request dispatcher, after
+	 * sending the responses waiting in the batcher
+	 * @throws Exception
+	 */
+	public void disconnectResponseConnection() throws Exception 
+	{
+		if (this.vmResponseGeneratorOutboundPort.connected()) {
+			this.responseBatcher.flush();
+			this.vmResponseGeneratorOutboundPort.doDisconnection();
+		}
+	}
 }
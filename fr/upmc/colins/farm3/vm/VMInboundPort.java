@@ -1,7 +1,10 @@
 package fr.upmc.colins.farm3.vm;
 
+import java.util.ArrayList;
+
 import fr.upmc.colins.farm3.core.RequestArrivalI;
 import fr.upmc.colins.farm3.objects.Request;
+import fr.upmc.colins.farm3.simulation.SimulationClock;
 import fr.upmc.components.ComponentI;
 import fr.upmc.components.ComponentI.ComponentService;
 import fr.upmc.components.ports.AbstractInboundPort;
@@ -64,16 +67,33 @@ implements	RequestArrivalI
 	 * @see fr.upmc.alasca.ssqueue.interfaces.RequestArrivalI#acceptRequest(fr.upmc.alasca.ssqueue.objects.Request)
 	 */
 	@Override
-	public void			acceptRequest(Request c) throws Exception
+	public int			acceptRequest(Request c) throws Exception
 	{
 		final VM sp = (VM) this.owner ;
 		final Request fc = c ;
-		sp.handleRequestAsync(
-				new ComponentService<Void>() {
+		// synchronous, as the outcome depends on the cores accepting it
+		return sp.handleRequestSync(
+				new ComponentService<Integer>() {
 					@Override
-					public Void call() throws Exception {
-						sp.requestArrivalEvent(fc);
-						return null;
+					public Integer call() throws Exception {
+						return sp.requestArrivalEvent(fc);
+					}
+				}) ;
+	}
+
+	/**
+	 * @see fr.upmc.colins.farm3.core.RequestArrivalI#acceptRequests(java.util.ArrayList)
+	 */
+	@Override
+	public int[]		acceptRequests(ArrayList<Request> requests) throws Exception
+	{
+		final VM sp = (VM) this.owner ;
+		final ArrayList<Request> frequests = requests ;
+		return sp.handleRequestSync(
+				new ComponentService<int[]>() {
+					@Override
+					public int[] call() throws Exception {
+						return sp.requestArrivalEvents(frequests);
 					}
 				}) ;
 	}
@@ -83,7 +103,7 @@ implements	RequestArrivalI
 	{
 		final VM sp = (VM) this.owner ;
 		final String furi = responseArrivalInboundPortUri ;
-		sp.handleRequestAsync(
+		SimulationClock.submit(sp,
 				new ComponentService<Void>() {
 					@Override
 					public Void call() throws Exception {
@@ -93,5 +113,18 @@ implements	RequestArrivalI
 				}) ;
 	}
 
+	@Override
+	public void disconnectResponseConnection() throws Exception {
+		final VM sp = (VM) this.owner ;
+		SimulationClock.submit(sp,
+				new ComponentService<Void>() {
+					@Override
+					public Void call() throws Exception {
+						sp.disconnectResponseConnection();
+						return null;
+					}
+				}) ;
+	}
+
 
 }
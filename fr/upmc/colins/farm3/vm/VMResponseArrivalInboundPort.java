@@ -1,7 +1,10 @@
 package fr.upmc.colins.farm3.vm;
 
+import java.util.ArrayList;
+
 import fr.upmc.colins.farm3.core.ResponseArrivalI;
 import fr.upmc.colins.farm3.objects.Response;
+import fr.upmc.colins.farm3.simulation.SimulationClock;
 import fr.upmc.components.ComponentI;
 import fr.upmc.components.ComponentI.ComponentService;
 import fr.upmc.components.ports.AbstractInboundPort;
@@ -63,7 +66,7 @@ implements	ResponseArrivalI
 	public void acceptResponse(Response resp) throws Exception {
 		final VM sp = (VM) this.owner ;
 		final Response fresp = resp ;
-		sp.handleRequestAsync(
+		SimulationClock.submit(sp,
 				new ComponentService<Void>() {
 					@Override
 					public Void call() throws Exception {
@@ -73,5 +76,19 @@ implements	ResponseArrivalI
 				}) ;
 	}
 
+	@Override
+	public void acceptResponses(ArrayList<Response> resps) throws Exception {
+		final VM sp = (VM) this.owner ;
+		final ArrayList<Response> fresps = resps ;
+		SimulationClock.submit(sp,
+				new ComponentService<Void>() {
+					@Override
+					public Void call() throws Exception {
+						sp.responseArrivalEvents(fresps);
+						return null;
+					}
+				}) ;
+	}
+
 
 }
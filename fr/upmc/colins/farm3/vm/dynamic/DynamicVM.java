@@ -2,12 +2,21 @@ package fr.upmc.colins.farm3.vm.dynamic;
 
 import java.util.ArrayList;
 
+import fr.upmc.colins.farm3.admission.ComponentTeardownI;
+import fr.upmc.colins.farm3.admission.ComponentTeardownInboundPort;
 import fr.upmc.colins.farm3.vm.VM;
+import fr.upmc.components.cvm.AbstractCVM;
 
 /**
  * The class <code>DynamicVM</code> implements the dynamic version of
  * the <code>VM</code> component.
  * 
+ * <p><strong>Description</strong></p>
+ * 
+ * The dynamic virtual machine also offers a teardown port, through which the
+ * admission control shuts it down when the application it serves is
+ * released.
+ * 
  * <p><strong>Invariant</strong></p>
  * 
  * <pre>
@@ -23,13 +32,29 @@ public class			DynamicVM
 extends VM
 {
 
+	/** inbound port through which the admission control tears it down	*/
+	protected ComponentTeardownInboundPort teardownInboundPort;
+
 	public DynamicVM(
 			Integer id, 
 			String inboundPortURI,
 			ArrayList<String> outboundPortURIs,
-			ArrayList<String> coreRequestArrivalInboundPortUris
+			ArrayList<String> coreRequestArrivalInboundPortUris,
+			String dispatchPolicy,
+			String teardownInboundPortURI
 			) throws Exception {
-		super(id, inboundPortURI, outboundPortURIs, coreRequestArrivalInboundPortUris);
+		super(id, inboundPortURI, outboundPortURIs, coreRequestArrivalInboundPortUris,
+				dispatchPolicy);
+
+		this.addOfferedInterface(ComponentTeardownI.class);
+		this.teardownInboundPort = new ComponentTeardownInboundPort(
+				teardownInboundPortURI, this);
+		this.addPort(this.teardownInboundPort);
+		if (AbstractCVM.isDistributed) {
+			this.teardownInboundPort.publishPort();
+		} else {
+			this.teardownInboundPort.localPublishPort();
+		}
 
 	}
 